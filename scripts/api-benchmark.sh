@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+#
+# Compares throughput and latency of the servlet and the reactive stacks under the same load, and optionally of the
+# in-memory device store (memory profile) against MySQL.
+# Each stack is started from the same jar, loaded with hey (https://github.com/rakyll/hey) and stopped.
+# MySQL must be reachable with the same settings the application uses and hold some devices (e.g. the dev seed).
+# The memory stack fills itself with the synthetic dataset; to compare like with like, load the same dataset into
+# MySQL first with the dataset profile and truncate enabled.
+#
+# Usage:
+#   scripts/api-benchmark.sh <jar> [extra profiles]
+#
+# Environment:
+#   REQUESTS     requests per scenario (default 20000)
+#   CONCURRENCY  concurrent clients (default 200)
+#   STACKS       stacks to run, any of servlet, reactive and memory (default "servlet reactive")
+#   APP_ARGS     extra application arguments for every stack, e.g. --app.page-cache.maximum-size=0B to measure
+#                the repositories rather than the page cache
+#
+# Examples:
+#   scripts/api-benchmark.sh target/coding-task-0.0.1-SNAPSHOT.jar dev
+#   STACKS="servlet memory" APP_ARGS=--app.page-cache.maximum-size=0B scripts/api-benchmark.sh target/coding-task-0.0.1-SNAPSHOT.jar
+#   # by-id and lookup with and without the rendered device JSON
+#   STACKS=memory scripts/api-benchmark.sh target/coding-task-0.0.1-SNAPSHOT.jar
+#   STACKS=memory APP_ARGS=--app.json-cache.maximum-size=0B scripts/api-benchmark.sh target/coding-task-0.0.1-SNAPSHOT.jar
+set -euo pipefail
+
+JAR=${1:?path to the application jar}
+EXTRA_PROFILES=${2:-}
+PORT=${SERVER_PORT:-8081}
+BASE=http://localhost:$PORT/v1/devices
+REQUESTS=${REQUESTS:-20000}
+CONCURRENCY=${CONCURRENCY:-200}
+STACKS=${STACKS:-servlet reactive}
+APP_ARGS=${APP_ARGS:-}
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+command -v hey >/dev/null || { echo "hey is required: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+
+run() {
+  local name=$1
+  shift
+  hey -n "$REQUESTS" -c "$CONCURRENCY" "$@" | awk -v name="$name" '
+    /Requests\/sec/ { rps = $2 }
+    /50%? in/ { p50 = $3 }
+    /99%? in/ { p99 = $3 }
+    /^ *\[[0-9]+\]/ { codes = codes " " $1 $2 }
+    END { printf "  %-10s %10s req/s   p50 %8ss   p99 %8ss  %s\n", name, rps, p50, p99, codes }'
+}
+
+for stack in $STACKS; do
+  profiles=$EXTRA_PROFILES
+  args=$APP_ARGS
+  case $stack in
+    reactive) profiles=${profiles:+$profiles,}reactive ;;
+    memory)
+      profiles=${profiles:+$profiles,}memory
+      args="$args --app.memory-store.load-dataset=true" ;;
+  esac
+
+  # shellcheck disable=SC2086
+  java -jar "$JAR" --spring.profiles.active="$profiles" --server.port="$PORT" $args >"$LOG" 2>&1 &
+  pid=$!
+  until curl -fs -o /dev/null "$BASE?size=1"; do
+    kill -0 "$pid" 2>/dev/null || { echo "$stack stack failed to start, log follows" >&2; cat "$LOG" >&2; exit 1; }
+    sleep 0.5
+  done
+
+  # warm up the JIT and the connection pools before measuring
+  hey -n 5000 -c 50 "$BASE/1" >/dev/null
+
+  echo "$stack (${profiles:-default profiles}), $REQUESTS requests, $CONCURRENCY clients:"
+  run list "$BASE?size=20&sort=createdAt,desc"
+  run filter "$BASE?brand=tech&state=avail&size=20&sort=name"
+  run by-id "$BASE/1"
+  run lookup -m POST -T application/json -d '{"ids": [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]}' "$BASE/lookup"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+done
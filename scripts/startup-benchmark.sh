@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+#
+# Reports time-to-first-request: wall time from JVM launch until the API answers a request.
+# MySQL must be reachable with the same settings the application uses.
+#
+# Usage:
+#   scripts/startup-benchmark.sh <runs> <java command...>
+#
+# Examples:
+#   # plain fat jar
+#   scripts/startup-benchmark.sh 5 java -jar target/coding-task-0.0.1-SNAPSHOT.jar
+#
+#   # AOT + CDS (build with -Pprod, then extract and train as done in the Dockerfile)
+#   scripts/startup-benchmark.sh 5 java -XX:SharedArchiveFile=app/task.jsa -Dspring.aot.enabled=true \
+#       -Dspring.profiles.active=prod -jar app/task.jar
+set -euo pipefail
+
+RUNS=${1:?number of runs}
+shift
+URL=${URL:-http://localhost:${SERVER_PORT:-8081}/v1/devices?size=1}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+total=0
+for run in $(seq 1 "$RUNS"); do
+  start=$(date +%s%N)
+  "$@" >"$LOG" 2>&1 &
+  pid=$!
+
+  deadline=$((start + TIMEOUT_SECONDS * 1000000000))
+  until curl -fs -o /dev/null "$URL"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "run $run: application exited before serving a request, log follows" >&2
+      cat "$LOG" >&2
+      exit 1
+    fi
+    if [ "$(date +%s%N)" -gt "$deadline" ]; then
+      echo "run $run: no response after ${TIMEOUT_SECONDS}s" >&2
+      kill "$pid"
+      exit 1
+    fi
+    sleep 0.02
+  done
+  elapsed=$((($(date +%s%N) - start) / 1000000))
+
+  started=$(grep -o 'Started [A-Za-z]* in [0-9.]* seconds' "$LOG" | grep -o '[0-9.]* seconds' || echo "n/a")
+  echo "run $run: first request after ${elapsed} ms (spring reported ${started})"
+  total=$((total + elapsed))
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+done
+
+echo "average time-to-first-request: $((total / RUNS)) ms over $RUNS runs"
@@ -0,0 +1,42 @@
+package com.cpsoneghett.codingtask.bulkhead;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Permits of the workloads, and how long an operation waits for one before it is rejected. The sum of the permits
+ * must not exceed the connection pool size, so every workload always finds a connection for each of its permits,
+ * whatever the others do; startup fails otherwise. Leave a few connections on top for what takes no permit: the JDBC
+ * idempotency store, the periodic rebuilds of the id filter, brand index and brand dictionary, and brand
+ * registrations, which take a second connection inside a write.
+ */
+@ConfigurationProperties(prefix = "app.bulkheads")
+public record BulkheadProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("5") int interactivePermits,
+        @DefaultValue("PT0.1S") Duration interactiveMaxWait,
+        @DefaultValue("3") int writePermits,
+        @DefaultValue("PT0.5S") Duration writeMaxWait,
+        @DefaultValue("2") int bulkPermits,
+        @DefaultValue("PT0S") Duration bulkMaxWait,
+        @DefaultValue("3") int backgroundPermits,
+        @DefaultValue("PT30S") Duration backgroundMaxWait) {
+
+    record Limit(int permits, Duration maxWait) {
+    }
+
+    Limit limitOf(Workload workload) {
+        return switch (workload) {
+            case INTERACTIVE -> new Limit(interactivePermits, interactiveMaxWait);
+            case WRITE -> new Limit(writePermits, writeMaxWait);
+            case BULK -> new Limit(bulkPermits, bulkMaxWait);
+            case BACKGROUND -> new Limit(backgroundPermits, backgroundMaxWait);
+        };
+    }
+
+    int totalPermits() {
+        return interactivePermits + writePermits + bulkPermits + backgroundPermits;
+    }
+}
@@ -0,0 +1,105 @@
+package com.cpsoneghett.codingtask.bulkhead;
+
+import com.cpsoneghett.codingtask.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many operations of each {@link Workload} run at once. All workloads share one connection pool, and the
+ * permits split it between them: a burst of listings can only take the connections of the bulk permits, so reads of
+ * single devices and writes keep theirs instead of queueing in the pool behind the scans, and a backlog of history
+ * entries or imports only takes the connections of the background permits.
+ * <p>
+ * Operations waiting longer than their workload's {@code maxWait} for a permit are rejected with a
+ * {@link BulkheadFullException} rather than piling up request threads. Permits must be taken before the operation's
+ * transaction starts, as starting it already takes a connection.
+ */
+@Component
+public class Bulkheads {
+
+    private final boolean enabled;
+    private final Map<Workload, Bulkhead> bulkheads = new EnumMap<>(Workload.class);
+
+    /**
+     * @param poolSize size of the connection pool the permits split
+     */
+    public Bulkheads(BulkheadProperties properties,
+                     @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                     MeterRegistry meterRegistry) {
+        if (properties.enabled() && properties.totalPermits() > poolSize)
+            throw new IllegalStateException("The app.bulkheads permits add up to " + properties.totalPermits()
+                    + ", more than the " + poolSize + " connections of the pool");
+
+        this.enabled = properties.enabled();
+        for (Workload workload : Workload.values()) {
+            bulkheads.put(workload, new Bulkhead(workload, properties.limitOf(workload), meterRegistry));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Operation<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    public <T, E extends Exception> T call(Workload workload, Operation<T, E> operation) throws E {
+        if (!enabled) return operation.run();
+
+        Bulkhead bulkhead = bulkheads.get(workload);
+        bulkhead.acquire();
+        try {
+            return operation.run();
+        } finally {
+            bulkhead.permits.release();
+        }
+    }
+
+    private static final class Bulkhead {
+
+        private final String name;
+        private final BulkheadProperties.Limit limit;
+        private final Semaphore permits;
+        private final Timer acquired;
+        private final Timer rejected;
+
+        Bulkhead(Workload workload, BulkheadProperties.Limit limit, MeterRegistry meterRegistry) {
+            this.name = workload.name().toLowerCase(Locale.ROOT);
+            this.limit = limit;
+            // fair, so the wait of a permit is the time spent behind the operations that asked before
+            this.permits = new Semaphore(limit.permits(), true);
+
+            acquired = Timer.builder("device.bulkhead.wait").tag("workload", name).tag("result", "acquired")
+                    .description("Time waited for a permit of the workload").register(meterRegistry);
+            rejected = Timer.builder("device.bulkhead.wait").tag("workload", name).tag("result", "rejected")
+                    .description("Time waited for a permit of the workload").register(meterRegistry);
+            Gauge.builder("device.bulkhead.active", permits, p -> limit.permits() - p.availablePermits())
+                    .tag("workload", name).register(meterRegistry);
+        }
+
+        void acquire() {
+            long start = System.nanoTime();
+            boolean granted;
+            try {
+                granted = permits.tryAcquire(limit.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                granted = false;
+            }
+
+            long waited = System.nanoTime() - start;
+            if (!granted) {
+                rejected.record(waited, TimeUnit.NANOSECONDS);
+                throw new BulkheadFullException(name);
+            }
+            acquired.record(waited, TimeUnit.NANOSECONDS);
+        }
+    }
+}
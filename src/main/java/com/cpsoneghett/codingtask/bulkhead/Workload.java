@@ -0,0 +1,28 @@
+package com.cpsoneghett.codingtask.bulkhead;
+
+/**
+ * Classes of database work, each limited by its own {@link Bulkheads bulkhead}.
+ */
+public enum Workload {
+
+    /**
+     * Single device and lookup reads, answered while a user or client waits.
+     */
+    INTERACTIVE,
+
+    /**
+     * Creates, updates and deletes.
+     */
+    WRITE,
+
+    /**
+     * Listings and syncs, which scan many rows and hold their connection the longest.
+     */
+    BULK,
+
+    /**
+     * Work nobody waits for: history writers, import workers, state report flushes, the lease reaper and the
+     * tombstone purger.
+     */
+    BACKGROUND
+}
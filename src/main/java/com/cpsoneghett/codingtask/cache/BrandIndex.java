@@ -0,0 +1,131 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Brands and how many devices each has, for suggesting brands as users type without querying the database. Counts are
+ * kept by the exact brand name, as the brand dictionary compares names byte by byte and keeps "SAP" and "Sap" apart.
+ * For suggestions, every brand is also in a skip list by its lower case name, followed by its exact name to keep
+ * brands differing only in case apart, so the brands starting with a prefix in any case are one contiguous range,
+ * found in logarithmic time, and counts change without blocking readers.
+ * <p>
+ * The counts are loaded at startup and rebuilt periodically, and follow the writes of this node in between, so writes
+ * made through other nodes show up with the next rebuild. Writes racing with a rebuild can leave a count off by them
+ * until the one after. Until the first build completes no brand is suggested.
+ */
+@Component
+public class BrandIndex {
+
+    public static final int MAX_SUGGESTIONS = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(BrandIndex.class);
+
+    private final DeviceRepository deviceRepository;
+
+    private volatile Brands current = new Brands();
+    private volatile Brands building;
+
+    public BrandIndex(DeviceRepository deviceRepository) {
+        this.deviceRepository = deviceRepository;
+    }
+
+    /**
+     * Brands with devices whose name starts with the prefix, ignoring case, in name order. An empty prefix matches
+     * every brand.
+     */
+    public List<BrandCountDto> suggest(String prefix, int limit) {
+        String start = prefix != null ? fold(prefix.trim()) : "";
+        int size = Math.clamp(limit, 1, MAX_SUGGESTIONS);
+
+        List<BrandCountDto> suggestions = new ArrayList<>(size);
+        for (Map.Entry<String, Brand> entry : current.byFoldedName().tailMap(start).entrySet()) {
+            if (!entry.getKey().startsWith(start) || suggestions.size() == size) break;
+
+            long devices = entry.getValue().devices().get();
+            if (devices > 0) suggestions.add(new BrandCountDto(entry.getValue().name(), devices));
+        }
+        return suggestions;
+    }
+
+    @EventListener
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        String brand = event.device().getBrand();
+        switch (event.type()) {
+            case CREATED -> count(brand, 1);
+            case DELETED -> count(brand, -1);
+            case UPDATED -> {
+                if (event.previousBrand() != null && !event.previousBrand().equals(brand)) {
+                    count(event.previousBrand(), -1);
+                    count(brand, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Brands whose devices were all deleted are dropped here. Writes made while the counts are loaded go to both
+     * indexes.
+     */
+    @Scheduled(fixedDelayString = "${app.brand-index.rebuild-interval:PT10M}")
+    public synchronized void rebuild() {
+        long startedAt = System.nanoTime();
+        Brands next = new Brands();
+        building = next;
+
+        List<BrandCountDto> counts = deviceRepository.countDevicesPerBrand();
+        for (BrandCountDto count : counts) count(next, count.brand(), count.devices());
+
+        current = next;
+        building = null;
+
+        log.info("Brand index rebuilt with {} brands in {} ms", counts.size(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private void count(String brand, long delta) {
+        count(current, brand, delta);
+
+        Brands next = building;
+        if (next != null) count(next, brand, delta);
+    }
+
+    private static void count(Brands brands, String brand, long delta) {
+        if (brand == null) return;
+        brands.byName().computeIfAbsent(brand, name -> {
+            Brand created = new Brand(name, new AtomicLong());
+            brands.byFoldedName().put(fold(name) + '\0' + name, created);
+            return created;
+        }).devices().addAndGet(delta);
+    }
+
+    private static String fold(String brand) {
+        return brand.toLowerCase(Locale.ROOT);
+    }
+
+    private record Brand(String name, AtomicLong devices) {
+    }
+
+    /**
+     * The same brands, by exact name and in suggestion order.
+     */
+    private record Brands(Map<String, Brand> byName, ConcurrentSkipListMap<String, Brand> byFoldedName) {
+
+        Brands() {
+            this(new ConcurrentHashMap<>(), new ConcurrentSkipListMap<>());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a device, so callers can change the devices they are handed without changing the cache.
+ *
+ * @param verified false for devices preloaded from a snapshot, until their {@code updatedAt} was checked against the
+ *                 database
+ */
+record CachedDevice(long id, String name, String brand, DeviceState state, LocalDateTime createdAt,
+                    LocalDateTime updatedAt, boolean verified) {
+
+    static CachedDevice of(Device device) {
+        return new CachedDevice(device.getId(), device.getName(), device.getBrand(), device.getState(),
+                device.getCreatedAt(), device.getUpdatedAt(), true);
+    }
+
+    CachedDevice verify() {
+        return new CachedDevice(id, name, brand, state, createdAt, updatedAt, true);
+    }
+
+    Device toDevice() {
+        Device device = new Device(name, brand, state);
+        device.setId(id);
+        device.setCreatedAt(createdAt);
+        device.setUpdatedAt(updatedAt);
+        return device;
+    }
+}
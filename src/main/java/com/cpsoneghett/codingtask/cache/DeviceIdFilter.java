@@ -0,0 +1,146 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Existence filter over device ids, used to answer lookups of ids that were never created without querying the
+ * database. Created ids are added as they happen and the whole filter is rebuilt periodically to drop deleted ones.
+ * Until the first build completes every id is reported as possibly present.
+ * <p>
+ * Devices can also be created without this node knowing: through other nodes or imports. Ids are handed out in
+ * increasing order when rows are inserted, but transactions commit in any order, so a scan can miss an id below the
+ * highest one it saw that commits right after. The filter therefore only rules out ids up to the highest one the
+ * previous scan saw, provided that scan ended at least the settle time ({@code app.sync.settle-time}, which exceeds
+ * the longest write transaction) before the current one started: every id below it was handed out before then, so
+ * it was committed, or rolled back, by the time the current scan ran. Ids above are reported as possibly present. A
+ * node rules ids out from its second build on. Each {@linkplain DeviceRepository#idSequences() id sequence} has its
+ * own high-water mark, as shards hand out ids independently of each other. Rows inserted with an explicit id below
+ * the mark, e.g. through plain SQL, are not seen until the next rebuild.
+ */
+@Component
+public class DeviceIdFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceIdFilter.class);
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+    private static final long MIN_CAPACITY = 1024;
+
+    private final DeviceRepository deviceRepository;
+    private final double falsePositiveRate;
+    private final Duration settleTime;
+
+    private final Object swapLock = new Object();
+    private volatile Snapshot current;
+    private volatile DeviceIdBloomFilter building;
+    private Scan lastScan;
+
+    public DeviceIdFilter(DeviceRepository deviceRepository,
+                          @Value("${app.id-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                          @Value("${app.sync.settle-time:PT5S}") Duration settleTime) {
+        this.deviceRepository = deviceRepository;
+        this.falsePositiveRate = falsePositiveRate;
+        this.settleTime = settleTime;
+    }
+
+    public boolean mightContain(Long id) {
+        if (id == null) return false;
+        Snapshot snapshot = current;
+        return snapshot == null || id > snapshot.trustedUpTo(id) || snapshot.ids().mightContain(id);
+    }
+
+    /**
+     * Adds to both filters while a rebuild runs. Synchronized with the swap, so an id cannot land in the filter being
+     * replaced only.
+     */
+    public void add(Long id) {
+        synchronized (swapLock) {
+            Snapshot snapshot = current;
+            if (snapshot != null) snapshot.ids().put(id);
+
+            DeviceIdBloomFilter next = building;
+            if (next != null) next.put(id);
+        }
+    }
+
+    @EventListener
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (event.type() == DeviceChangedEvent.ChangeType.CREATED) add(event.device().getId());
+    }
+
+    /**
+     * Sized at twice the current row count so ids created until the next rebuild keep the false positive rate close
+     * to the configured one. Ids added while the scan runs go to both filters.
+     */
+    @Scheduled(fixedDelayString = "${app.id-filter.rebuild-interval:PT10M}")
+    public synchronized void rebuild() {
+        long startedAt = System.nanoTime();
+        int sequences = deviceRepository.idSequences();
+        long[] trusted = settledMarks(startedAt, sequences);
+        DeviceIdBloomFilter next = new DeviceIdBloomFilter(Math.max(deviceRepository.count() * 2, MIN_CAPACITY), falsePositiveRate);
+        synchronized (swapLock) {
+            building = next;
+        }
+
+        long[] marks = new long[sequences];
+        long lastId = 0;
+        long total = 0;
+        List<Long> ids;
+        do {
+            ids = deviceRepository.findIdsAfter(lastId, PageRequest.ofSize(REBUILD_PAGE_SIZE));
+            for (Long id : ids) {
+                next.put(id);
+                marks[Math.floorMod(id, sequences)] = id;
+            }
+            if (!ids.isEmpty()) lastId = ids.getLast();
+            total += ids.size();
+        } while (ids.size() == REBUILD_PAGE_SIZE);
+
+        synchronized (swapLock) {
+            current = new Snapshot(next, trusted);
+            building = null;
+        }
+        lastScan = new Scan(marks, System.nanoTime());
+
+        log.info("Device id filter rebuilt with {} ids ({} KiB) in {} ms", total, next.sizeInBytes() / 1024,
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * The high-water marks of the previous scan once it is older than the settle time, the ones in use otherwise.
+     */
+    private long[] settledMarks(long startedAt, int sequences) {
+        Scan previous = lastScan;
+        if (previous != null && previous.marks().length == sequences && startedAt - previous.endedAt() >= settleTime.toNanos())
+            return previous.marks();
+
+        Snapshot snapshot = current;
+        return snapshot != null && snapshot.trustedUpTo().length == sequences ? snapshot.trustedUpTo() : new long[sequences];
+    }
+
+    /**
+     * @param trustedUpTo per id sequence, highest id below which every device is in the filter; the filter does not
+     *                    know about the ids above it
+     */
+    private record Snapshot(DeviceIdBloomFilter ids, long[] trustedUpTo) {
+
+        long trustedUpTo(long id) {
+            return trustedUpTo[Math.floorMod(id, trustedUpTo.length)];
+        }
+    }
+
+    /**
+     * @param marks highest id the scan saw, per id sequence
+     */
+    private record Scan(long[] marks, long endedAt) {
+    }
+}
@@ -0,0 +1,134 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+/**
+ * JSON of single devices, rendered once per device version and copied into responses as is. The version is the
+ * device's {@code updatedAt}: an entry rendered from an older read of the device never matches the current one, so
+ * renders racing with writes cannot be served, and writes through this node drop the entry right away.
+ * <p>
+ * Devices nested in other responses, like pages and lookups, are written from the same entries by {@link #render(Object)}.
+ * Devices without an id or version, like the ones returned by writes, are rendered by Jackson every time.
+ */
+@Component
+public class DeviceJsonCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper renderingMapper;
+    private final Cache<Long, RenderedDevice> cache;
+    private final boolean enabled;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public DeviceJsonCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           @Value("${app.json-cache.maximum-size:16MB}") DataSize maximumSize) {
+        this.objectMapper = objectMapper;
+        this.enabled = maximumSize.toBytes() > 0;
+
+        hits = Counter.builder("device.json.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("device.json.cache.requests").tag("result", "miss").register(meterRegistry);
+
+        // entries hold the text and, once written, its UTF-8 bytes
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((Long id, RenderedDevice device) -> 2 * device.json().charLength() + ENTRY_OVERHEAD_BYTES)
+                .build();
+        Gauge.builder("device.json.cache.entries", cache, Cache::estimatedSize).register(meterRegistry);
+
+        renderingMapper = objectMapper.copy().registerModule(new SimpleModule("DeviceJsonCache")
+                .addSerializer(Device.class, new CachedDeviceSerializer()));
+    }
+
+    /**
+     * The device as the UTF-8 JSON Jackson would write for it. The array may be shared with the cache, so it must not
+     * be changed.
+     */
+    public byte[] render(Device device) {
+        return json(device).asUnquotedUTF8();
+    }
+
+    /**
+     * {@code value} as UTF-8 JSON, with the devices it holds copied from the cache.
+     */
+    public byte[] render(Object value) {
+        if (!enabled) return write(objectMapper, value);
+        return write(renderingMapper, value);
+    }
+
+    @EventListener
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        cache.invalidate(event.device().getId());
+    }
+
+    private SerializedString json(Device device) {
+        Long id = device.getId();
+        LocalDateTime version = device.getUpdatedAt();
+        if (!enabled || id == null || version == null) return new SerializedString(writeString(device));
+
+        RenderedDevice cached = cache.getIfPresent(id);
+        if (cached != null && cached.version().equals(version)) {
+            hits.increment();
+            return cached.json();
+        }
+
+        misses.increment();
+        SerializedString json = new SerializedString(writeString(device));
+        cache.put(id, new RenderedDevice(version, json));
+        return json;
+    }
+
+    private String writeString(Device device) {
+        try {
+            return objectMapper.writeValueAsString(device);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] write(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private record RenderedDevice(LocalDateTime version, SerializedString json) {
+    }
+
+    private class CachedDeviceSerializer extends StdSerializer<Device> {
+
+        CachedDeviceSerializer() {
+            super(Device.class);
+        }
+
+        @Override
+        public void serialize(Device device, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeRawValue(json(device));
+        }
+    }
+}
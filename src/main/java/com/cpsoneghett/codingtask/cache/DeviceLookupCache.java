@@ -0,0 +1,166 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Devices by id, in front of single device lookups. A device is dropped when it changes through this node, and a load
+ * that raced with a change is not stored: the change count is read before loading and must not have moved when the
+ * load completes.
+ * <p>
+ * Devices preloaded from a {@link LookupCacheSnapshot} can be arbitrarily old, so the first read of each compares its
+ * {@code updatedAt} with the database's, a single column read by primary key, and reloads the device when it moved on.
+ * <p>
+ * Concurrent misses of the same device under the same change count share one load, so a device read by many clients at
+ * once costs one query when it is not cached. Each caller gets its own copy of the loaded device.
+ */
+@Component
+public class DeviceLookupCache {
+
+    private final Cache<Long, CachedDevice> cache;
+    private final AtomicLong changes = new AtomicLong();
+    private final SingleFlight<Load, CachedDevice> loads;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter verified;
+    private final Counter stale;
+
+    public DeviceLookupCache(MeterRegistry meterRegistry, LookupCacheProperties properties) {
+        hits = Counter.builder("device.lookup.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("device.lookup.cache.requests").tag("result", "miss").register(meterRegistry);
+        verified = Counter.builder("device.lookup.cache.requests").tag("result", "verified")
+                .description("First reads of preloaded devices that were still current").register(meterRegistry);
+        stale = Counter.builder("device.lookup.cache.requests").tag("result", "stale")
+                .description("First reads of preloaded devices that had changed or were deleted").register(meterRegistry);
+
+        cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.ttl())
+                .build();
+
+        Gauge.builder("device.lookup.cache.entries", cache, Cache::estimatedSize).register(meterRegistry);
+        loads = new SingleFlight<>("device", meterRegistry);
+    }
+
+    /**
+     * @param loader           loads the device on a miss, throwing when it does not exist
+     * @param currentUpdatedAt reads the device's {@code updatedAt}, empty when it does not exist
+     */
+    public Device get(Long id, Function<Long, Device> loader, Function<Long, Optional<LocalDateTime>> currentUpdatedAt) {
+
+        CachedDevice cached = cache.getIfPresent(id);
+        if (cached != null && !cached.verified()) cached = verify(cached, currentUpdatedAt);
+        if (cached != null) {
+            hits.increment();
+            return cached.toDevice();
+        }
+
+        misses.increment();
+        long changesBefore = changes.get();
+        CachedDevice device = loads.load(new Load(id, changesBefore), () -> CachedDevice.of(loader.apply(id)));
+        if (changes.get() == changesBefore) cache.put(id, device);
+        return device.toDevice();
+    }
+
+    /**
+     * Multi-id counterpart of {@link #get}: cached devices come from the cache and the others are loaded with a single
+     * call, then stored under the same rule. Preloaded devices not verified yet are loaded with the others rather than
+     * checked one by one.
+     *
+     * @param loader loads the devices of the ids given, leaving out those that do not exist
+     * @return the devices found, by id
+     */
+    public Map<Long, Device> getAll(Collection<Long> ids, Function<List<Long>, Collection<Device>> loader) {
+
+        Map<Long, Device> found = new HashMap<>();
+        List<Long> toLoad = new ArrayList<>();
+        for (Long id : ids) {
+            CachedDevice cached = cache.getIfPresent(id);
+            if (cached != null && cached.verified()) found.put(id, cached.toDevice());
+            else toLoad.add(id);
+        }
+
+        hits.increment(found.size());
+        if (toLoad.isEmpty()) return found;
+
+        misses.increment(toLoad.size());
+        long changesBefore = changes.get();
+        Collection<Device> loaded = loader.apply(toLoad);
+        boolean unchanged = changes.get() == changesBefore;
+        for (Device device : loaded) {
+            if (unchanged) cache.put(device.getId(), CachedDevice.of(device));
+            found.put(device.getId(), device);
+        }
+        return found;
+    }
+
+    private CachedDevice verify(CachedDevice cached, Function<Long, Optional<LocalDateTime>> currentUpdatedAt) {
+        Optional<LocalDateTime> updatedAt = currentUpdatedAt.apply(cached.id());
+        if (updatedAt.isPresent() && updatedAt.get().equals(cached.updatedAt())) {
+            verified.increment();
+            CachedDevice current = cached.verify();
+            cache.asMap().replace(cached.id(), cached, current);
+            return current;
+        }
+
+        stale.increment();
+        cache.asMap().remove(cached.id(), cached);
+        return null;
+    }
+
+    /**
+     * Adds devices that are not cached yet, to be verified on their first read.
+     *
+     * @return the number of devices added
+     */
+    int preload(Collection<CachedDevice> devices) {
+        int added = 0;
+        for (CachedDevice device : devices) {
+            if (cache.asMap().putIfAbsent(device.id(), device) == null) added++;
+        }
+        return added;
+    }
+
+    /**
+     * The most frequently read devices, hottest first.
+     */
+    List<CachedDevice> hottest(int limit) {
+        return new ArrayList<>(cache.policy().eviction().orElseThrow().hottest(limit).values());
+    }
+
+    long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Created devices cannot be cached yet, lookups of unknown ids are not stored.
+     */
+    @EventListener
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (event.type() == DeviceChangedEvent.ChangeType.CREATED) return;
+
+        changes.incrementAndGet();
+        cache.invalidate(event.device().getId());
+    }
+
+    private record Load(long id, long changes) {
+    }
+}
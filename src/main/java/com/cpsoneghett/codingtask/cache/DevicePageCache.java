@@ -0,0 +1,172 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.DeviceSortProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized device listing pages, keyed by normalized filter, page and sort. Pages are written through the
+ * {@link DeviceJsonCache}, so recomputing a page only renders the devices on it that changed.
+ * <p>
+ * Entries are never invalidated one by one. Every write bumps a global generation and the generation of the brands it
+ * touched, and each entry remembers the generations it was computed under: listings restricted by brand only depend on
+ * the generations of the brands they match, all other listings on the global one. An entry whose generations moved on
+ * is recomputed on its next read; entries nobody reads again are dropped by size or age. Generations are read before
+ * the page is queried, so a page that raced with a write is stored under the old generation and never served.
+ * <p>
+ * Only writes made through this node bump generations, so the time to live bounds how long changes made through other
+ * nodes can go unseen.
+ * <p>
+ * Concurrent misses of the same page under the same generations share one query and render, so a dashboard listing
+ * requested by many clients at once costs one query when it is not cached.
+ */
+@Component
+public class DevicePageCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final DeviceJsonCache jsonCache;
+    private final BrandDictionary brandDictionary;
+    private final Cache<PageKey, CachedPage> cache;
+    private final AtomicLong globalGeneration = new AtomicLong();
+    private final Map<String, AtomicLong> brandGenerations = new ConcurrentHashMap<>();
+    private final SingleFlight<Load, byte[]> loads;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleMisses;
+    private final Counter evictions;
+    private final DistributionSummary hitAge;
+
+    public DevicePageCache(DeviceJsonCache jsonCache, BrandDictionary brandDictionary, MeterRegistry meterRegistry,
+                           @Value("${app.page-cache.maximum-size:64MB}") DataSize maximumSize,
+                           @Value("${app.page-cache.ttl:PT1M}") Duration ttl) {
+        this.jsonCache = jsonCache;
+        this.brandDictionary = brandDictionary;
+
+        hits = Counter.builder("device.page.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("device.page.cache.requests").tag("result", "miss").register(meterRegistry);
+        staleMisses = Counter.builder("device.page.cache.requests").tag("result", "stale")
+                .description("Reads that found an entry computed under an older generation").register(meterRegistry);
+        evictions = Counter.builder("device.page.cache.evictions").register(meterRegistry);
+        hitAge = DistributionSummary.builder("device.page.cache.hit.age").baseUnit("milliseconds")
+                .description("Age of the entries served").publishPercentiles(0.5, 0.99).register(meterRegistry);
+
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((PageKey key, CachedPage page) -> page.body().length + ENTRY_OVERHEAD_BYTES)
+                .expireAfterWrite(ttl)
+                .removalListener((PageKey key, CachedPage page, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) evictions.increment();
+                })
+                .build();
+
+        Gauge.builder("device.page.cache.size", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("device.page.cache.entries", cache, Cache::estimatedSize).register(meterRegistry);
+        loads = new SingleFlight<>("page", meterRegistry);
+    }
+
+    /**
+     * The serialized page, loaded and stored when absent or computed under older generations.
+     */
+    public byte[] get(DeviceFilter filter, Pageable pageable, Supplier<Page<Device>> loader) {
+
+        PageKey key = PageKey.of(filter, pageable);
+        Stamp stamp = currentStamp(key);
+
+        CachedPage cached = cache.getIfPresent(key);
+        if (cached != null && cached.stamp().equals(stamp)) {
+            hits.increment();
+            hitAge.record((System.nanoTime() - cached.createdAtNanos()) / 1_000_000.0);
+            return cached.body();
+        }
+
+        if (cached != null) staleMisses.increment();
+        else misses.increment();
+
+        return loads.load(new Load(key, stamp), () -> {
+            byte[] body = jsonCache.render(loader.get());
+            cache.put(key, new CachedPage(body, stamp, System.nanoTime()));
+            return body;
+        });
+    }
+
+    @EventListener
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        bump(event.device().getBrand());
+        if (event.previousBrand() != null) bump(event.previousBrand());
+        globalGeneration.incrementAndGet();
+    }
+
+    private void bump(String brand) {
+        if (brand != null) brandGenerations.computeIfAbsent(brand, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Generations only grow, so the sum over the matched brands changes whenever any of them does. The dictionary
+     * size covers brands registered after the entry was computed that also match the fragment.
+     */
+    private Stamp currentStamp(PageKey key) {
+        if (key.brand() == null) return new Stamp(globalGeneration.get(), -1);
+
+        int brandCount = brandDictionary.size();
+        List<String> brands = brandDictionary.namesContaining(key.brand());
+
+        long generation = 0;
+        for (String brand : brands) {
+            AtomicLong brandGeneration = brandGenerations.get(brand);
+            if (brandGeneration != null) generation += brandGeneration.get();
+        }
+        return new Stamp(generation, brandCount);
+    }
+
+    /**
+     * Brand matching ignores case and state matching is done on the upper-cased fragment, so fragments are normalized
+     * the same way. The sort is validated and resolved up front, so aliases share an entry.
+     */
+    record PageKey(String brand, String state, int page, int size, String sort) {
+
+        static PageKey of(DeviceFilter filter, Pageable pageable) {
+            String sort = DeviceSortProperty.resolve(pageable.getSort()).toString();
+            String brand = StringUtils.hasText(filter.brand()) ? filter.brand().trim().toLowerCase(Locale.ROOT) : null;
+            String state = StringUtils.hasText(filter.state()) ? filter.state().trim().toUpperCase(Locale.ROOT) : null;
+
+            if (pageable.isUnpaged()) return new PageKey(brand, state, -1, -1, sort);
+            return new PageKey(brand, state, pageable.getPageNumber(), pageable.getPageSize(), sort);
+        }
+    }
+
+    private record Stamp(long generation, int brandCount) {
+    }
+
+    private record Load(PageKey key, Stamp stamp) {
+    }
+
+    private record CachedPage(byte[] body, Stamp stamp, long createdAtNanos) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.cpsoneghett.codingtask.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param maximumSize      devices kept, least frequently read ones are evicted first
+ * @param ttl              longest a device is served without being read again; also bounds how long writes made through
+ *                         other nodes can go unseen
+ * @param snapshotPath     file the hottest devices are written to and preloaded from on startup; shared by the nodes
+ *                         of a rolling deploy so new ones start warm. Without it nothing is written
+ * @param snapshotInterval time between snapshots
+ * @param snapshotSize     most devices a snapshot holds
+ */
+@ConfigurationProperties(prefix = "app.lookup-cache")
+public record LookupCacheProperties(
+        @DefaultValue("100000") long maximumSize,
+        @DefaultValue("PT1M") Duration ttl,
+        Path snapshotPath,
+        @DefaultValue("PT1M") Duration snapshotInterval,
+        @DefaultValue("50000") int snapshotSize) {
+}
@@ -0,0 +1,172 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the hottest devices of the {@link DeviceLookupCache} in a file, so a restarted node starts with them instead of
+ * sending every first lookup to the database. The file is written periodically and on shutdown and preloaded on
+ * startup, before the readiness state turns to accepting traffic, which only happens once the application is ready.
+ * <p>
+ * The file is read through a memory mapping: the kernel pages it in directly, without copying it through a stream
+ * buffer first. Nodes sharing the file overwrite each other's snapshots, which only changes which devices start warm.
+ */
+@Component
+public class LookupCacheSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(LookupCacheSnapshot.class);
+    private static final int MAGIC = 0x44564c43; // "DVLC"
+    private static final int VERSION = 1;
+
+    private final DeviceLookupCache cache;
+    private final LookupCacheProperties properties;
+
+    public LookupCacheSnapshot(DeviceLookupCache cache, LookupCacheProperties properties) {
+        this.cache = cache;
+        this.properties = properties;
+    }
+
+    /**
+     * A missing or unreadable snapshot only means a cold start.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void preload() {
+        Path file = properties.snapshotPath();
+        if (file == null || !Files.exists(file)) return;
+
+        long startedAt = System.nanoTime();
+        try {
+            int added = cache.preload(read(file));
+            log.info("Preloaded {} devices into the lookup cache from {} in {} ms", added, file,
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not preload the lookup cache from {}, starting cold", file, ex);
+        }
+    }
+
+    /**
+     * Starts one interval after startup, so it never replaces the snapshot before it was preloaded. An empty cache is
+     * not written either, it would only replace a useful snapshot with nothing.
+     */
+    @Scheduled(fixedDelayString = "${app.lookup-cache.snapshot-interval:PT1M}",
+            initialDelayString = "${app.lookup-cache.snapshot-interval:PT1M}")
+    public synchronized void write() {
+        Path file = properties.snapshotPath();
+        if (file == null || cache.size() == 0) return;
+
+        try {
+            write(file, cache.hottest(properties.snapshotSize()));
+        } catch (IOException ex) {
+            log.warn("Could not write the lookup cache snapshot to {}", file, ex);
+        }
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        write();
+    }
+
+    /**
+     * Writes to a temporary file next to {@code file} and moves it over, so readers never see a partial snapshot.
+     */
+    static void write(Path file, Collection<CachedDevice> devices) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(devices.size());
+            for (CachedDevice device : devices) {
+                out.writeLong(device.id());
+                writeString(out, device.name());
+                writeString(out, device.brand());
+                out.writeByte(device.state().getCode());
+                writeTime(out, device.createdAt());
+                writeTime(out, device.updatedAt());
+            }
+        } catch (IOException ex) {
+            Files.deleteIfExists(temporary);
+            throw ex;
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the devices of the snapshot, all unverified
+     */
+    static List<CachedDevice> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC) throw new IOException(file + " is not a lookup cache snapshot.");
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported lookup cache snapshot version " + version + " in " + file + ".");
+
+            int size = buffer.getInt();
+            List<CachedDevice> devices = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                long id = buffer.getLong();
+                String name = readString(buffer);
+                String brand = readString(buffer);
+                DeviceState state = DeviceState.fromCode(buffer.get());
+                LocalDateTime createdAt = readTime(buffer);
+                LocalDateTime updatedAt = readTime(buffer);
+                devices.add(new CachedDevice(id, name, brand, state, createdAt, updatedAt, false));
+            }
+            return devices;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException(file + " is truncated.", ex);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time == null) return;
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(ByteBuffer buffer) {
+        if (buffer.get() == 0) return null;
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,64 @@
+package com.cpsoneghett.codingtask.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: the first caller for a key runs the load, callers arriving while it runs wait
+ * for it and get its result or its exception. Nothing is kept once the load completes, so a caller arriving after it
+ * starts a new one.
+ * <p>
+ * A caller must never get a result loaded before a write it already saw, so keys must include whatever generation the
+ * caller read before loading: a load started before a write then has a different key than the reads made after it.
+ */
+class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+    private final Counter coalesced;
+
+    SingleFlight(String read, MeterRegistry meterRegistry) {
+        executed = Counter.builder("device.read.coalescing").tag("read", read).tag("result", "executed")
+                .description("Reads that ran their own load").register(meterRegistry);
+        coalesced = Counter.builder("device.read.coalescing").tag("read", read).tag("result", "coalesced")
+                .description("Reads that shared the load of an identical read in flight").register(meterRegistry);
+    }
+
+    V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        executed.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            // the leader only completes with unchecked exceptions
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw (Error) ex.getCause();
+        }
+    }
+}
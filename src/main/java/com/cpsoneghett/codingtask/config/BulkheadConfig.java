@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.config;
+
+import com.cpsoneghett.codingtask.bulkhead.BulkheadProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+}
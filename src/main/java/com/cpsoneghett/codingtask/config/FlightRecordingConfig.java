@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.config;
+
+import com.cpsoneghett.codingtask.monitoring.FlightRecordingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(FlightRecordingProperties.class)
+public class FlightRecordingConfig {
+}
@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.config;
+
+import com.cpsoneghett.codingtask.service.HistoryProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(HistoryProperties.class)
+public class HistoryConfig {
+}
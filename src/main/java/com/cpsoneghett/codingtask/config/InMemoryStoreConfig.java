@@ -0,0 +1,89 @@
+package com.cpsoneghett.codingtask.config;
+
+import com.cpsoneghett.codingtask.dataset.DatasetProperties;
+import com.cpsoneghett.codingtask.dataset.DeviceDataset;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.memory.DeviceSnapshot;
+import com.cpsoneghett.codingtask.repository.memory.InMemoryDeviceHistoryRepository;
+import com.cpsoneghett.codingtask.repository.memory.InMemoryDeviceRepository;
+import com.cpsoneghett.codingtask.repository.memory.InMemoryStoreProperties;
+import com.cpsoneghett.codingtask.repository.memory.InMemoryTransactionManager;
+import com.cpsoneghett.codingtask.repository.memory.StoredDevice;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps devices in the heap instead of MySQL, see {@link InMemoryDeviceRepository}. Bulk imports are not available
+ * in this profile, they stream into the database.
+ */
+@Configuration
+@Profile("memory")
+@EnableConfigurationProperties({InMemoryStoreProperties.class, DatasetProperties.class})
+public class InMemoryStoreConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryStoreConfig.class);
+
+    /**
+     * Restored before any other bean can read it: from the snapshot when there is one, otherwise from the synthetic
+     * dataset when enabled.
+     */
+    @Bean
+    public InMemoryDeviceRepository inMemoryDeviceRepository(BrandDictionary brandDictionary, Validator validator,
+                                                             InMemoryStoreProperties properties, DatasetProperties datasetProperties) {
+        InMemoryDeviceRepository repository = new InMemoryDeviceRepository(brandDictionary, validator);
+        long startedAt = System.nanoTime();
+
+        DeviceSnapshot snapshot;
+        if (properties.snapshotPath() != null && Files.exists(properties.snapshotPath())) {
+            try {
+                snapshot = DeviceSnapshot.read(properties.snapshotPath());
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not read the device snapshot " + properties.snapshotPath(), ex);
+            }
+        } else if (properties.loadDataset()) {
+            snapshot = generate(datasetProperties.dataset());
+        } else {
+            return repository;
+        }
+
+        repository.restore(snapshot);
+        log.info("Restored {} devices in {} ms", snapshot.devices().size(), (System.nanoTime() - startedAt) / 1_000_000);
+        return repository;
+    }
+
+    @Bean
+    public InMemoryDeviceHistoryRepository inMemoryDeviceHistoryRepository() {
+        return new InMemoryDeviceHistoryRepository();
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new InMemoryTransactionManager();
+    }
+
+    /**
+     * Ids follow the row numbers, as the {@code dataset} profile assigns them to an empty table.
+     */
+    private static DeviceSnapshot generate(DeviceDataset dataset) {
+        List<String> brandNames = dataset.brandNames();
+        List<StoredDevice> devices = new ArrayList<>((int) dataset.rows());
+        for (long index = 0; index < dataset.rows(); index++) {
+            DeviceDataset.DeviceRow row = dataset.row(index);
+            devices.add(new StoredDevice(index + 1, row.name(), brandNames.get(row.brand()), 0, row.state(),
+                    row.createdAt(), row.createdAt(), null, null));
+        }
+        return new DeviceSnapshot(dataset.rows(), devices);
+    }
+}
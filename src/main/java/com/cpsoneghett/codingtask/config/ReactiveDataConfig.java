@@ -0,0 +1,54 @@
+package com.cpsoneghett.codingtask.config;
+
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Data access of the reactive profile. The connection factory is built here instead of by Spring Boot's R2DBC
+ * auto-configuration, which would also register a reactive transaction manager next to the JPA one. The JDBC data
+ * source used by Flyway, JPA and the background jobs is declared too, since Spring Boot backs off from it once a
+ * connection factory exists.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties({R2dbcProperties.class, DataSourceProperties.class})
+public class ReactiveDataConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ConnectionFactory connectionFactory(R2dbcProperties properties) {
+        return ConnectionFactoryBuilder.withUrl(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * Loads the brand dictionary before traffic arrives, so request threads never wait on JDBC to read it.
+     */
+    @Bean
+    public ApplicationRunner brandDictionaryPreload(BrandDictionary brandDictionary) {
+        return args -> brandDictionary.reload();
+    }
+}
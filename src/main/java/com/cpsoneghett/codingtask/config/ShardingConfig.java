@@ -0,0 +1,66 @@
+package com.cpsoneghett.codingtask.config;
+
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.shard.DeviceShard;
+import com.cpsoneghett.codingtask.repository.shard.JdbcDeviceShard;
+import com.cpsoneghett.codingtask.repository.shard.ShardedDeviceRepository;
+import com.cpsoneghett.codingtask.repository.shard.ShardingProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.validation.Validator;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads devices across the databases listed in {@code app.sharding.shards}, see {@link ShardedDeviceRepository}.
+ * The primary data source keeps everything else, the brand dictionary included. Each shard is migrated with the
+ * application's schema on startup.
+ * <p>
+ * The sharded repository also serves leases, reported states and delta sync, in place of the repositories of the
+ * primary's {@code device} table, which stay empty under this profile. Bulk imports write to that table in batches
+ * and are disabled.
+ */
+@Configuration
+@Profile("sharded")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    public ShardedDeviceRepository shardedDeviceRepository(ShardingProperties properties, BrandDictionary brandDictionary,
+                                                           Validator validator) {
+        List<ShardingProperties.Shard> shardProperties = properties.shards();
+        if (shardProperties == null || shardProperties.isEmpty())
+            throw new IllegalStateException("The sharded profile needs at least one entry in app.sharding.shards");
+
+        List<DeviceShard> shards = new ArrayList<>();
+        for (int index = 0; index < shardProperties.size(); index++) {
+            HikariDataSource dataSource = dataSource(shardProperties.get(index), index, shardProperties.size());
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+            shards.add(new JdbcDeviceShard(dataSource, brandDictionary));
+        }
+        return new ShardedDeviceRepository(shards, brandDictionary, validator);
+    }
+
+    /**
+     * Every connection of shard {@code i} of {@code n} generates ids {@code i + 1}, {@code i + 1 + n}, ..., so ids are
+     * unique across shards and route back to theirs.
+     */
+    private static HikariDataSource dataSource(ShardingProperties.Shard shard, int index, int shardCount) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("shard-" + index);
+        config.setJdbcUrl(shard.url());
+        config.setUsername(shard.username());
+        config.setPassword(shard.password());
+        config.setConnectionInitSql("set session auto_increment_increment = " + shardCount
+                + ", auto_increment_offset = " + (index + 1));
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,49 @@
+package com.cpsoneghett.codingtask.config;
+
+import com.cpsoneghett.codingtask.monitoring.SqlMonitoringProperties;
+import com.cpsoneghett.codingtask.monitoring.SqlStatementListener;
+import com.cpsoneghett.codingtask.monitoring.SqlTimingInterceptor;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Times the statements of every data source at the JDBC level, replacing Hibernate's {@code show-sql}.
+ */
+@Configuration
+@EnableConfigurationProperties(SqlMonitoringProperties.class)
+public class SqlMonitoringConfig implements WebMvcConfigurer {
+
+    private final SqlMonitoringProperties properties;
+
+    public SqlMonitoringConfig(SqlMonitoringProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlMonitoringDataSourcePostProcessor(ObjectProvider<SqlMonitoringProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (!(bean instanceof DataSource dataSource)) return bean;
+
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(new SqlStatementListener(properties.getObject()))
+                        .build();
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlTimingInterceptor(properties));
+    }
+}
@@ -1,10 +1,33 @@
 package com.cpsoneghett.codingtask.controller;
 
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.bulkhead.Workload;
+import com.cpsoneghett.codingtask.cache.BrandIndex;
+import com.cpsoneghett.codingtask.cache.DeviceJsonCache;
+import com.cpsoneghett.codingtask.cache.DevicePageCache;
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
 import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceCheckinRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceCheckoutRequestDto;
 import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceHistoryResponseDto;
+import com.cpsoneghett.codingtask.domain.DeviceLeaseDto;
+import com.cpsoneghett.codingtask.domain.DeviceLookupRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
 import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.DeviceStateReportDto;
+import com.cpsoneghett.codingtask.domain.DeviceStateReportRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceStateReportResponseDto;
+import com.cpsoneghett.codingtask.domain.DeviceSyncResponseDto;
+import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import com.cpsoneghett.codingtask.service.DeviceHistoryService;
+import com.cpsoneghett.codingtask.service.DeviceLeaseService;
 import com.cpsoneghett.codingtask.service.DeviceService;
 import com.cpsoneghett.codingtask.service.DeviceServiceImpl;
+import com.cpsoneghett.codingtask.service.DeviceStateReporter;
+import com.cpsoneghett.codingtask.service.DeviceStateReporter.Outcome;
+import com.cpsoneghett.codingtask.service.DeviceSyncService;
 import com.cpsoneghett.codingtask.validation.DeviceCreateValidation;
 import com.github.fge.jsonpatch.JsonPatch;
 import com.github.fge.jsonpatch.JsonPatchException;
@@ -15,8 +38,11 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -27,40 +53,209 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/v1/devices")
 @Tag(name = "Device Management", description = "APIs for creating, retrieving, and managing devices")
 public class DeviceController {
 
     private final DeviceService deviceService;
+    private final DeviceLeaseService leaseService;
+    private final DevicePageCache pageCache;
+    private final DeviceJsonCache jsonCache;
+    private final DeviceStateReporter stateReporter;
+    private final DeviceSyncService syncService;
+    private final Bulkheads bulkheads;
+    private final BrandIndex brandIndex;
+    private final DeviceHistoryService historyService;
 
-    public DeviceController(DeviceServiceImpl deviceService) {
+    /**
+     * The device service takes the permits of its operations itself. The lease and sync services run each operation
+     * in one transaction, so their permits are taken here, before the transaction holds a connection.
+     */
+    public DeviceController(DeviceServiceImpl deviceService, DeviceLeaseService leaseService, DevicePageCache pageCache,
+                            DeviceJsonCache jsonCache, DeviceStateReporter stateReporter, DeviceSyncService syncService,
+                            Bulkheads bulkheads, BrandIndex brandIndex, DeviceHistoryService historyService) {
         this.deviceService = deviceService;
+        this.leaseService = leaseService;
+        this.pageCache = pageCache;
+        this.jsonCache = jsonCache;
+        this.stateReporter = stateReporter;
+        this.syncService = syncService;
+        this.bulkheads = bulkheads;
+        this.brandIndex = brandIndex;
+        this.historyService = historyService;
     }
 
     @Operation(summary = "Find all devices", description = "Retrieves a paginated list of devices, optionally filtered by brand or state.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of devices")
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of devices",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = Page.class)))
     })
     @GetMapping
-    public ResponseEntity<Page<Device>> findAll(@Parameter(description = "Filter criteria for devices") DeviceFilter filter,
-                                                @Parameter(description = "Pagination and sorting information") Pageable pageable) {
-        return ResponseEntity.ok().body(deviceService.findAll(filter, pageable));
+    public ResponseEntity<byte[]> findAll(@Parameter(description = "Filter criteria for devices") DeviceFilter filter,
+                                          @Parameter(description = "Pagination and sorting information") Pageable pageable) {
+        byte[] page = pageCache.get(filter, pageable, () -> deviceService.findAll(filter, pageable));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(page);
+    }
+
+    @Operation(summary = "Sync devices", description = "Returns the devices changed and deleted since the token of the previous sync, or all devices when no token is given. Follow with the returned token right away while 'hasMore' is true, then periodically.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes since the token",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = DeviceSyncResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid sync token", content = @Content),
+            @ApiResponse(responseCode = "410", description = "Sync token too old, sync again without a token", content = @Content)
+    })
+    @GetMapping("/sync")
+    public ResponseEntity<byte[]> sync(@Parameter(description = "Token returned by the previous sync") @RequestParam(required = false) String since,
+                                       @Parameter(description = "Most changes to return") @RequestParam(defaultValue = "500") int size) {
+        byte[] changes = jsonCache.render(bulkheads.call(Workload.BULK, () -> syncService.changesSince(since, size)));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(changes);
+    }
+
+    @Operation(summary = "Suggest brands", description = "Lists the brands starting with the prefix, ignoring case, with how many devices each has. Answered from memory; brands written through other nodes can take a few minutes to show up.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Brands in name order")
+    })
+    @GetMapping("/brands")
+    public ResponseEntity<List<BrandCountDto>> suggestBrands(@Parameter(description = "Start of the brand name", example = "sam") @RequestParam(defaultValue = "") String prefix,
+                                                             @Parameter(description = "Most brands to return, up to " + BrandIndex.MAX_SUGGESTIONS) @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(brandIndex.suggest(prefix, size));
+    }
+
+    @Operation(summary = "Device history", description = "Lists the changes of a device, newest first, including devices that were deleted since. Changes are written in the background and show up shortly after they are made. Follow with 'next' as 'before' for older changes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes of the device, empty for unknown devices",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = DeviceHistoryResponseDto.class)))
+    })
+    @GetMapping("/{id}/history")
+    public ResponseEntity<DeviceHistoryResponseDto> history(@Parameter(description = "ID of the device", required = true, example = "1") @PathVariable Long id,
+                                                            @Parameter(description = "'next' of the previous page") @RequestParam(required = false) Long before,
+                                                            @Parameter(description = "Most changes to return") @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(bulkheads.call(Workload.INTERACTIVE, () -> historyService.history(id, before, size)));
     }
 
     @Operation(summary = "Find device by ID", description = "Retrieves a single device by its unique ID.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved the device"),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the device",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = Device.class))),
             @ApiResponse(responseCode = "404", description = "Device not found with the given ID", content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Device> findById(@Parameter(description = "ID of the device to be retrieved", required = true, example = "1")
+    public ResponseEntity<byte[]> findById(@Parameter(description = "ID of the device to be retrieved", required = true, example = "1")
                                            @PathVariable Long id) {
-        return ResponseEntity.ok().body(deviceService.findById(id));
+        byte[] device = jsonCache.render(deviceService.findById(id));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(device);
+    }
+
+    @Operation(summary = "Find many devices by ID", description = "Retrieves up to " + DeviceLookupRequestDto.MAX_IDS + " devices in one request. Ids that do not exist are listed in 'missing'.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the devices",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = DeviceLookupResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Empty or too large list of ids", content = @Content)
+    })
+    @PostMapping("/lookup")
+    public ResponseEntity<byte[]> findAllById(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Ids of the devices to be retrieved", required = true,
+                    content = @Content(schema = @Schema(implementation = DeviceLookupRequestDto.class)))
+            @RequestBody @Valid DeviceLookupRequestDto lookup) {
+        byte[] devices = jsonCache.render(deviceService.findAllById(lookup.ids()));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(devices);
+    }
+
+    @Operation(summary = "Check out a device", description = "Atomically moves an AVAILABLE device to IN_USE under a lease. The device becomes AVAILABLE again when checked in or when the lease expires.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device checked out, the response carries the lease token"),
+            @ApiResponse(responseCode = "400", description = "Invalid lease duration", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Device not found with the given ID", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - Device is not AVAILABLE", content = @Content)
+    })
+    @PostMapping("/{id}/checkout")
+    public ResponseEntity<DeviceLeaseDto> checkout(
+            @Parameter(description = "ID of the device to be checked out", required = true, example = "1")
+            @PathVariable("id") Long id,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Lease options, the default lease duration applies when absent",
+                    content = @Content(schema = @Schema(implementation = DeviceCheckoutRequestDto.class)))
+            @RequestBody(required = false) DeviceCheckoutRequestDto checkout) {
+        return ResponseEntity.ok().body(bulkheads.call(Workload.WRITE, () -> leaseService.checkout(id, leaseDuration(checkout))));
+    }
+
+    @Operation(summary = "Check out any matching device", description = "Atomically checks out one AVAILABLE device matching the filter. Concurrent callers get different devices.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device checked out, the response carries the lease token"),
+            @ApiResponse(responseCode = "400", description = "Invalid lease duration", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - No AVAILABLE device matches the filter", content = @Content)
+    })
+    @PostMapping("/checkout")
+    public ResponseEntity<DeviceLeaseDto> checkoutAny(
+            @Parameter(description = "Filter criteria for devices") DeviceFilter filter,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Lease options, the default lease duration applies when absent",
+                    content = @Content(schema = @Schema(implementation = DeviceCheckoutRequestDto.class)))
+            @RequestBody(required = false) DeviceCheckoutRequestDto checkout) {
+        return ResponseEntity.ok().body(bulkheads.call(Workload.WRITE, () -> leaseService.checkoutAny(filter, leaseDuration(checkout))));
+    }
+
+    @Operation(summary = "Check in a device", description = "Makes a checked out device AVAILABLE again. Requires the lease token returned by the checkout.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device checked in"),
+            @ApiResponse(responseCode = "400", description = "Missing lease token", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Device not found with the given ID", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - Device is not checked out under the given lease token", content = @Content)
+    })
+    @PostMapping("/{id}/checkin")
+    public ResponseEntity<Device> checkin(
+            @Parameter(description = "ID of the device to be checked in", required = true, example = "1")
+            @PathVariable("id") Long id,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Lease token of the checkout", required = true,
+                    content = @Content(schema = @Schema(implementation = DeviceCheckinRequestDto.class)))
+            @RequestBody @Valid DeviceCheckinRequestDto checkin) {
+        return ResponseEntity.ok().body(bulkheads.call(Workload.WRITE, () -> leaseService.checkin(id, checkin.leaseToken())));
+    }
+
+    @Operation(summary = "Report the state of a device", description = "Heartbeat of a device reporting its own state. Reports repeating the last known state are dropped, transitions are applied in batches within a second. Devices checked out under a lease keep their state until the lease ends.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Report accepted", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Device not found with the given ID", content = @Content)
+    })
+    @PostMapping("/{id}/state-report")
+    public ResponseEntity<Void> reportState(
+            @Parameter(description = "ID of the reporting device", required = true, example = "1")
+            @PathVariable("id") Long id,
+            @Parameter(description = "State the device is in", required = true, example = "AVAILABLE")
+            @RequestParam DeviceState state) {
+        if (stateReporter.report(id, state) == Outcome.UNKNOWN) throw new DeviceNotFoundException(id);
+        return ResponseEntity.accepted().build();
+    }
+
+    @Operation(summary = "Report the states of many devices", description = "Accepts up to " + DeviceStateReportRequestDto.MAX_REPORTS + " state reports in one request, for gateways relaying the heartbeats of many devices. Reports for devices that do not exist are listed in 'unknown'.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Reports accepted"),
+            @ApiResponse(responseCode = "400", description = "Empty or too large list of reports", content = @Content)
+    })
+    @PostMapping("/state-reports")
+    public ResponseEntity<DeviceStateReportResponseDto> reportStates(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "States reported by the devices", required = true,
+                    content = @Content(schema = @Schema(implementation = DeviceStateReportRequestDto.class)))
+            @RequestBody @Valid DeviceStateReportRequestDto request) {
+        int changed = 0;
+        List<Long> unknown = new ArrayList<>();
+        for (DeviceStateReportDto report : request.reports()) {
+            switch (stateReporter.report(report.id(), report.state())) {
+                case CHANGED -> changed++;
+                case UNKNOWN -> unknown.add(report.id());
+                case UNCHANGED -> {
+                }
+            }
+        }
+        return ResponseEntity.accepted().body(new DeviceStateReportResponseDto(request.reports().size(), changed, unknown));
     }
 
     @Operation(summary = "Create a new device", description = "Adds a new device to the system.")
@@ -126,4 +321,8 @@ public class DeviceController {
         return ResponseEntity.ok().body(deviceService.partialUpdate(id, jsonPatch));
     }
 
+    private static Duration leaseDuration(DeviceCheckoutRequestDto checkout) {
+        return checkout != null ? checkout.leaseDuration() : null;
+    }
+
 }
@@ -0,0 +1,90 @@
+package com.cpsoneghett.codingtask.controller;
+
+import com.cpsoneghett.codingtask.domain.ImportJobDto;
+import com.cpsoneghett.codingtask.domain.ImportRejectionDto;
+import com.cpsoneghett.codingtask.service.DeviceImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+@RestController
+@Profile("!reactive & !memory & !sharded")
+@RequestMapping("/v1/device-imports")
+@Tag(name = "Device Import", description = "APIs for importing devices in bulk from CSV files")
+public class DeviceImportController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private final DeviceImportService importService;
+
+    public DeviceImportController(DeviceImportService importService) {
+        this.importService = importService;
+    }
+
+    @Operation(summary = "Start an import", description = "Uploads a UTF-8 CSV file with a header row naming the columns name, brand and state, and imports it in the background. Rows are validated like a device creation; invalid rows are rejected without stopping the import.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "File stored and import queued, the Location header points at the job status")
+    })
+    @PostMapping(consumes = TEXT_CSV)
+    public ResponseEntity<ImportJobDto> create(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "CSV file with the devices to be imported", required = true,
+                    content = @Content(mediaType = TEXT_CSV, schema = @Schema(type = "string", example = "name,brand,state\nPixel 9,Google,AVAILABLE")))
+            InputStream csv) throws IOException {
+        ImportJobDto job = importService.create(csv);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.id()).toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @Operation(summary = "Find import by ID", description = "Retrieves the status and progress of an import job.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the import job"),
+            @ApiResponse(responseCode = "404", description = "Import job not found with the given ID", content = @Content)
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDto> findById(@Parameter(description = "ID of the import job", required = true, example = "1")
+                                                 @PathVariable Long id) {
+        return ResponseEntity.ok().body(importService.findById(id));
+    }
+
+    @Operation(summary = "Find rejected rows", description = "Retrieves a paginated list of the rows rejected by an import, with the reason of each.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the rejected rows"),
+            @ApiResponse(responseCode = "404", description = "Import job not found with the given ID", content = @Content)
+    })
+    @GetMapping("/{id}/rejections")
+    public ResponseEntity<Page<ImportRejectionDto>> findRejections(
+            @Parameter(description = "ID of the import job", required = true, example = "1") @PathVariable Long id,
+            @Parameter(description = "Pagination information") Pageable pageable) {
+        return ResponseEntity.ok().body(importService.findRejections(id, pageable));
+    }
+
+    @Operation(summary = "Cancel an import", description = "Stops a queued or running import. Rows already imported are kept.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import job cancelled"),
+            @ApiResponse(responseCode = "404", description = "Import job not found with the given ID", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - Import job already finished", content = @Content)
+    })
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<ImportJobDto> cancel(@Parameter(description = "ID of the import job", required = true, example = "1")
+                                               @PathVariable Long id) {
+        return ResponseEntity.ok().body(importService.cancel(id));
+    }
+}
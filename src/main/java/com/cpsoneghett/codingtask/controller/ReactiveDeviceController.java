@@ -0,0 +1,145 @@
+package com.cpsoneghett.codingtask.controller;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceLookupRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
+import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
+import com.cpsoneghett.codingtask.service.ReactiveDeviceService;
+import com.cpsoneghett.codingtask.validation.DeviceCreateValidation;
+import com.github.fge.jsonpatch.JsonPatch;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of {@link DeviceController}, serving the same URLs when the reactive profile is active.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/v1/devices")
+@Tag(name = "Device Management", description = "APIs for creating, retrieving, and managing devices")
+public class ReactiveDeviceController {
+
+    private final ReactiveDeviceService deviceService;
+
+    public ReactiveDeviceController(ReactiveDeviceService deviceService) {
+        this.deviceService = deviceService;
+    }
+
+    @Operation(summary = "Find all devices", description = "Retrieves a paginated list of devices, optionally filtered by brand or state.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of devices")
+    })
+    @GetMapping
+    public Mono<ResponseEntity<Page<Device>>> findAll(@Parameter(description = "Filter criteria for devices") DeviceFilter filter,
+                                                @Parameter(description = "Pagination and sorting information") Pageable pageable) {
+        return deviceService.findAll(filter, pageable).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Find device by ID", description = "Retrieves a single device by its unique ID.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the device"),
+            @ApiResponse(responseCode = "404", description = "Device not found with the given ID", content = @Content)
+    })
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Device>> findById(@Parameter(description = "ID of the device to be retrieved", required = true, example = "1")
+                                           @PathVariable Long id) {
+        return deviceService.findById(id).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Find many devices by ID", description = "Retrieves up to " + DeviceLookupRequestDto.MAX_IDS + " devices in one request. Ids that do not exist are listed in 'missing'.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the devices"),
+            @ApiResponse(responseCode = "400", description = "Empty or too large list of ids", content = @Content)
+    })
+    @PostMapping("/lookup")
+    public Mono<ResponseEntity<DeviceLookupResponseDto>> findAllById(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Ids of the devices to be retrieved", required = true,
+                    content = @Content(schema = @Schema(implementation = DeviceLookupRequestDto.class)))
+            @RequestBody @Valid DeviceLookupRequestDto lookup) {
+        return deviceService.findAllById(lookup.ids()).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Create a new device", description = "Adds a new device to the system.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid request body or validation error", content = @Content)
+    })
+    @PostMapping
+    public Mono<ResponseEntity<Device>> create(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Device object that needs to be added", required = true,
+                    content = @Content(schema = @Schema(implementation = DeviceRequestDto.class)))
+            @RequestBody @Validated(DeviceCreateValidation.class) DeviceRequestDto device) {
+        return deviceService.save(device).map(ResponseEntity::ok);
+    }
+
+
+    @Operation(summary = "Delete a device", description = "Deletes a device by its ID. Cannot delete a device that is IN_USE.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Device deleted successfully", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Device not found with the given ID", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - Device is currently in use and cannot be deleted", content = @Content)
+    })
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> delete(
+            @Parameter(description = "ID of the device to be deleted", required = true, example = "1")
+            @PathVariable("id") Long id) {
+        return deviceService.delete(id).then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+
+    @Operation(summary = "Update a device", description = "Updates all properties of an existing device. Name and brand cannot be updated if the device is IN_USE.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid request body or validation error", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Device not found with the given ID", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - Device is in use and certain fields cannot be updated", content = @Content)
+    })
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Device>> update(
+            @Parameter(description = "ID of the device to be updated", required = true, example = "1")
+            @PathVariable("id") Long id,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Updated device object", required = true,
+                    content = @Content(schema = @Schema(implementation = DeviceRequestDto.class)))
+            @RequestBody DeviceRequestDto deviceDto) {
+        return deviceService.update(id, deviceDto).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Partially update a device", description = "Applies a partial update to a device using JSON Patch standard (RFC 6902).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device partially updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid JSON Patch payload", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Device not found with the given ID", content = @Content)
+    })
+    @PatchMapping(path = "/{id}", consumes = "application/json-patch+json")
+    public Mono<ResponseEntity<Device>> partialUpdate(
+            @Parameter(description = "ID of the device to be partially updated", required = true, example = "1")
+            @PathVariable("id") Long id,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON Patch payload for the update", required = true,
+                    content = @Content(mediaType = "application/json-patch+json",
+                            schema = @Schema(example = "[{\"op\": \"replace\", \"path\": \"/state\", \"value\": \"INACTIVE\"}]")))
+            @RequestBody JsonPatch jsonPatch) {
+        return deviceService.partialUpdate(id, jsonPatch).map(ResponseEntity::ok);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.cpsoneghett.codingtask.dataset;
+
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * With the {@code dataset} profile the application migrates the schema, loads the configured dataset and exits, e.g.
+ * {@code java -jar app.jar --spring.profiles.active=dataset --app.dataset.rows=10000000}.
+ */
+@Component
+@Profile("dataset")
+public class DatasetLoaderRunner implements ApplicationRunner {
+
+    private final DataSource dataSource;
+    private final BrandDictionary brandDictionary;
+    private final DatasetProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    public DatasetLoaderRunner(DataSource dataSource, BrandDictionary brandDictionary, DatasetProperties properties,
+                               ConfigurableApplicationContext context) {
+        this.dataSource = dataSource;
+        this.brandDictionary = brandDictionary;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        new DeviceDatasetLoader(dataSource, brandDictionary)
+                .load(properties.dataset(), properties.truncate(), properties.threads(), properties.batchSize());
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
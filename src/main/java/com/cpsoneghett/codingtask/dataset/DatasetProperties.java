@@ -0,0 +1,35 @@
+package com.cpsoneghett.codingtask.dataset;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * @param rows         devices to generate
+ * @param seed         the same seed always generates the same devices
+ * @param brands       distinct brands; how often each is used follows a Zipf distribution
+ * @param zipfExponent skew of the brand distribution, higher values concentrate devices in fewer brands
+ * @param createdUntil creation time of the newest device; fixed rather than "now" so datasets are reproducible
+ * @param createdOver  time span the creation times are spread over, denser towards {@code createdUntil}
+ * @param threads      connections loading in parallel
+ * @param batchSize    rows per batch, which the driver sends as multi-row inserts
+ * @param truncate     whether the device table is emptied first; otherwise ids continue after the current maximum
+ */
+@ConfigurationProperties(prefix = "app.dataset")
+public record DatasetProperties(
+        @DefaultValue("1000000") long rows,
+        @DefaultValue("42") long seed,
+        @DefaultValue("200") int brands,
+        @DefaultValue("1.1") double zipfExponent,
+        @DefaultValue("2026-01-01T00:00:00") LocalDateTime createdUntil,
+        @DefaultValue("P1095D") Duration createdOver,
+        @DefaultValue("4") int threads,
+        @DefaultValue("5000") int batchSize,
+        @DefaultValue("false") boolean truncate) {
+
+    public DeviceDataset dataset() {
+        return new DeviceDataset(seed, rows, brands, zipfExponent, createdUntil, createdOver);
+    }
+}
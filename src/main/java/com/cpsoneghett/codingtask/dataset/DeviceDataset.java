@@ -0,0 +1,137 @@
+package com.cpsoneghett.codingtask.dataset;
+
+import com.cpsoneghett.codingtask.domain.DeviceState;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * A synthetic device table, fully determined by its parameters. Every row gets its own random generator derived from
+ * the seed and the row number, so any range of rows can be generated on its own, in any order and on any number of
+ * threads, and still come out the same.
+ * <p>
+ * Brands follow a Zipf distribution (a few brands hold most devices), states are mostly {@code AVAILABLE} and
+ * creation times grow with the row number, getting denser towards the end as a growing inventory would.
+ */
+public class DeviceDataset {
+
+    private static final String[] BRAND_PREFIXES = {"Nova", "Apex", "Zen", "Quantum", "Pixel", "Vertex", "Aero",
+            "Lumen", "Orbit", "Pulse", "Terra", "Flux", "Echo", "Nimbus", "Cobalt", "Helix", "Vivid", "Strato",
+            "Prism", "Atlas", "Volt", "Sonic", "Iron", "Polar", "Solar", "Crest", "Onyx", "Ember", "Kinetic", "Astra"};
+    private static final String[] BRAND_SUFFIXES = {"Tech", "Labs", "Works", "Systems", "Devices", "Mobile", "Audio",
+            "Vision", "Home", "Gear", "Link", "Wave", "Core", "Logic", "Matrix", "Dynamics", "Electronics", "Digital",
+            "Sense", "Forge", "Craft", "Point", "Line", "Hub", "Motion", "Grid", "Byte", "Cloud", "Spark", "Ware"};
+    private static final String[] MODELS = {"Phone", "Tab", "Book", "Watch", "Buds", "Cam", "Speaker", "Monitor",
+            "Router", "Drone", "Console", "Reader", "Hub", "Scale", "Band", "Projector", "Dock", "Tracker"};
+    private static final String[] EDITIONS = {"", "", "", " Pro", " Max", " Lite", " Mini", " Ultra", " Plus", " SE"};
+
+    /**
+     * Cumulative state probabilities: 70% AVAILABLE, 22% IN_USE, 8% INACTIVE.
+     */
+    private static final double[] STATE_CDF = {0.70, 0.92, 1.0};
+    private static final DeviceState[] STATES = {DeviceState.AVAILABLE, DeviceState.IN_USE, DeviceState.INACTIVE};
+
+    private final long seed;
+    private final long rows;
+    private final List<String> brandNames;
+    private final double[] brandCdf;
+    private final LocalDateTime createdFrom;
+    private final long createdOverSeconds;
+
+    public DeviceDataset(long seed, long rows, int brands, double zipfExponent, LocalDateTime createdUntil,
+                         Duration createdOver) {
+        if (rows < 0) throw new IllegalArgumentException("rows must not be negative");
+        if (brands < 1) throw new IllegalArgumentException("brands must be at least 1");
+
+        this.seed = seed;
+        this.rows = rows;
+        this.brandNames = brandNames(seed, brands);
+        this.brandCdf = zipfCdf(brands, zipfExponent);
+        this.createdFrom = createdUntil.minus(createdOver);
+        this.createdOverSeconds = createdOver.toSeconds();
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * Brand names, most frequent first.
+     */
+    public List<String> brandNames() {
+        return brandNames;
+    }
+
+    /**
+     * @param index row number, from 0 to {@code rows() - 1}
+     */
+    public DeviceRow row(long index) {
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(index + 1)));
+
+        int brand = brandIndex(random.nextDouble());
+        String name = brandNames.get(brand) + " " + MODELS[random.nextInt(MODELS.length)] + " "
+                + (1 + random.nextInt(20)) + EDITIONS[random.nextInt(EDITIONS.length)];
+
+        double stateSample = random.nextDouble();
+        int state = 0;
+        while (stateSample >= STATE_CDF[state]) state++;
+
+        // sqrt spreads early rows over more time than late ones; jitter keeps timestamps from being evenly spaced
+        double position = rows <= 1 ? 1 : (double) index / (rows - 1);
+        long second = (long) (Math.sqrt(position) * createdOverSeconds) - random.nextInt(60);
+        LocalDateTime createdAt = createdFrom.plusSeconds(Math.max(0, second));
+
+        return new DeviceRow(index, name, brand, STATES[state], createdAt);
+    }
+
+    private int brandIndex(double sample) {
+        int index = Arrays.binarySearch(brandCdf, sample);
+        return Math.min(index >= 0 ? index + 1 : -index - 1, brandCdf.length - 1);
+    }
+
+    private static double[] zipfCdf(int brands, double exponent) {
+        double[] cdf = new double[brands];
+        double total = 0;
+        for (int rank = 1; rank <= brands; rank++) {
+            total += 1 / Math.pow(rank, exponent);
+            cdf[rank - 1] = total;
+        }
+        for (int i = 0; i < brands; i++) cdf[i] /= total;
+        return cdf;
+    }
+
+    private static List<String> brandNames(long seed, int brands) {
+        SplittableRandom random = new SplittableRandom(mix(seed));
+        Set<String> names = new LinkedHashSet<>();
+        int combinations = BRAND_PREFIXES.length * BRAND_SUFFIXES.length;
+        while (names.size() < Math.min(brands, combinations)) {
+            names.add(BRAND_PREFIXES[random.nextInt(BRAND_PREFIXES.length)] + BRAND_SUFFIXES[random.nextInt(BRAND_SUFFIXES.length)]);
+        }
+
+        List<String> result = new ArrayList<>(names);
+        for (int i = result.size(); i < brands; i++) result.add(result.get(i % combinations) + " " + (i / combinations + 1));
+        return List.copyOf(result);
+    }
+
+    /**
+     * SplitMix64 finalizer, spreads nearby inputs (consecutive row numbers) over unrelated seeds.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param brand index into {@link #brandNames()}
+     */
+    public record DeviceRow(long index, String name, int brand, DeviceState state, LocalDateTime createdAt) {
+    }
+}
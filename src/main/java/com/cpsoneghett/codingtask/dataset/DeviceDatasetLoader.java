@@ -0,0 +1,145 @@
+package com.cpsoneghett.codingtask.dataset;
+
+import com.cpsoneghett.codingtask.dataset.DeviceDataset.DeviceRow;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk loads a {@link DeviceDataset} into the device table. Rows are split in chunks taken by a pool of loaders, each
+ * on its own connection with foreign key and unique checks off, sending JDBC batches that the driver rewrites into
+ * multi-row inserts ({@code rewriteBatchedStatements}). Ids are assigned from the row number, so the same dataset
+ * always gets the same ids, whatever the number of threads.
+ * <p>
+ * Usable from tests and benchmarks with any MySQL data source, without a Spring context.
+ */
+public class DeviceDatasetLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceDatasetLoader.class);
+    private static final String INSERT = "insert into device (id, name, brand_id, state, dt_created) values (?, ?, ?, ?, ?)";
+    private static final int BATCHES_PER_CHUNK = 20;
+    private static final long PROGRESS_EVERY = 1_000_000;
+
+    private final DataSource dataSource;
+    private final BrandDictionary brandDictionary;
+
+    public DeviceDatasetLoader(DataSource dataSource, BrandDictionary brandDictionary) {
+        this.dataSource = dataSource;
+        this.brandDictionary = brandDictionary;
+    }
+
+    /**
+     * @return the id of the first loaded device; the others follow without gaps
+     */
+    public long load(DeviceDataset dataset, boolean truncate, int threads, int batchSize) {
+        long startedAt = System.nanoTime();
+
+        if (truncate) execute("truncate table device");
+        int[] brandIds = dataset.brandNames().stream().mapToInt(brandDictionary::idFor).toArray();
+        long firstId = nextId();
+
+        long chunkSize = (long) batchSize * BATCHES_PER_CHUNK;
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong loaded = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("dataset-loader-", 1).factory());
+        try {
+            List<Future<?>> loaders = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                loaders.add(executor.submit(() -> {
+                    loadChunks(dataset, brandIds, firstId, chunkSize, batchSize, nextChunk, loaded);
+                    return null;
+                }));
+            }
+            for (Future<?> loader : loaders) loader.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dataset load interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new DataAccessResourceFailureException("Dataset load failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        log.info("Loaded {} devices (ids {} to {}) in {} s, {} rows/s", dataset.rows(), firstId, firstId + dataset.rows() - 1,
+                String.format("%.1f", seconds), Math.round(dataset.rows() / seconds));
+        return firstId;
+    }
+
+    private void loadChunks(DeviceDataset dataset, int[] brandIds, long firstId, long chunkSize, int batchSize,
+                            AtomicLong nextChunk, AtomicLong loaded) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("set session foreign_key_checks = 0, unique_checks = 0");
+            }
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                long from;
+                while ((from = nextChunk.getAndIncrement() * chunkSize) < dataset.rows()) {
+                    long to = Math.min(from + chunkSize, dataset.rows());
+                    for (long index = from; index < to; index++) {
+                        DeviceRow row = dataset.row(index);
+                        insert.setLong(1, firstId + index);
+                        insert.setString(2, row.name());
+                        insert.setInt(3, brandIds[row.brand()]);
+                        insert.setInt(4, row.state().getCode());
+                        insert.setTimestamp(5, Timestamp.valueOf(row.createdAt()));
+                        insert.addBatch();
+
+                        if ((index - from + 1) % batchSize == 0 || index == to - 1) {
+                            insert.executeBatch();
+                            connection.commit();
+                        }
+                    }
+
+                    long total = loaded.addAndGet(to - from);
+                    if (total / PROGRESS_EVERY != (total - (to - from)) / PROGRESS_EVERY)
+                        log.info("Loaded {} of {} devices", total, dataset.rows());
+                }
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("set session foreign_key_checks = 1, unique_checks = 1");
+                }
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private long nextId() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select coalesce(max(id), 0) + 1 from device")) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException ex) {
+            throw new DataAccessResourceFailureException("Could not read the next device id", ex);
+        }
+    }
+
+    private void execute(String sql) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException ex) {
+            throw new DataAccessResourceFailureException("Could not execute " + sql, ex);
+        }
+    }
+}
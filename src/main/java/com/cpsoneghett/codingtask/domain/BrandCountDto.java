@@ -0,0 +1,8 @@
+package com.cpsoneghett.codingtask.domain;
+
+/**
+ * @param brand   name of the brand
+ * @param devices number of devices of the brand
+ */
+public record BrandCountDto(String brand, long devices) {
+}
@@ -1,10 +1,12 @@
 package com.cpsoneghett.codingtask.domain;
 
+import com.cpsoneghett.codingtask.domain.converter.BrandConverter;
+import com.cpsoneghett.codingtask.domain.converter.DeviceStateConverter;
 import com.cpsoneghett.codingtask.validation.DeviceCreateValidation;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
-import jakarta.persistence.EnumType;
-import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -32,9 +34,11 @@ public class Device {
 
     @NotBlank(message = "Device brand cannot be null or empty.")
     @Size(min = 2, max = 100, message = "Device brand must be between 2 and 100 characters.", groups = {DeviceCreateValidation.Second.class})
+    @Convert(converter = BrandConverter.class)
+    @Column(name = "brand_id")
     private String brand;
 
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = DeviceStateConverter.class)
     @NotNull(message = "Device state cannot be null.")
     private DeviceState state;
 
@@ -42,6 +46,13 @@ public class Device {
     @Column(name = "dt_created")
     private LocalDateTime createdAt;
 
+    /**
+     * Maintained by the database on every change to the row, lease updates made in SQL included. Not part of the API.
+     */
+    @JsonIgnore
+    @Column(name = "dt_updated", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+
     public Device(String name, String brand, DeviceState state) {
         this.name = name;
         this.brand = brand;
@@ -88,6 +99,18 @@ public class Device {
         return createdAt;
     }
 
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public boolean isEqualsDto(DeviceRequestDto dto) {
         return this.name.equals(dto.name().trim()) && this.brand.equals(dto.brand().trim()) && this.state.equals(dto.state());
     }
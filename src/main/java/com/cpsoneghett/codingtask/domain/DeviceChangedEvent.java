@@ -0,0 +1,40 @@
+package com.cpsoneghett.codingtask.domain;
+
+/**
+ * Published by the device service after every successful write, so in-memory structures derived from the device
+ * table can be maintained without the service knowing about them.
+ *
+ * @param previousBrand brand the device had before an update, when it may have changed
+ */
+public record DeviceChangedEvent(ChangeType type, Device device, String previousBrand) {
+
+    public DeviceChangedEvent(ChangeType type, Device device) {
+        this(type, device, null);
+    }
+
+    public enum ChangeType {
+
+        CREATED(1), UPDATED(2), DELETED(3);
+
+        private static final ChangeType[] BY_CODE = {null, CREATED, UPDATED, DELETED};
+
+        /**
+         * Value stored in the {@code device_history.change_type} column. Codes are persisted, so they must never be
+         * reassigned.
+         */
+        private final int code;
+
+        ChangeType(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public static ChangeType fromCode(int code) {
+            if (code <= 0 || code >= BY_CODE.length) throw new IllegalArgumentException("Unknown change type code " + code);
+            return BY_CODE[code];
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.cpsoneghett.codingtask.domain;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record DeviceCheckinRequestDto(
+        @NotBlank(message = "Lease token cannot be null or empty.")
+        String leaseToken) {
+}
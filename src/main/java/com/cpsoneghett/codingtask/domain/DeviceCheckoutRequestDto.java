@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.domain;
+
+import java.time.Duration;
+
+/**
+ * @param leaseDuration how long the device is held before the lease reaper makes it available again, the configured
+ *                      default when absent
+ */
+public record DeviceCheckoutRequestDto(Duration leaseDuration) {
+}
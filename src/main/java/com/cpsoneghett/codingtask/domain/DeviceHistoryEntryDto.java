@@ -0,0 +1,15 @@
+package com.cpsoneghett.codingtask.domain;
+
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A device as it was right after one of its changes.
+ *
+ * @param id        position in the history, increasing with every entry written; {@code null} until written
+ * @param changedAt when the change was recorded, once its transaction committed
+ */
+public record DeviceHistoryEntryDto(Long id, Long deviceId, ChangeType change, String name, String brand,
+                                    DeviceState state, LocalDateTime changedAt) {
+}
@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.domain;
+
+import java.util.List;
+
+/**
+ * @param entries changes of the device, newest first
+ * @param next    value of {@code before} for the next page, {@code null} on the last one
+ */
+public record DeviceHistoryResponseDto(List<DeviceHistoryEntryDto> entries, Long next) {
+}
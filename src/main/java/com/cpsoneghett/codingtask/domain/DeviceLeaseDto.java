@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * A checked out device. The lease token is only handed to the client that checked the device out and is required to
+ * check it in.
+ */
+public record DeviceLeaseDto(Device device, String leaseToken, LocalDateTime leaseExpiresAt) {
+}
@@ -0,0 +1,15 @@
+package com.cpsoneghett.codingtask.domain;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record DeviceLookupRequestDto(
+        @NotEmpty(message = "At least one device id must be informed.")
+        @Size(max = DeviceLookupRequestDto.MAX_IDS, message = "At most " + DeviceLookupRequestDto.MAX_IDS + " device ids can be looked up at once.")
+        List<@NotNull(message = "Device id cannot be null.") Long> ids) {
+
+    public static final int MAX_IDS = 1000;
+}
@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.domain;
+
+import java.util.List;
+
+/**
+ * @param devices devices found, in the order their ids were requested
+ * @param missing requested ids that do not exist
+ */
+public record DeviceLookupResponseDto(List<Device> devices, List<Long> missing) {
+}
@@ -2,5 +2,25 @@ package com.cpsoneghett.codingtask.domain;
 
 public enum DeviceState {
 
-    AVAILABLE, IN_USE, INACTIVE
+    AVAILABLE(1), IN_USE(2), INACTIVE(3);
+
+    private static final DeviceState[] BY_CODE = {null, AVAILABLE, IN_USE, INACTIVE};
+
+    /**
+     * Value stored in the {@code device.state} column. Codes are persisted, so they must never be reassigned.
+     */
+    private final int code;
+
+    DeviceState(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static DeviceState fromCode(int code) {
+        if (code <= 0 || code >= BY_CODE.length) throw new IllegalArgumentException("Unknown device state code " + code);
+        return BY_CODE[code];
+    }
 }
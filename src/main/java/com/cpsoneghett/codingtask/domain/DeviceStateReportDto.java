@@ -0,0 +1,8 @@
+package com.cpsoneghett.codingtask.domain;
+
+import jakarta.validation.constraints.NotNull;
+
+public record DeviceStateReportDto(
+        @NotNull(message = "Device id cannot be null.") Long id,
+        @NotNull(message = "Device state cannot be null.") DeviceState state) {
+}
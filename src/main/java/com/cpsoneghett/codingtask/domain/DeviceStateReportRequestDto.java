@@ -0,0 +1,16 @@
+package com.cpsoneghett.codingtask.domain;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record DeviceStateReportRequestDto(
+        @NotEmpty(message = "At least one state report must be informed.")
+        @Size(max = DeviceStateReportRequestDto.MAX_REPORTS, message = "At most " + DeviceStateReportRequestDto.MAX_REPORTS + " state reports can be sent at once.")
+        List<@NotNull(message = "State report cannot be null.") @Valid DeviceStateReportDto> reports) {
+
+    public static final int MAX_REPORTS = 10_000;
+}
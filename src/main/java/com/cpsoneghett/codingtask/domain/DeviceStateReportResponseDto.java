@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.domain;
+
+import java.util.List;
+
+/**
+ * @param changed reports queued as a transition, the others repeated the last known state of their device
+ * @param unknown ids of reports for devices that do not exist, which are dropped
+ */
+public record DeviceStateReportResponseDto(int received, int changed, List<Long> unknown) {
+}
@@ -0,0 +1,12 @@
+package com.cpsoneghett.codingtask.domain;
+
+import java.util.List;
+
+/**
+ * @param changed devices created or changed since the token, in the order they changed
+ * @param deleted ids of the devices deleted since the token
+ * @param token   where the next sync continues from
+ * @param hasMore whether more changes are ready, in which case the next sync should follow right away
+ */
+public record DeviceSyncResponseDto(List<Device> changed, List<Long> deleted, String token, boolean hasMore) {
+}
@@ -0,0 +1,12 @@
+package com.cpsoneghett.codingtask.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * A bulk device import. {@code position} and {@code recordNumber} point at the first record of the file that was not
+ * imported yet, so a job taken over after a restart carries on from there.
+ */
+public record ImportJob(long id, String filePath, long sizeBytes, ImportJobStatus status, long position,
+                        long recordNumber, long importedRows, long rejectedRows, String error, LocalDateTime createdAt,
+                        LocalDateTime startedAt, LocalDateTime finishedAt) {
+}
@@ -0,0 +1,24 @@
+package com.cpsoneghett.codingtask.domain;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Status of an import job. {@code rowsPerSecond} counts imported and rejected rows since the job first started.
+ */
+public record ImportJobDto(long id, ImportJobStatus status, long sizeBytes, long importedRows, long rejectedRows,
+                           double rowsPerSecond, String error, LocalDateTime createdAt, LocalDateTime startedAt,
+                           LocalDateTime finishedAt) {
+
+    public static ImportJobDto of(ImportJob job, LocalDateTime now) {
+        double rowsPerSecond = 0;
+        if (job.startedAt() != null) {
+            Duration elapsed = Duration.between(job.startedAt(), job.finishedAt() != null ? job.finishedAt() : now);
+            if (elapsed.toMillis() > 0)
+                rowsPerSecond = (job.importedRows() + job.rejectedRows()) * 1000.0 / elapsed.toMillis();
+        }
+
+        return new ImportJobDto(job.id(), job.status(), job.sizeBytes(), job.importedRows(), job.rejectedRows(),
+                Math.round(rowsPerSecond * 10) / 10.0, job.error(), job.createdAt(), job.startedAt(), job.finishedAt());
+    }
+}
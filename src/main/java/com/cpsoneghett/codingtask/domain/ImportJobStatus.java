@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.domain;
+
+public enum ImportJobStatus {
+
+    QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,7 @@
+package com.cpsoneghett.codingtask.domain;
+
+/**
+ * A CSV record left out of an import. Records are numbered from 1, not counting the header.
+ */
+public record ImportRejectionDto(long recordNumber, String reason) {
+}
@@ -0,0 +1,51 @@
+package com.cpsoneghett.codingtask.domain;
+
+import com.cpsoneghett.codingtask.exception.InvalidSyncTokenException;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Place in the stream of device changes and deletions, which is ordered by time and then id. Ids are never reused,
+ * so no two entries of the stream share a position. Clients get it as an opaque sync token.
+ *
+ * @param time {@code dt_updated} of a changed device or {@code dt_deleted} of a tombstone
+ */
+public record SyncPosition(LocalDateTime time, long id) implements Comparable<SyncPosition> {
+
+    public static final SyncPosition START = new SyncPosition(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+
+    private static final Comparator<SyncPosition> ORDER = Comparator.comparing(SyncPosition::time).thenComparingLong(SyncPosition::id);
+
+    public static SyncPosition decode(String token) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.remaining() != 2 * Long.BYTES) throw new InvalidSyncTokenException();
+
+            long micros = buffer.getLong();
+            LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                    (int) Math.floorMod(micros, 1_000_000) * 1000, ZoneOffset.UTC);
+            return new SyncPosition(time, buffer.getLong());
+        } catch (IllegalArgumentException | DateTimeException ex) {
+            throw new InvalidSyncTokenException();
+        }
+    }
+
+    /**
+     * Times are written with the microsecond precision of the columns.
+     */
+    public String encode() {
+        long micros = time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1000;
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES).putLong(micros).putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    @Override
+    public int compareTo(SyncPosition other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,29 @@
+package com.cpsoneghett.codingtask.domain.converter;
+
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps the brand name of a device to its key in the {@code brand} table. Instantiated by Spring through Hibernate's
+ * bean container, so the dictionary is injected.
+ */
+@Converter
+public class BrandConverter implements AttributeConverter<String, Integer> {
+
+    private final BrandDictionary brandDictionary;
+
+    public BrandConverter(BrandDictionary brandDictionary) {
+        this.brandDictionary = brandDictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String brand) {
+        return brand == null ? null : brandDictionary.idFor(brand);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id == null ? null : brandDictionary.nameFor(id);
+    }
+}
@@ -0,0 +1,19 @@
+package com.cpsoneghett.codingtask.domain.converter;
+
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class DeviceStateConverter implements AttributeConverter<DeviceState, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(DeviceState state) {
+        return state == null ? null : state.getCode();
+    }
+
+    @Override
+    public DeviceState convertToEntityAttribute(Integer code) {
+        return code == null ? null : DeviceState.fromCode(code);
+    }
+}
@@ -0,0 +1,8 @@
+package com.cpsoneghett.codingtask.exception;
+
+public class BulkheadFullException extends BusinessException {
+
+    public BulkheadFullException(String workload) {
+        super(String.format("Too many %s requests are running. Try again shortly.", workload));
+    }
+}
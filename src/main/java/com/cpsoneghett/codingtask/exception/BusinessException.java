@@ -1,8 +1,11 @@
 package com.cpsoneghett.codingtask.exception;
 
+/**
+ * Business exceptions are expected outcomes mapped to a response, so they are created without a stack trace.
+ */
 public class BusinessException extends RuntimeException {
 
     public BusinessException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,12 @@
+package com.cpsoneghett.codingtask.exception;
+
+public class DeviceUnavailableException extends BusinessException {
+
+    public DeviceUnavailableException(Long id) {
+        super(String.format("Device with id %s is not available for checkout.", id));
+    }
+
+    public DeviceUnavailableException() {
+        super("No available device matches the given filter.");
+    }
+}
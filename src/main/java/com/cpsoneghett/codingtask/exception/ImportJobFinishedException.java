@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.exception;
+
+import com.cpsoneghett.codingtask.domain.ImportJobStatus;
+
+public class ImportJobFinishedException extends BusinessException {
+
+    public ImportJobFinishedException(Long id, ImportJobStatus status) {
+        super(String.format("Import job with id %s already finished as %s.", id, status));
+    }
+}
@@ -0,0 +1,8 @@
+package com.cpsoneghett.codingtask.exception;
+
+public class ImportJobNotFoundException extends BusinessException {
+
+    public ImportJobNotFoundException(Long id) {
+        super(String.format("Import job with id %s not found.", id));
+    }
+}
@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.exception;
+
+import java.time.Duration;
+
+public class InvalidLeaseDurationException extends BusinessException {
+
+    public InvalidLeaseDurationException(Duration maxDuration) {
+        super(String.format("Lease duration must be positive and at most %s.", maxDuration));
+    }
+}
@@ -0,0 +1,17 @@
+package com.cpsoneghett.codingtask.exception;
+
+import java.util.Collection;
+
+public class InvalidSortException extends BusinessException {
+
+    public InvalidSortException(String property, Collection<String> sortableProperties) {
+        super(String.format("Sorting by '%s' is not supported. Sortable properties: %s.", property, String.join(", ", sortableProperties)));
+    }
+
+    /**
+     * The property can only lead the sort.
+     */
+    public InvalidSortException(String property) {
+        super(String.format("Sorting by '%s' is only supported as the first sort property.", property));
+    }
+}
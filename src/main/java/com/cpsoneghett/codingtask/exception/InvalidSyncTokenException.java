@@ -0,0 +1,8 @@
+package com.cpsoneghett.codingtask.exception;
+
+public class InvalidSyncTokenException extends BusinessException {
+
+    public InvalidSyncTokenException() {
+        super("The sync token is not valid. Use a token returned by a previous sync, or none to start over.");
+    }
+}
@@ -0,0 +1,8 @@
+package com.cpsoneghett.codingtask.exception;
+
+public class LeaseNotHeldException extends BusinessException {
+
+    public LeaseNotHeldException(Long id) {
+        super(String.format("Device with id %s is not checked out under the given lease token.", id));
+    }
+}
@@ -0,0 +1,10 @@
+package com.cpsoneghett.codingtask.exception;
+
+import java.time.Duration;
+
+public class SyncTokenExpiredException extends BusinessException {
+
+    public SyncTokenExpiredException(Duration retention) {
+        super(String.format("The sync token is older than %s and deletions since then are no longer known. Sync again without a token.", retention));
+    }
+}
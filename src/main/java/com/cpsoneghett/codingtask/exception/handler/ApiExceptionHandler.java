@@ -1,16 +1,24 @@
 package com.cpsoneghett.codingtask.exception.handler;
 
 
+import com.cpsoneghett.codingtask.exception.BulkheadFullException;
 import com.cpsoneghett.codingtask.exception.BusinessException;
 import com.cpsoneghett.codingtask.exception.CustomError;
 import com.cpsoneghett.codingtask.exception.DeviceInUseException;
 import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import com.cpsoneghett.codingtask.exception.DeviceUnavailableException;
+import com.cpsoneghett.codingtask.exception.ImportJobFinishedException;
+import com.cpsoneghett.codingtask.exception.ImportJobNotFoundException;
+import com.cpsoneghett.codingtask.exception.InvalidSortException;
+import com.cpsoneghett.codingtask.exception.LeaseNotHeldException;
+import com.cpsoneghett.codingtask.exception.SyncTokenExpiredException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
 import com.github.fge.jsonpatch.JsonPatchException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Profile;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -30,17 +38,26 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @ControllerAdvice
+@Profile("!reactive")
 public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private static final Map<HttpStatus, Problem> BUSINESS_PROBLEMS = Map.of(
+            HttpStatus.NOT_FOUND, getProblemBuilder(HttpStatus.NOT_FOUND, ProblemType.BUSINESS_ERROR, null),
+            HttpStatus.CONFLICT, getProblemBuilder(HttpStatus.CONFLICT, ProblemType.BUSINESS_ERROR, null),
+            HttpStatus.GONE, getProblemBuilder(HttpStatus.GONE, ProblemType.BUSINESS_ERROR, null),
+            HttpStatus.SERVICE_UNAVAILABLE, getProblemBuilder(HttpStatus.SERVICE_UNAVAILABLE, ProblemType.BUSINESS_ERROR, null),
+            HttpStatus.BAD_REQUEST, getProblemBuilder(HttpStatus.BAD_REQUEST, ProblemType.BUSINESS_ERROR, null));
+
     private final MessageSource messageSource;
 
     public ApiExceptionHandler(MessageSource messageSource) {
         this.messageSource = messageSource;
     }
 
-    private static Problem getProblemBuilder(HttpStatusCode status, ProblemType problemType, List<CustomError> errors) {
+    static Problem getProblemBuilder(HttpStatusCode status, ProblemType problemType, List<CustomError> errors) {
         return Problem.builder().timestamp(LocalDateTime.now()).status(status.value()).type(problemType.getUri()).title(problemType.getTitle()).errors(errors).build();
     }
 
@@ -87,20 +104,7 @@ public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
 
     @Override
     protected ResponseEntity<Object> handleHttpMessageNotReadable(HttpMessageNotReadableException ex, @NonNull HttpHeaders headers, @NonNull HttpStatusCode status, @NonNull WebRequest request) {
-        String userMessage = "Invalid request body format or content.";
-
-        Throwable mostSpecificCause = ex.getMostSpecificCause();
-        if (mostSpecificCause instanceof UnrecognizedPropertyException ue) {
-            userMessage = String.format("Unrecognized field '%s' found in request body. " + "Please ensure the JSON matches the expected structure.", ue.getPropertyName());
-
-            if ("createdAt".equals(ue.getPropertyName())) {
-                userMessage = "The field 'createdAt' is automatically managed and cannot be provided in the request body.";
-            }
-        } else if (mostSpecificCause instanceof JsonPatchException) {
-            userMessage = "Invalid request body format or content.";
-        } else if (mostSpecificCause.getMessage() != null) {
-            userMessage = "Failed to parse request body: " + mostSpecificCause.getMessage();
-        }
+        String userMessage = unreadableBodyMessage(ex.getMostSpecificCause());
 
         Problem problem = getProblemBuilder(HttpStatus.BAD_REQUEST, ProblemType.INCOMPREHENSIVE_MESSAGE, List.of(new CustomError(userMessage, ex.toString())));
 
@@ -121,26 +125,68 @@ public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
         return handleExceptionInternal(ex, problem, new HttpHeaders(), status, request);
     }
 
+    @ExceptionHandler(InvalidSortException.class)
+    public ResponseEntity<Object> handleInvalidSort(InvalidSortException ex, WebRequest request) {
+
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+
+        Problem problem = getProblemBuilder(status, ProblemType.INVALID_PARAMETER, List.of(new CustomError(ex.getLocalizedMessage(), ex.toString())));
+
+        return handleExceptionInternal(ex, problem, new HttpHeaders(), status, request);
+    }
+
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<Object> handleBusinessException(BusinessException ex, WebRequest request) {
 
-        HttpStatus status;
+        HttpStatus status = statusOf(ex);
 
-        if (ex instanceof DeviceNotFoundException) status = HttpStatus.NOT_FOUND;
-        else if (ex instanceof DeviceInUseException) status = HttpStatus.CONFLICT;
-        else status = HttpStatus.BAD_REQUEST;
+        HttpHeaders headers = new HttpHeaders();
+        if (status == HttpStatus.SERVICE_UNAVAILABLE) headers.set(HttpHeaders.RETRY_AFTER, "1");
 
-        ProblemType problemType = ProblemType.BUSINESS_ERROR;
+        return handleExceptionInternal(ex, businessProblem(ex), headers, status, request);
+    }
+
+    static HttpStatus statusOf(BusinessException ex) {
+        if (ex instanceof DeviceNotFoundException || ex instanceof ImportJobNotFoundException) return HttpStatus.NOT_FOUND;
+        else if (ex instanceof DeviceInUseException || ex instanceof DeviceUnavailableException || ex instanceof LeaseNotHeldException
+                || ex instanceof ImportJobFinishedException)
+            return HttpStatus.CONFLICT;
+        else if (ex instanceof SyncTokenExpiredException) return HttpStatus.GONE;
+        else if (ex instanceof BulkheadFullException) return HttpStatus.SERVICE_UNAVAILABLE;
+        else return HttpStatus.BAD_REQUEST;
+    }
+
+    static Problem businessProblem(BusinessException ex) {
 
         String detailMessage = ex.toString();
         String userMessage = ex.getLocalizedMessage();
 
-        Problem problem = getProblemBuilder(status, problemType, List.of(new CustomError(userMessage, detailMessage)));
+        return BUSINESS_PROBLEMS.get(statusOf(ex)).withErrors(List.of(new CustomError(userMessage, detailMessage)));
+    }
 
-        return handleExceptionInternal(ex, problem, new HttpHeaders(), status, request);
+    static String unreadableBodyMessage(Throwable mostSpecificCause) {
+        String userMessage = "Invalid request body format or content.";
+
+        if (mostSpecificCause instanceof UnrecognizedPropertyException ue) {
+            userMessage = String.format("Unrecognized field '%s' found in request body. " + "Please ensure the JSON matches the expected structure.", ue.getPropertyName());
+
+            if ("createdAt".equals(ue.getPropertyName())) {
+                userMessage = "The field 'createdAt' is automatically managed and cannot be provided in the request body.";
+            }
+        } else if (mostSpecificCause instanceof JsonPatchException) {
+            userMessage = "Invalid request body format or content.";
+        } else if (mostSpecificCause.getMessage() != null) {
+            userMessage = "Failed to parse request body: " + mostSpecificCause.getMessage();
+        }
+
+        return userMessage;
     }
 
     private List<CustomError> getCustomErrors(BindingResult bindingResult) {
+        return getCustomErrors(bindingResult, messageSource);
+    }
+
+    static List<CustomError> getCustomErrors(BindingResult bindingResult, MessageSource messageSource) {
         List<CustomError> errors = new ArrayList<>();
 
         for (FieldError fieldError : bindingResult.getFieldErrors()) {
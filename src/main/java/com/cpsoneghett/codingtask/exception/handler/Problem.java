@@ -27,6 +27,13 @@ public class Problem {
         return new ProblemBuilder();
     }
 
+    /**
+     * Creates a problem with the status, type and title of this one, used to build responses from prebuilt templates.
+     */
+    public Problem withErrors(List<CustomError> errors) {
+        return builder().status(status).type(type).title(title).errors(errors).build();
+    }
+
     public Integer getStatus() {
         return status;
     }
@@ -0,0 +1,111 @@
+package com.cpsoneghett.codingtask.exception.handler;
+
+import com.cpsoneghett.codingtask.exception.BusinessException;
+import com.cpsoneghett.codingtask.exception.CustomError;
+import com.cpsoneghett.codingtask.exception.InvalidSortException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.fge.jsonpatch.JsonPatchException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WebFlux counterpart of {@link ApiExceptionHandler}, answering with the same {@link Problem} bodies.
+ */
+@ControllerAdvice
+@Profile("reactive")
+public class ReactiveApiExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private final MessageSource messageSource;
+
+    public ReactiveApiExceptionHandler(MessageSource messageSource) {
+        this.messageSource = messageSource;
+    }
+
+    @Override
+    protected Mono<ResponseEntity<Object>> handleWebExchangeBindException(WebExchangeBindException ex, @NonNull HttpHeaders headers, @NonNull HttpStatusCode status, @NonNull ServerWebExchange exchange) {
+
+        List<CustomError> errors = ApiExceptionHandler.getCustomErrors(ex.getBindingResult(), messageSource);
+
+        Problem error = ApiExceptionHandler.getProblemBuilder(status, ProblemType.BUSINESS_ERROR, errors);
+
+        return handleExceptionInternal(ex, error, headers, HttpStatus.BAD_REQUEST, exchange);
+    }
+
+    /**
+     * Bodies that cannot be decoded get the same message as an unreadable body on the servlet stack; other input
+     * errors keep the default handling.
+     */
+    @Override
+    protected Mono<ResponseEntity<Object>> handleServerWebInputException(ServerWebInputException ex, @NonNull HttpHeaders headers, @NonNull HttpStatusCode status, @NonNull ServerWebExchange exchange) {
+
+        if (!(ex.getCause() instanceof DecodingException))
+            return super.handleServerWebInputException(ex, headers, status, exchange);
+
+        Throwable mostSpecificCause = NestedExceptionUtils.getMostSpecificCause(ex);
+        String userMessage = ApiExceptionHandler.unreadableBodyMessage(mostSpecificCause);
+
+        Problem problem = ApiExceptionHandler.getProblemBuilder(HttpStatus.BAD_REQUEST, ProblemType.INCOMPREHENSIVE_MESSAGE, List.of(new CustomError(userMessage, ex.toString())));
+
+        return handleExceptionInternal(ex, problem, new HttpHeaders(), HttpStatus.BAD_REQUEST, exchange);
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public Mono<ResponseEntity<Object>> handleConstraintViolation(ConstraintViolationException ex, ServerWebExchange exchange) {
+
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+
+        List<CustomError> errors = new ArrayList<>();
+
+        for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+            errors.add(new CustomError(violation.getMessageTemplate(), violation.toString()));
+        }
+
+        Problem problem = ApiExceptionHandler.getProblemBuilder(status, ProblemType.BUSINESS_ERROR, errors);
+
+        return handleExceptionInternal(ex, problem, new HttpHeaders(), status, exchange);
+    }
+
+    @ExceptionHandler({JsonPatchException.class, JsonProcessingException.class})
+    public Mono<ResponseEntity<Object>> handleJsonPatchException(Exception ex, ServerWebExchange exchange) {
+
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+
+        Problem problem = ApiExceptionHandler.getProblemBuilder(status, ProblemType.INCOMPREHENSIVE_MESSAGE, List.of(new CustomError(ex.getLocalizedMessage(), ex.toString())));
+
+        return handleExceptionInternal(ex, problem, new HttpHeaders(), status, exchange);
+    }
+
+    @ExceptionHandler(InvalidSortException.class)
+    public Mono<ResponseEntity<Object>> handleInvalidSort(InvalidSortException ex, ServerWebExchange exchange) {
+
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+
+        Problem problem = ApiExceptionHandler.getProblemBuilder(status, ProblemType.INVALID_PARAMETER, List.of(new CustomError(ex.getLocalizedMessage(), ex.toString())));
+
+        return handleExceptionInternal(ex, problem, new HttpHeaders(), status, exchange);
+    }
+
+    @ExceptionHandler(BusinessException.class)
+    public Mono<ResponseEntity<Object>> handleBusinessException(BusinessException ex, ServerWebExchange exchange) {
+        return handleExceptionInternal(ex, ApiExceptionHandler.businessProblem(ex), new HttpHeaders(), ApiExceptionHandler.statusOf(ex), exchange);
+    }
+}
@@ -0,0 +1,269 @@
+package com.cpsoneghett.codingtask.idempotency;
+
+import com.cpsoneghett.codingtask.exception.CustomError;
+import com.cpsoneghett.codingtask.exception.handler.Problem;
+import com.cpsoneghett.codingtask.exception.handler.ProblemType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Honors the {@code Idempotency-Key} header on write requests. The first request with a key is executed and its
+ * outcome stored; retries get the stored response back without reaching the controller. Requests arriving while the
+ * first one is still running wait for it instead of executing again.
+ * <p>
+ * Keys are scoped by method and path, and a key reused with a different body is rejected. Bodies are fingerprinted as
+ * they stream through, never held in memory, so uploads such as device imports can use a key too: the first request
+ * hashes its body while the controller reads it, retries hash theirs while discarding it.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH");
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Duration inFlightTimeout;
+    private final ConcurrentMap<String, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper, Duration inFlightTimeout) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.inFlightTimeout = inFlightTimeout;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !WRITE_METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (!StringUtils.hasText(idempotencyKey) || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeProblem(response, HttpStatus.BAD_REQUEST, ProblemType.INVALID_PARAMETER,
+                    String.format("The %s header must have between 1 and %d characters.", IDEMPOTENCY_KEY_HEADER, MAX_KEY_LENGTH));
+            return;
+        }
+
+        String key = request.getMethod() + ' ' + request.getRequestURI() + ' ' + idempotencyKey;
+
+        while (true) {
+            Optional<IdempotentResponse> stored = store.find(key);
+            if (stored.isPresent()) {
+                replay(stored.get(), sha256(request.getInputStream()), response);
+                return;
+            }
+
+            CompletableFuture<IdempotentResponse> execution = new CompletableFuture<>();
+            CompletableFuture<IdempotentResponse> running = inFlight.putIfAbsent(key, execution);
+
+            if (running == null) {
+                execute(key, new HashingRequest(request), response, filterChain, execution);
+                return;
+            }
+
+            IdempotentResponse outcome;
+            try {
+                outcome = running.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                writeProblem(response, HttpStatus.CONFLICT, ProblemType.BUSINESS_ERROR,
+                        "A request with the same idempotency key is still being processed.");
+                return;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(ex);
+            } catch (ExecutionException ex) {
+                throw new ServletException(ex.getCause());
+            }
+
+            // A null outcome means the first request failed and stored nothing, so this one takes over with its body
+            // still unread.
+            if (outcome != null) {
+                replay(outcome, sha256(request.getInputStream()), response);
+                return;
+            }
+        }
+    }
+
+    private void execute(String key, HashingRequest request, HttpServletResponse response, FilterChain filterChain,
+                         CompletableFuture<IdempotentResponse> execution) throws ServletException, IOException {
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        IdempotentResponse outcome = null;
+        try {
+            filterChain.doFilter(request, responseWrapper);
+
+            if (responseWrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                outcome = new IdempotentResponse(request.bodyHash(), responseWrapper.getStatus(),
+                        responseWrapper.getContentType(), responseWrapper.getContentAsByteArray());
+                store.save(key, outcome);
+            }
+            responseWrapper.copyBodyToResponse();
+        } finally {
+            inFlight.remove(key, execution);
+            execution.complete(outcome);
+        }
+    }
+
+    private void replay(IdempotentResponse stored, String requestHash, HttpServletResponse response) throws IOException {
+        if (!stored.requestHash().equals(requestHash)) {
+            writeProblem(response, HttpStatus.UNPROCESSABLE_ENTITY, ProblemType.INVALID_PARAMETER,
+                    "The idempotency key was already used with a different request payload.");
+            return;
+        }
+
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) response.setContentType(stored.contentType());
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeProblem(HttpServletResponse response, HttpStatus status, ProblemType problemType, String userMessage) throws IOException {
+        Problem problem = Problem.builder().timestamp(LocalDateTime.now()).status(status.value()).type(problemType.getUri())
+                .title(problemType.getTitle()).errors(List.of(new CustomError(userMessage, IDEMPOTENCY_KEY_HEADER))).build();
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Hashes what is left of the body, discarding it.
+     */
+    private static String sha256(InputStream body) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        for (int read; (read = body.read(buffer)) != -1; ) digest.update(buffer, 0, read);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hands the body to the rest of the chain as it arrives, feeding every byte read to a digest on the way.
+     */
+    private static class HashingRequest extends HttpServletRequestWrapper {
+
+        private final MessageDigest digest = sha256();
+        private ServletInputStream input;
+        private BufferedReader reader;
+
+        HashingRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (input == null) input = new HashingInputStream(super.getInputStream(), digest);
+            return input;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(getInputStream(),
+                        encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+            }
+            return reader;
+        }
+
+        /**
+         * Reads whatever the chain left of the body, so the hash covers all of it.
+         */
+        String bodyHash() throws IOException {
+            ServletInputStream body = getInputStream();
+            byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+            while (body.read(buffer) != -1) {
+                // hashed by the stream
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+
+    private static class HashingInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final MessageDigest digest;
+
+        HashingInputStream(ServletInputStream delegate, MessageDigest digest) {
+            this.delegate = delegate;
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = delegate.read();
+            if (read != -1) digest.update((byte) read);
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            if (read > 0) digest.update(b, off, read);
+            return read;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.cpsoneghett.codingtask.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maximumSize     bound of the in-memory store, least recently used keys are evicted first
+ * @param ttl             how long an outcome is replayed for
+ * @param inFlightTimeout how long a concurrent request with the same key waits for the first one to finish
+ * @param store           {@code memory} (single node) or {@code jdbc} (shared through the {@code idempotency_key} table)
+ */
+@ConfigurationProperties(prefix = "app.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") int maximumSize,
+        @DefaultValue("PT24H") Duration ttl,
+        @DefaultValue("PT30S") Duration inFlightTimeout,
+        @DefaultValue("memory") StoreType store) {
+
+    public enum StoreType {
+        MEMORY, JDBC
+    }
+}
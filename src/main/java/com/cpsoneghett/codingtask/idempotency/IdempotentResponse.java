@@ -0,0 +1,9 @@
+package com.cpsoneghett.codingtask.idempotency;
+
+/**
+ * Outcome of a write request, kept so a retry with the same idempotency key can be answered without re-executing it.
+ *
+ * @param requestHash SHA-256 of the original request body, used to reject a key reused for a different payload
+ */
+public record IdempotentResponse(String requestHash, int status, String contentType, byte[] body) {
+}
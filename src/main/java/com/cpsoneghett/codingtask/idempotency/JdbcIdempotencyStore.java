@@ -0,0 +1,76 @@
+package com.cpsoneghett.codingtask.idempotency;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Shares stored outcomes between nodes through the {@code idempotency_key} table. Lookups go to the local
+ * {@link InMemoryIdempotencyStore} first, so only keys this node has not seen yet cost a query. Rows are keyed by the
+ * SHA-256 of the key, which fits the column whatever the length of the path and of the client's key.
+ */
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InMemoryIdempotencyStore localStore;
+    private final Duration ttl;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, IdempotencyProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.localStore = new InMemoryIdempotencyStore(properties);
+        this.ttl = properties.ttl();
+    }
+
+    @Override
+    public Optional<IdempotentResponse> find(String key) {
+        Optional<IdempotentResponse> local = localStore.find(key);
+        if (local.isPresent()) return local;
+
+        Optional<IdempotentResponse> stored = jdbcTemplate.query(
+                        "select request_hash, status, content_type, body from idempotency_key where id_key = ? and expires_at > ?",
+                        (rs, rowNum) -> new IdempotentResponse(rs.getString(1), rs.getInt(2), rs.getString(3), rs.getBytes(4)),
+                        hash(key), Timestamp.from(Instant.now()))
+                .stream().findFirst();
+
+        stored.ifPresent(response -> localStore.save(key, response));
+        return stored;
+    }
+
+    @Override
+    public void save(String key, IdempotentResponse response) {
+        localStore.save(key, response);
+        jdbcTemplate.update("""
+                        insert into idempotency_key (id_key, request_hash, status, content_type, body, expires_at)
+                        values (?, ?, ?, ?, ?, ?)
+                        on duplicate key update id_key = id_key""",
+                hash(key), response.requestHash(), response.status(), response.contentType(), response.body(),
+                Timestamp.from(Instant.now().plus(ttl)));
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("delete from idempotency_key where expires_at < ? limit " + PURGE_BATCH_SIZE,
+                    Timestamp.from(Instant.now()));
+        } while (deleted == PURGE_BATCH_SIZE);
+    }
+
+    private static String hash(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * A single continuous flight recording bounded by age and size, so it can run indefinitely and be dumped when something
+ * goes wrong. The application's own events ({@link DeviceOperationEvent}, {@link DeviceQueryEvent} and
+ * {@link SqlStatementEvent}) are recorded next to the JVM's.
+ */
+@Component
+public class ContinuousRecording {
+
+    private static final Logger log = LoggerFactory.getLogger(ContinuousRecording.class);
+    private static final String NAME = "coding-task";
+
+    private final FlightRecordingProperties properties;
+
+    private Recording recording;
+
+    public ContinuousRecording(FlightRecordingProperties properties) {
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() throws IOException, ParseException {
+        if (properties.startOnStartup()) start(null, null, null);
+    }
+
+    /**
+     * Starts the recording, unless it is already running. Null arguments fall back to the configured defaults.
+     *
+     * @return whether a new recording was started
+     */
+    public synchronized boolean start(String settings, Duration maxAge, DataSize maxSize) throws IOException, ParseException {
+        if (isRunning()) return false;
+
+        Recording newRecording = new Recording(Configuration.getConfiguration(settings != null ? settings : properties.settings()));
+        newRecording.setName(NAME);
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(maxAge != null ? maxAge : properties.maxAge());
+        newRecording.setMaxSize((maxSize != null ? maxSize : properties.maxSize()).toBytes());
+        newRecording.enable(DeviceOperationEvent.class);
+        newRecording.enable(DeviceQueryEvent.class);
+        newRecording.enable(SqlStatementEvent.class);
+        newRecording.start();
+
+        if (recording != null) recording.close();
+        recording = newRecording;
+        log.info("Started flight recording '{}' keeping at most {} or {}", NAME, newRecording.getMaxAge(),
+                DataSize.ofBytes(newRecording.getMaxSize()));
+        return true;
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    /**
+     * Writes what the running recording currently holds to {@code destination}, leaving the recording running.
+     *
+     * @return whether a recording was running
+     */
+    public synchronized boolean dump(Path destination) throws IOException {
+        if (!isRunning()) return false;
+
+        recording.dump(destination);
+        return true;
+    }
+
+    /**
+     * @return whether a recording was running
+     */
+    @PreDestroy
+    public synchronized boolean stop() {
+        if (recording == null) return false;
+
+        boolean running = isRunning();
+        recording.close();
+        recording = null;
+        return running;
+    }
+}
@@ -0,0 +1,96 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.data.domain.Pageable;
+
+import java.util.StringJoiner;
+
+/**
+ * JFR event spanning one device service operation. Stack traces are off and the fields are only filled in when the
+ * event is going to be committed, so the event costs a couple of timestamps while no recording is listening.
+ * <p>
+ * Usage is {@code begin}, then {@link #succeeded(int)} on the happy path and {@link #finish()} in a {@code finally}
+ * block; operations that threw are committed with {@code succeeded = false}.
+ */
+@Name(DeviceOperationEvent.NAME)
+@Label("Device Operation")
+@Category({"Coding Task", "Device"})
+@Description("A device service operation")
+@StackTrace(false)
+public class DeviceOperationEvent extends Event {
+
+    public static final String NAME = "com.cpsoneghett.codingtask.DeviceOperation";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Device Id")
+    @Description("Id of the device operated on, 0 for operations over several devices")
+    long deviceId;
+
+    @Label("Filter Shape")
+    @Description("Filter parameters and paging of listings, never their values")
+    String filterShape;
+
+    @Label("Row Count")
+    int rowCount;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    private DeviceOperationEvent(String operation) {
+        this.operation = operation;
+    }
+
+    public static DeviceOperationEvent begin(String operation, Long deviceId) {
+        DeviceOperationEvent event = new DeviceOperationEvent(operation);
+        if (deviceId != null) event.deviceId = deviceId;
+        event.begin();
+        return event;
+    }
+
+    public static DeviceOperationEvent begin(String operation, DeviceFilter filter, Pageable pageable) {
+        DeviceOperationEvent event = new DeviceOperationEvent(operation);
+        if (event.isEnabled()) event.filterShape = shapeOf(filter, pageable);
+        event.begin();
+        return event;
+    }
+
+    public void succeeded(int rowCount) {
+        this.rowCount = rowCount;
+        this.succeeded = true;
+    }
+
+    public void finish() {
+        if (shouldCommit()) commit();
+    }
+
+    /**
+     * Which filter parameters were given and how the listing was paged, e.g. {@code brand,state page=2 size=20
+     * sort=name}. Values are left out so the recording can be shared without leaking data.
+     */
+    static String shapeOf(DeviceFilter filter, Pageable pageable) {
+        StringJoiner parameters = new StringJoiner(",");
+        if (filter != null && filter.brand() != null) parameters.add("brand");
+        if (filter != null && filter.state() != null) parameters.add("state");
+
+        StringBuilder shape = new StringBuilder(parameters.length() == 0 ? "none" : parameters.toString());
+        if (pageable != null && pageable.isPaged()) {
+            shape.append(" page=").append(pageable.getPageNumber()).append(" size=").append(pageable.getPageSize());
+            if (pageable.getSort().isSorted()) {
+                StringJoiner sort = new StringJoiner(",", " sort=", "");
+                pageable.getSort().forEach(order -> sort.add(order.isAscending()
+                        ? order.getProperty() : order.getProperty() + ":desc"));
+                shape.append(sort);
+            }
+        }
+
+        return shape.toString();
+    }
+}
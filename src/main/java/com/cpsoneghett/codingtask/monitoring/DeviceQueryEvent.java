@@ -0,0 +1,49 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one hand-written device repository query. Spring Data's generated queries are covered at the
+ * JDBC level by {@link SqlStatementEvent}.
+ */
+@Name(DeviceQueryEvent.NAME)
+@Label("Device Query")
+@Category({"Coding Task", "Device"})
+@Description("A device repository query")
+@StackTrace(false)
+public class DeviceQueryEvent extends Event {
+
+    public static final String NAME = "com.cpsoneghett.codingtask.DeviceQuery";
+
+    @Label("Query")
+    String query;
+
+    @Label("Filter Shape")
+    String filterShape;
+
+    @Label("Row Count")
+    @Description("Rows returned or changed")
+    long rowCount;
+
+    private DeviceQueryEvent(String query, String filterShape) {
+        this.query = query;
+        this.filterShape = filterShape;
+    }
+
+    public static DeviceQueryEvent begin(String query, String filterShape) {
+        DeviceQueryEvent event = new DeviceQueryEvent(query, filterShape);
+        event.begin();
+        return event;
+    }
+
+    public void finish(long rowCount) {
+        if (!shouldCommit()) return;
+        this.rowCount = rowCount;
+        commit();
+    }
+}
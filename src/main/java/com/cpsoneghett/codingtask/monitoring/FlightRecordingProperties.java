@@ -0,0 +1,21 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @param startOnStartup whether the continuous recording starts with the application
+ * @param settings       JFR configuration the recording uses, {@code default} (about 1% overhead) or {@code profile}
+ * @param maxAge         oldest data the recording keeps
+ * @param maxSize        most data the recording keeps on disk
+ */
+@ConfigurationProperties(prefix = "app.flight-recording")
+public record FlightRecordingProperties(
+        @DefaultValue("false") boolean startOnStartup,
+        @DefaultValue("default") String settings,
+        @DefaultValue("PT1H") Duration maxAge,
+        @DefaultValue("100MB") DataSize maxSize) {
+}
@@ -0,0 +1,18 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param slowThreshold         statements taking at least this long are always logged
+ * @param sampleRate            fraction of the other statements that are logged
+ * @param statementsPerRequest  requests running more statements than this are flagged as a likely N+1
+ */
+@ConfigurationProperties(prefix = "app.sql-monitoring")
+public record SqlMonitoringProperties(
+        @DefaultValue("PT0.2S") Duration slowThreshold,
+        @DefaultValue("0.001") double sampleRate,
+        @DefaultValue("25") int statementsPerRequest) {
+}
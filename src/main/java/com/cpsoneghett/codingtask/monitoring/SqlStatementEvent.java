@@ -0,0 +1,38 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one JDBC execution, emitted by {@link SqlStatementListener}. Bound parameter values are left out.
+ */
+@Name(SqlStatementEvent.NAME)
+@Label("SQL Statement")
+@Category({"Coding Task", "JDBC"})
+@Description("A JDBC statement execution")
+@StackTrace(false)
+public class SqlStatementEvent extends Event {
+
+    public static final String NAME = "com.cpsoneghett.codingtask.SqlStatement";
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Parameters")
+    @Description("Types of the bound parameters")
+    String parameters;
+
+    @Label("Row Count")
+    @Description("Update count of writes, -1 for queries")
+    long rowCount;
+
+    @Label("Batch Size")
+    int batchSize;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
@@ -0,0 +1,118 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times every JDBC execution, adds it to the {@link SqlStatistics} of the current request and logs slow and sampled
+ * statements. Bound parameters are logged by type only, so values never reach the logs. Executions are also emitted
+ * as {@link SqlStatementEvent}s while a flight recording is listening.
+ */
+public class SqlStatementListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementListener.class);
+    private static final String START_NANOS = SqlStatementListener.class.getName() + ".start";
+    private static final String EVENT = SqlStatementListener.class.getName() + ".event";
+
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+
+    public SqlStatementListener(SqlMonitoringProperties properties) {
+        this.slowThresholdNanos = properties.slowThreshold().toNanos();
+        this.sampleRate = properties.sampleRate();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+
+        SqlStatementEvent event = new SqlStatementEvent();
+        if (!event.isEnabled()) return;
+        event.begin();
+        execInfo.addCustomValue(EVENT, event);
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (start == null) return;
+        long elapsedNanos = System.nanoTime() - start;
+
+        SqlStatementEvent event = execInfo.getCustomValue(EVENT, SqlStatementEvent.class);
+        if (event != null) commit(event, execInfo, queryInfoList);
+
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) statistics.record(elapsedNanos);
+
+        boolean slow = elapsedNanos >= slowThresholdNanos;
+        if (!slow && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) return;
+
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        String parameters = parameterShapes(queryInfoList);
+        double elapsedMillis = elapsedNanos / 1_000_000.0;
+
+        (slow ? log.atWarn() : log.atInfo())
+                .addKeyValue("sql", sql)
+                .addKeyValue("parameters", parameters)
+                .addKeyValue("elapsedMs", elapsedMillis)
+                .addKeyValue("batchSize", execInfo.isBatch() ? execInfo.getBatchSize() : 0)
+                .addKeyValue("success", execInfo.isSuccess())
+                .log("{} SQL statement took {} ms: {} {}", slow ? "Slow" : "Sampled", elapsedMillis, sql, parameters);
+    }
+
+    private static void commit(SqlStatementEvent event, ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        event.end();
+        if (!event.shouldCommit()) return;
+
+        event.sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        event.parameters = parameterShapes(queryInfoList);
+        event.rowCount = rowCount(execInfo.getResult());
+        event.batchSize = execInfo.isBatch() ? execInfo.getBatchSize() : 0;
+        event.succeeded = execInfo.isSuccess();
+        event.commit();
+    }
+
+    /**
+     * Update count of a write or the summed counts of a batch, -1 for queries and when the driver did not report one.
+     */
+    static long rowCount(Object result) {
+        if (result instanceof Integer count) return count;
+        if (result instanceof Long count) return count;
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int count : counts) {
+                if (count < 0) return -1;
+                total += count;
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    /**
+     * Types of the parameters bound to the first execution, e.g. {@code [Long, String]}, followed by the number of
+     * parameter sets for batches.
+     */
+    static String parameterShapes(List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty() || queryInfoList.get(0).getParametersList().isEmpty()) return "[]";
+
+        List<List<ParameterSetOperation>> parameterSets = queryInfoList.get(0).getParametersList();
+        StringJoiner shapes = new StringJoiner(", ", "[", "]");
+        for (ParameterSetOperation operation : parameterSets.get(0)) {
+            Object[] args = operation.getArgs();
+            if (ParameterSetOperation.isSetNullParameterOperation(operation) || args.length < 2 || args[1] == null)
+                shapes.add("null");
+            else shapes.add(args[1].getClass().getSimpleName());
+        }
+
+        return parameterSets.size() > 1 ? shapes + " x" + parameterSets.size() : shapes.toString();
+    }
+}
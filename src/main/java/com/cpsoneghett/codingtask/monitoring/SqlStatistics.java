@@ -0,0 +1,55 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import java.util.Locale;
+
+/**
+ * SQL statements executed while handling the current request. Bound to the request thread between
+ * {@link #start()} and {@link #end()}; statements run on other threads are not counted.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+
+    private SqlStatistics() {
+    }
+
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Statistics of the request running on this thread, {@code null} outside of one.
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void record(long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * Value of the {@code Server-Timing} header entry.
+     */
+    public String serverTiming() {
+        return String.format(Locale.ROOT, "db;dur=%.2f;desc=\"%d statements\"", nanos / 1_000_000.0, statements);
+    }
+}
@@ -0,0 +1,56 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Collects {@link SqlStatistics} for each handled request and flags requests running more statements than the
+ * configured threshold, the usual sign of an N+1 query pattern. Responses with a body get their {@code Server-Timing}
+ * header from {@link ServerTimingResponseAdvice}, since the body is already written by the time {@link #postHandle}
+ * runs; bodiless responses get it here.
+ */
+public class SqlTimingInterceptor implements HandlerInterceptor {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final Logger log = LoggerFactory.getLogger(SqlTimingInterceptor.class);
+
+    private final int statementsPerRequest;
+
+    public SqlTimingInterceptor(SqlMonitoringProperties properties) {
+        this.statementsPerRequest = properties.statementsPerRequest();
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        SqlStatistics.start();
+        return true;
+    }
+
+    @Override
+    public void postHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler, ModelAndView modelAndView) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null && !response.isCommitted() && !response.containsHeader(SERVER_TIMING_HEADER))
+            response.addHeader(SERVER_TIMING_HEADER, statistics.serverTiming());
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler, Exception ex) {
+        SqlStatistics statistics = SqlStatistics.current();
+        SqlStatistics.end();
+
+        if (statistics != null && statistics.statements() > statementsPerRequest) {
+            log.atWarn()
+                    .addKeyValue("method", request.getMethod())
+                    .addKeyValue("uri", request.getRequestURI())
+                    .addKeyValue("statements", statistics.statements())
+                    .addKeyValue("dbMs", statistics.nanos() / 1_000_000.0)
+                    .log("{} {} ran {} SQL statements, likely an N+1 query pattern", request.getMethod(), request.getRequestURI(), statistics.statements());
+        }
+    }
+}
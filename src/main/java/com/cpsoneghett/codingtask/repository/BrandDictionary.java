@@ -0,0 +1,213 @@
+package com.cpsoneghett.codingtask.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory copy of the {@code brand} table. Every device of a brand shares the same interned name instance, and
+ * name/key translation never queries the database once a brand is known.
+ * <p>
+ * New brands are inserted on the connection of the caller's transaction when there is one, so registering a brand never
+ * takes a second connection from the pool, and are only cached once that transaction commits, since a key from a
+ * rolled back insert may be handed out again. Without a transaction they are inserted on a connection of their own.
+ * <p>
+ * Brands registered by other nodes or imports are picked up by a periodic reload, and right away by a filter that
+ * matches no known brand.
+ * <p>
+ * Without a data source, as in the {@code memory} profile, keys are assigned in registration order and live as long
+ * as the process.
+ */
+@Component
+public class BrandDictionary {
+
+    /**
+     * Order of brands in listings sorted by brand: the case-insensitive order the {@code device.brand} column had
+     * before brands became keys, with brands differing only in case kept apart.
+     */
+    public static final Comparator<String> NAME_ORDER = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private static final Duration MISS_RELOAD_INTERVAL = Duration.ofSeconds(1);
+
+    private final DataSource dataSource;
+    private final Duration missReloadInterval;
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+    private final AtomicInteger lastLocalId = new AtomicInteger();
+    private volatile boolean loaded;
+    private volatile long lastReloadNanos;
+
+    public BrandDictionary(ObjectProvider<DataSource> dataSource) {
+        this(dataSource.getIfAvailable(), MISS_RELOAD_INTERVAL);
+    }
+
+    /**
+     * @param missReloadInterval least time between two reloads caused by filters matching no brand, so requests for
+     *                           brands that do not exist cannot turn into one query each
+     */
+    BrandDictionary(DataSource dataSource, Duration missReloadInterval) {
+        this.dataSource = dataSource;
+        this.missReloadInterval = missReloadInterval;
+        this.loaded = dataSource == null;
+    }
+
+    public Integer idFor(String name) {
+        Integer id = idsByName.get(name);
+        return id != null ? id : insert(name);
+    }
+
+    public String nameFor(Integer id) {
+        String name = namesById.get(id);
+        return name != null ? name : namesById.computeIfAbsent(id, this::load);
+    }
+
+    /**
+     * Names containing the fragment, ignoring case. Brands are few compared to devices, so a scan of the dictionary
+     * is cheaper than a {@code LIKE '%x%'} over the device table.
+     */
+    public List<String> namesContaining(String fragment) {
+        if (!loaded) reload();
+
+        String lowerFragment = fragment.toLowerCase(Locale.ROOT);
+        List<String> names = match(lowerFragment);
+        if (names.isEmpty() && dataSource != null && System.nanoTime() - lastReloadNanos >= missReloadInterval.toNanos()) {
+            reload();
+            names = match(lowerFragment);
+        }
+        return names;
+    }
+
+    /**
+     * Number of known brands. The dictionary only grows, so a changed size means new brands were registered.
+     */
+    public int size() {
+        return namesById.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.brand-dictionary.reload-interval:PT1M}")
+    public synchronized void reload() {
+        if (dataSource == null) return;
+
+        lastReloadNanos = System.nanoTime();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select id, name from brand")) {
+            while (rs.next()) register(rs.getInt(1), rs.getString(2));
+            loaded = true;
+        } catch (SQLException ex) {
+            throw new DataAccessResourceFailureException("Could not load the brand dictionary", ex);
+        }
+    }
+
+    private List<String> match(String lowerFragment) {
+        List<String> names = new ArrayList<>();
+        for (String name : idsByName.keySet()) {
+            if (name.toLowerCase(Locale.ROOT).contains(lowerFragment)) names.add(name);
+        }
+        return names;
+    }
+
+    private Integer insert(String name) {
+        if (dataSource == null) {
+            return idsByName.computeIfAbsent(name, key -> {
+                Integer id = lastLocalId.incrementAndGet();
+                namesById.put(id, key);
+                return id;
+            });
+        }
+
+        try {
+            if (TransactionSynchronizationManager.isSynchronizationActive() && TransactionSynchronizationManager.hasResource(dataSource)) {
+                Connection connection = DataSourceUtils.getConnection(dataSource);
+                try {
+                    int id = insert(connection, name);
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            register(id, name);
+                        }
+                    });
+                    return id;
+                } finally {
+                    DataSourceUtils.releaseConnection(connection, dataSource);
+                }
+            }
+
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                return register(insert(connection, name), name);
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessResourceFailureException("Could not register brand " + name, ex);
+        }
+    }
+
+    private String load(Integer id) {
+        if (dataSource == null) throw new IllegalStateException("Unknown brand id " + id);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select name from brand where id = ?")) {
+            statement.setInt(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) throw new IllegalStateException("Unknown brand id " + id);
+                String name = rs.getString(1);
+                idsByName.putIfAbsent(name, id);
+                return name;
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessResourceFailureException("Could not load brand " + id, ex);
+        }
+    }
+
+    private static int insert(Connection connection, String name) throws SQLException {
+        Integer id = select(connection, name);
+        if (id != null) return id;
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into brand (name) values (?) on duplicate key update id = last_insert_id(id)", Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, name);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    private static Integer select(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select id from brand where name = ?")) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    /**
+     * @return the key cached for the name, which is the given one unless another thread registered it first
+     */
+    private Integer register(int id, String name) {
+        String interned = namesById.computeIfAbsent(id, key -> name);
+        Integer known = idsByName.putIfAbsent(interned, id);
+        return known != null ? known : id;
+    }
+}
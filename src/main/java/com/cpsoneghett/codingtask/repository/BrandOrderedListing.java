@@ -0,0 +1,79 @@
+package com.cpsoneghett.codingtask.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Listings sorted by brand first. Brands are stored as keys assigned in registration order, so no index of the device
+ * table is in brand name order. Instead the listing counts the matching devices of each brand, a scan of the
+ * {@code (brand_id, id)} index, orders the brands by name in memory, and reads the page brand by brand with
+ * {@code brand_id = ?}, each brand's devices in the order of the rest of the sort, {@code (brand_id, id)} index order
+ * when that is the id. A page spans as many queries as brands; their counts also make up the total.
+ *
+ * @see BrandDictionary#NAME_ORDER
+ */
+public final class BrandOrderedListing {
+
+    private BrandOrderedListing() {
+    }
+
+    /**
+     * @param key     what the brand is queried by: its name through JPA, its key in SQL
+     * @param devices number of devices of the brand matching the filter
+     */
+    public record Brand<K>(K key, String name, long devices) {
+    }
+
+    /**
+     * Devices {@code offset} to {@code offset + limit} of one brand.
+     */
+    public record Slice<K>(K key, long offset, int limit) {
+    }
+
+    public static boolean applies(Sort sort) {
+        return sort.stream().findFirst().map(order -> DeviceSortProperty.BRAND.getAttribute().equals(order.getProperty()))
+                .orElse(false);
+    }
+
+    /**
+     * The order of the devices of one brand: the sort without its leading brand.
+     */
+    public static Sort withinBrand(Sort sort) {
+        return Sort.by(sort.stream().skip(1).toList());
+    }
+
+    /**
+     * The slices making up devices {@code offset} to {@code offset + limit} of the listing.
+     */
+    public static <K> List<Slice<K>> slices(List<Brand<K>> brands, Sort sort, long offset, int limit) {
+        Comparator<Brand<K>> byName = Comparator.comparing(Brand::name, BrandDictionary.NAME_ORDER);
+        List<Brand<K>> ordered = new ArrayList<>(brands);
+        ordered.sort(sort.iterator().next().isAscending() ? byName : byName.reversed());
+
+        List<Slice<K>> slices = new ArrayList<>();
+        long skip = offset;
+        long remaining = limit;
+        for (Brand<K> brand : ordered) {
+            if (remaining == 0) break;
+            if (skip >= brand.devices()) {
+                skip -= brand.devices();
+                continue;
+            }
+
+            int size = (int) Math.min(remaining, brand.devices() - skip);
+            slices.add(new Slice<>(brand.key(), skip, size));
+            skip = 0;
+            remaining -= size;
+        }
+        return slices;
+    }
+
+    public static long total(List<? extends Brand<?>> brands) {
+        long total = 0;
+        for (Brand<?> brand : brands) total += brand.devices();
+        return total;
+    }
+}
@@ -0,0 +1,72 @@
+package com.cpsoneghett.codingtask.repository;
+
+import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
+import com.cpsoneghett.codingtask.monitoring.DeviceQueryEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts devices as one JDBC batch, bypassing the persistence context. With {@code rewriteBatchedStatements} the
+ * driver sends the batch as multi-row inserts.
+ */
+@Repository
+@Profile("!memory & !sharded")
+public class DeviceBatchRepository {
+
+    private static final String INSERT = "insert into device (name, brand_id, state, dt_created) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BrandDictionary brandDictionary;
+
+    public DeviceBatchRepository(JdbcTemplate jdbcTemplate, BrandDictionary brandDictionary) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.brandDictionary = brandDictionary;
+    }
+
+    /**
+     * @return the generated ids, in the order of {@code devices}
+     */
+    public List<Long> insertAll(List<DeviceRequestDto> devices, LocalDateTime createdAt) {
+        if (devices.isEmpty()) return List.of();
+
+        Timestamp created = Timestamp.valueOf(createdAt);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("insertAll", "batch");
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        DeviceRequestDto device = devices.get(i);
+                        statement.setString(1, device.name());
+                        statement.setInt(2, brandDictionary.idFor(device.brand()));
+                        statement.setInt(3, device.state().getCode());
+                        statement.setTimestamp(4, created);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return devices.size();
+                    }
+                }, keyHolder);
+        event.finish(devices.size());
+
+        return keyHolder.getKeyList().stream().map(DeviceBatchRepository::generatedId).toList();
+    }
+
+    private static Long generatedId(Map<String, Object> keys) {
+        return ((Number) keys.values().iterator().next()).longValue();
+    }
+}
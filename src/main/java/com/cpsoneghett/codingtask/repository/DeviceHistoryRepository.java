@@ -0,0 +1,21 @@
+package com.cpsoneghett.codingtask.repository;
+
+import com.cpsoneghett.codingtask.domain.DeviceHistoryEntryDto;
+
+import java.util.List;
+
+/**
+ * Append-only history of device changes. Entries are numbered in the order they are inserted.
+ */
+public interface DeviceHistoryRepository {
+
+    /**
+     * Appends the entries in list order. Their ids are ignored.
+     */
+    void insertAll(List<DeviceHistoryEntryDto> entries);
+
+    /**
+     * Entries of the device numbered below {@code before}, or from the latest one when it is {@code null}, newest first.
+     */
+    List<DeviceHistoryEntryDto> findByDeviceId(Long deviceId, Long before, int limit);
+}
@@ -0,0 +1,45 @@
+package com.cpsoneghett.codingtask.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lease state of devices. Every state transition is conditional, so concurrent checkouts of the same device cannot
+ * both succeed and losers fail fast instead of retrying. Selections of devices to change skip devices locked by
+ * concurrent callers, so they spread over different devices instead of queueing on the same one.
+ * All methods must run inside a transaction.
+ */
+public interface DeviceLeaseRepository {
+
+    /**
+     * Checks the device out under the token if it is available.
+     *
+     * @return whether the device was available
+     */
+    boolean acquire(Long id, String token, LocalDateTime expiresAt);
+
+    /**
+     * Locks the first available device matching the filter, skipping devices locked by concurrent checkouts.
+     */
+    Optional<Long> lockAvailable(ResolvedDeviceFilter filter);
+
+    /**
+     * Checks the device in if it is held under the token.
+     *
+     * @return whether the device was held under the token
+     */
+    boolean release(Long id, String token);
+
+    /**
+     * Locks up to {@code limit} devices whose lease expired before {@code now}.
+     */
+    List<Long> lockExpired(LocalDateTime now, int limit);
+
+    /**
+     * Checks the devices in, whoever holds them.
+     *
+     * @return the number of devices checked in
+     */
+    int releaseAll(List<Long> ids);
+}
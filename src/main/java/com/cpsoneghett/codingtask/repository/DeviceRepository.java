@@ -1,9 +1,43 @@
 package com.cpsoneghett.codingtask.repository;
 
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
 import com.cpsoneghett.codingtask.domain.Device;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface DeviceRepository extends JpaRepository<Device, Long>, DeviceRepositoryQuery {
+
+    @Query("select d.id from Device d where d.id > :lastId order by d.id")
+    List<Long> findIdsAfter(Long lastId, Pageable pageable);
+
+    /**
+     * How many sequences hand out ids independently of each other, ids of one sequence being the ones with the same
+     * remainder modulo this number. Within a sequence ids are handed out in increasing order.
+     */
+    default int idSequences() {
+        return 1;
+    }
+
+    /**
+     * Reads the device with {@code SELECT ... FOR UPDATE}, so concurrent writers of the device wait for the
+     * transaction to end. Must run inside a transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from Device d where d.id = :id")
+    Optional<Device> findForUpdateById(Long id);
+
+    @Query("select d.updatedAt from Device d where d.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(Long id);
+
+    @Query("select new com.cpsoneghett.codingtask.domain.BrandCountDto(d.brand, count(d)) from Device d group by d.brand")
+    List<BrandCountDto> countDevicesPerBrand();
 }
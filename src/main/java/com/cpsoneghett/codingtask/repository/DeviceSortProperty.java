@@ -0,0 +1,73 @@
+package com.cpsoneghett.codingtask.repository;
+
+import com.cpsoneghett.codingtask.exception.InvalidSortException;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Properties device listings can be sorted by. Each one is backed by a (column, id) index, see
+ * V003__device_sort_indexes and V004__compact_device_encoding. State sorts by its stored code, which groups devices of
+ * the same state together but is not alphabetical. Brand sorts by name, which the stored key does not follow, so it
+ * is only accepted as the first property and listings read it brand by brand, see {@link BrandOrderedListing}.
+ */
+public enum DeviceSortProperty {
+
+    ID("id", "id"),
+    NAME("name", "name"),
+    BRAND("brand", "brand_id"),
+    STATE("state", "state"),
+    CREATED_AT("createdAt", "dt_created");
+
+    private final String attribute;
+    private final String column;
+
+    DeviceSortProperty(String attribute, String column) {
+        this.attribute = attribute;
+        this.column = column;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Accepts the entity attribute or, for dt_created, the column name.
+     */
+    public static DeviceSortProperty of(String property) {
+        for (DeviceSortProperty sortProperty : values()) {
+            if (sortProperty.attribute.equals(property) || (sortProperty == CREATED_AT && sortProperty.column.equals(property)))
+                return sortProperty;
+        }
+        throw new InvalidSortException(property, Arrays.stream(values()).map(DeviceSortProperty::getAttribute).toList());
+    }
+
+    /**
+     * Validates the requested sort and returns it over entity attributes, always ending with id so paging is stable.
+     * The id tiebreaker follows the direction of the last key, so the (column, id) index can be read in a single
+     * direction.
+     */
+    public static Sort resolve(Sort requested) {
+
+        List<Sort.Order> orders = new ArrayList<>();
+        Sort.Direction lastDirection = Sort.Direction.ASC;
+
+        for (Sort.Order order : requested) {
+            DeviceSortProperty property = of(order.getProperty());
+            if (property == BRAND && !orders.isEmpty()) throw new InvalidSortException(BRAND.attribute);
+            orders.add(new Sort.Order(order.getDirection(), property.attribute));
+            lastDirection = order.getDirection();
+
+            if (property == ID) return Sort.by(orders);
+        }
+
+        orders.add(new Sort.Order(lastDirection, ID.attribute));
+        return Sort.by(orders);
+    }
+}
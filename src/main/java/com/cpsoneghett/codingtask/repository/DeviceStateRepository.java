@@ -0,0 +1,20 @@
+package com.cpsoneghett.codingtask.repository;
+
+import com.cpsoneghett.codingtask.domain.DeviceState;
+
+import java.util.List;
+
+/**
+ * States reported by the devices themselves. Devices checked out under a lease keep their state until the lease ends,
+ * whatever they report. All methods must run inside a transaction.
+ */
+public interface DeviceStateRepository {
+
+    /**
+     * Moves the devices that are not in {@code state} yet and not checked out to {@code state}, locking them in id
+     * order so concurrent callers with overlapping ids cannot deadlock.
+     *
+     * @return ids of the devices that changed
+     */
+    List<Long> applyReportedState(List<Long> ids, DeviceState state);
+}
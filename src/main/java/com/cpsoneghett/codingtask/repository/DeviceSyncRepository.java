@@ -0,0 +1,36 @@
+package com.cpsoneghett.codingtask.repository;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Changes and deletions of devices, in {@link SyncPosition} order. Both are stamped by the store itself, so every
+ * write shows up whatever path it took.
+ */
+public interface DeviceSyncRepository {
+
+    /**
+     * Current time of the clock that stamps changes and deletions.
+     */
+    LocalDateTime now();
+
+    /**
+     * Devices whose last change is after {@code after} and before {@code before}.
+     */
+    List<Device> findChangedAfter(SyncPosition after, LocalDateTime before, int limit);
+
+    /**
+     * Tombstones of devices deleted after {@code after} and before {@code before}.
+     */
+    List<SyncPosition> findDeletedAfter(SyncPosition after, LocalDateTime before, int limit);
+
+    /**
+     * Removes up to {@code limit} tombstones of devices deleted before {@code before}. Must run inside a transaction.
+     *
+     * @return the number of tombstones removed
+     */
+    int purgeTombstones(LocalDateTime before, int limit);
+}
@@ -0,0 +1,142 @@
+package com.cpsoneghett.codingtask.repository;
+
+import com.cpsoneghett.codingtask.domain.ImportJob;
+import com.cpsoneghett.codingtask.domain.ImportJobStatus;
+import com.cpsoneghett.codingtask.domain.ImportRejectionDto;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The {@code import_job} and {@code import_job_rejection} tables. A job is run by the worker that last claimed it:
+ * checkpoints and the final status only apply while the job is still {@code RUNNING} under the same worker, so a
+ * cancelled job or one taken over by another node stops at its next batch without writing anything.
+ */
+@Repository
+@Profile("!memory & !sharded")
+public class ImportJobRepository {
+
+    private static final RowMapper<ImportJob> JOB_MAPPER = (rs, rowNum) -> new ImportJob(
+            rs.getLong("id"), rs.getString("file_path"), rs.getLong("size_bytes"),
+            ImportJobStatus.valueOf(rs.getString("status")), rs.getLong("position"), rs.getLong("record_number"),
+            rs.getLong("imported_rows"), rs.getLong("rejected_rows"), rs.getString("error"),
+            toLocalDateTime(rs.getTimestamp("created_at")), toLocalDateTime(rs.getTimestamp("started_at")),
+            toLocalDateTime(rs.getTimestamp("finished_at")));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ImportJobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long create(String filePath, long sizeBytes) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "insert into import_job (file_path, size_bytes, status) values (?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, filePath);
+            statement.setLong(2, sizeBytes);
+            statement.setString(3, ImportJobStatus.QUEUED.name());
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKeyAs(Number.class).longValue();
+    }
+
+    public Optional<ImportJob> findById(long id) {
+        return jdbcTemplate.query("select * from import_job where id = ?", JOB_MAPPER, id).stream().findFirst();
+    }
+
+    /**
+     * Jobs nobody is running: queued ones and running ones whose worker stopped sending heartbeats.
+     */
+    public List<Long> findResumable(LocalDateTime staleBefore) {
+        return jdbcTemplate.queryForList("select id from import_job where status = 'QUEUED' " +
+                "or (status = 'RUNNING' and heartbeat_at < ?) order by id", Long.class, Timestamp.valueOf(staleBefore));
+    }
+
+    /**
+     * @return whether the worker got the job, false when it is finished or running elsewhere
+     */
+    public boolean claim(long id, String worker, LocalDateTime now, LocalDateTime staleBefore) {
+        return jdbcTemplate.update("update import_job set status = 'RUNNING', worker = ?, heartbeat_at = ?, " +
+                        "started_at = coalesce(started_at, ?) " +
+                        "where id = ? and (status = 'QUEUED' or (status = 'RUNNING' and heartbeat_at < ?))",
+                worker, Timestamp.valueOf(now), Timestamp.valueOf(now), id, Timestamp.valueOf(staleBefore)) == 1;
+    }
+
+    /**
+     * Moves the checkpoint past a batch, completing the job after the last one. Must run in the transaction that
+     * inserted the batch, so a batch is either imported and checkpointed or neither.
+     *
+     * @return whether the worker still owns the job; when false the batch must be rolled back
+     */
+    public boolean checkpoint(long id, String worker, long position, long recordNumber, int importedRows,
+                              int rejectedRows, boolean last, LocalDateTime now) {
+        return jdbcTemplate.update("update import_job set position = ?, record_number = ?, " +
+                        "imported_rows = imported_rows + ?, rejected_rows = rejected_rows + ?, heartbeat_at = ?, " +
+                        "status = ?, finished_at = ? " +
+                        "where id = ? and worker = ? and status = 'RUNNING'",
+                position, recordNumber, importedRows, rejectedRows, Timestamp.valueOf(now),
+                (last ? ImportJobStatus.COMPLETED : ImportJobStatus.RUNNING).name(), last ? Timestamp.valueOf(now) : null,
+                id, worker) == 1;
+    }
+
+    public void addRejections(long id, List<ImportRejectionDto> rejections) {
+        jdbcTemplate.batchUpdate("insert into import_job_rejection (job_id, record_number, reason) values (?, ?, ?)",
+                rejections, rejections.size(), (statement, rejection) -> {
+                    statement.setLong(1, id);
+                    statement.setLong(2, rejection.recordNumber());
+                    statement.setString(3, rejection.reason());
+                });
+    }
+
+    public boolean finish(long id, String worker, ImportJobStatus status, String error, LocalDateTime now) {
+        return jdbcTemplate.update("update import_job set status = ?, error = ?, finished_at = ? " +
+                        "where id = ? and worker = ? and status = 'RUNNING'",
+                status.name(), error, Timestamp.valueOf(now), id, worker) == 1;
+    }
+
+    /**
+     * Hands a running job back to the queue, e.g. on shutdown, so it is resumed without waiting for its heartbeat to
+     * go stale.
+     */
+    public void release(long id, String worker) {
+        jdbcTemplate.update("update import_job set status = 'QUEUED', worker = null " +
+                "where id = ? and worker = ? and status = 'RUNNING'", id, worker);
+    }
+
+    /**
+     * @return whether the job was still queued or running
+     */
+    public boolean cancel(long id, LocalDateTime now) {
+        return jdbcTemplate.update("update import_job set status = 'CANCELLED', finished_at = ? " +
+                "where id = ? and status in ('QUEUED', 'RUNNING')", Timestamp.valueOf(now), id) == 1;
+    }
+
+    public Page<ImportRejectionDto> findRejections(long id, Pageable pageable) {
+        List<ImportRejectionDto> content = jdbcTemplate.query("select record_number, reason from import_job_rejection " +
+                        "where job_id = ? order by record_number limit ? offset ?",
+                (rs, rowNum) -> new ImportRejectionDto(rs.getLong(1), rs.getString(2)),
+                id, pageable.getPageSize(), pageable.getOffset());
+        Long total = jdbcTemplate.queryForObject("select count(*) from import_job_rejection where job_id = ?", Long.class, id);
+
+        return new PageImpl<>(content, pageable, total != null ? total : 0);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
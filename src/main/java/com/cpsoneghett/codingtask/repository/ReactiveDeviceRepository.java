@@ -0,0 +1,214 @@
+package com.cpsoneghett.codingtask.repository;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Non-blocking counterpart of {@link DeviceRepository} over R2DBC, writing the same columns the JPA mapping does.
+ * Devices are read with the name of their brand joined from the {@code brand} table, so mapping rows never needs the
+ * {@link BrandDictionary}. Writes and brand filters translate names through the dictionary, which is preloaded at
+ * startup; registering a brand it has not seen yet, or reloading it when a filter matches no brand, needs JDBC and
+ * runs on the bounded elastic scheduler.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveDeviceRepository {
+
+    /**
+     * {@code straight_join} keeps the device table first, so listings still read it in index order and look up each
+     * brand by its key; the foreign key of {@code brand_id} guarantees every device has its brand.
+     */
+    private static final String COLUMNS = "select d.id, d.name, b.name as brand, d.state, d.dt_created from device d "
+            + "straight_join brand b on b.id = d.brand_id";
+
+    private final DatabaseClient databaseClient;
+    private final BrandDictionary brandDictionary;
+
+    public ReactiveDeviceRepository(DatabaseClient databaseClient, BrandDictionary brandDictionary) {
+        this.databaseClient = databaseClient;
+        this.brandDictionary = brandDictionary;
+    }
+
+    public Mono<Page<Device>> filter(DeviceFilter filter, Pageable pageable) {
+
+        Sort sort = DeviceSortProperty.resolve(pageable.getSort());
+
+        Mono<ResolvedDeviceFilter> resolvedFilter = StringUtils.hasText(filter.brand())
+                ? Mono.fromCallable(() -> ResolvedDeviceFilter.resolve(filter, brandDictionary)).subscribeOn(Schedulers.boundedElastic())
+                : Mono.just(ResolvedDeviceFilter.resolve(filter, brandDictionary));
+
+        return resolvedFilter.flatMap(resolved -> filter(resolved, sort, pageable));
+    }
+
+    private Mono<Page<Device>> filter(ResolvedDeviceFilter resolvedFilter, Sort sort, Pageable pageable) {
+
+        if (resolvedFilter.matchesNothing()) return Mono.just(Page.empty(pageable));
+
+        Map<String, Object> bindings = new HashMap<>();
+        String where = createRestrictions(resolvedFilter, bindings);
+
+        if (BrandOrderedListing.applies(sort)) return filterByBrand(where, bindings, sort, pageable);
+
+        StringBuilder sql = new StringBuilder(COLUMNS).append(where).append(createOrders(sort));
+        if (pageable.isPaged()) {
+            sql.append(" limit :limit offset :offset");
+            bindings.put("limit", pageable.getPageSize());
+            bindings.put("offset", pageable.getOffset());
+        }
+
+        Mono<List<Device>> content = databaseClient.sql(sql.toString()).bindValues(bindings)
+                .map(this::toDevice).all().collectList();
+        Mono<Long> total = databaseClient.sql("select count(*) from device d" + where).bindValues(bindings)
+                .map(row -> row.get(0, Long.class)).one();
+
+        return Mono.zip(content, total, (devices, count) -> new PageImpl<>(devices, pageable, count));
+    }
+
+    /**
+     * Reads the page brand by brand, see {@link BrandOrderedListing}. The brand names are joined to the counts, one
+     * row per brand.
+     */
+    private Mono<Page<Device>> filterByBrand(String where, Map<String, Object> bindings, Sort sort, Pageable pageable) {
+
+        String counts = "select c.brand_id, b.name, c.devices from (select d.brand_id, count(*) as devices from device d"
+                + where + " group by d.brand_id) c join brand b on b.id = c.brand_id";
+        String slice = COLUMNS + (where.isEmpty() ? " where" : where + " and") + " d.brand_id = :brandId"
+                + createOrders(BrandOrderedListing.withinBrand(sort)) + " limit :limit offset :offset";
+
+        return databaseClient.sql(counts).bindValues(bindings)
+                .map(row -> new BrandOrderedListing.Brand<>(row.get("brand_id", Integer.class), row.get("name", String.class),
+                        row.get("devices", Long.class)))
+                .all().collectList()
+                .flatMap(brands -> Flux.fromIterable(BrandOrderedListing.slices(brands, sort,
+                                pageable.isPaged() ? pageable.getOffset() : 0, pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE))
+                        .concatMap(brand -> {
+                            Map<String, Object> sliceBindings = new HashMap<>(bindings);
+                            sliceBindings.put("brandId", brand.key());
+                            sliceBindings.put("limit", brand.limit());
+                            sliceBindings.put("offset", brand.offset());
+                            return databaseClient.sql(slice).bindValues(sliceBindings).map(this::toDevice).all();
+                        })
+                        .collectList()
+                        .map(devices -> new PageImpl<>(devices, pageable, BrandOrderedListing.total(brands))));
+    }
+
+    public Mono<Device> findById(Long id) {
+        return databaseClient.sql(COLUMNS + " where d.id = :id").bind("id", id).map(this::toDevice).one();
+    }
+
+    public Flux<Device> findAllById(Collection<Long> ids) {
+        return databaseClient.sql(COLUMNS + " where d.id in (:ids)").bind("ids", ids).map(this::toDevice).all();
+    }
+
+    public Mono<Device> insert(Device device) {
+        return brandId(device.getBrand()).flatMap(brandId -> databaseClient
+                .sql("insert into device (name, brand_id, state, dt_created) values (:name, :brandId, :state, :createdAt)")
+                .bind("name", device.getName())
+                .bind("brandId", brandId)
+                .bind("state", device.getState().getCode())
+                .bind("createdAt", device.getCreatedAt())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    device.setId(id);
+                    return device;
+                }));
+    }
+
+    /**
+     * Writes the device over its row if the row still holds what {@code stored} was read with, so a write decided on
+     * a read that another request changed in the meantime cannot land. Emits whether it did.
+     */
+    public Mono<Boolean> update(Device device, Device stored) {
+        return Mono.zip(brandId(device.getBrand()), brandId(stored.getBrand())).flatMap(brandIds -> databaseClient
+                .sql("update device set name = :name, brand_id = :brandId, state = :state, dt_created = :createdAt "
+                        + "where id = :id and name = :storedName and brand_id = :storedBrandId and state = :storedState")
+                .bind("name", device.getName())
+                .bind("brandId", brandIds.getT1())
+                .bind("state", device.getState().getCode())
+                .bind("createdAt", device.getCreatedAt())
+                .bind("id", device.getId())
+                .bind("storedName", stored.getName())
+                .bind("storedBrandId", brandIds.getT2())
+                .bind("storedState", stored.getState().getCode())
+                .fetch().rowsUpdated()
+                .map(rows -> rows == 1));
+    }
+
+    /**
+     * Deletes the device if its row still holds what it was read with, see {@link #update(Device, Device)}. Emits
+     * whether it did.
+     */
+    public Mono<Boolean> delete(Device stored) {
+        return brandId(stored.getBrand()).flatMap(brandId -> databaseClient
+                .sql("delete from device where id = :id and name = :name and brand_id = :brandId and state = :state")
+                .bind("id", stored.getId())
+                .bind("name", stored.getName())
+                .bind("brandId", brandId)
+                .bind("state", stored.getState().getCode())
+                .fetch().rowsUpdated()
+                .map(rows -> rows == 1));
+    }
+
+    private Mono<Integer> brandId(String brand) {
+        return Mono.fromCallable(() -> brandDictionary.idFor(brand)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Brand names come from the dictionary itself, so translating them to keys does not touch the database.
+     */
+    private String createRestrictions(ResolvedDeviceFilter filter, Map<String, Object> bindings) {
+
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+
+        if (filter.brands() != null) {
+            where.add("d.brand_id in (:brandIds)");
+            bindings.put("brandIds", filter.brands().stream().map(brandDictionary::idFor).toList());
+        }
+
+        if (filter.states() != null) {
+            where.add("d.state in (:states)");
+            bindings.put("states", filter.states().stream().map(DeviceState::getCode).toList());
+        }
+
+        return where.toString();
+    }
+
+    private String createOrders(Sort sort) {
+        StringJoiner orderBy = new StringJoiner(", ", " order by ", "");
+        for (Sort.Order order : sort) {
+            DeviceSortProperty property = DeviceSortProperty.of(order.getProperty());
+            orderBy.add("d." + property.getColumn() + (order.isAscending() ? " asc" : " desc"));
+        }
+        return orderBy.toString();
+    }
+
+    private Device toDevice(Readable row) {
+        Device device = new Device(row.get("name", String.class), row.get("brand", String.class),
+                DeviceState.fromCode(row.get("state", Integer.class)));
+        device.setId(row.get("id", Long.class));
+        device.setCreatedAt(row.get("dt_created", LocalDateTime.class));
+        return device;
+    }
+}
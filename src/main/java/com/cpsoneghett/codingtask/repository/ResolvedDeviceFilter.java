@@ -0,0 +1,45 @@
+package com.cpsoneghett.codingtask.repository;
+
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A {@link DeviceFilter} with its text fragments resolved in memory to the brands and states they match, ignoring
+ * case. A null list means the filter does not restrict that property.
+ */
+public record ResolvedDeviceFilter(List<String> brands, List<DeviceState> states) {
+
+    public static ResolvedDeviceFilter resolve(DeviceFilter filter, BrandDictionary brandDictionary) {
+        List<String> brands = StringUtils.hasText(filter.brand()) ? brandDictionary.namesContaining(filter.brand().trim()) : null;
+
+        List<DeviceState> states = null;
+        if (StringUtils.hasText(filter.state())) {
+            String fragment = filter.state().trim().toUpperCase(Locale.ROOT);
+            states = new ArrayList<>();
+            for (DeviceState state : DeviceState.values()) {
+                if (state.name().contains(fragment)) states.add(state);
+            }
+        }
+
+        return new ResolvedDeviceFilter(brands, states);
+    }
+
+    public boolean matchesNothing() {
+        return (brands != null && brands.isEmpty()) || (states != null && states.isEmpty());
+    }
+
+    /**
+     * The restrictions without their values, e.g. {@code brand_id in (3),state in (1)}, for telemetry.
+     */
+    public String shape() {
+        if (brands == null && states == null) return "none";
+        if (brands == null) return "state in (" + states.size() + ")";
+        if (states == null) return "brand_id in (" + brands.size() + ")";
+        return "brand_id in (" + brands.size() + "),state in (" + states.size() + ")";
+    }
+}
@@ -2,78 +2,163 @@ package com.cpsoneghett.codingtask.repository.impl;
 
 import com.cpsoneghett.codingtask.domain.Device;
 import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.monitoring.DeviceQueryEvent;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.BrandOrderedListing;
 import com.cpsoneghett.codingtask.repository.DeviceRepositoryQuery;
+import com.cpsoneghett.codingtask.repository.DeviceSortProperty;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.util.StringUtils;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class DeviceRepositoryQueryImpl implements DeviceRepositoryQuery {
 
-    @PersistenceContext
-    private EntityManager em;
+    private final EntityManager em;
+    private final BrandDictionary brandDictionary;
+
+    public DeviceRepositoryQueryImpl(EntityManager em, BrandDictionary brandDictionary) {
+        this.em = em;
+        this.brandDictionary = brandDictionary;
+    }
 
     @Override
     public Page<Device> filter(DeviceFilter filter, Pageable pageable) {
 
+        Sort sort = DeviceSortProperty.resolve(pageable.getSort());
+
+        ResolvedDeviceFilter resolvedFilter = ResolvedDeviceFilter.resolve(filter, brandDictionary);
+        if (resolvedFilter.matchesNothing()) return Page.empty(pageable);
+
+        if (BrandOrderedListing.applies(sort)) return filterByBrand(resolvedFilter, sort, pageable);
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("filter", resolvedFilter.shape());
+        List<Device> content = list(resolvedFilter, null, sort, pageable.getOffset(), pageable.getPageSize());
+        event.finish(content.size());
+
+        return new PageImpl<>(content, pageable, total(resolvedFilter));
+    }
+
+    /**
+     * Reads the page brand by brand, see {@link BrandOrderedListing}.
+     */
+    private Page<Device> filterByBrand(ResolvedDeviceFilter filter, Sort sort, Pageable pageable) {
+
+        List<BrandOrderedListing.Brand<String>> brands = countPerBrand(filter);
+        Sort withinBrand = BrandOrderedListing.withinBrand(sort);
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("filter by brand", filter.shape());
+        List<Device> content = new ArrayList<>();
+        for (BrandOrderedListing.Slice<String> slice : BrandOrderedListing.slices(brands, sort, pageable.getOffset(), pageable.getPageSize())) {
+            content.addAll(list(filter, slice.key(), withinBrand, slice.offset(), slice.limit()));
+        }
+        event.finish(content.size());
+
+        return new PageImpl<>(content, pageable, BrandOrderedListing.total(brands));
+    }
+
+    /**
+     * @param brand the single brand to read, or null for all the brands the filter matches
+     */
+    private List<Device> list(ResolvedDeviceFilter filter, String brand, Sort sort, long offset, int limit) {
+
         CriteriaBuilder builder = em.getCriteriaBuilder();
         CriteriaQuery<Device> criteria = builder.createQuery(Device.class);
         Root<Device> root = criteria.from(Device.class);
 
-        Predicate[] predicates = createRestrictions(filter, builder, root);
-        criteria.where(predicates);
+        List<Predicate> predicates = createRestrictions(filter, root);
+        if (brand != null) predicates.add(builder.equal(root.get("brand"), brand));
+        criteria.where(predicates.toArray(new Predicate[0]));
+        criteria.orderBy(createOrders(sort, builder, root));
 
+        // pages are only rendered, so their devices need no dirty checking snapshots even outside a read-only transaction
         TypedQuery<Device> query = em.createQuery(criteria);
-        addPagingRestrictions(query, pageable);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        query.setFirstResult(Math.toIntExact(offset));
+        query.setMaxResults(limit);
 
-        return new PageImpl<>(query.getResultList(), pageable, total(filter));
+        return query.getResultList();
     }
 
-    private Predicate[] createRestrictions(DeviceFilter filter, CriteriaBuilder builder, Root<Device> root) {
+    /**
+     * Brand and state fragments were already matched in memory, so the query gets IN lists over the stored keys.
+     */
+    private List<Predicate> createRestrictions(ResolvedDeviceFilter filter, Root<Device> root) {
 
         List<Predicate> predicates = new ArrayList<>();
 
-        if (StringUtils.hasText(filter.brand())) {
-            predicates.add(builder.like(builder.lower(root.get("brand")), "%" + filter.brand() + "%"));
+        if (filter.brands() != null) {
+            predicates.add(root.get("brand").in(filter.brands()));
         }
 
-        if (StringUtils.hasText(filter.state())) {
-            predicates.add(builder.like(builder.lower(root.get("state")), "%" + filter.brand() + "%"));
+        if (filter.states() != null) {
+            predicates.add(root.get("state").in(filter.states()));
         }
 
-        return predicates.toArray(new Predicate[0]);
+        return predicates;
     }
 
-    private void addPagingRestrictions(TypedQuery<Device> query, Pageable pageable) {
-        int currentPage = pageable.getPageNumber();
-        int totalPerPage = pageable.getPageSize();
-        int firstPageRegister = currentPage * totalPerPage;
+    private List<Order> createOrders(Sort sort, CriteriaBuilder builder, Root<Device> root) {
 
-        query.setFirstResult(firstPageRegister);
-        query.setMaxResults(totalPerPage);
+        List<Order> orders = new ArrayList<>();
+
+        for (Sort.Order order : sort) {
+            Path<?> key = root.get(order.getProperty());
+            orders.add(order.isAscending() ? builder.asc(key) : builder.desc(key));
+        }
+
+        return orders;
     }
 
-    private Long total(DeviceFilter filter) {
+    private Long total(ResolvedDeviceFilter filter) {
 
         CriteriaBuilder builder = em.getCriteriaBuilder();
         CriteriaQuery<Long> criteria = builder.createQuery(Long.class);
         Root<Device> root = criteria.from(Device.class);
 
-        Predicate[] predicates = createRestrictions(filter, builder, root);
-        criteria.where(predicates);
-
+        criteria.where(createRestrictions(filter, root).toArray(new Predicate[0]));
         criteria.select(builder.count(root));
 
-        return em.createQuery(criteria).getSingleResult();
+        DeviceQueryEvent event = DeviceQueryEvent.begin("count", filter.shape());
+        Long total = em.createQuery(criteria).getSingleResult();
+        event.finish(1);
+
+        return total;
+    }
+
+    private List<BrandOrderedListing.Brand<String>> countPerBrand(ResolvedDeviceFilter filter) {
+
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteria = builder.createTupleQuery();
+        Root<Device> root = criteria.from(Device.class);
+
+        Path<String> brand = root.get("brand");
+        criteria.multiselect(brand, builder.count(root));
+        criteria.where(createRestrictions(filter, root).toArray(new Predicate[0]));
+        criteria.groupBy(brand);
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("count per brand", filter.shape());
+        List<BrandOrderedListing.Brand<String>> brands = new ArrayList<>();
+        for (Tuple row : em.createQuery(criteria).getResultList()) {
+            String name = row.get(0, String.class);
+            brands.add(new BrandOrderedListing.Brand<>(name, name, row.get(1, Long.class)));
+        }
+        event.finish(brands.size());
+
+        return brands;
     }
 }
@@ -0,0 +1,73 @@
+package com.cpsoneghett.codingtask.repository.impl;
+
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceHistoryEntryDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.monitoring.DeviceQueryEvent;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.DeviceHistoryRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Inserts are sent as one JDBC batch, which {@code rewriteBatchedStatements} turns into multi-row inserts. Pages are
+ * a range scan of {@code idx_device_history_device} from the {@code before} id down, so every page costs the same
+ * however deep into the history it is.
+ */
+@Repository
+@Profile("!memory")
+public class JdbcDeviceHistoryRepository implements DeviceHistoryRepository {
+
+    private static final String INSERT = "insert into device_history (device_id, change_type, name, brand_id, state, dt_changed) " +
+            "values (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "select id, device_id, change_type, name, brand_id, state, dt_changed from device_history ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BrandDictionary brandDictionary;
+    private final RowMapper<DeviceHistoryEntryDto> rowMapper;
+
+    public JdbcDeviceHistoryRepository(JdbcTemplate jdbcTemplate, BrandDictionary brandDictionary) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.brandDictionary = brandDictionary;
+        this.rowMapper = (rs, rowNum) -> new DeviceHistoryEntryDto(
+                rs.getLong("id"),
+                rs.getLong("device_id"),
+                ChangeType.fromCode(rs.getInt("change_type")),
+                rs.getString("name"),
+                brandDictionary.nameFor(rs.getInt("brand_id")),
+                DeviceState.fromCode(rs.getInt("state")),
+                rs.getTimestamp("dt_changed").toLocalDateTime());
+    }
+
+    @Override
+    public void insertAll(List<DeviceHistoryEntryDto> entries) {
+        if (entries.isEmpty()) return;
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("insertHistory", "batch");
+        jdbcTemplate.batchUpdate(INSERT, entries, entries.size(), (statement, entry) -> {
+            statement.setLong(1, entry.deviceId());
+            statement.setInt(2, entry.change().getCode());
+            statement.setString(3, entry.name());
+            statement.setInt(4, brandDictionary.idFor(entry.brand()));
+            statement.setInt(5, entry.state().getCode());
+            statement.setTimestamp(6, Timestamp.valueOf(entry.changedAt()));
+        });
+        event.finish(entries.size());
+    }
+
+    @Override
+    public List<DeviceHistoryEntryDto> findByDeviceId(Long deviceId, Long before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("findHistory", "device_id");
+        List<DeviceHistoryEntryDto> entries = before == null
+                ? jdbcTemplate.query(SELECT + "where device_id = ? order by id desc limit ?", rowMapper, deviceId, limit)
+                : jdbcTemplate.query(SELECT + "where device_id = ? and id < ? order by id desc limit ?", rowMapper, deviceId, before, limit);
+        event.finish(entries.size());
+
+        return entries;
+    }
+}
@@ -0,0 +1,112 @@
+package com.cpsoneghett.codingtask.repository.impl;
+
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.monitoring.DeviceQueryEvent;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.DeviceLeaseRepository;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lease columns of the device table. Every state transition is a single conditional update, so concurrent checkouts
+ * of the same device cannot both succeed and losers fail fast instead of retrying. Selections of rows to change use
+ * {@code FOR UPDATE SKIP LOCKED}, so concurrent callers spread over different rows instead of queueing on the same one.
+ */
+@Repository
+@Profile("!memory & !sharded")
+public class JpaDeviceLeaseRepository implements DeviceLeaseRepository {
+
+    private static final int AVAILABLE = DeviceState.AVAILABLE.getCode();
+    private static final int IN_USE = DeviceState.IN_USE.getCode();
+
+    private final EntityManager em;
+    private final BrandDictionary brandDictionary;
+
+    public JpaDeviceLeaseRepository(EntityManager em, BrandDictionary brandDictionary) {
+        this.em = em;
+        this.brandDictionary = brandDictionary;
+    }
+
+    @Override
+    public boolean acquire(Long id, String token, LocalDateTime expiresAt) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("acquireLease", "id");
+        int updated = em.createNativeQuery("update device set state = :inUse, lease_token = :token, lease_expires_at = :expiresAt " +
+                        "where id = :id and state = :available")
+                .setParameter("inUse", IN_USE)
+                .setParameter("token", token)
+                .setParameter("expiresAt", expiresAt)
+                .setParameter("id", id)
+                .setParameter("available", AVAILABLE)
+                .executeUpdate();
+        event.finish(updated);
+
+        return updated == 1;
+    }
+
+    @Override
+    public Optional<Long> lockAvailable(ResolvedDeviceFilter filter) {
+
+        StringBuilder sql = new StringBuilder("select id from device where state = :available");
+        if (filter.brands() != null) sql.append(" and brand_id in (:brandIds)");
+        sql.append(" order by id limit 1 for update skip locked");
+
+        Query query = em.createNativeQuery(sql.toString()).setParameter("available", AVAILABLE);
+        if (filter.brands() != null)
+            query.setParameter("brandIds", filter.brands().stream().map(brandDictionary::idFor).toList());
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("lockAvailable", filter.shape());
+        List<?> ids = query.getResultList();
+        event.finish(ids.size());
+
+        return ids.isEmpty() ? Optional.empty() : Optional.of(((Number) ids.get(0)).longValue());
+    }
+
+    @Override
+    public boolean release(Long id, String token) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("releaseLease", "id");
+        int updated = em.createNativeQuery("update device set state = :available, lease_token = null, lease_expires_at = null " +
+                        "where id = :id and state = :inUse and lease_token = :token")
+                .setParameter("available", AVAILABLE)
+                .setParameter("id", id)
+                .setParameter("inUse", IN_USE)
+                .setParameter("token", token)
+                .executeUpdate();
+        event.finish(updated);
+
+        return updated == 1;
+    }
+
+    @Override
+    public List<Long> lockExpired(LocalDateTime now, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("lockExpired", "lease_expires_at");
+        List<?> ids = em.createNativeQuery("select id from device where lease_expires_at < :now and state = :inUse " +
+                        "order by lease_expires_at limit :limit for update skip locked")
+                .setParameter("now", now)
+                .setParameter("inUse", IN_USE)
+                .setParameter("limit", limit)
+                .getResultList();
+        event.finish(ids.size());
+
+        return ids.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+
+    @Override
+    public int releaseAll(List<Long> ids) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("releaseAll", "id in (" + ids.size() + ")");
+        int updated = em.createNativeQuery("update device set state = :available, lease_token = null, lease_expires_at = null " +
+                        "where id in (:ids)")
+                .setParameter("available", AVAILABLE)
+                .setParameter("ids", ids)
+                .executeUpdate();
+        event.finish(updated);
+
+        return updated;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cpsoneghett.codingtask.repository.impl;
+
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.monitoring.DeviceQueryEvent;
+import com.cpsoneghett.codingtask.repository.DeviceStateRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Reported states, applied with one locking select and one update per state instead of a read and an update per
+ * device. The select only returns rows that actually change, so reports repeating the stored state cost no write.
+ */
+@Repository
+@Profile("!memory & !sharded")
+public class JpaDeviceStateRepository implements DeviceStateRepository {
+
+    private final EntityManager em;
+
+    public JpaDeviceStateRepository(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    public List<Long> applyReportedState(List<Long> ids, DeviceState state) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("lockReported", "id in (" + ids.size() + ")");
+        List<?> rows = em.createNativeQuery("select id from device where id in (:ids) and state <> :state and lease_token is null " +
+                        "order by id for update")
+                .setParameter("ids", ids)
+                .setParameter("state", state.getCode())
+                .getResultList();
+        event.finish(rows.size());
+
+        List<Long> changed = rows.stream().map(id -> ((Number) id).longValue()).toList();
+        if (changed.isEmpty()) return changed;
+
+        event = DeviceQueryEvent.begin("applyReported", "id in (" + changed.size() + ")");
+        int updated = em.createNativeQuery("update device set state = :state where id in (:ids)")
+                .setParameter("state", state.getCode())
+                .setParameter("ids", changed)
+                .executeUpdate();
+        event.finish(updated);
+
+        return changed;
+    }
+}
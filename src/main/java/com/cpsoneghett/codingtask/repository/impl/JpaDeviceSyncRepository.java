@@ -0,0 +1,83 @@
+package com.cpsoneghett.codingtask.repository.impl;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+import com.cpsoneghett.codingtask.monitoring.DeviceQueryEvent;
+import com.cpsoneghett.codingtask.repository.DeviceSyncRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Changes come from {@code idx_device_dt_updated} and deletions from the tombstones the {@code trg_device_tombstone}
+ * trigger writes. Positions are compared as {@code time >= :time and (time > :time or id > :id)}, which MySQL serves
+ * as a range scan of the index, unlike a row constructor comparison.
+ */
+@Repository
+@Profile("!memory & !sharded")
+public class JpaDeviceSyncRepository implements DeviceSyncRepository {
+
+    private final EntityManager em;
+
+    public JpaDeviceSyncRepository(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    public LocalDateTime now() {
+        return toLocalDateTime(em.createNativeQuery("select current_timestamp(6)").getSingleResult());
+    }
+
+    @Override
+    public List<Device> findChangedAfter(SyncPosition after, LocalDateTime before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("findChangedAfter", "dt_updated");
+        List<Device> devices = em.createQuery("select d from Device d where d.updatedAt >= :time and (d.updatedAt > :time or d.id > :id) " +
+                        "and d.updatedAt < :before order by d.updatedAt, d.id", Device.class)
+                .setParameter("time", after.time())
+                .setParameter("id", after.id())
+                .setParameter("before", before)
+                .setMaxResults(limit)
+                .getResultList();
+        event.finish(devices.size());
+
+        return devices;
+    }
+
+    @Override
+    public List<SyncPosition> findDeletedAfter(SyncPosition after, LocalDateTime before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("findDeletedAfter", "dt_deleted");
+        List<?> rows = em.createNativeQuery("select id, dt_deleted from device_tombstone where dt_deleted >= :time " +
+                        "and (dt_deleted > :time or id > :id) and dt_deleted < :before order by dt_deleted, id limit :limit")
+                .setParameter("time", after.time())
+                .setParameter("id", after.id())
+                .setParameter("before", before)
+                .setParameter("limit", limit)
+                .getResultList();
+        event.finish(rows.size());
+
+        return rows.stream().map(row -> {
+            Object[] columns = (Object[]) row;
+            return new SyncPosition(toLocalDateTime(columns[1]), ((Number) columns[0]).longValue());
+        }).toList();
+    }
+
+    @Override
+    public int purgeTombstones(LocalDateTime before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("purgeTombstones", "dt_deleted");
+        int deleted = em.createNativeQuery("delete from device_tombstone where dt_deleted < :before limit :limit")
+                .setParameter("before", before)
+                .setParameter("limit", limit)
+                .executeUpdate();
+        event.finish(deleted);
+
+        return deleted;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
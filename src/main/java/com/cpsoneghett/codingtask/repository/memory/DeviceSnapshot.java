@@ -0,0 +1,117 @@
+package com.cpsoneghett.codingtask.repository.memory;
+
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Point-in-time copy of an {@link InMemoryDeviceRepository}, with a compact binary file format. Brands are written by
+ * name, their keys are assigned again when the snapshot is restored.
+ *
+ * @param lastId     highest id ever assigned, kept so ids of deleted devices are not handed out again after a restart
+ * @param tombstones deletions not purged yet, kept so clients syncing across a restart still learn about them
+ */
+public record DeviceSnapshot(long lastId, List<StoredDevice> devices, List<SyncPosition> tombstones) {
+
+    private static final int MAGIC = 0x44455653; // "DEVS"
+    private static final int VERSION = 3;
+
+    public DeviceSnapshot(long lastId, List<StoredDevice> devices) {
+        this(lastId, devices, List.of());
+    }
+
+    /**
+     * Writes to a temporary file next to {@code file} and moves it over, so a crash while writing leaves the previous
+     * snapshot intact.
+     */
+    public void write(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastId);
+            out.writeInt(devices.size());
+            for (StoredDevice device : devices) {
+                out.writeLong(device.id());
+                out.writeUTF(device.name());
+                out.writeUTF(device.brand());
+                out.writeByte(device.state().getCode());
+                writeTime(out, device.createdAt());
+                writeTime(out, device.updatedAt());
+                out.writeBoolean(device.leaseToken() != null);
+                if (device.leaseToken() != null) out.writeUTF(device.leaseToken());
+                writeTime(out, device.leaseExpiresAt());
+            }
+            out.writeInt(tombstones.size());
+            for (SyncPosition tombstone : tombstones) {
+                out.writeLong(tombstone.id());
+                writeTime(out, tombstone.time());
+            }
+        } catch (IOException ex) {
+            Files.deleteIfExists(temporary);
+            throw ex;
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static DeviceSnapshot read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a device snapshot.");
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported device snapshot version " + version + " in " + file + ".");
+
+            long lastId = in.readLong();
+            int size = in.readInt();
+            List<StoredDevice> devices = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                long id = in.readLong();
+                String name = in.readUTF();
+                String brand = in.readUTF();
+                DeviceState state = DeviceState.fromCode(in.readByte());
+                LocalDateTime createdAt = readTime(in);
+                // version 1 did not track changes
+                LocalDateTime updatedAt = version == 1 ? createdAt : readTime(in);
+                String leaseToken = in.readBoolean() ? in.readUTF() : null;
+                LocalDateTime leaseExpiresAt = readTime(in);
+                devices.add(new StoredDevice(id, name, brand, 0, state, createdAt, updatedAt, leaseToken, leaseExpiresAt));
+            }
+
+            // versions before 3 did not keep tombstones
+            List<SyncPosition> tombstones = new ArrayList<>();
+            int tombstoneCount = version < 3 ? 0 : in.readInt();
+            for (int i = 0; i < tombstoneCount; i++) {
+                long id = in.readLong();
+                tombstones.add(new SyncPosition(readTime(in), id));
+            }
+            return new DeviceSnapshot(lastId, devices, tombstones);
+        }
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time == null) return;
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,55 @@
+package com.cpsoneghett.codingtask.repository.memory;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Writes the {@link InMemoryDeviceRepository} to {@code app.memory-store.snapshot-path} periodically and on shutdown.
+ * Writes made after the last snapshot are lost when the process dies.
+ */
+@Component
+@Profile("memory")
+public class DeviceSnapshotWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceSnapshotWriter.class);
+
+    private final InMemoryDeviceRepository repository;
+    private final InMemoryStoreProperties properties;
+    private long writtenModifications;
+
+    public DeviceSnapshotWriter(InMemoryDeviceRepository repository, InMemoryStoreProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+        this.writtenModifications = repository.modifications();
+    }
+
+    @Scheduled(fixedDelayString = "${app.memory-store.snapshot-interval:PT5M}")
+    public synchronized void write() {
+        if (properties.snapshotPath() == null) return;
+
+        long modifications = repository.modifications();
+        if (modifications == writtenModifications) return;
+
+        long startedAt = System.nanoTime();
+        DeviceSnapshot snapshot = repository.snapshot();
+        try {
+            snapshot.write(properties.snapshotPath());
+            writtenModifications = modifications;
+            log.info("Wrote {} devices to {} in {} ms", snapshot.devices().size(), properties.snapshotPath(),
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (IOException ex) {
+            log.warn("Could not write the device snapshot to {}", properties.snapshotPath(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        write();
+    }
+}
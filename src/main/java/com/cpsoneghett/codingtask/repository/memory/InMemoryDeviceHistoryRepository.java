@@ -0,0 +1,52 @@
+package com.cpsoneghett.codingtask.repository.memory;
+
+import com.cpsoneghett.codingtask.domain.DeviceHistoryEntryDto;
+import com.cpsoneghett.codingtask.monitoring.DeviceQueryEvent;
+import com.cpsoneghett.codingtask.repository.DeviceHistoryRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Device history kept in the heap, for the {@code memory} profile. Entries of each device are ordered by id, like
+ * {@code idx_device_history_device}, and are lost with the process.
+ */
+public class InMemoryDeviceHistoryRepository implements DeviceHistoryRepository {
+
+    private final Map<Long, ConcurrentSkipListMap<Long, DeviceHistoryEntryDto>> entriesByDevice = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+
+    @Override
+    public void insertAll(List<DeviceHistoryEntryDto> entries) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("insertHistory", "batch");
+        for (DeviceHistoryEntryDto entry : entries) {
+            long id = lastId.incrementAndGet();
+            entriesByDevice.computeIfAbsent(entry.deviceId(), deviceId -> new ConcurrentSkipListMap<>())
+                    .put(id, new DeviceHistoryEntryDto(id, entry.deviceId(), entry.change(), entry.name(), entry.brand(),
+                            entry.state(), entry.changedAt()));
+        }
+        event.finish(entries.size());
+    }
+
+    @Override
+    public List<DeviceHistoryEntryDto> findByDeviceId(Long deviceId, Long before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("findHistory", "device_id");
+        List<DeviceHistoryEntryDto> page = new ArrayList<>();
+        NavigableMap<Long, DeviceHistoryEntryDto> entries = entriesByDevice.get(deviceId);
+        if (entries != null) {
+            if (before != null) entries = entries.headMap(before, false);
+            for (DeviceHistoryEntryDto entry : entries.descendingMap().values()) {
+                if (page.size() == limit) break;
+                page.add(entry);
+            }
+        }
+        event.finish(page.size());
+
+        return page;
+    }
+}
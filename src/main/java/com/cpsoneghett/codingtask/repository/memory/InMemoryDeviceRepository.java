@@ -0,0 +1,742 @@
+package com.cpsoneghett.codingtask.repository.memory;
+
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+import com.cpsoneghett.codingtask.monitoring.DeviceQueryEvent;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.DeviceLeaseRepository;
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import com.cpsoneghett.codingtask.repository.DeviceSortProperty;
+import com.cpsoneghett.codingtask.repository.DeviceStateRepository;
+import com.cpsoneghett.codingtask.repository.DeviceSyncRepository;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Device table kept in the heap, for the {@code memory} profile. Rows live in a map ordered by id, with secondary
+ * indexes of ids by state and by brand, so filters only visit the devices of the states or brands they match.
+ * <p>
+ * Writes are serialized and change the indexes before and after the row: an index can briefly hold an id whose row
+ * does not match it (yet, or anymore), so readers never lock and check every row they read against the filter.
+ * Devices are copied in and out, like detached entities, so changing a returned device changes nothing until it is
+ * saved.
+ * <p>
+ * Leases follow the database implementation. {@code lockAvailable} and {@code lockExpired} reserve devices for the
+ * calling thread until its transaction completes, like {@code FOR UPDATE SKIP LOCKED}, and transitions of a device
+ * reserved by another thread fail, which is the outcome they would have after waiting for the lock in the database.
+ * {@code findForUpdateById} reserves the device the same way, waiting for other threads to release it first.
+ * <p>
+ * Rows are also indexed by their sync position, and deletes leave a tombstone, like the {@code dt_updated} index and
+ * the tombstone trigger of the database.
+ */
+public class InMemoryDeviceRepository implements DeviceRepository, DeviceLeaseRepository, DeviceStateRepository, DeviceSyncRepository {
+
+    private static final long LOCK_POLL_MILLIS = 1;
+
+    private final BrandDictionary brandDictionary;
+    private final Validator validator;
+
+    private final ConcurrentSkipListMap<Long, StoredDevice> devices = new ConcurrentSkipListMap<>();
+    private final Map<DeviceState, IdIndex> idsByState = new EnumMap<>(DeviceState.class);
+    private final Map<String, IdIndex> idsByBrand = new ConcurrentHashMap<>();
+    private final NavigableSet<SyncPosition> changes = new ConcurrentSkipListSet<>();
+    private final NavigableSet<SyncPosition> tombstones = new ConcurrentSkipListSet<>();
+    private final Map<Long, Thread> locks = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong modifications = new AtomicLong();
+
+    public InMemoryDeviceRepository(BrandDictionary brandDictionary, Validator validator) {
+        this.brandDictionary = brandDictionary;
+        this.validator = validator;
+        for (DeviceState state : DeviceState.values()) idsByState.put(state, new IdIndex());
+    }
+
+    /**
+     * Replaces the contents with the snapshot's.
+     */
+    public void restore(DeviceSnapshot snapshot) {
+        synchronized (writeLock) {
+            devices.clear();
+            idsByState.values().forEach(IdIndex::clear);
+            idsByBrand.clear();
+            changes.clear();
+            tombstones.clear();
+            tombstones.addAll(snapshot.tombstones());
+            size.set(0);
+
+            long maxId = snapshot.lastId();
+            for (StoredDevice device : snapshot.devices()) {
+                int brandId = brandDictionary.idFor(device.brand());
+                put(null, new StoredDevice(device.id(), device.name(), device.brand(), brandId, device.state(),
+                        device.createdAt(), device.updatedAt(), device.leaseToken(), device.leaseExpiresAt()));
+                maxId = Math.max(maxId, device.id());
+            }
+            lastId.set(maxId);
+        }
+    }
+
+    public DeviceSnapshot snapshot() {
+        synchronized (writeLock) {
+            return new DeviceSnapshot(lastId.get(), new ArrayList<>(devices.values()), new ArrayList<>(tombstones));
+        }
+    }
+
+    /**
+     * Number of writes so far, to tell whether anything changed since a snapshot.
+     */
+    public long modifications() {
+        return modifications.get();
+    }
+
+    @Override
+    public Page<Device> filter(DeviceFilter filter, Pageable pageable) {
+
+        Sort sort = DeviceSortProperty.resolve(pageable.getSort());
+
+        ResolvedDeviceFilter resolvedFilter = ResolvedDeviceFilter.resolve(filter, brandDictionary);
+        if (resolvedFilter.matchesNothing()) return Page.empty(pageable);
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("filter", resolvedFilter.shape());
+        Candidates candidates = candidates(resolvedFilter);
+        Page<Device> page = isIdOrder(sort) && candidates.ordered() != null
+                ? inIdOrder(candidates, sort.iterator().next().isAscending(), pageable)
+                : sorted(candidates, comparator(sort), pageable);
+        event.finish(page.getNumberOfElements());
+
+        return page;
+    }
+
+    /**
+     * Iterates the indexes of whichever restriction matches fewer devices and checks the other one on each row.
+     */
+    private Candidates candidates(ResolvedDeviceFilter filter) {
+
+        Set<DeviceState> states = filter.states() != null ? EnumSet.copyOf(filter.states()) : null;
+        Set<String> brands = filter.brands() != null ? new HashSet<>(filter.brands()) : null;
+        Predicate<StoredDevice> matches = device -> (states == null || states.contains(device.state()))
+                && (brands == null || brands.contains(device.brand()));
+
+        List<IdIndex> stateIndexes = states != null ? states.stream().map(idsByState::get).toList() : null;
+        List<IdIndex> brandIndexes = brands != null ? brands.stream().map(idsByBrand::get).filter(index -> index != null).toList() : null;
+
+        if (stateIndexes == null && brandIndexes == null)
+            return new Candidates(List.of(devices.keySet()), devices.keySet(), size.get(), matches);
+
+        List<IdIndex> driving;
+        if (stateIndexes == null) driving = brandIndexes;
+        else if (brandIndexes == null) driving = stateIndexes;
+        else driving = IdIndex.size(brandIndexes) < IdIndex.size(stateIndexes) ? brandIndexes : stateIndexes;
+
+        // a single index restricting alone is already in id order and knows how many devices it holds
+        boolean alone = stateIndexes == null || brandIndexes == null;
+        NavigableSet<Long> ordered = alone && driving.size() == 1 ? driving.getFirst().ids : null;
+        return new Candidates(driving.stream().map(index -> (Collection<Long>) index.ids).toList(), ordered,
+                IdIndex.size(driving), matches);
+    }
+
+    private Page<Device> inIdOrder(Candidates candidates, boolean ascending, Pageable pageable) {
+
+        Iterator<Long> ids = ascending ? candidates.ordered().iterator() : candidates.ordered().descendingIterator();
+        long toSkip = pageable.getOffset();
+        List<Device> content = new ArrayList<>(pageable.getPageSize());
+
+        while (ids.hasNext() && content.size() < pageable.getPageSize()) {
+            StoredDevice device = devices.get(ids.next());
+            if (device == null || !candidates.matches().test(device)) continue;
+            if (toSkip > 0) toSkip--;
+            else content.add(device.toDevice());
+        }
+
+        return new PageImpl<>(content, pageable, candidates.size());
+    }
+
+    /**
+     * Keeps the first {@code offset + size} matches in a bounded heap, so sorting costs memory for one page range
+     * rather than for every match.
+     */
+    private Page<Device> sorted(Candidates candidates, Comparator<StoredDevice> comparator, Pageable pageable) {
+
+        long limit = Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+        PriorityQueue<StoredDevice> top = new PriorityQueue<>(comparator.reversed());
+        long total = 0;
+
+        for (Collection<Long> ids : candidates.sources()) {
+            for (Long id : ids) {
+                StoredDevice device = devices.get(id);
+                if (device == null || !candidates.matches().test(device)) continue;
+
+                total++;
+                if (top.size() < limit) top.add(device);
+                else if (comparator.compare(device, top.peek()) < 0) {
+                    top.poll();
+                    top.add(device);
+                }
+            }
+        }
+
+        List<StoredDevice> range = new ArrayList<>(top);
+        range.sort(comparator);
+        List<Device> content = range.stream().skip(pageable.getOffset()).map(StoredDevice::toDevice).toList();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private static boolean isIdOrder(Sort sort) {
+        Iterator<Sort.Order> orders = sort.iterator();
+        return orders.next().getProperty().equals(DeviceSortProperty.ID.getAttribute()) && !orders.hasNext();
+    }
+
+    /**
+     * Orders like the database: brands by name, states by their stored code, names ignoring case like the column
+     * collation, and nulls first.
+     */
+    private static Comparator<StoredDevice> comparator(Sort sort) {
+
+        Comparator<StoredDevice> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<StoredDevice> comparator = switch (DeviceSortProperty.of(order.getProperty())) {
+                case ID -> Comparator.comparingLong(StoredDevice::id);
+                case NAME -> Comparator.comparing(StoredDevice::name, String.CASE_INSENSITIVE_ORDER);
+                case BRAND -> Comparator.comparing(StoredDevice::brand, BrandDictionary.NAME_ORDER);
+                case STATE -> Comparator.comparingInt(device -> device.state().getCode());
+                case CREATED_AT -> Comparator.comparing(StoredDevice::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+            };
+            if (order.isDescending()) comparator = comparator.reversed();
+            result = result == null ? comparator : result.thenComparing(comparator);
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<LocalDateTime> findUpdatedAtById(Long id) {
+        return Optional.ofNullable(devices.get(id)).map(StoredDevice::updatedAt);
+    }
+
+    @Override
+    public List<Long> findIdsAfter(Long lastId, Pageable pageable) {
+        return devices.tailMap(lastId, false).keySet().stream().limit(pageable.getPageSize()).toList();
+    }
+
+    @Override
+    public <S extends Device> S save(S entity) {
+
+        Set<ConstraintViolation<S>> violations = validator.validate(entity);
+        if (!violations.isEmpty()) throw new ConstraintViolationException(violations);
+
+        int brandId = brandDictionary.idFor(entity.getBrand());
+        synchronized (writeLock) {
+            StoredDevice previous = entity.getId() != null ? devices.get(entity.getId()) : null;
+            if (previous == null) {
+                entity.setId(lastId.incrementAndGet());
+                entity.setCreatedAt(LocalDateTime.now());
+            }
+
+            // like trg_device_lease_reset, a state change made outside the lease methods ends the lease
+            boolean keepsLease = previous != null && previous.state() == entity.getState();
+            String leaseToken = keepsLease ? previous.leaseToken() : null;
+            LocalDateTime leaseExpiresAt = keepsLease ? previous.leaseExpiresAt() : null;
+            put(previous, new StoredDevice(entity.getId(), entity.getName(), entity.getBrand(), brandId, entity.getState(),
+                    entity.getCreatedAt(), LocalDateTime.now(), leaseToken, leaseExpiresAt));
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends Device> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) saved.add(save(entity));
+        return saved;
+    }
+
+    @Override
+    public <S extends Device> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends Device> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Optional<Device> findById(Long id) {
+        return Optional.ofNullable(devices.get(id)).map(StoredDevice::toDevice);
+    }
+
+    /**
+     * Waits until no other thread holds the device, like {@code SELECT ... FOR UPDATE}, then reserves it for the
+     * current thread until its transaction completes.
+     */
+    @Override
+    public Optional<Device> findForUpdateById(Long id) {
+        while (devices.containsKey(id) && !tryLock(id)) {
+            try {
+                Thread.sleep(LOCK_POLL_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for device " + id, ex);
+            }
+        }
+        return findById(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return devices.containsKey(id);
+    }
+
+    @Override
+    public List<Device> findAll() {
+        return devices.values().stream().map(StoredDevice::toDevice).toList();
+    }
+
+    @Override
+    public List<Device> findAll(Sort sort) {
+        return sorted(new Candidates(List.of(devices.keySet()), null, size.get(), device -> true),
+                comparator(DeviceSortProperty.resolve(sort)), Pageable.ofSize(Integer.MAX_VALUE)).getContent();
+    }
+
+    @Override
+    public Page<Device> findAll(Pageable pageable) {
+        return filter(new DeviceFilter(null, null), pageable);
+    }
+
+    @Override
+    public List<Device> findAllById(Iterable<Long> ids) {
+        List<Device> found = new ArrayList<>();
+        for (Long id : ids) {
+            StoredDevice device = devices.get(id);
+            if (device != null) found.add(device.toDevice());
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return size.get();
+    }
+
+    @Override
+    public List<BrandCountDto> countDevicesPerBrand() {
+        List<BrandCountDto> counts = new ArrayList<>();
+        idsByBrand.forEach((brand, index) -> {
+            long devices = index.size.get();
+            if (devices > 0) counts.add(new BrandCountDto(brand, devices));
+        });
+        return counts;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        synchronized (writeLock) {
+            remove(id);
+        }
+    }
+
+    @Override
+    public void delete(Device entity) {
+        if (entity.getId() != null) deleteById(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        for (Long id : ids) deleteById(id);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Device> entities) {
+        for (Device entity : entities) delete(entity);
+    }
+
+    @Override
+    public void deleteAll() {
+        deleteAllById(List.copyOf(devices.keySet()));
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Device> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @Deprecated
+    public Device getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public Device getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public Device getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Unable to find Device with id " + id));
+    }
+
+    @Override
+    public <S extends Device> Optional<S> findOne(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> List<S> findAll(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> List<S> findAll(Example<S> example, Sort sort) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> long count(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> boolean exists(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw queryByExampleUnsupported();
+    }
+
+    private static UnsupportedOperationException queryByExampleUnsupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the in-memory device repository");
+    }
+
+    @Override
+    public boolean acquire(Long id, String token, LocalDateTime expiresAt) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("acquireLease", "id");
+        synchronized (writeLock) {
+            StoredDevice device = devices.get(id);
+            boolean acquired = device != null && device.state() == DeviceState.AVAILABLE && !isLockedByOther(id);
+            if (acquired) {
+                put(device, device.withState(DeviceState.IN_USE, token, expiresAt));
+                unlock(id);
+            }
+            event.finish(acquired ? 1 : 0);
+            return acquired;
+        }
+    }
+
+    @Override
+    public Optional<Long> lockAvailable(ResolvedDeviceFilter filter) {
+
+        Set<String> brands = filter.brands() != null ? new HashSet<>(filter.brands()) : null;
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("lockAvailable", filter.shape());
+        for (Long id : idsByState.get(DeviceState.AVAILABLE).ids) {
+            StoredDevice device = devices.get(id);
+            if (device == null || (brands != null && !brands.contains(device.brand()))) continue;
+
+            synchronized (writeLock) {
+                StoredDevice current = devices.get(id);
+                if (current != null && current.state() == DeviceState.AVAILABLE && tryLock(id)) {
+                    event.finish(1);
+                    return Optional.of(id);
+                }
+            }
+        }
+        event.finish(0);
+
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean release(Long id, String token) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("releaseLease", "id");
+        synchronized (writeLock) {
+            StoredDevice device = devices.get(id);
+            boolean released = device != null && device.state() == DeviceState.IN_USE && token.equals(device.leaseToken())
+                    && !isLockedByOther(id);
+            if (released) put(device, device.withState(DeviceState.AVAILABLE, null, null));
+            event.finish(released ? 1 : 0);
+            return released;
+        }
+    }
+
+    @Override
+    public List<Long> lockExpired(LocalDateTime now, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("lockExpired", "lease_expires_at");
+
+        List<StoredDevice> expired = new ArrayList<>();
+        for (Long id : idsByState.get(DeviceState.IN_USE).ids) {
+            StoredDevice device = devices.get(id);
+            if (device != null && isExpired(device, now)) expired.add(device);
+        }
+        expired.sort(Comparator.comparing(StoredDevice::leaseExpiresAt));
+
+        List<Long> ids = new ArrayList<>();
+        for (StoredDevice device : expired) {
+            if (ids.size() == limit) break;
+            synchronized (writeLock) {
+                StoredDevice current = devices.get(device.id());
+                if (current != null && isExpired(current, now) && tryLock(device.id())) ids.add(device.id());
+            }
+        }
+        event.finish(ids.size());
+
+        return ids;
+    }
+
+    @Override
+    public int releaseAll(List<Long> ids) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("releaseAll", "id in (" + ids.size() + ")");
+        int released = 0;
+        synchronized (writeLock) {
+            for (Long id : ids) {
+                StoredDevice device = devices.get(id);
+                if (device == null || isLockedByOther(id)) continue;
+
+                put(device, device.withState(DeviceState.AVAILABLE, null, null));
+                unlock(id);
+                released++;
+            }
+        }
+        event.finish(released);
+
+        return released;
+    }
+
+    @Override
+    public List<Long> applyReportedState(List<Long> ids, DeviceState state) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("applyReported", "id in (" + ids.size() + ")");
+        List<Long> changed = new ArrayList<>();
+        synchronized (writeLock) {
+            for (Long id : ids) {
+                StoredDevice device = devices.get(id);
+                if (device == null || device.state() == state || device.leaseToken() != null || isLockedByOther(id)) continue;
+
+                put(device, device.withState(state, null, null));
+                changed.add(id);
+            }
+        }
+        event.finish(changed.size());
+
+        return changed;
+    }
+
+    @Override
+    public LocalDateTime now() {
+        return LocalDateTime.now();
+    }
+
+    /**
+     * Skips index entries whose row changed again since, the row has a newer entry further on.
+     */
+    @Override
+    public List<Device> findChangedAfter(SyncPosition after, LocalDateTime before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("findChangedAfter", "dt_updated");
+        List<Device> changed = new ArrayList<>();
+        for (SyncPosition position : changes.tailSet(after, false)) {
+            if (changed.size() == limit || !position.time().isBefore(before)) break;
+
+            StoredDevice device = devices.get(position.id());
+            if (device != null && position.time().equals(device.updatedAt())) changed.add(device.toDevice());
+        }
+        event.finish(changed.size());
+
+        return changed;
+    }
+
+    @Override
+    public List<SyncPosition> findDeletedAfter(SyncPosition after, LocalDateTime before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("findDeletedAfter", "dt_deleted");
+        List<SyncPosition> deleted = new ArrayList<>();
+        for (SyncPosition position : tombstones.tailSet(after, false)) {
+            if (deleted.size() == limit || !position.time().isBefore(before)) break;
+            deleted.add(position);
+        }
+        event.finish(deleted.size());
+
+        return deleted;
+    }
+
+    @Override
+    public int purgeTombstones(LocalDateTime before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("purgeTombstones", "dt_deleted");
+        int purged = 0;
+        while (purged < limit) {
+            SyncPosition oldest = tombstones.isEmpty() ? null : tombstones.first();
+            if (oldest == null || !oldest.time().isBefore(before) || !tombstones.remove(oldest)) break;
+            purged++;
+        }
+        event.finish(purged);
+
+        return purged;
+    }
+
+    private static boolean isExpired(StoredDevice device, LocalDateTime now) {
+        return device.state() == DeviceState.IN_USE && device.leaseExpiresAt() != null && device.leaseExpiresAt().isBefore(now);
+    }
+
+    private boolean isLockedByOther(Long id) {
+        Thread owner = locks.get(id);
+        return owner != null && owner != Thread.currentThread();
+    }
+
+    /**
+     * Reserves the device for the current thread until its transaction completes, or until the device changes state
+     * through this thread, whichever comes first.
+     *
+     * @return whether the device is now reserved for the current thread
+     */
+    private boolean tryLock(Long id) {
+        Thread current = Thread.currentThread();
+        Thread owner = locks.putIfAbsent(id, current);
+        if (owner != null) return owner == current;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    locks.remove(id, current);
+                }
+            });
+        }
+        return true;
+    }
+
+    private void unlock(Long id) {
+        locks.remove(id, Thread.currentThread());
+    }
+
+    /**
+     * Must hold the write lock. New index entries go in before the row and stale ones come out after it, so a
+     * reader following an index never misses a row that matches.
+     */
+    private void put(StoredDevice previous, StoredDevice device) {
+        long id = device.id();
+        boolean stateChanged = previous == null || previous.state() != device.state();
+        boolean brandChanged = previous == null || !previous.brand().equals(device.brand());
+
+        if (stateChanged) idsByState.get(device.state()).add(id);
+        if (brandChanged) idsByBrand.computeIfAbsent(device.brand(), brand -> new IdIndex()).add(id);
+        if (device.updatedAt() != null) changes.add(new SyncPosition(device.updatedAt(), id));
+
+        devices.put(id, device);
+
+        if (previous == null) size.incrementAndGet();
+        else {
+            if (stateChanged) idsByState.get(previous.state()).remove(id);
+            if (brandChanged) idsByBrand.get(previous.brand()).remove(id);
+            if (previous.updatedAt() != null && !previous.updatedAt().equals(device.updatedAt()))
+                changes.remove(new SyncPosition(previous.updatedAt(), id));
+        }
+        modifications.incrementAndGet();
+    }
+
+    /**
+     * Must hold the write lock.
+     */
+    private void remove(Long id) {
+        StoredDevice previous = devices.remove(id);
+        if (previous == null) return;
+
+        idsByState.get(previous.state()).remove(id);
+        idsByBrand.get(previous.brand()).remove(id);
+        if (previous.updatedAt() != null) changes.remove(new SyncPosition(previous.updatedAt(), id));
+        tombstones.add(new SyncPosition(LocalDateTime.now(), id));
+        size.decrementAndGet();
+        modifications.incrementAndGet();
+    }
+
+    /**
+     * @param sources ids to visit, possibly with ids that do not match
+     * @param ordered the only source when it is already in id order and holds exactly the matches, otherwise null
+     * @param size    number of matches when {@code ordered} is set, otherwise an upper bound
+     */
+    private record Candidates(List<Collection<Long>> sources, NavigableSet<Long> ordered, long size,
+                              Predicate<StoredDevice> matches) {
+    }
+
+    /**
+     * Ids of the devices with one state or one brand. Skip list sets report their size by counting, so the size is
+     * kept alongside; both only change under the write lock.
+     */
+    private static final class IdIndex {
+
+        private final ConcurrentSkipListSet<Long> ids = new ConcurrentSkipListSet<>();
+        private final AtomicLong size = new AtomicLong();
+
+        private void add(long id) {
+            if (ids.add(id)) size.incrementAndGet();
+        }
+
+        private void remove(long id) {
+            if (ids.remove(id)) size.decrementAndGet();
+        }
+
+        private void clear() {
+            ids.clear();
+            size.set(0);
+        }
+
+        private static long size(List<IdIndex> indexes) {
+            long total = 0;
+            for (IdIndex index : indexes) total += index.size.get();
+            return total;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.cpsoneghett.codingtask.repository.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param snapshotPath     file the devices are restored from on startup and written to periodically and on shutdown;
+ *                         without it devices only live as long as the process
+ * @param snapshotInterval time between snapshots, taken only when something changed
+ * @param loadDataset      whether an empty store is filled with the synthetic dataset described by {@code app.dataset},
+ *                         the same devices the {@code dataset} profile loads into MySQL
+ */
+@ConfigurationProperties(prefix = "app.memory-store")
+public record InMemoryStoreProperties(
+        Path snapshotPath,
+        @DefaultValue("PT5M") Duration snapshotInterval,
+        @DefaultValue("false") boolean loadDataset) {
+}
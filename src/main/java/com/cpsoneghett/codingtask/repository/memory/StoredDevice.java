@@ -0,0 +1,30 @@
+package com.cpsoneghett.codingtask.repository.memory;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a device row, lease columns included. Entries are replaced, never changed, so readers always see
+ * a consistent row without locking.
+ *
+ * @param brandId   key of the brand in the {@link com.cpsoneghett.codingtask.repository.BrandDictionary}, which brand
+ *                  sorts use like the database does
+ * @param updatedAt time of the last change, like the {@code dt_updated} column
+ */
+public record StoredDevice(long id, String name, String brand, int brandId, DeviceState state, LocalDateTime createdAt,
+                           LocalDateTime updatedAt, String leaseToken, LocalDateTime leaseExpiresAt) {
+
+    StoredDevice withState(DeviceState newState, String newLeaseToken, LocalDateTime newLeaseExpiresAt) {
+        return new StoredDevice(id, name, brand, brandId, newState, createdAt, LocalDateTime.now(), newLeaseToken, newLeaseExpiresAt);
+    }
+
+    Device toDevice() {
+        Device device = new Device(name, brand, state);
+        device.setId(id);
+        device.setCreatedAt(createdAt);
+        device.setUpdatedAt(updatedAt);
+        return device;
+    }
+}
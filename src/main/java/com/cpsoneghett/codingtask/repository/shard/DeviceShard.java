@@ -0,0 +1,53 @@
+package com.cpsoneghett.codingtask.repository.shard;
+
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.repository.DeviceLeaseRepository;
+import com.cpsoneghett.codingtask.repository.DeviceStateRepository;
+import com.cpsoneghett.codingtask.repository.DeviceSyncRepository;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The devices of one shard, see {@link ShardedDeviceRepository}. Ids a shard assigns must route back to it through
+ * {@link ShardedDeviceRepository#shardOf(long, int)}. Leases, reported states and sync positions only cover the devices
+ * of the shard.
+ */
+public interface DeviceShard extends DeviceLeaseRepository, DeviceStateRepository, DeviceSyncRepository {
+
+    Optional<Device> findById(long id);
+
+    /**
+     * Reads the device and locks it until the transaction of the calling thread ends.
+     */
+    Optional<Device> findForUpdateById(long id);
+
+    List<Device> findAllById(Collection<Long> ids);
+
+    Optional<LocalDateTime> findUpdatedAtById(long id);
+
+    /**
+     * Stores a new device and sets the id the shard assigned to it.
+     */
+    void insert(Device device);
+
+    void update(Device device);
+
+    void deleteById(long id);
+
+    /**
+     * The first {@code limit} devices matching the filter in the given order, which always ends with the id.
+     */
+    List<Device> findFirst(ResolvedDeviceFilter filter, Sort sort, int limit);
+
+    long count(ResolvedDeviceFilter filter);
+
+    List<Long> findIdsAfter(long lastId, int limit);
+
+    List<BrandCountDto> countDevicesPerBrand();
+}
@@ -0,0 +1,362 @@
+package com.cpsoneghett.codingtask.repository.shard;
+
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+import com.cpsoneghett.codingtask.monitoring.DeviceQueryEvent;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.BrandOrderedListing;
+import com.cpsoneghett.codingtask.repository.DeviceSortProperty;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A shard database with the application's schema, written with the same columns the JPA mapping uses. The shard's
+ * connections interleave its {@code AUTO_INCREMENT} with the other shards', see {@link ShardedDeviceRepository}.
+ * <p>
+ * Brand keys come from the dictionary of the primary database, so they are the same on every shard. Each shard's {@code brand} table receives the keys its devices reference, with the
+ * key the dictionary assigned, to satisfy its foreign key.
+ * <p>
+ * Leases, reported states and sync positions use the statements of the primary's repositories on the shard's
+ * {@code device} and {@code device_tombstone} tables. Statements join the transaction of the calling thread, see
+ * {@link ShardTransactions}.
+ */
+public class JdbcDeviceShard implements DeviceShard, AutoCloseable {
+
+    private static final String COLUMNS = "select id, name, brand_id, state, dt_created, dt_updated from device";
+    private static final int AVAILABLE = DeviceState.AVAILABLE.getCode();
+    private static final int IN_USE = DeviceState.IN_USE.getCode();
+
+    private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BrandDictionary brandDictionary;
+    private final Set<Integer> copiedBrands = ConcurrentHashMap.newKeySet();
+    private final RowMapper<Device> deviceMapper;
+
+    public JdbcDeviceShard(DataSource dataSource, BrandDictionary brandDictionary) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.brandDictionary = brandDictionary;
+        this.deviceMapper = (rs, rowNum) -> {
+            Device device = new Device(rs.getString("name"), brandDictionary.nameFor(rs.getInt("brand_id")),
+                    DeviceState.fromCode(rs.getInt("state")));
+            device.setId(rs.getLong("id"));
+            device.setCreatedAt(toLocalDateTime(rs.getTimestamp("dt_created")));
+            device.setUpdatedAt(toLocalDateTime(rs.getTimestamp("dt_updated")));
+            return device;
+        };
+    }
+
+    @Override
+    public Optional<Device> findById(long id) {
+        return template().query(COLUMNS + " where id = :id", new MapSqlParameterSource("id", id), deviceMapper)
+                .stream().findFirst();
+    }
+
+    @Override
+    public Optional<Device> findForUpdateById(long id) {
+        return template().query(COLUMNS + " where id = :id for update", new MapSqlParameterSource("id", id), deviceMapper)
+                .stream().findFirst();
+    }
+
+    @Override
+    public List<Device> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        return template().query(COLUMNS + " where id in (:ids)", new MapSqlParameterSource("ids", ids), deviceMapper);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findUpdatedAtById(long id) {
+        return template().queryForList("select dt_updated from device where id = :id", new MapSqlParameterSource("id", id),
+                Timestamp.class).stream().findFirst().map(JdbcDeviceShard::toLocalDateTime);
+    }
+
+    @Override
+    public void insert(Device device) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        template().update("insert into device (name, brand_id, state, dt_created) values (:name, :brandId, :state, :createdAt)",
+                parameters(device), keyHolder, new String[]{"id"});
+        device.setId(keyHolder.getKeyAs(Number.class).longValue());
+    }
+
+    @Override
+    public void update(Device device) {
+        template().update("update device set name = :name, brand_id = :brandId, state = :state, dt_created = :createdAt where id = :id",
+                parameters(device).addValue("id", device.getId()));
+    }
+
+    @Override
+    public void deleteById(long id) {
+        template().update("delete from device where id = :id", new MapSqlParameterSource("id", id));
+    }
+
+    @Override
+    public List<Device> findFirst(ResolvedDeviceFilter filter, Sort sort, int limit) {
+        if (BrandOrderedListing.applies(sort)) return findFirstByBrand(filter, sort, limit);
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit);
+        String sql = COLUMNS + createRestrictions(filter, parameters) + createOrders(sort) + " limit :limit";
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("filter", filter.shape());
+        List<Device> devices = template().query(sql, parameters, deviceMapper);
+        event.finish(devices.size());
+        return devices;
+    }
+
+    /**
+     * Reads the shard's first devices brand by brand, see {@link BrandOrderedListing}.
+     */
+    private List<Device> findFirstByBrand(ResolvedDeviceFilter filter, Sort sort, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String where = createRestrictions(filter, parameters);
+
+        DeviceQueryEvent countEvent = DeviceQueryEvent.begin("count per brand", filter.shape());
+        List<BrandOrderedListing.Brand<Integer>> brands = template().query("select brand_id, count(*) from device" + where + " group by brand_id",
+                parameters, (rs, rowNum) -> new BrandOrderedListing.Brand<>(rs.getInt(1), brandDictionary.nameFor(rs.getInt(1)), rs.getLong(2)));
+        countEvent.finish(brands.size());
+
+        String sql = COLUMNS + (where.isEmpty() ? " where" : where + " and") + " brand_id = :brandId"
+                + createOrders(BrandOrderedListing.withinBrand(sort)) + " limit :limit";
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("filter by brand", filter.shape());
+        List<Device> devices = new ArrayList<>();
+        for (BrandOrderedListing.Slice<Integer> slice : BrandOrderedListing.slices(brands, sort, 0, limit)) {
+            parameters.addValue("brandId", slice.key()).addValue("limit", slice.limit());
+            devices.addAll(template().query(sql, parameters, deviceMapper));
+        }
+        event.finish(devices.size());
+        return devices;
+    }
+
+    @Override
+    public long count(ResolvedDeviceFilter filter) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String sql = "select count(*) from device" + createRestrictions(filter, parameters);
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("count", filter.shape());
+        Long count = template().queryForObject(sql, parameters, Long.class);
+        event.finish(1);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public List<Long> findIdsAfter(long lastId, int limit) {
+        return template().queryForList("select id from device where id > :lastId order by id limit :limit",
+                new MapSqlParameterSource("lastId", lastId).addValue("limit", limit), Long.class);
+    }
+
+    @Override
+    public List<BrandCountDto> countDevicesPerBrand() {
+        return template().query("select brand_id, count(*) from device group by brand_id",
+                (rs, rowNum) -> new BrandCountDto(brandDictionary.nameFor(rs.getInt(1)), rs.getLong(2)));
+    }
+
+    @Override
+    public boolean acquire(Long id, String token, LocalDateTime expiresAt) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("acquireLease", "id");
+        int updated = template().update("update device set state = :inUse, lease_token = :token, lease_expires_at = :expiresAt " +
+                        "where id = :id and state = :available",
+                new MapSqlParameterSource("inUse", IN_USE).addValue("token", token).addValue("expiresAt", expiresAt)
+                        .addValue("id", id).addValue("available", AVAILABLE));
+        event.finish(updated);
+        return updated == 1;
+    }
+
+    @Override
+    public Optional<Long> lockAvailable(ResolvedDeviceFilter filter) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("available", AVAILABLE);
+        StringBuilder sql = new StringBuilder("select id from device where state = :available");
+        if (filter.brands() != null) {
+            sql.append(" and brand_id in (:brandIds)");
+            parameters.addValue("brandIds", filter.brands().stream().map(brandDictionary::idFor).toList());
+        }
+        sql.append(" order by id limit 1 for update skip locked");
+
+        DeviceQueryEvent event = DeviceQueryEvent.begin("lockAvailable", filter.shape());
+        List<Long> ids = template().queryForList(sql.toString(), parameters, Long.class);
+        event.finish(ids.size());
+        return ids.stream().findFirst();
+    }
+
+    @Override
+    public boolean release(Long id, String token) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("releaseLease", "id");
+        int updated = template().update("update device set state = :available, lease_token = null, lease_expires_at = null " +
+                        "where id = :id and state = :inUse and lease_token = :token",
+                new MapSqlParameterSource("available", AVAILABLE).addValue("id", id).addValue("inUse", IN_USE)
+                        .addValue("token", token));
+        event.finish(updated);
+        return updated == 1;
+    }
+
+    @Override
+    public List<Long> lockExpired(LocalDateTime now, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("lockExpired", "lease_expires_at");
+        List<Long> ids = template().queryForList("select id from device where lease_expires_at < :now and state = :inUse " +
+                        "order by lease_expires_at limit :limit for update skip locked",
+                new MapSqlParameterSource("now", now).addValue("inUse", IN_USE).addValue("limit", limit), Long.class);
+        event.finish(ids.size());
+        return ids;
+    }
+
+    @Override
+    public int releaseAll(List<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        DeviceQueryEvent event = DeviceQueryEvent.begin("releaseAll", "id in (" + ids.size() + ")");
+        int updated = template().update("update device set state = :available, lease_token = null, lease_expires_at = null " +
+                "where id in (:ids)", new MapSqlParameterSource("available", AVAILABLE).addValue("ids", ids));
+        event.finish(updated);
+        return updated;
+    }
+
+    @Override
+    public List<Long> applyReportedState(List<Long> ids, DeviceState state) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("lockReported", "id in (" + ids.size() + ")");
+        List<Long> changed = template().queryForList("select id from device where id in (:ids) and state <> :state " +
+                        "and lease_token is null order by id for update",
+                new MapSqlParameterSource("ids", ids).addValue("state", state.getCode()), Long.class);
+        event.finish(changed.size());
+        if (changed.isEmpty()) return changed;
+
+        event = DeviceQueryEvent.begin("applyReported", "id in (" + changed.size() + ")");
+        int updated = template().update("update device set state = :state where id in (:ids)",
+                new MapSqlParameterSource("state", state.getCode()).addValue("ids", changed));
+        event.finish(updated);
+        return changed;
+    }
+
+    @Override
+    public LocalDateTime now() {
+        return toLocalDateTime(template().queryForObject("select current_timestamp(6)", new MapSqlParameterSource(), Timestamp.class));
+    }
+
+    @Override
+    public List<Device> findChangedAfter(SyncPosition after, LocalDateTime before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("findChangedAfter", "dt_updated");
+        List<Device> devices = template().query(COLUMNS + " where dt_updated >= :time and (dt_updated > :time or id > :id) " +
+                "and dt_updated < :before order by dt_updated, id limit :limit", positionParameters(after, before, limit), deviceMapper);
+        event.finish(devices.size());
+        return devices;
+    }
+
+    @Override
+    public List<SyncPosition> findDeletedAfter(SyncPosition after, LocalDateTime before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("findDeletedAfter", "dt_deleted");
+        List<SyncPosition> deletions = template().query("select id, dt_deleted from device_tombstone where dt_deleted >= :time " +
+                        "and (dt_deleted > :time or id > :id) and dt_deleted < :before order by dt_deleted, id limit :limit",
+                positionParameters(after, before, limit),
+                (rs, rowNum) -> new SyncPosition(toLocalDateTime(rs.getTimestamp("dt_deleted")), rs.getLong("id")));
+        event.finish(deletions.size());
+        return deletions;
+    }
+
+    @Override
+    public int purgeTombstones(LocalDateTime before, int limit) {
+        DeviceQueryEvent event = DeviceQueryEvent.begin("purgeTombstones", "dt_deleted");
+        int deleted = template().update("delete from device_tombstone where dt_deleted < :before limit :limit",
+                new MapSqlParameterSource("before", before).addValue("limit", limit));
+        event.finish(deleted);
+        return deleted;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (dataSource instanceof Closeable closeable) closeable.close();
+    }
+
+    /**
+     * Statements run in the transaction of the calling thread, if there is one, see {@link ShardTransactions}.
+     */
+    private NamedParameterJdbcTemplate template() {
+        ShardTransactions.join(dataSource);
+        return jdbcTemplate;
+    }
+
+    private static MapSqlParameterSource positionParameters(SyncPosition after, LocalDateTime before, int limit) {
+        return new MapSqlParameterSource("time", after.time()).addValue("id", after.id()).addValue("before", before)
+                .addValue("limit", limit);
+    }
+
+    private MapSqlParameterSource parameters(Device device) {
+        return new MapSqlParameterSource("name", device.getName())
+                .addValue("brandId", brandId(device.getBrand()))
+                .addValue("state", device.getState().getCode())
+                .addValue("createdAt", device.getCreatedAt());
+    }
+
+    private int brandId(String brand) {
+        int id = brandDictionary.idFor(brand);
+        if (!copiedBrands.contains(id)) {
+            copyBrand(id, brand);
+            copiedBrands.add(id);
+        }
+        return id;
+    }
+
+    /**
+     * Copies the brand on a connection of its own, so the copy stays when the transaction that needed it rolls back.
+     */
+    private void copyBrand(int id, String name) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("insert ignore into brand (id, name) values (?, ?)")) {
+            statement.setInt(1, id);
+            statement.setString(2, name);
+            statement.executeUpdate();
+        } catch (SQLException ex) {
+            throw new DataAccessResourceFailureException("Could not copy brand " + name + " to the shard", ex);
+        }
+    }
+
+    private String createRestrictions(ResolvedDeviceFilter filter, MapSqlParameterSource parameters) {
+
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+
+        if (filter.brands() != null) {
+            where.add("brand_id in (:brandIds)");
+            parameters.addValue("brandIds", filter.brands().stream().map(brandDictionary::idFor).toList());
+        }
+
+        if (filter.states() != null) {
+            where.add("state in (:states)");
+            parameters.addValue("states", filter.states().stream().map(DeviceState::getCode).toList());
+        }
+
+        return where.toString();
+    }
+
+    private String createOrders(Sort sort) {
+        StringJoiner orderBy = new StringJoiner(", ", " order by ", "");
+        for (Sort.Order order : sort) {
+            DeviceSortProperty property = DeviceSortProperty.of(order.getProperty());
+            orderBy.add(property.getColumn() + (order.isAscending() ? " asc" : " desc"));
+        }
+        return orderBy.toString();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,114 @@
+package com.cpsoneghett.codingtask.repository.shard;
+
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Enlists shard connections in the transaction of the calling thread. The transaction manager only knows the primary
+ * data source, so the first statement a read-write transaction runs on a shard binds one of the shard's connections to
+ * the thread with auto-commit off, where the {@code JdbcTemplate} of the shard picks it up. The shard commits just
+ * before the primary does and rolls back whenever the primary does not commit.
+ * <p>
+ * Shards touched by one transaction commit one after the other, so a shard failing to commit after another one did
+ * leaves the first one committed. Every write of the application touches a single device, and so a single shard.
+ */
+final class ShardTransactions {
+
+    private ShardTransactions() {
+    }
+
+    /**
+     * Whether statements of the calling thread run in a transaction shards take part in.
+     */
+    static boolean isActive() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * Binds a connection of the shard to the current transaction, unless there is none or it already holds one.
+     */
+    static void join(DataSource dataSource) {
+        if (!isActive() || TransactionSynchronizationManager.hasResource(dataSource)) return;
+
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+        } catch (SQLException ex) {
+            close(connection);
+            throw new CannotGetJdbcConnectionException("Could not open a shard connection", ex);
+        }
+
+        ConnectionHolder holder = new ConnectionHolder(connection);
+        holder.setSynchronizedWithTransaction(true);
+        TransactionSynchronizationManager.bindResource(dataSource, holder);
+        TransactionSynchronizationManager.registerSynchronization(new ShardSynchronization(dataSource, holder));
+    }
+
+    private static void close(Connection connection) {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // nothing left to release
+        }
+    }
+
+    private static final class ShardSynchronization implements TransactionSynchronization {
+
+        private final DataSource dataSource;
+        private final ConnectionHolder holder;
+        private boolean committed;
+
+        ShardSynchronization(DataSource dataSource, ConnectionHolder holder) {
+            this.dataSource = dataSource;
+            this.holder = holder;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(dataSource);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(dataSource, holder);
+        }
+
+        /**
+         * A shard that cannot commit fails the commit of the primary, which then rolls back.
+         */
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            try {
+                holder.getConnection().commit();
+                committed = true;
+            } catch (SQLException ex) {
+                throw new TransactionSystemException("Could not commit a shard transaction", ex);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(dataSource);
+            Connection connection = holder.getConnection();
+            try {
+                if (!committed) connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // the pool discards connections it cannot reset
+            } finally {
+                holder.clear();
+                close(connection);
+            }
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package com.cpsoneghett.codingtask.repository.shard;
+
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.DeviceLeaseRepository;
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import com.cpsoneghett.codingtask.repository.DeviceSortProperty;
+import com.cpsoneghett.codingtask.repository.DeviceStateRepository;
+import com.cpsoneghett.codingtask.repository.DeviceSyncRepository;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Devices spread across shards, for the {@code sharded} profile. The shard of a device is encoded in its id: shard
+ * {@code i} of {@code n} only assigns ids with {@code (id - 1) % n == i}, which the JDBC shards get from an
+ * {@code AUTO_INCREMENT} interleaved across them. Reads and writes of a device by id therefore go straight to its
+ * shard, and new devices are spread over the shards in turn.
+ * <p>
+ * Listings run on every shard in parallel. Each shard returns its first {@code offset + size} matches in the requested
+ * order, which always ends with the id, and its count; the sorted lists are merged and the page cut from the merge,
+ * so pages and totals are the ones a single database would return. Deep pages cost {@code offset + size} rows per
+ * shard.
+ * <p>
+ * Inside a read-write transaction every shard is queried on the calling thread instead, so the queries run in the
+ * transaction and see its writes, see {@link ShardTransactions}. Leases and reported states go to the shards holding
+ * the devices, and selections of devices to lock ask the shards in turn. Sync merges the changes and deletions of all
+ * shards; positions are stamped by each shard's clock, so the clocks of the shard servers must agree well within
+ * {@code app.sync.settle-time}.
+ */
+public class ShardedDeviceRepository implements DeviceRepository, DeviceLeaseRepository, DeviceStateRepository,
+        DeviceSyncRepository, AutoCloseable {
+
+    private final List<DeviceShard> shards;
+    private final BrandDictionary brandDictionary;
+    private final Validator validator;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final AtomicInteger nextLockShard = new AtomicInteger();
+
+    public ShardedDeviceRepository(List<DeviceShard> shards, BrandDictionary brandDictionary, Validator validator) {
+        this.shards = List.copyOf(shards);
+        this.brandDictionary = brandDictionary;
+        this.validator = validator;
+    }
+
+    public static int shardOf(long id, int shardCount) {
+        return (int) Math.floorMod(id - 1, (long) shardCount);
+    }
+
+    private DeviceShard shardOf(long id) {
+        return shards.get(shardOf(id, shards.size()));
+    }
+
+    @Override
+    public Page<Device> filter(DeviceFilter filter, Pageable pageable) {
+
+        Sort sort = DeviceSortProperty.resolve(pageable.getSort());
+
+        ResolvedDeviceFilter resolvedFilter = ResolvedDeviceFilter.resolve(filter, brandDictionary);
+        if (resolvedFilter.matchesNothing()) return Page.empty(pageable);
+
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? (int) Math.min(offset + pageable.getPageSize(), Integer.MAX_VALUE) : Integer.MAX_VALUE;
+
+        List<ShardPage> pages = onAllShards(shard -> new ShardPage(shard.findFirst(resolvedFilter, sort, limit), shard.count(resolvedFilter)));
+
+        long total = 0;
+        List<List<Device>> sorted = new ArrayList<>();
+        for (ShardPage page : pages) {
+            total += page.total();
+            sorted.add(page.devices());
+        }
+
+        List<Device> content = merge(sorted, comparator(sort), offset, limit);
+        return pageable.isPaged() ? new PageImpl<>(content, pageable, total) : new PageImpl<>(content);
+    }
+
+    /**
+     * Merges lists sorted by the comparator, skipping the first {@code offset} devices and stopping at {@code limit}.
+     */
+    static List<Device> merge(List<List<Device>> sorted, Comparator<Device> comparator, long offset, int limit) {
+
+        PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> comparator.compare(a.device(), b.device()));
+        for (List<Device> devices : sorted) {
+            Iterator<Device> iterator = devices.iterator();
+            if (iterator.hasNext()) heads.add(new Head(iterator.next(), iterator));
+        }
+
+        List<Device> merged = new ArrayList<>();
+        long position = 0;
+        while (!heads.isEmpty() && position < limit) {
+            Head head = heads.poll();
+            if (position++ >= offset) merged.add(head.device());
+            if (head.rest().hasNext()) heads.add(new Head(head.rest().next(), head.rest()));
+        }
+        return merged;
+    }
+
+    /**
+     * Orders like the database: brands by name, states by their stored code, names ignoring case like the column
+     * collation, and nulls first.
+     */
+    private Comparator<Device> comparator(Sort sort) {
+
+        Comparator<Device> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<Device> comparator = switch (DeviceSortProperty.of(order.getProperty())) {
+                case ID -> Comparator.comparing(Device::getId);
+                case NAME -> Comparator.comparing(Device::getName, String.CASE_INSENSITIVE_ORDER);
+                case BRAND -> Comparator.comparing(Device::getBrand, BrandDictionary.NAME_ORDER);
+                case STATE -> Comparator.comparingInt(device -> device.getState().getCode());
+                case CREATED_AT -> Comparator.comparing(Device::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+            };
+            if (order.isDescending()) comparator = comparator.reversed();
+            result = result == null ? comparator : result.thenComparing(comparator);
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<LocalDateTime> findUpdatedAtById(Long id) {
+        return shardOf(id).findUpdatedAtById(id);
+    }
+
+    @Override
+    public List<Long> findIdsAfter(Long lastId, Pageable pageable) {
+        int limit = pageable.getPageSize();
+        List<Long> ids = new ArrayList<>();
+        for (List<Long> shardIds : onAllShards(shard -> shard.findIdsAfter(lastId, limit))) ids.addAll(shardIds);
+        ids.sort(Comparator.naturalOrder());
+        return ids.size() > limit ? ids.subList(0, limit) : ids;
+    }
+
+    /**
+     * Every shard has its own {@code AUTO_INCREMENT}, and the ones taking fewer devices fall behind the others.
+     */
+    @Override
+    public int idSequences() {
+        return shards.size();
+    }
+
+    @Override
+    public <S extends Device> S save(S entity) {
+
+        Set<ConstraintViolation<S>> violations = validator.validate(entity);
+        if (!violations.isEmpty()) throw new ConstraintViolationException(violations);
+
+        if (entity.getId() == null) {
+            shards.get(Math.floorMod(nextShard.getAndIncrement(), shards.size())).insert(entity);
+        } else {
+            shardOf(entity.getId()).update(entity);
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends Device> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) saved.add(save(entity));
+        return saved;
+    }
+
+    @Override
+    public <S extends Device> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends Device> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Optional<Device> findById(Long id) {
+        return shardOf(id).findById(id);
+    }
+
+    @Override
+    public Optional<Device> findForUpdateById(Long id) {
+        return shardOf(id).findForUpdateById(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findUpdatedAtById(id).isPresent();
+    }
+
+    @Override
+    public List<Device> findAll() {
+        return findAll(Sort.unsorted());
+    }
+
+    @Override
+    public List<Device> findAll(Sort sort) {
+        return filter(new DeviceFilter(null, null), Pageable.unpaged(sort)).getContent();
+    }
+
+    @Override
+    public Page<Device> findAll(Pageable pageable) {
+        return filter(new DeviceFilter(null, null), pageable);
+    }
+
+    /**
+     * One query per shard holding any of the ids, run in parallel.
+     */
+    @Override
+    public List<Device> findAllById(Iterable<Long> ids) {
+        Map<Integer, List<Long>> idsByShard = idsByShard(ids);
+
+        List<Device> found = new ArrayList<>();
+        if (ShardTransactions.isActive()) {
+            idsByShard.forEach((shard, shardIds) -> found.addAll(shards.get(shard).findAllById(shardIds)));
+            return found;
+        }
+
+        List<Future<List<Device>>> results = new ArrayList<>();
+        idsByShard.forEach((shard, shardIds) -> results.add(executor.submit(() -> shards.get(shard).findAllById(shardIds))));
+        for (Future<List<Device>> result : results) found.addAll(join(result));
+        return found;
+    }
+
+    /**
+     * Ids grouped by shard, shards and ids in ascending order.
+     */
+    private Map<Integer, List<Long>> idsByShard(Iterable<Long> ids) {
+        Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        for (Long id : ids) idsByShard.computeIfAbsent(shardOf(id, shards.size()), shard -> new ArrayList<>()).add(id);
+        idsByShard.values().forEach(shardIds -> shardIds.sort(Comparator.naturalOrder()));
+        return idsByShard;
+    }
+
+    @Override
+    public long count() {
+        ResolvedDeviceFilter all = new ResolvedDeviceFilter(null, null);
+        return onAllShards(shard -> shard.count(all)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public List<BrandCountDto> countDevicesPerBrand() {
+        Map<String, Long> counts = new HashMap<>();
+        for (List<BrandCountDto> shardCounts : onAllShards(DeviceShard::countDevicesPerBrand)) {
+            for (BrandCountDto count : shardCounts) counts.merge(count.brand(), count.devices(), Long::sum);
+        }
+        return counts.entrySet().stream().map(count -> new BrandCountDto(count.getKey(), count.getValue())).toList();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        shardOf(id).deleteById(id);
+    }
+
+    @Override
+    public void delete(Device entity) {
+        if (entity.getId() != null) deleteById(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        for (Long id : ids) deleteById(id);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Device> entities) {
+        for (Device entity : entities) delete(entity);
+    }
+
+    @Override
+    public void deleteAll() {
+        deleteAll(findAll());
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Device> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @Deprecated
+    public Device getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public Device getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public Device getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Unable to find Device with id " + id));
+    }
+
+    @Override
+    public <S extends Device> Optional<S> findOne(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> List<S> findAll(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> List<S> findAll(Example<S> example, Sort sort) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> long count(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device> boolean exists(Example<S> example) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public <S extends Device, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw queryByExampleUnsupported();
+    }
+
+    @Override
+    public boolean acquire(Long id, String token, LocalDateTime expiresAt) {
+        return shardOf(id).acquire(id, token, expiresAt);
+    }
+
+    /**
+     * Asks the shards in turn, starting with a different one each time, so checkouts spread over the shards.
+     */
+    @Override
+    public Optional<Long> lockAvailable(ResolvedDeviceFilter filter) {
+        int first = nextLockShard.getAndIncrement();
+        for (int index = 0; index < shards.size(); index++) {
+            Optional<Long> id = shards.get(Math.floorMod(first + index, shards.size())).lockAvailable(filter);
+            if (id.isPresent()) return id;
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean release(Long id, String token) {
+        return shardOf(id).release(id, token);
+    }
+
+    @Override
+    public List<Long> lockExpired(LocalDateTime now, int limit) {
+        List<Long> ids = new ArrayList<>();
+        for (DeviceShard shard : shards) {
+            if (ids.size() >= limit) break;
+            ids.addAll(shard.lockExpired(now, limit - ids.size()));
+        }
+        return ids;
+    }
+
+    @Override
+    public int releaseAll(List<Long> ids) {
+        int released = 0;
+        for (Map.Entry<Integer, List<Long>> shardIds : idsByShard(ids).entrySet())
+            released += shards.get(shardIds.getKey()).releaseAll(shardIds.getValue());
+        return released;
+    }
+
+    /**
+     * Shards are locked in shard order and each in id order, so concurrent callers cannot deadlock either.
+     */
+    @Override
+    public List<Long> applyReportedState(List<Long> ids, DeviceState state) {
+        List<Long> changed = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> shardIds : idsByShard(ids).entrySet())
+            changed.addAll(shards.get(shardIds.getKey()).applyReportedState(shardIds.getValue(), state));
+        return changed;
+    }
+
+    /**
+     * The earliest clock of the shards, so no shard stamps a change before it any more.
+     */
+    @Override
+    public LocalDateTime now() {
+        return onAllShards(DeviceShard::now).stream().min(Comparator.naturalOrder()).orElseThrow();
+    }
+
+    @Override
+    public List<Device> findChangedAfter(SyncPosition after, LocalDateTime before, int limit) {
+        Comparator<Device> byPosition = Comparator.comparing(Device::getUpdatedAt).thenComparing(Device::getId);
+        return merge(onAllShards(shard -> shard.findChangedAfter(after, before, limit)), byPosition, 0, limit);
+    }
+
+    @Override
+    public List<SyncPosition> findDeletedAfter(SyncPosition after, LocalDateTime before, int limit) {
+        List<SyncPosition> deletions = new ArrayList<>();
+        for (List<SyncPosition> shardDeletions : onAllShards(shard -> shard.findDeletedAfter(after, before, limit)))
+            deletions.addAll(shardDeletions);
+        deletions.sort(Comparator.naturalOrder());
+        return deletions.size() > limit ? deletions.subList(0, limit) : deletions;
+    }
+
+    @Override
+    public int purgeTombstones(LocalDateTime before, int limit) {
+        int purged = 0;
+        for (DeviceShard shard : shards) {
+            if (purged >= limit) break;
+            purged += shard.purgeTombstones(before, limit - purged);
+        }
+        return purged;
+    }
+
+    private static UnsupportedOperationException queryByExampleUnsupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the sharded device repository");
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.close();
+        for (DeviceShard shard : shards) {
+            if (shard instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+
+    /**
+     * Runs the query on every shard at once, each on a virtual thread blocked on its own shard's connection, or one
+     * shard after the other inside a read-write transaction.
+     */
+    private <T> List<T> onAllShards(Function<DeviceShard, T> query) {
+        if (ShardTransactions.isActive()) return shards.stream().map(query).toList();
+
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (DeviceShard shard : shards) futures.add(executor.submit(() -> query.apply(shard)));
+
+        List<T> results = new ArrayList<>(shards.size());
+        for (Future<T> future : futures) results.add(join(future));
+        return results;
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Shard query failed", ex.getCause());
+        }
+    }
+
+    private record ShardPage(List<Device> devices, long total) {
+    }
+
+    private record Head(Device device, Iterator<Device> rest) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.cpsoneghett.codingtask.repository.shard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * @param shards databases the devices are spread across. Ids encode the position of their shard in this list, so
+ *               shards can neither be reordered nor added once devices were created
+ */
+@ConfigurationProperties(prefix = "app.sharding")
+public record ShardingProperties(List<Shard> shards) {
+
+    public record Shard(String url, String username, String password) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.cpsoneghett.codingtask.service;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes device events once the current transaction commits, so listeners never see, cache or record a write that
+ * is not committed yet, or never will be. Outside a transaction events are published right away.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void publish(ApplicationEventPublisher eventPublisher, Object event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(event);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventPublisher.publishEvent(event);
+            }
+        });
+    }
+}
@@ -0,0 +1,298 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.bulkhead.Workload;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.ImportJob;
+import com.cpsoneghett.codingtask.domain.ImportJobStatus;
+import com.cpsoneghett.codingtask.domain.ImportRejectionDto;
+import com.cpsoneghett.codingtask.exception.BulkheadFullException;
+import com.cpsoneghett.codingtask.repository.DeviceBatchRepository;
+import com.cpsoneghett.codingtask.repository.ImportJobRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Runs one import job over its CSV file. The file is parsed as a stream from the job's checkpoint on, each record is
+ * validated with the rules of {@link DeviceRequestDto} and valid records are inserted in batches. Every batch is
+ * inserted, its rejections stored and the checkpoint moved in a single transaction, so a job resumed after a crash
+ * neither skips nor repeats records.
+ * <p>
+ * Malformed files and rows the database refuses fail the job; transient database errors leave it running, to be taken
+ * over once its heartbeat goes stale.
+ * <p>
+ * The file must be UTF-8 with a header row naming the columns {@code name}, {@code brand} and {@code state}, in any
+ * order and case.
+ */
+@Component
+@Profile("!memory & !sharded")
+public class DeviceCsvImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceCsvImporter.class);
+    private static final List<String> COLUMNS = List.of("name", "brand", "state");
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ImportJobRepository jobRepository;
+    private final DeviceBatchRepository deviceBatchRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeviceImportProperties properties;
+    private final Bulkheads bulkheads;
+
+    public DeviceCsvImporter(ImportJobRepository jobRepository, DeviceBatchRepository deviceBatchRepository,
+                             Validator validator, PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher, DeviceImportProperties properties,
+                             Bulkheads bulkheads) {
+        this.jobRepository = jobRepository;
+        this.deviceBatchRepository = deviceBatchRepository;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.bulkheads = bulkheads;
+    }
+
+    /**
+     * Imports the job's file from its checkpoint on, for a worker that claimed the job. Returns early, leaving the
+     * job to whoever owns it now, when the job was cancelled or taken over, and hands the job back to the queue when
+     * the thread is interrupted or no background permit frees up in time.
+     */
+    public void run(ImportJob job, String worker) {
+        Path file = Path.of(job.filePath());
+        long recordNumber = job.recordNumber();
+
+        try (Reader reader = open(file, job.position());
+             CSVParser parser = CSVParser.builder()
+                     .setReader(reader)
+                     .setFormat(format(readHeader(file), job.position() == 0))
+                     .setCharacterOffset(job.position())
+                     .get()) {
+
+            long position = job.position();
+            Batch batch = new Batch(job.rejectedRows());
+            for (CSVRecord record : parser) {
+                if (batch.size() == properties.batchSize()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        jobRepository.release(job.id(), worker);
+                        return;
+                    }
+                    position = record.getCharacterPosition();
+                    if (!flush(job, worker, batch, position, recordNumber, false)) {
+                        stopped(job);
+                        return;
+                    }
+                    batch = batch.next();
+                }
+
+                recordNumber++;
+                batch.add(recordNumber, record);
+            }
+
+            if (!flush(job, worker, batch, position, recordNumber, true)) {
+                stopped(job);
+                return;
+            }
+            log.info("Import job {} completed at record {}", job.id(), recordNumber);
+            Files.deleteIfExists(file);
+        } catch (BulkheadFullException ex) {
+            log.warn("Import job {} waited too long for a connection, resuming it later from its checkpoint", job.id());
+            jobRepository.release(job.id(), worker);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException | IllegalStateException
+                 | NonTransientDataAccessException ex) {
+            if (Thread.currentThread().isInterrupted()) {
+                jobRepository.release(job.id(), worker);
+                return;
+            }
+            log.warn("Import job {} failed after record {}", job.id(), recordNumber, ex);
+            String error = truncate("Record " + (recordNumber + 1) + ": " + ex.getMessage());
+            if (jobRepository.finish(job.id(), worker, ImportJobStatus.FAILED, error, LocalDateTime.now()))
+                deleteQuietly(file);
+        }
+    }
+
+    /**
+     * @return whether the batch was committed
+     */
+    private boolean flush(ImportJob job, String worker, Batch batch, long position, long recordNumber, boolean last) {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> ids = bulkheads.call(Workload.BACKGROUND, () -> transactionTemplate.execute(status -> {
+            List<Long> insertedIds = deviceBatchRepository.insertAll(batch.devices, now);
+            if (!batch.rejections.isEmpty()) jobRepository.addRejections(job.id(), batch.rejections);
+
+            if (!jobRepository.checkpoint(job.id(), worker, position, recordNumber, batch.devices.size(),
+                    batch.rejectedRows, last, now)) {
+                status.setRollbackOnly();
+                return null;
+            }
+            return insertedIds;
+        }));
+        if (ids == null) return false;
+
+        for (int i = 0; i < ids.size(); i++) {
+            DeviceRequestDto dto = batch.devices.get(i);
+            Device device = new Device(dto.name(), dto.brand(), dto.state());
+            device.setId(ids.get(i));
+            device.setCreatedAt(now);
+            eventPublisher.publishEvent(new DeviceChangedEvent(ChangeType.CREATED, device));
+        }
+        return true;
+    }
+
+    /**
+     * The job is no longer this worker's. Its file is only removed when it was cancelled, another worker may be
+     * reading it otherwise.
+     */
+    private void stopped(ImportJob job) {
+        jobRepository.findById(job.id())
+                .filter(current -> current.status() == ImportJobStatus.CANCELLED)
+                .ifPresent(current -> deleteQuietly(Path.of(current.filePath())));
+        log.info("Import job {} stopped, it was cancelled or taken over", job.id());
+    }
+
+    /**
+     * @return the reason the record is rejected, or null when it is valid
+     */
+    String validate(CSVRecord record, List<DeviceRequestDto> accepted) {
+        if (!record.isConsistent())
+            return String.format("Expected %d columns but found %d.", record.getParser().getHeaderNames().size(), record.size());
+
+        String state = record.get("state");
+        DeviceState deviceState = null;
+        if (StringUtils.hasText(state)) {
+            try {
+                deviceState = DeviceState.valueOf(state.trim());
+            } catch (IllegalArgumentException ex) {
+                return String.format("Invalid device state '%s'. Accepted values are %s.", state, Arrays.toString(DeviceState.values()));
+            }
+        }
+
+        DeviceRequestDto device = new DeviceRequestDto(record.get("name"), record.get("brand"), deviceState);
+        String violations = validator.validate(device).stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining(" "));
+        if (!violations.isEmpty()) return violations;
+
+        accepted.add(device);
+        return null;
+    }
+
+    private static List<String> readHeader(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             CSVParser parser = CSVParser.builder()
+                     .setReader(reader)
+                     .setFormat(CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).setIgnoreSurroundingSpaces(true).get())
+                     .get()) {
+
+            List<String> header = parser.getHeaderNames();
+            List<String> names = header.stream().map(name -> name.toLowerCase(Locale.ROOT)).toList();
+            if (!names.containsAll(COLUMNS))
+                throw new IllegalArgumentException("The header must name the columns " + COLUMNS + " but was " + header + ".");
+
+            return header;
+        }
+    }
+
+    private static CSVFormat format(List<String> header, boolean fromStart) {
+        return CSVFormat.DEFAULT.builder()
+                .setHeader(header.toArray(String[]::new))
+                .setSkipHeaderRecord(fromStart)
+                .setIgnoreHeaderCase(true)
+                .setIgnoreSurroundingSpaces(true)
+                .setIgnoreEmptyLines(true)
+                .get();
+    }
+
+    private static Reader open(Path file, long position) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        long remaining = position;
+        while (remaining > 0) {
+            long skipped = reader.skip(remaining);
+            if (skipped == 0) {
+                reader.close();
+                throw new EOFException("The file is shorter than the checkpoint at character " + position + ".");
+            }
+            remaining -= skipped;
+        }
+        return reader;
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete import file {}", file, ex);
+        }
+    }
+
+    /**
+     * Records of one transaction. Rejections are all counted but only stored while the job holds fewer than
+     * {@code maxStoredRejections}.
+     */
+    private final class Batch {
+
+        private final List<DeviceRequestDto> devices = new ArrayList<>();
+        private final List<ImportRejectionDto> rejections = new ArrayList<>();
+        private final long previouslyRejected;
+        private int rejectedRows;
+
+        private Batch(long previouslyRejected) {
+            this.previouslyRejected = previouslyRejected;
+        }
+
+        private void add(long recordNumber, CSVRecord record) {
+            String reason = validate(record, devices);
+            if (reason == null) return;
+
+            if (previouslyRejected + rejectedRows < properties.maxStoredRejections())
+                rejections.add(new ImportRejectionDto(recordNumber, truncate(reason)));
+            rejectedRows++;
+        }
+
+        private int size() {
+            return devices.size() + rejectedRows;
+        }
+
+        private Batch next() {
+            return new Batch(previouslyRejected + rejectedRows);
+        }
+    }
+}
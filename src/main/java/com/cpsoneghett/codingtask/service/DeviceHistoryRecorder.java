@@ -0,0 +1,251 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.bulkhead.Workload;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceHistoryEntryDto;
+import com.cpsoneghett.codingtask.repository.DeviceHistoryRepository;
+import com.cpsoneghett.codingtask.service.HistoryProperties.Durability;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Appends every device change to the {@code device_history} table without making writes wait for the insert. The
+ * change is copied into a bounded ring buffer on the writing thread, which costs an allocation and a queue offer,
+ * and background writers take whatever accumulated since their last insert and write it as one multi-row insert. The
+ * busier the device table, the larger the batches.
+ * <p>
+ * Each writer owns a part of the buffer and the devices hashed to it, so the entries of a device are written in the
+ * order they were recorded. What happens when the buffer is full or the database is slow depends on the
+ * {@link Durability} of the deployment. In every mode entries still in the buffer are lost if the node stops abruptly,
+ * and show up in the history once written.
+ * <p>
+ * Changes are recorded once committed. Whatever the durability, a change published on an event loop thread or inside
+ * a transaction, its after-commit callbacks included, never waits and is dropped when the buffer is full, as in
+ * {@link Durability#LOSSY} mode: a parked event loop stalls every request it serves, and a parked transaction keeps
+ * its connection, and its locks until it commits. Checkouts, check-ins, expired leases and state reports are recorded
+ * from their transaction; the device API and the imports publish after theirs.
+ */
+@Component
+public class DeviceHistoryRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceHistoryRecorder.class);
+
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+
+    private final DeviceHistoryRepository historyRepository;
+    private final HistoryProperties properties;
+    private final Bulkheads bulkheads;
+    private final List<Writer> writers = new ArrayList<>();
+    private volatile boolean stopped;
+
+    private final Counter recorded;
+    private final Counter dropped;
+    private final Counter lost;
+    private final Timer written;
+    private final Timer failed;
+
+    public DeviceHistoryRecorder(DeviceHistoryRepository historyRepository, HistoryProperties properties,
+                                 Bulkheads bulkheads, MeterRegistry meterRegistry) {
+        this.historyRepository = historyRepository;
+        this.properties = properties;
+        this.bulkheads = bulkheads;
+
+        int capacity = Math.max(1, properties.bufferSize() / properties.writers());
+        for (int index = 0; index < properties.writers(); index++) writers.add(new Writer(new ArrayBlockingQueue<>(capacity)));
+
+        recorded = Counter.builder("device.history.entries").tag("result", "recorded").register(meterRegistry);
+        dropped = Counter.builder("device.history.entries").tag("result", "dropped")
+                .description("Entries that found the buffer full").register(meterRegistry);
+        lost = Counter.builder("device.history.entries").tag("result", "lost")
+                .description("Entries whose batch could not be written before the node stopped").register(meterRegistry);
+        written = Timer.builder("device.history.writes").tag("result", "written").register(meterRegistry);
+        failed = Timer.builder("device.history.writes").tag("result", "failed").register(meterRegistry);
+        Gauge.builder("device.history.pending", this, DeviceHistoryRecorder::pendingCount).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int index = 0; index < writers.size(); index++) {
+            Writer writer = writers.get(index);
+            writer.thread = Thread.ofPlatform().name("history-writer-" + index).daemon().start(writer::run);
+        }
+    }
+
+    @EventListener
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        Device device = event.device();
+        DeviceHistoryEntryDto entry = new DeviceHistoryEntryDto(null, device.getId(), event.type(), device.getName(),
+                device.getBrand(), device.getState(), LocalDateTime.now());
+        Durability durability = mayWait() ? properties.durability() : Durability.LOSSY;
+        Pending pending = new Pending(entry, durability == Durability.SYNC ? new CompletableFuture<>() : null);
+
+        if (!enqueue(pending, durability)) {
+            dropped.increment();
+            return;
+        }
+        recorded.increment();
+        if (pending.written() != null) awaitWritten(pending);
+    }
+
+    /**
+     * Stops the writers, then writes what they left in the buffer.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopped = true;
+        for (Writer writer : writers) {
+            if (writer.thread != null) writer.thread.join();
+        }
+        flush();
+    }
+
+    /**
+     * Writes the whole buffer on the calling thread.
+     */
+    void flush() {
+        for (Writer writer : writers) {
+            List<Pending> batch = new ArrayList<>(properties.batchSize());
+            while (writer.queue.drainTo(batch, properties.batchSize()) > 0) {
+                if (!write(batch)) giveUp(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    int pendingCount() {
+        int pending = 0;
+        for (Writer writer : writers) pending += writer.queue.size();
+        return pending;
+    }
+
+    private static boolean mayWait() {
+        return !Schedulers.isInNonBlockingThread() && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private boolean enqueue(Pending pending, Durability durability) {
+        BlockingQueue<Pending> queue = writers.get(Math.floorMod(Long.hashCode(pending.entry().deviceId()), writers.size())).queue;
+        if (queue.offer(pending)) return true;
+        if (durability == Durability.LOSSY) return false;
+
+        try {
+            return queue.offer(pending, properties.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * The device was already written, so an entry that takes too long only delays the response by the wait: it stays
+     * queued and is written later.
+     */
+    private void awaitWritten(Pending pending) {
+        try {
+            pending.written().get(properties.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            log.warn("History entry of device {} not written within {}, answering anyway", pending.entry().deviceId(),
+                    properties.maxWait());
+        } catch (ExecutionException ex) {
+            log.warn("History entry of device {} could not be written", pending.entry().deviceId(), ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean write(List<Pending> batch) {
+        List<DeviceHistoryEntryDto> entries = new ArrayList<>(batch.size());
+        for (Pending pending : batch) entries.add(pending.entry());
+
+        long startedAt = System.nanoTime();
+        try {
+            bulkheads.call(Workload.BACKGROUND, () -> {
+                historyRepository.insertAll(entries);
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            failed.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.warn("Could not write {} device history entries", batch.size(), ex);
+            return false;
+        }
+        written.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+
+        for (Pending pending : batch) {
+            if (pending.written() != null) pending.written().complete(null);
+        }
+        return true;
+    }
+
+    private void giveUp(List<Pending> batch) {
+        lost.increment(batch.size());
+        RuntimeException failure = new IllegalStateException("History writer stopped before the entry was written");
+        for (Pending pending : batch) {
+            if (pending.written() != null) pending.written().completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * @param written completed once the entry is in the database, for {@link Durability#SYNC} only
+     */
+    private record Pending(DeviceHistoryEntryDto entry, CompletableFuture<Void> written) {
+    }
+
+    private class Writer {
+
+        private final BlockingQueue<Pending> queue;
+        private Thread thread;
+
+        Writer(BlockingQueue<Pending> queue) {
+            this.queue = queue;
+        }
+
+        /**
+         * Batches that fail are retried until they are written, holding back the entries behind them, so a database
+         * outage fills the buffer instead of reordering or dropping the history.
+         */
+        void run() {
+            List<Pending> batch = new ArrayList<>(properties.batchSize());
+            try {
+                while (!stopped) {
+                    Pending first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+
+                    batch.add(first);
+                    queue.drainTo(batch, properties.batchSize() - 1);
+                    while (!write(batch)) {
+                        if (stopped) {
+                            giveUp(batch);
+                            break;
+                        }
+                        Thread.sleep(properties.retryInterval());
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException ex) {
+                giveUp(batch);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
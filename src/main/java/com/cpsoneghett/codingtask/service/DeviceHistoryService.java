@@ -0,0 +1,14 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.DeviceHistoryResponseDto;
+
+public interface DeviceHistoryService {
+
+    /**
+     * Changes of the device, newest first. Devices that were deleted keep their history.
+     *
+     * @param before {@code next} of the previous page, or {@code null} for the latest changes
+     * @param size   most entries to return, capped by the configured maximum
+     */
+    DeviceHistoryResponseDto history(Long deviceId, Long before, int size);
+}
@@ -0,0 +1,33 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.DeviceHistoryEntryDto;
+import com.cpsoneghett.codingtask.domain.DeviceHistoryResponseDto;
+import com.cpsoneghett.codingtask.repository.DeviceHistoryRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class DeviceHistoryServiceImpl implements DeviceHistoryService {
+
+    private final DeviceHistoryRepository historyRepository;
+    private final HistoryProperties properties;
+
+    public DeviceHistoryServiceImpl(DeviceHistoryRepository historyRepository, HistoryProperties properties) {
+        this.historyRepository = historyRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Reads one entry more than asked for, to tell whether there is a next page without counting.
+     */
+    @Override
+    public DeviceHistoryResponseDto history(Long deviceId, Long before, int size) {
+        int limit = Math.clamp(size, 1, properties.maxPageSize());
+        List<DeviceHistoryEntryDto> entries = historyRepository.findByDeviceId(deviceId, before, limit + 1);
+        if (entries.size() <= limit) return new DeviceHistoryResponseDto(entries, null);
+
+        List<DeviceHistoryEntryDto> page = entries.subList(0, limit);
+        return new DeviceHistoryResponseDto(List.copyOf(page), page.getLast().id());
+    }
+}
@@ -0,0 +1,24 @@
+package com.cpsoneghett.codingtask.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param directory           where uploaded files are kept until their job finishes; must be shared by all nodes
+ *                            for jobs to be taken over by another node
+ * @param batchSize           records inserted and checkpointed per transaction
+ * @param concurrency         jobs run at the same time by a node
+ * @param maxStoredRejections rejected records kept with their reason per job; all of them are counted
+ * @param staleAfter          a running job whose worker sent no heartbeat for this long is taken over
+ */
+@ConfigurationProperties(prefix = "app.device-import")
+public record DeviceImportProperties(
+        @DefaultValue("imports") Path directory,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("2") int concurrency,
+        @DefaultValue("10000") long maxStoredRejections,
+        @DefaultValue("PT2M") Duration staleAfter) {
+}
@@ -0,0 +1,23 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.ImportJobDto;
+import com.cpsoneghett.codingtask.domain.ImportRejectionDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface DeviceImportService {
+
+    /**
+     * Stores the CSV file and queues a job to import it.
+     */
+    ImportJobDto create(InputStream csv) throws IOException;
+
+    ImportJobDto findById(Long id);
+
+    Page<ImportRejectionDto> findRejections(Long id, Pageable pageable);
+
+    ImportJobDto cancel(Long id);
+}
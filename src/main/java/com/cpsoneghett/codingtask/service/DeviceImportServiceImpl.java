@@ -0,0 +1,135 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.ImportJob;
+import com.cpsoneghett.codingtask.domain.ImportJobDto;
+import com.cpsoneghett.codingtask.domain.ImportJobStatus;
+import com.cpsoneghett.codingtask.domain.ImportRejectionDto;
+import com.cpsoneghett.codingtask.exception.ImportJobFinishedException;
+import com.cpsoneghett.codingtask.exception.ImportJobNotFoundException;
+import com.cpsoneghett.codingtask.repository.ImportJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploaded files are copied to the import directory as they stream in and imported by a small pool of background
+ * threads. Jobs are claimed in the database before they run, so every node resumes queued and abandoned jobs without
+ * two nodes running the same one.
+ */
+@Service
+@Profile("!memory & !sharded")
+public class DeviceImportServiceImpl implements DeviceImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceImportServiceImpl.class);
+
+    private final ImportJobRepository jobRepository;
+    private final DeviceCsvImporter importer;
+    private final DeviceImportProperties properties;
+    private final ExecutorService executor;
+    private final Set<Long> submitted = ConcurrentHashMap.newKeySet();
+
+    public DeviceImportServiceImpl(ImportJobRepository jobRepository, DeviceCsvImporter importer,
+                                   DeviceImportProperties properties) {
+        this.jobRepository = jobRepository;
+        this.importer = importer;
+        this.properties = properties;
+        this.executor = Executors.newFixedThreadPool(properties.concurrency(), Thread.ofPlatform().name("device-import-", 1).factory());
+    }
+
+    @Override
+    public ImportJobDto create(InputStream csv) throws IOException {
+        Files.createDirectories(properties.directory());
+        Path file = properties.directory().resolve(UUID.randomUUID() + ".csv").toAbsolutePath();
+
+        long size;
+        try {
+            size = Files.copy(csv, file);
+        } catch (IOException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+
+        long id = jobRepository.create(file.toString(), size);
+        submit(id);
+        return findById(id);
+    }
+
+    @Override
+    public ImportJobDto findById(Long id) {
+        return ImportJobDto.of(find(id), LocalDateTime.now());
+    }
+
+    @Override
+    public Page<ImportRejectionDto> findRejections(Long id, Pageable pageable) {
+        find(id);
+        return jobRepository.findRejections(id, pageable);
+    }
+
+    /**
+     * A running job stops at its next batch; batches already imported stay.
+     */
+    @Override
+    public ImportJobDto cancel(Long id) {
+        ImportJob job = find(id);
+        if (!jobRepository.cancel(id, LocalDateTime.now())) throw new ImportJobFinishedException(id, find(id).status());
+
+        if (job.status() == ImportJobStatus.QUEUED) DeviceCsvImporter.deleteQuietly(Path.of(job.filePath()));
+        return findById(id);
+    }
+
+    /**
+     * Picks up queued jobs and jobs whose worker stopped sending heartbeats, e.g. after a restart.
+     */
+    @Scheduled(fixedDelayString = "${app.device-import.resume-interval:PT1M}")
+    public void resumeJobs() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(properties.staleAfter());
+        jobRepository.findResumable(staleBefore).forEach(this::submit);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) log.warn("Import jobs did not stop in time");
+    }
+
+    private void submit(long id) {
+        if (submitted.add(id)) executor.execute(() -> {
+            try {
+                run(id);
+            } catch (RuntimeException ex) {
+                log.error("Import job {} stopped unexpectedly, it is resumed once its heartbeat goes stale", id, ex);
+            } finally {
+                submitted.remove(id);
+            }
+        });
+    }
+
+    private void run(long id) {
+        String worker = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (!jobRepository.claim(id, worker, now, now.minus(properties.staleAfter()))) return;
+
+        jobRepository.findById(id).ifPresent(job -> importer.run(job, worker));
+    }
+
+    private ImportJob find(Long id) {
+        return jobRepository.findById(id).orElseThrow(() -> new ImportJobNotFoundException(id));
+    }
+}
@@ -0,0 +1,40 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.bulkhead.Workload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes devices whose lease expired available again. Each batch commits on its own, so the reaper never holds locks
+ * on more than one batch of rows, and concurrent reapers on other nodes skip the rows it is working on.
+ */
+@Component
+public class DeviceLeaseReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceLeaseReaper.class);
+
+    private final DeviceLeaseService leaseService;
+    private final LeaseProperties properties;
+    private final Bulkheads bulkheads;
+
+    public DeviceLeaseReaper(DeviceLeaseService leaseService, LeaseProperties properties, Bulkheads bulkheads) {
+        this.leaseService = leaseService;
+        this.properties = properties;
+        this.bulkheads = bulkheads;
+    }
+
+    @Scheduled(fixedDelayString = "${app.lease.reap-interval:PT30S}")
+    public void reap() {
+        int total = 0;
+        int released;
+        do {
+            released = bulkheads.call(Workload.BACKGROUND, leaseService::releaseExpiredLeases);
+            total += released;
+        } while (released == properties.reapBatchSize());
+
+        if (total > 0) log.info("Released {} devices with an expired lease", total);
+    }
+}
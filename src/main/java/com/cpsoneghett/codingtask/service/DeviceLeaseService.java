@@ -0,0 +1,23 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceLeaseDto;
+
+import java.time.Duration;
+
+public interface DeviceLeaseService {
+
+    DeviceLeaseDto checkout(Long id, Duration leaseDuration);
+
+    DeviceLeaseDto checkoutAny(DeviceFilter filter, Duration leaseDuration);
+
+    Device checkin(Long id, String leaseToken);
+
+    /**
+     * Makes one batch of devices with an expired lease available again.
+     *
+     * @return the number of devices released
+     */
+    int releaseExpiredLeases();
+}
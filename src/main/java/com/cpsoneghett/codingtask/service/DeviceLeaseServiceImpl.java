@@ -0,0 +1,119 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceLeaseDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import com.cpsoneghett.codingtask.exception.DeviceUnavailableException;
+import com.cpsoneghett.codingtask.exception.InvalidLeaseDurationException;
+import com.cpsoneghett.codingtask.exception.LeaseNotHeldException;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.DeviceLeaseRepository;
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class DeviceLeaseServiceImpl implements DeviceLeaseService {
+
+    private final DeviceLeaseRepository leaseRepository;
+    private final DeviceRepository deviceRepository;
+    private final BrandDictionary brandDictionary;
+    private final LeaseProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DeviceLeaseServiceImpl(DeviceLeaseRepository leaseRepository, DeviceRepository deviceRepository,
+                                  BrandDictionary brandDictionary, LeaseProperties properties,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.leaseRepository = leaseRepository;
+        this.deviceRepository = deviceRepository;
+        this.brandDictionary = brandDictionary;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public DeviceLeaseDto checkout(Long id, Duration leaseDuration) {
+
+        LocalDateTime expiresAt = expiresAt(leaseDuration);
+        String token = UUID.randomUUID().toString();
+
+        if (!leaseRepository.acquire(id, token, expiresAt)) {
+            if (!deviceRepository.existsById(id)) throw new DeviceNotFoundException(id);
+            throw new DeviceUnavailableException(id);
+        }
+
+        return new DeviceLeaseDto(changed(id), token, expiresAt);
+    }
+
+    @Override
+    @Transactional
+    public DeviceLeaseDto checkoutAny(DeviceFilter filter, Duration leaseDuration) {
+
+        LocalDateTime expiresAt = expiresAt(leaseDuration);
+
+        ResolvedDeviceFilter resolvedFilter = ResolvedDeviceFilter.resolve(filter, brandDictionary);
+        if (resolvedFilter.matchesNothing() || (resolvedFilter.states() != null && !resolvedFilter.states().contains(DeviceState.AVAILABLE)))
+            throw new DeviceUnavailableException();
+
+        Long id = leaseRepository.lockAvailable(resolvedFilter).orElseThrow(DeviceUnavailableException::new);
+
+        String token = UUID.randomUUID().toString();
+        leaseRepository.acquire(id, token, expiresAt);
+
+        return new DeviceLeaseDto(changed(id), token, expiresAt);
+    }
+
+    @Override
+    @Transactional
+    public Device checkin(Long id, String leaseToken) {
+
+        if (!leaseRepository.release(id, leaseToken)) {
+            if (!deviceRepository.existsById(id)) throw new DeviceNotFoundException(id);
+            throw new LeaseNotHeldException(id);
+        }
+
+        return changed(id);
+    }
+
+    @Override
+    @Transactional
+    public int releaseExpiredLeases() {
+
+        List<Long> ids = leaseRepository.lockExpired(LocalDateTime.now(), properties.reapBatchSize());
+        if (ids.isEmpty()) return 0;
+
+        leaseRepository.releaseAll(ids);
+        for (Device device : deviceRepository.findAllById(ids)) {
+            AfterCommit.publish(eventPublisher, new DeviceChangedEvent(ChangeType.UPDATED, device));
+        }
+
+        return ids.size();
+    }
+
+    private LocalDateTime expiresAt(Duration leaseDuration) {
+        Duration duration = leaseDuration != null ? leaseDuration : properties.defaultDuration();
+
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(properties.maxDuration()) > 0)
+            throw new InvalidLeaseDurationException(properties.maxDuration());
+
+        return LocalDateTime.now().plus(duration);
+    }
+
+    private Device changed(Long id) {
+        Device device = deviceRepository.findById(id).orElseThrow(() -> new DeviceNotFoundException(id));
+        AfterCommit.publish(eventPublisher, new DeviceChangedEvent(ChangeType.UPDATED, device));
+        return device;
+    }
+}
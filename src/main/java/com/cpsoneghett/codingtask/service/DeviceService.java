@@ -2,6 +2,7 @@ package com.cpsoneghett.codingtask.service;
 
 import com.cpsoneghett.codingtask.domain.Device;
 import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
 import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
 import com.github.fge.jsonpatch.JsonPatch;
 import com.github.fge.jsonpatch.JsonPatchException;
@@ -9,6 +10,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.io.IOException;
+import java.util.List;
 
 public interface DeviceService {
 
@@ -16,6 +18,8 @@ public interface DeviceService {
 
     Device findById(Long id);
 
+    DeviceLookupResponseDto findAllById(List<Long> ids);
+
     Device save(DeviceRequestDto device);
 
     void delete(Long id);
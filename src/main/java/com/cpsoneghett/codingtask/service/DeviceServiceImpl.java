@@ -1,11 +1,19 @@
 package com.cpsoneghett.codingtask.service;
 
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.bulkhead.Workload;
+import com.cpsoneghett.codingtask.cache.DeviceIdFilter;
+import com.cpsoneghett.codingtask.cache.DeviceLookupCache;
 import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
 import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
 import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
 import com.cpsoneghett.codingtask.domain.DeviceState;
 import com.cpsoneghett.codingtask.exception.DeviceInUseException;
 import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import com.cpsoneghett.codingtask.monitoring.DeviceOperationEvent;
 import com.cpsoneghett.codingtask.repository.DeviceRepository;
 import com.cpsoneghett.codingtask.utils.OperationType;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -14,62 +22,208 @@ import com.github.fge.jsonpatch.JsonPatch;
 import com.github.fge.jsonpatch.JsonPatchException;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+/**
+ * Operations are recorded as {@link DeviceOperationEvent}s and query under the bulkhead of their {@link Workload}; ids
+ * ruled out by the id filter and reads answered by the lookup cache take no permit. Transactions open once a permit
+ * is held, so templates demarcate them. Writes lock the device row, reads run read-only, and changes are announced
+ * after commit.
+ */
 @Service
 public class DeviceServiceImpl implements DeviceService {
 
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
     private final DeviceRepository deviceRepository;
     private final ObjectMapper objectMapper;
+    private final DeviceIdFilter deviceIdFilter;
+    private final DeviceLookupCache deviceLookupCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Bulkheads bulkheads;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
 
-    public DeviceServiceImpl(DeviceRepository deviceRepository, ObjectMapper objectMapper) {
+    public DeviceServiceImpl(DeviceRepository deviceRepository, ObjectMapper objectMapper, DeviceIdFilter deviceIdFilter,
+                             DeviceLookupCache deviceLookupCache, ApplicationEventPublisher eventPublisher, Bulkheads bulkheads,
+                             PlatformTransactionManager transactionManager) {
         this.deviceRepository = deviceRepository;
         this.objectMapper = objectMapper;
+        this.deviceIdFilter = deviceIdFilter;
+        this.deviceLookupCache = deviceLookupCache;
+        this.eventPublisher = eventPublisher;
+        this.bulkheads = bulkheads;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public Page<Device> findAll(DeviceFilter filter, Pageable pageable) {
-        return deviceRepository.filter(filter, pageable);
+        DeviceOperationEvent event = DeviceOperationEvent.begin("findAll", filter, pageable);
+        try {
+            Page<Device> page = bulkheads.call(Workload.BULK, () -> readTransaction.execute(status -> deviceRepository.filter(filter, pageable)));
+            event.succeeded(page.getNumberOfElements());
+            return page;
+        } finally {
+            event.finish();
+        }
     }
 
     @Override
     public Device findById(Long id) {
+        DeviceOperationEvent event = DeviceOperationEvent.begin("findById", id);
+        try {
+            Device device = deviceLookupCache.get(id, this::read, this::readUpdatedAt);
+            event.succeeded(1);
+            return device;
+        } finally {
+            event.finish();
+        }
+    }
+
+    private Device read(Long id) {
+        requireKnown(id);
+        return bulkheads.call(Workload.INTERACTIVE, () -> readTransaction.execute(status -> find(id)));
+    }
+
+    private Optional<LocalDateTime> readUpdatedAt(Long id) {
+        return bulkheads.call(Workload.INTERACTIVE, () -> deviceRepository.findUpdatedAtById(id));
+    }
+
+    /**
+     * Answers ids the filter rules out before a permit, a connection or a transaction is taken for them.
+     */
+    private void requireKnown(Long id) {
+        if (!deviceIdFilter.mightContain(id)) throw new DeviceNotFoundException(id);
+    }
+
+    private Device find(Long id) {
         return deviceRepository.findById(id).orElseThrow(() -> new DeviceNotFoundException(id));
     }
 
+    private Device findForUpdate(Long id) {
+        return deviceRepository.findForUpdateById(id).orElseThrow(() -> new DeviceNotFoundException(id));
+    }
+
+    /**
+     * Serves the ids the lookup cache holds and resolves the rest with chunked {@code IN} queries, taking no permit
+     * when all of them are cached. Ids ruled out by the id filter never reach the database.
+     */
     @Override
-    public Device save(DeviceRequestDto device) {
+    public DeviceLookupResponseDto findAllById(List<Long> ids) {
+        DeviceOperationEvent event = DeviceOperationEvent.begin("findAllById", null);
+        try {
+            DeviceLookupResponseDto response = lookup(ids);
+            event.succeeded(response.devices().size());
+            return response;
+        } finally {
+            event.finish();
+        }
+    }
+
+    private DeviceLookupResponseDto lookup(List<Long> ids) {
 
-        Device newDevice = new Device(device.name(), device.brand(), device.state());
+        List<Long> candidates = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (deviceIdFilter.mightContain(id)) candidates.add(id);
+        }
 
-        return deviceRepository.save(newDevice);
+        Map<Long, Device> found = deviceLookupCache.getAll(candidates, this::readAll);
+
+        List<Device> devices = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Device device = found.get(id);
+            if (device != null) devices.add(device);
+            else missing.add(id);
+        }
+
+        return new DeviceLookupResponseDto(devices, missing);
+    }
+
+    private List<Device> readAll(List<Long> ids) {
+        return bulkheads.call(Workload.INTERACTIVE, () -> readTransaction.execute(status -> {
+            List<Device> devices = new ArrayList<>(ids.size());
+            for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+                devices.addAll(deviceRepository.findAllById(ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size()))));
+            }
+            return devices;
+        }));
     }
 
     @Override
-    public void delete(Long id) {
+    public Device save(DeviceRequestDto device) {
+        DeviceOperationEvent event = DeviceOperationEvent.begin("save", null);
         try {
-            Device deviceFound = this.findById(id);
+            Device newDevice = bulkheads.call(Workload.WRITE, () -> deviceRepository.save(new Device(device.name(), device.brand(), device.state())));
+            eventPublisher.publishEvent(new DeviceChangedEvent(ChangeType.CREATED, newDevice));
 
-            if (DeviceState.IN_USE.equals(deviceFound.getState()))
-                throw new DeviceInUseException(deviceFound.getId(), OperationType.DELETE);
+            event.succeeded(1);
+            return newDevice;
+        } finally {
+            event.finish();
+        }
+    }
 
-            deviceRepository.deleteById(id);
+    @Override
+    public void delete(Long id) {
+        DeviceOperationEvent event = DeviceOperationEvent.begin("delete", id);
+        try {
+            requireKnown(id);
+            Device deviceFound = bulkheads.call(Workload.WRITE, () -> writeTransaction.execute(status -> remove(id)));
+            eventPublisher.publishEvent(new DeviceChangedEvent(ChangeType.DELETED, deviceFound));
+            event.succeeded(1);
         } catch (EmptyResultDataAccessException ex) {
             throw new EntityNotFoundException();
+        } finally {
+            event.finish();
         }
     }
 
+    private Device remove(Long id) {
+        Device deviceFound = findForUpdate(id);
+
+        if (DeviceState.IN_USE.equals(deviceFound.getState()))
+            throw new DeviceInUseException(deviceFound.getId(), OperationType.DELETE);
+
+        deviceRepository.deleteById(id);
+        return deviceFound;
+    }
+
     @Override
     public Device update(Long id, DeviceRequestDto deviceDto) {
+        DeviceOperationEvent event = DeviceOperationEvent.begin("update", id);
+        try {
+            requireKnown(id);
+            Update update = bulkheads.call(Workload.WRITE, () -> writeTransaction.execute(status -> replace(id, deviceDto)));
+            update.announce(eventPublisher);
+            event.succeeded(1);
+            return update.device();
+        } finally {
+            event.finish();
+        }
+    }
 
-        Device deviceFound = this.findById(id);
+    private Update replace(Long id, DeviceRequestDto deviceDto) {
 
-        if (deviceFound.isEqualsDto(deviceDto)) return deviceFound;
+        Device deviceFound = findForUpdate(id);
+
+        if (deviceFound.isEqualsDto(deviceDto)) return new Update(deviceFound, null);
 
         if (DeviceState.IN_USE.equals(deviceFound.getState())) {
             boolean isChangingName = !deviceDto.name().trim().equals(deviceFound.getName());
@@ -80,19 +234,64 @@ public class DeviceServiceImpl implements DeviceService {
 
         }
 
+        String previousBrand = deviceFound.getBrand();
         BeanUtils.copyProperties(deviceDto, deviceFound, "id");
 
-        return deviceRepository.save(deviceFound);
+        Device updatedDevice = deviceRepository.save(deviceFound);
+        return new Update(updatedDevice, previousBrand);
     }
 
     @Override
     public Device partialUpdate(Long id, JsonPatch jsonPatch) throws JsonPatchException, IOException {
+        DeviceOperationEvent event = DeviceOperationEvent.begin("partialUpdate", id);
+        try {
+            requireKnown(id);
+            Update update = bulkheads.call(Workload.WRITE, () -> writeTransaction.execute(status -> patch(id, jsonPatch)));
+            update.announce(eventPublisher);
+            event.succeeded(1);
+            return update.device();
+        } catch (PatchFailure failure) {
+            if (failure.getCause() instanceof JsonPatchException ex) throw ex;
+            throw (IOException) failure.getCause();
+        } finally {
+            event.finish();
+        }
+    }
 
-        Device deviceFound = this.findById(id);
+    private Update patch(Long id, JsonPatch jsonPatch) {
+        Device deviceFound = findForUpdate(id);
 
-        JsonNode patched = jsonPatch.apply(objectMapper.convertValue(deviceFound, JsonNode.class));
+        String previousBrand = deviceFound.getBrand();
+        Device patch;
+        try {
+            JsonNode patched = jsonPatch.apply(objectMapper.convertValue(deviceFound, JsonNode.class));
+            patch = objectMapper.treeToValue(patched, Device.class);
+        } catch (JsonPatchException | IOException ex) {
+            // unchecked, so the transaction rolls back; partialUpdate rethrows the cause
+            throw new PatchFailure(ex);
+        }
 
-        return deviceRepository.save(objectMapper.treeToValue(patched, Device.class));
+        Device patchedDevice = deviceRepository.save(patch);
+        return new Update(patchedDevice, previousBrand);
     }
 
+    /**
+     * A committed update, announced by the caller once the transaction and its connection are released.
+     *
+     * @param previousBrand brand before the update, {@code null} when nothing changed
+     */
+    private record Update(Device device, String previousBrand) {
+
+        void announce(ApplicationEventPublisher eventPublisher) {
+            if (previousBrand != null)
+                eventPublisher.publishEvent(new DeviceChangedEvent(ChangeType.UPDATED, device, previousBrand));
+        }
+    }
+
+    private static class PatchFailure extends RuntimeException {
+
+        PatchFailure(Exception cause) {
+            super(cause);
+        }
+    }
 }
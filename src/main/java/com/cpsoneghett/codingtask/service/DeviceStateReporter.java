@@ -0,0 +1,152 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.bulkhead.Workload;
+import com.cpsoneghett.codingtask.cache.DeviceIdFilter;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces the states devices report about themselves. The last state reported or written for each device is
+ * remembered, reports repeating it are dropped without touching the database, and only transitions are queued. The
+ * queue keeps the latest state per device, so a device changing several times between two flushes costs one update.
+ * Flushes apply the queue in batches, each batch in its own transaction.
+ * <p>
+ * Reports are answered before they are stored: a node stopping abruptly loses the transitions reported since its last
+ * flush, which the next report of each device repeats.
+ */
+@Component
+public class DeviceStateReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceStateReporter.class);
+
+    private final DeviceStateService stateService;
+    private final DeviceIdFilter idFilter;
+    private final StateReportProperties properties;
+    private final Bulkheads bulkheads;
+    private final Cache<Long, DeviceState> lastKnown;
+    private final Map<Long, DeviceState> pending = new ConcurrentHashMap<>();
+
+    private final Counter changed;
+    private final Counter unchanged;
+    private final Counter unknown;
+    private final Counter applied;
+
+    public DeviceStateReporter(DeviceStateService stateService, DeviceIdFilter idFilter, StateReportProperties properties,
+                               Bulkheads bulkheads, MeterRegistry meterRegistry) {
+        this.stateService = stateService;
+        this.idFilter = idFilter;
+        this.properties = properties;
+        this.bulkheads = bulkheads;
+
+        // written on transitions only, so repeated reports do not extend how long a remembered state is trusted
+        lastKnown = Caffeine.newBuilder()
+                .maximumSize(properties.trackedDevices())
+                .expireAfterWrite(properties.resyncInterval())
+                .build();
+
+        changed = Counter.builder("device.state.reports").tag("result", "changed").register(meterRegistry);
+        unchanged = Counter.builder("device.state.reports").tag("result", "unchanged").register(meterRegistry);
+        unknown = Counter.builder("device.state.reports").tag("result", "unknown").register(meterRegistry);
+        applied = Counter.builder("device.state.reports.applied")
+                .description("Reported transitions written to the device table").register(meterRegistry);
+        Gauge.builder("device.state.reports.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    public enum Outcome {
+        CHANGED, UNCHANGED, UNKNOWN
+    }
+
+    public Outcome report(Long id, DeviceState state) {
+        if (!idFilter.mightContain(id)) {
+            unknown.increment();
+            return Outcome.UNKNOWN;
+        }
+
+        if (lastKnown.getIfPresent(id) == state) {
+            unchanged.increment();
+            return Outcome.UNCHANGED;
+        }
+
+        lastKnown.put(id, state);
+        pending.put(id, state);
+        changed.increment();
+        return Outcome.CHANGED;
+    }
+
+    /**
+     * Writes made through the service are as recent as any report, so they replace the remembered state.
+     */
+    @EventListener
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        Long id = event.device().getId();
+        if (event.type() == DeviceChangedEvent.ChangeType.DELETED) {
+            lastKnown.invalidate(id);
+            pending.remove(id);
+        } else {
+            lastKnown.put(id, event.device().getState());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.state-reports.flush-interval:PT1S}")
+    public void flush() {
+        int total = 0;
+        Map<Long, DeviceState> batch;
+        do {
+            batch = nextBatch();
+            if (batch.isEmpty()) break;
+
+            Map<Long, DeviceState> states = batch;
+            try {
+                total += bulkheads.call(Workload.BACKGROUND, () -> stateService.applyReportedStates(states)).size();
+            } catch (RuntimeException ex) {
+                // reports that arrived meanwhile are newer than the failed ones
+                batch.forEach(pending::putIfAbsent);
+                log.warn("Could not apply {} reported device states, retrying on the next flush", batch.size(), ex);
+                break;
+            }
+        } while (batch.size() == properties.flushBatchSize());
+
+        applied.increment(total);
+        if (total > 0) log.debug("Applied {} reported device states", total);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Takes an entry only if it was not replaced since it was read, so a report arriving while the batch is built
+     * stays queued for the next one.
+     */
+    private Map<Long, DeviceState> nextBatch() {
+        Map<Long, DeviceState> batch = new HashMap<>();
+        Iterator<Map.Entry<Long, DeviceState>> entries = pending.entrySet().iterator();
+        while (entries.hasNext() && batch.size() < properties.flushBatchSize()) {
+            Map.Entry<Long, DeviceState> entry = entries.next();
+            if (pending.remove(entry.getKey(), entry.getValue())) batch.put(entry.getKey(), entry.getValue());
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,18 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+
+import java.util.List;
+import java.util.Map;
+
+public interface DeviceStateService {
+
+    /**
+     * Applies one batch of states reported by the devices. Devices already in the reported state, checked out under
+     * a lease or deleted in the meantime are left alone.
+     *
+     * @return the devices that changed
+     */
+    List<Device> applyReportedStates(Map<Long, DeviceState> states);
+}
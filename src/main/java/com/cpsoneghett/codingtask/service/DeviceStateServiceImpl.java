@@ -0,0 +1,50 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import com.cpsoneghett.codingtask.repository.DeviceStateRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class DeviceStateServiceImpl implements DeviceStateService {
+
+    private final DeviceStateRepository stateRepository;
+    private final DeviceRepository deviceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DeviceStateServiceImpl(DeviceStateRepository stateRepository, DeviceRepository deviceRepository,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.stateRepository = stateRepository;
+        this.deviceRepository = deviceRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public List<Device> applyReportedStates(Map<Long, DeviceState> states) {
+
+        Map<DeviceState, List<Long>> idsByState = new EnumMap<>(DeviceState.class);
+        states.forEach((id, state) -> idsByState.computeIfAbsent(state, s -> new ArrayList<>()).add(id));
+
+        List<Long> changed = new ArrayList<>();
+        idsByState.forEach((state, ids) -> changed.addAll(stateRepository.applyReportedState(ids, state)));
+        if (changed.isEmpty()) return List.of();
+
+        List<Device> devices = deviceRepository.findAllById(changed);
+        for (Device device : devices) {
+            AfterCommit.publish(eventPublisher, new DeviceChangedEvent(ChangeType.UPDATED, device));
+        }
+
+        return devices;
+    }
+}
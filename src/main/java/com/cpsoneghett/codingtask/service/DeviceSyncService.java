@@ -0,0 +1,20 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.DeviceSyncResponseDto;
+
+public interface DeviceSyncService {
+
+    /**
+     * Devices changed and deleted since the token, or all devices when there is no token.
+     *
+     * @param size most changes and deletions to return, capped by the configured maximum
+     */
+    DeviceSyncResponseDto changesSince(String token, int size);
+
+    /**
+     * Removes one batch of tombstones older than the retention.
+     *
+     * @return the number of tombstones removed
+     */
+    int purgeTombstones();
+}
@@ -0,0 +1,89 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceSyncResponseDto;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+import com.cpsoneghett.codingtask.exception.SyncTokenExpiredException;
+import com.cpsoneghett.codingtask.repository.DeviceSyncRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges changes and deletions into one stream ordered by {@link SyncPosition}. Only entries older than the settle
+ * time are returned, so every entry before the returned token has committed. When nothing more is ready the token
+ * moves to that horizon, so the tokens of clients of a quiet fleet stay young and never expire.
+ */
+@Service
+public class DeviceSyncServiceImpl implements DeviceSyncService {
+
+    private final DeviceSyncRepository syncRepository;
+    private final SyncProperties properties;
+
+    public DeviceSyncServiceImpl(DeviceSyncRepository syncRepository, SyncProperties properties) {
+        this.syncRepository = syncRepository;
+        this.properties = properties;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DeviceSyncResponseDto changesSince(String token, int size) {
+
+        SyncPosition since = StringUtils.hasText(token) ? SyncPosition.decode(token) : null;
+        int limit = Math.clamp(size, 1, properties.maxPageSize());
+
+        LocalDateTime now = syncRepository.now();
+        if (since != null && since.time().isBefore(now.minus(properties.tombstoneRetention())))
+            throw new SyncTokenExpiredException(properties.tombstoneRetention());
+
+        LocalDateTime horizon = now.minus(properties.settleTime());
+        SyncPosition after = since != null ? since : SyncPosition.START;
+
+        List<Device> changes = syncRepository.findChangedAfter(after, horizon, limit + 1);
+        // a client without a token never saw the devices deleted before its first sync
+        List<SyncPosition> deletions = since != null ? syncRepository.findDeletedAfter(after, horizon, limit + 1) : List.of();
+
+        List<Device> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        SyncPosition last = null;
+        int c = 0;
+        int d = 0;
+        while (changed.size() + deleted.size() < limit && (c < changes.size() || d < deletions.size())) {
+            SyncPosition change = c < changes.size() ? positionOf(changes.get(c)) : null;
+            SyncPosition deletion = d < deletions.size() ? deletions.get(d) : null;
+
+            if (deletion == null || (change != null && change.compareTo(deletion) < 0)) {
+                changed.add(changes.get(c++));
+                last = change;
+            } else {
+                deleted.add(deletion.id());
+                last = deletion;
+                d++;
+            }
+        }
+
+        boolean hasMore = c < changes.size() || d < deletions.size();
+        SyncPosition next = hasMore ? last : max(after, new SyncPosition(horizon, 0));
+
+        return new DeviceSyncResponseDto(changed, deleted, next.encode(), hasMore);
+    }
+
+    @Override
+    @Transactional
+    public int purgeTombstones() {
+        LocalDateTime before = syncRepository.now().minus(properties.tombstoneRetention());
+        return syncRepository.purgeTombstones(before, properties.purgeBatchSize());
+    }
+
+    private static SyncPosition positionOf(Device device) {
+        return new SyncPosition(device.getUpdatedAt(), device.getId());
+    }
+
+    private static SyncPosition max(SyncPosition a, SyncPosition b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
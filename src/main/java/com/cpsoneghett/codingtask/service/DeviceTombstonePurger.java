@@ -0,0 +1,40 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.bulkhead.Workload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes tombstones of devices deleted longer ago than the sync token retention, in batches that each commit on
+ * their own.
+ */
+@Component
+public class DeviceTombstonePurger {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceTombstonePurger.class);
+
+    private final DeviceSyncService syncService;
+    private final SyncProperties properties;
+    private final Bulkheads bulkheads;
+
+    public DeviceTombstonePurger(DeviceSyncService syncService, SyncProperties properties, Bulkheads bulkheads) {
+        this.syncService = syncService;
+        this.properties = properties;
+        this.bulkheads = bulkheads;
+    }
+
+    @Scheduled(fixedDelayString = "${app.sync.purge-interval:PT1H}")
+    public void purge() {
+        int total = 0;
+        int purged;
+        do {
+            purged = bulkheads.call(Workload.BACKGROUND, syncService::purgeTombstones);
+            total += purged;
+        } while (purged == properties.purgeBatchSize());
+
+        if (total > 0) log.info("Purged {} device tombstones", total);
+    }
+}
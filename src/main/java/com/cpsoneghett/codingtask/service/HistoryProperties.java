@@ -0,0 +1,43 @@
+package com.cpsoneghett.codingtask.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param durability    what a write does when its history entry cannot be queued or written right away
+ * @param bufferSize    history entries waiting to be written, split between the writers
+ * @param batchSize     most entries written per insert
+ * @param writers       threads writing the history, each with a connection while it writes; entries of a device are
+ *                      always written by the same one, so they stay in order
+ * @param maxWait       longest a write waits for room in the buffer ({@code blocking}) or for its entry to be written
+ *                      ({@code sync}); the entry is dropped, or written later, past it
+ * @param retryInterval pause before a batch that could not be written is tried again
+ * @param maxPageSize   most entries a single history request returns
+ */
+@ConfigurationProperties(prefix = "app.history")
+public record HistoryProperties(
+        @DefaultValue("blocking") Durability durability,
+        @DefaultValue("65536") int bufferSize,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("1") int writers,
+        @DefaultValue("PT1S") Duration maxWait,
+        @DefaultValue("PT1S") Duration retryInterval,
+        @DefaultValue("100") int maxPageSize) {
+
+    public enum Durability {
+        /**
+         * Entries that do not fit in the buffer are dropped, so writes never wait for the history.
+         */
+        LOSSY,
+        /**
+         * Writes wait for room in the buffer, so entries are only lost when the node stops abruptly.
+         */
+        BLOCKING,
+        /**
+         * Writes wait until their entry is in the database, sharing the insert with the writes made meanwhile.
+         */
+        SYNC
+    }
+}
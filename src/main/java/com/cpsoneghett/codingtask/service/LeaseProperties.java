@@ -0,0 +1,18 @@
+package com.cpsoneghett.codingtask.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param defaultDuration lease duration of checkouts that do not ask for one
+ * @param maxDuration     longest lease a checkout can ask for
+ * @param reapBatchSize   expired leases released per statement by the lease reaper
+ */
+@ConfigurationProperties(prefix = "app.lease")
+public record LeaseProperties(
+        @DefaultValue("PT15M") Duration defaultDuration,
+        @DefaultValue("PT8H") Duration maxDuration,
+        @DefaultValue("500") int reapBatchSize) {
+}
@@ -0,0 +1,33 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
+import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
+import com.github.fge.jsonpatch.JsonPatch;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link DeviceService}, with the same rules and errors signalled through the returned
+ * publishers.
+ */
+public interface ReactiveDeviceService {
+
+    Mono<Page<Device>> findAll(DeviceFilter filter, Pageable pageable);
+
+    Mono<Device> findById(Long id);
+
+    Mono<DeviceLookupResponseDto> findAllById(List<Long> ids);
+
+    Mono<Device> save(DeviceRequestDto device);
+
+    Mono<Void> delete(Long id);
+
+    Mono<Device> update(Long id, DeviceRequestDto deviceDto);
+
+    Mono<Device> partialUpdate(Long id, JsonPatch jsonPatch);
+}
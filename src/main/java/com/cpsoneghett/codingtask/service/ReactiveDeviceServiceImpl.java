@@ -0,0 +1,171 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.cache.DeviceIdFilter;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
+import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.exception.DeviceInUseException;
+import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import com.cpsoneghett.codingtask.repository.ReactiveDeviceRepository;
+import com.cpsoneghett.codingtask.utils.OperationType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Profile("reactive")
+public class ReactiveDeviceServiceImpl implements ReactiveDeviceService {
+
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    /**
+     * There are no reactive transactions to lock a device row in, so writes only land on the row as it was read, see
+     * {@link ReactiveDeviceRepository#update(Device, Device)}. When it changed in between, the operation reads it
+     * again and repeats its checks on the current row, so a device that went missing or into use gets the same error
+     * as it would have up front.
+     */
+    private static final int WRITE_ATTEMPTS = 3;
+
+    private final ReactiveDeviceRepository deviceRepository;
+    private final ObjectMapper objectMapper;
+    private final DeviceIdFilter deviceIdFilter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ReactiveDeviceServiceImpl(ReactiveDeviceRepository deviceRepository, ObjectMapper objectMapper,
+                                     DeviceIdFilter deviceIdFilter, ApplicationEventPublisher eventPublisher) {
+        this.deviceRepository = deviceRepository;
+        this.objectMapper = objectMapper;
+        this.deviceIdFilter = deviceIdFilter;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public Mono<Page<Device>> findAll(DeviceFilter filter, Pageable pageable) {
+        return Mono.defer(() -> deviceRepository.filter(filter, pageable));
+    }
+
+    @Override
+    public Mono<Device> findById(Long id) {
+        if (!deviceIdFilter.mightContain(id)) return Mono.error(new DeviceNotFoundException(id));
+
+        return deviceRepository.findById(id).switchIfEmpty(Mono.error(() -> new DeviceNotFoundException(id)));
+    }
+
+    /**
+     * Same chunking as {@link DeviceServiceImpl#findAllById(List)}, with the chunks queried concurrently.
+     */
+    @Override
+    public Mono<DeviceLookupResponseDto> findAllById(List<Long> ids) {
+
+        LinkedHashSet<Long> requested = new LinkedHashSet<>(ids);
+        List<Long> candidates = new ArrayList<>();
+        for (Long id : requested) {
+            if (deviceIdFilter.mightContain(id)) candidates.add(id);
+        }
+
+        return Flux.fromIterable(candidates)
+                .buffer(LOOKUP_CHUNK_SIZE)
+                .flatMap(deviceRepository::findAllById)
+                .collectMap(Device::getId)
+                .map(found -> toLookupResponse(requested, found));
+    }
+
+    @Override
+    public Mono<Device> save(DeviceRequestDto device) {
+        return deviceRepository.insert(new Device(device.name(), device.brand(), device.state()))
+                .doOnNext(newDevice -> eventPublisher.publishEvent(new DeviceChangedEvent(ChangeType.CREATED, newDevice)));
+    }
+
+    @Override
+    public Mono<Void> delete(Long id) {
+        return Mono.defer(() -> findById(id)).flatMap(deviceFound -> {
+                    if (DeviceState.IN_USE.equals(deviceFound.getState()))
+                        return Mono.<Device>error(new DeviceInUseException(deviceFound.getId(), OperationType.DELETE));
+
+                    return deviceRepository.delete(deviceFound).filter(Boolean::booleanValue).map(deleted -> deviceFound);
+                })
+                .repeatWhenEmpty(WRITE_ATTEMPTS, repeats -> repeats)
+                .doOnNext(deviceFound -> eventPublisher.publishEvent(new DeviceChangedEvent(ChangeType.DELETED, deviceFound)))
+                .then();
+    }
+
+    @Override
+    public Mono<Device> update(Long id, DeviceRequestDto deviceDto) {
+        return Mono.defer(() -> findById(id)).flatMap(deviceFound -> {
+
+                    if (deviceFound.isEqualsDto(deviceDto)) return Mono.just(deviceFound);
+
+                    if (DeviceState.IN_USE.equals(deviceFound.getState())) {
+                        boolean isChangingName = !deviceDto.name().trim().equals(deviceFound.getName());
+                        boolean isChangingBrand = !deviceDto.brand().trim().equals(deviceFound.getBrand());
+
+                        if (isChangingName || isChangingBrand)
+                            return Mono.error(new DeviceInUseException(deviceFound.getId(), OperationType.UPDATE));
+                    }
+
+                    Device updatedDevice = new Device(deviceDto.name(), deviceDto.brand(), deviceDto.state());
+                    updatedDevice.setId(deviceFound.getId());
+                    updatedDevice.setCreatedAt(deviceFound.getCreatedAt());
+
+                    return deviceRepository.update(updatedDevice, deviceFound).filter(Boolean::booleanValue)
+                            .map(updated -> {
+                                eventPublisher.publishEvent(new DeviceChangedEvent(ChangeType.UPDATED, updatedDevice, deviceFound.getBrand()));
+                                return updatedDevice;
+                            });
+                })
+                .repeatWhenEmpty(WRITE_ATTEMPTS, repeats -> repeats);
+    }
+
+    /**
+     * The patch is applied to the stored device and written back over the same row.
+     */
+    @Override
+    public Mono<Device> partialUpdate(Long id, JsonPatch jsonPatch) {
+        return Mono.defer(() -> findById(id)).flatMap(deviceFound -> {
+                    Device patchedDevice;
+                    try {
+                        JsonNode patched = jsonPatch.apply(objectMapper.convertValue(deviceFound, JsonNode.class));
+                        patchedDevice = objectMapper.treeToValue(patched, Device.class);
+                        patchedDevice.setId(deviceFound.getId());
+                    } catch (JsonPatchException | IOException ex) {
+                        return Mono.error(ex);
+                    }
+
+                    return deviceRepository.update(patchedDevice, deviceFound).filter(Boolean::booleanValue)
+                            .map(updated -> {
+                                eventPublisher.publishEvent(new DeviceChangedEvent(ChangeType.UPDATED, patchedDevice, deviceFound.getBrand()));
+                                return patchedDevice;
+                            });
+                })
+                .repeatWhenEmpty(WRITE_ATTEMPTS, repeats -> repeats);
+    }
+
+    private static DeviceLookupResponseDto toLookupResponse(LinkedHashSet<Long> requested, Map<Long, Device> found) {
+        List<Device> devices = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            Device device = found.get(id);
+            if (device != null) devices.add(device);
+            else missing.add(id);
+        }
+        return new DeviceLookupResponseDto(devices, missing);
+    }
+}
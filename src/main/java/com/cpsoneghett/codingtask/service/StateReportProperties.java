@@ -0,0 +1,21 @@
+package com.cpsoneghett.codingtask.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param flushInterval   pause between two flushes of reported state changes to the device table
+ * @param flushBatchSize  state changes applied per transaction
+ * @param trackedDevices  devices whose last reported state is remembered to drop repeated reports
+ * @param resyncInterval  how long a remembered state is trusted; bounds how long a change made through another node
+ *                        can hide a report repeating the state the device had before
+ */
+@ConfigurationProperties(prefix = "app.state-reports")
+public record StateReportProperties(
+        @DefaultValue("PT1S") Duration flushInterval,
+        @DefaultValue("1000") int flushBatchSize,
+        @DefaultValue("1000000") int trackedDevices,
+        @DefaultValue("PT1M") Duration resyncInterval) {
+}
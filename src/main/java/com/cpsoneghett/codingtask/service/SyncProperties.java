@@ -0,0 +1,22 @@
+package com.cpsoneghett.codingtask.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param settleTime         age a change must reach before syncs return it. A change is stamped when its statement
+ *                           runs but only visible once its transaction commits, so this must exceed the longest
+ *                           write transaction, or a sync could move past a change that commits later
+ * @param tombstoneRetention how long deletions are kept for clients to sync; older tokens must start over
+ * @param maxPageSize        most changes and deletions a single sync returns
+ * @param purgeBatchSize     tombstones removed per statement by the purge
+ */
+@ConfigurationProperties(prefix = "app.sync")
+public record SyncProperties(
+        @DefaultValue("PT5S") Duration settleTime,
+        @DefaultValue("7d") Duration tombstoneRetention,
+        @DefaultValue("1000") int maxPageSize,
+        @DefaultValue("1000") int purgeBatchSize) {
+}
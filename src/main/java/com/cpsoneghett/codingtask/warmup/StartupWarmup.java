@@ -0,0 +1,198 @@
+package com.cpsoneghett.codingtask.warmup;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the main read paths before the application takes traffic, so class loading, JIT compilation and connection
+ * creation are not paid by the first real requests. Spring Boot only turns the readiness state to accepting traffic
+ * once all runners returned, so the warmup gates readiness until it finishes or times out.
+ * <p>
+ * Reads go through the application's own port, covering the web layer, the caches (which they also fill), the
+ * queries and the JSON rendering. Nothing is written: JSON Patch documents are parsed and applied to a device that
+ * is never saved.
+ */
+@Component
+@Profile("!dataset")
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private static final String PATCH = "[{\"op\": \"test\", \"path\": \"/brand\", \"value\": \"Apple\"}," +
+            "{\"op\": \"replace\", \"path\": \"/state\", \"value\": \"INACTIVE\"}," +
+            "{\"op\": \"replace\", \"path\": \"/name\", \"value\": \"iPhone 15\"}]";
+    private static final List<String> SORTS = List.of("", "&sort=name", "&sort=createdAt,desc", "&brand=a", "&state=available");
+    private static final int PAGES = 100;
+
+    private final WarmupProperties properties;
+    private final ObjectProvider<DataSource> dataSource;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    public StartupWarmup(WarmupProperties properties, ObjectProvider<DataSource> dataSource, ObjectMapper objectMapper,
+                         Environment environment, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.enabled()) warmUp();
+    }
+
+    /**
+     * A warmup that fails or times out only means a colder start, so neither stops the application.
+     *
+     * @return whether the warmup finished within the timeout
+     */
+    boolean warmUp() {
+        long startedAt = System.nanoTime();
+        ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("warmup").daemon().factory());
+        Future<?> warmup = executor.submit(() -> {
+            step("connections", this::openConnections);
+            step("reads", this::read);
+            step("json-patch", this::parsePatches);
+            return null;
+        });
+
+        String result = "completed";
+        try {
+            warmup.get(properties.timeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            result = "timed-out";
+            log.warn("Warmup did not finish within {}, taking traffic anyway", properties.timeout());
+        } catch (ExecutionException ex) {
+            result = "failed";
+            log.warn("Warmup failed, taking traffic anyway", ex.getCause());
+        } catch (InterruptedException ex) {
+            result = "failed";
+            Thread.currentThread().interrupt();
+        } finally {
+            // interrupts the step still running, which stops at its next invocation
+            executor.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - startedAt;
+        Timer.builder("device.warmup").description("Time spent warming up before taking traffic")
+                .tag("result", result).register(meterRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Warmup {} in {} ms", result, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return result.equals("completed");
+    }
+
+    private void step(String name, Step step) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            step.run();
+        } finally {
+            sample.stop(Timer.builder("device.warmup.step").tag("step", name).register(meterRegistry));
+        }
+    }
+
+    /**
+     * Holds as many connections at once as the pool keeps idle, so the pool has opened all of them before the first
+     * request instead of one by one as load grows.
+     */
+    private void openConnections() throws SQLException {
+        DataSource source = dataSource.getIfUnique();
+        if (source == null) return;
+
+        int size = source.isWrapperFor(HikariDataSource.class) ? source.unwrap(HikariDataSource.class).getMinimumIdle() : 1;
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < size && running(); i++) {
+                Connection connection = source.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : connections) connection.close();
+        }
+    }
+
+    /**
+     * Pages past the last device still run the count and the query, so the number of pages does not depend on the
+     * data. Responses other than 200, like a 404 on an empty database, warm up the error handling instead.
+     */
+    private void read() throws Exception {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (port == null) return;
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory();
+        requestFactory.setReadTimeout(properties.timeout());
+        RestClient client = RestClient.builder()
+                .requestFactory(requestFactory)
+                .baseUrl("http://localhost:" + port + "/v1/devices")
+                .build();
+
+        List<Long> ids = firstIds(client);
+        for (int i = 0; i < properties.iterations() && running(); i++) {
+            String page = "?size=20&page=" + (i / SORTS.size()) % PAGES + SORTS.get(i % SORTS.size());
+            client.get().uri(page).exchange((request, response) -> response.getStatusCode());
+            client.get().uri("/{id}", ids.get(i % ids.size())).exchange((request, response) -> response.getStatusCode());
+            client.post().uri("/lookup").contentType(MediaType.APPLICATION_JSON).body(Map.of("ids", ids))
+                    .exchange((request, response) -> response.getStatusCode());
+        }
+    }
+
+    private List<Long> firstIds(RestClient client) throws Exception {
+        byte[] page = client.get().uri("?size=20").exchange((request, response) ->
+                response.getStatusCode().is2xxSuccessful() ? response.getBody().readAllBytes() : null);
+
+        List<Long> ids = new ArrayList<>();
+        if (page != null) {
+            for (JsonNode device : objectMapper.readTree(page).path("content")) ids.add(device.path("id").asLong());
+        }
+        return ids.isEmpty() ? List.of(1L) : ids;
+    }
+
+    private void parsePatches() throws Exception {
+        JsonNode device = objectMapper.valueToTree(new Device("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE));
+        for (int i = 0; i < properties.iterations() && running(); i++) {
+            JsonPatch patch = objectMapper.readValue(PATCH, JsonPatch.class);
+            objectMapper.treeToValue(patch.apply(device), Device.class);
+        }
+    }
+
+    private static boolean running() {
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run() throws Exception;
+    }
+}
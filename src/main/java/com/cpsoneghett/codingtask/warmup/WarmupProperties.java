@@ -0,0 +1,18 @@
+package com.cpsoneghett.codingtask.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled    whether the application warms up before reporting ready
+ * @param timeout    longest the warmup may delay readiness; what is left undone then warms up with real traffic
+ * @param iterations how many times each read path and the JSON Patch parsing run
+ */
+@ConfigurationProperties(prefix = "app.warmup")
+public record WarmupProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("PT30S") Duration timeout,
+        @DefaultValue("500") int iterations) {
+}
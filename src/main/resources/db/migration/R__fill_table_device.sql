@@ -1,56 +0,0 @@
-
-delete from device;
-
-alter table device auto_increment = 1;
-
-INSERT INTO device (name, brand, state)
-VALUES ('Laptop Pro 1', 'TechCorp', 'AVAILABLE'),
-       ('Smartphone X', 'MobileGen', 'IN_USE'),
-       ('Smartwatch Z', 'WearableCo', 'INACTIVE'),
-       ('Tablet Air', 'PadTech', 'AVAILABLE'),
-       ('Desktop PC Elite', 'PowerComp', 'IN_USE'),
-       ('Wireless Earbuds', 'AudioFlow', 'INACTIVE'),
-       ('Smart Camera', 'SecureView', 'AVAILABLE'),
-       ('Portable Speaker', 'SoundBlast', 'IN_USE'),
-       ('E-Reader Pro', 'PageTurner', 'INACTIVE'),
-       ('Gaming Keyboard', 'GameGear', 'AVAILABLE'),
-       ('Gaming Mouse', 'GameGear', 'IN_USE'),
-       ('Monitor Ultra', 'DisplayVue', 'INACTIVE'),
-       ('External SSD', 'DataVault', 'AVAILABLE'),
-       ('USB Hub', 'ConnectAll', 'IN_USE'),
-       ('Webcam HD', 'StreamLine', 'INACTIVE'),
-       ('Router Pro', 'NetConnect', 'AVAILABLE'),
-       ('Mesh Wi-Fi System', 'NetConnect', 'IN_USE'),
-       ('Smart Plug', 'HomeLink', 'INACTIVE'),
-       ('Robot Vacuum', 'CleanBot', 'AVAILABLE'),
-       ('Smart Thermostat', 'ClimateCtrl', 'IN_USE'),
-       ('Drone Explorer', 'SkyFly', 'INACTIVE'),
-       ('Action Camera', 'AdventureCam', 'AVAILABLE'),
-       ('VR Headset', 'ImmerseVR', 'IN_USE'),
-       ('Gaming Laptop', 'GameForce', 'INACTIVE'),
-       ('Curved Monitor', 'DisplayVue', 'AVAILABLE'),
-       ('Noise-Cancelling Headphones', 'AudioFlow', 'IN_USE'),
-       ('Portable Projector', 'ScreenBeam', 'INACTIVE'),
-       ('Wireless Charger', 'PowerUp', 'AVAILABLE'),
-       ('Smart Doorbell', 'SecureView', 'IN_USE'),
-       ('Smart Lock', 'HomeLink', 'INACTIVE'),
-       ('Bluetooth Speaker', 'SoundBlast', 'AVAILABLE'),
-       ('Graphic Tablet', 'ArtCanvas', 'IN_USE'),
-       ('Network Attached Storage', 'DataVault', 'INACTIVE'),
-       ('Printer All-in-One', 'PrintEasy', 'AVAILABLE'),
-       ('Scanner Pro', 'ScanFast', 'IN_USE'),
-       ('Smart Light Bulb', 'BrightHome', 'INACTIVE'),
-       ('Smart Scale', 'HealthTrack', 'AVAILABLE'),
-       ('Electric Toothbrush', 'OralCare', 'IN_USE'),
-       ('Hair Dryer Pro', 'StylePro', 'INACTIVE'),
-       ('Coffee Maker Smart', 'BrewMaster', 'AVAILABLE'),
-       ('Air Fryer Digital', 'CookRight', 'IN_USE'),
-       ('Blender High-Speed', 'BlendIt', 'INACTIVE'),
-       ('Handheld Vacuum', 'CleanBot', 'AVAILABLE'),
-       ('Electric Kettle', 'BoilQuick', 'IN_USE'),
-       ('Toaster Oven', 'BakePerfect', 'INACTIVE'),
-       ('Food Processor', 'ChopChop', 'AVAILABLE'),
-       ('Slow Cooker', 'SimmerPro', 'IN_USE'),
-       ('Electric Grill', 'GrillMaster', 'INACTIVE'),
-       ('Stand Mixer', 'MixItUp', 'AVAILABLE'),
-       ('Waffle Maker', 'WaffleTime', 'IN_USE');
\ No newline at end of file
@@ -0,0 +1,13 @@
+create table idempotency_key
+(
+    id_key       varchar(300) not null,
+    request_hash char(64)     not null,
+    status       smallint     not null,
+    content_type varchar(100),
+    body         mediumblob   not null,
+    expires_at   datetime     not null,
+
+    primary key (id_key),
+    index idx_idempotency_key_expires_at (expires_at)
+) engine = InnoDB
+  default charset = utf8;
@@ -0,0 +1,9 @@
+-- One index per sortable column, with id as the tiebreaker the listing always appends,
+-- so ORDER BY <column>, id LIMIT n is served by an index scan instead of a filesort.
+create index idx_device_name on device (name, id);
+create index idx_device_brand on device (brand, id);
+create index idx_device_state on device (state, id);
+create index idx_device_dt_created on device (dt_created, id);
+
+-- Most common dashboard listing: devices in a state, newest first.
+create index idx_device_state_dt_created on device (state, dt_created, id);
@@ -0,0 +1,45 @@
+-- Brands are stored once in a dictionary table and referenced by a 2-byte key; states become a 1-byte code
+-- (1 = AVAILABLE, 2 = IN_USE, 3 = INACTIVE, see DeviceState). Binary collation keeps brands that differ only
+-- in case as distinct entries, as they were in the varchar column.
+create table brand
+(
+    id   smallint unsigned not null auto_increment,
+    name varchar(100)      not null collate utf8_bin,
+
+    primary key (id),
+    unique key uk_brand_name (name)
+) engine = InnoDB
+  default charset = utf8;
+
+insert into brand (name)
+select distinct brand collate utf8_bin
+from device
+order by 1;
+
+alter table device
+    add column brand_id   smallint unsigned null after brand,
+    add column state_code tinyint unsigned  null after state;
+
+update device d join brand b on b.name = d.brand
+set d.brand_id = b.id;
+
+update device
+set state_code = case state when 'AVAILABLE' then 1 when 'IN_USE' then 2 when 'INACTIVE' then 3 end;
+
+alter table device
+    drop index idx_device_brand,
+    drop index idx_device_state,
+    drop index idx_device_state_dt_created,
+    drop column brand,
+    drop column state;
+
+alter table device
+    rename column state_code to state;
+
+alter table device
+    modify brand_id smallint unsigned not null,
+    modify state tinyint unsigned not null,
+    add constraint fk_device_brand foreign key (brand_id) references brand (id),
+    add index idx_device_brand (brand_id, id),
+    add index idx_device_state (state, id),
+    add index idx_device_state_dt_created (state, dt_created, id);
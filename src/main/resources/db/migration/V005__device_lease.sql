@@ -0,0 +1,6 @@
+-- Checkout leases. Both columns are only written by the checkout/checkin statements and the lease reaper.
+alter table device
+    add column lease_token      char(36) null,
+    add column lease_expires_at datetime null;
+
+create index idx_device_lease_expires_at on device (lease_expires_at);
@@ -0,0 +1,34 @@
+-- Bulk CSV imports. position/record_number are the checkpoint: the character offset and number of the first record
+-- not imported yet, written in the same transaction as the devices of each batch.
+create table import_job
+(
+    id              bigint       not null auto_increment,
+    file_path       varchar(500) not null,
+    size_bytes      bigint       not null,
+    status          varchar(20)  not null,
+    worker          char(36)     null,
+    heartbeat_at    datetime     null,
+    position        bigint       not null default 0,
+    record_number   bigint       not null default 0,
+    imported_rows   bigint       not null default 0,
+    rejected_rows   bigint       not null default 0,
+    error           varchar(1000) null,
+    created_at      datetime     not null default CURRENT_TIMESTAMP,
+    started_at      datetime     null,
+    finished_at     datetime     null,
+
+    primary key (id),
+    index idx_import_job_status (status)
+) engine = InnoDB
+  default charset = utf8;
+
+create table import_job_rejection
+(
+    job_id        bigint        not null,
+    record_number bigint        not null,
+    reason        varchar(1000) not null,
+
+    primary key (job_id, record_number),
+    constraint fk_import_job_rejection_job foreign key (job_id) references import_job (id) on delete cascade
+) engine = InnoDB
+  default charset = utf8;
@@ -0,0 +1,5 @@
+-- Time of the last change to each row, kept by MySQL itself so updates made in plain SQL (leases, imports) move it
+-- too. Cached copies of a device compare it to tell whether they are still current; microseconds keep two changes of
+-- the same row from sharing a value in practice.
+alter table device
+    add column dt_updated datetime(6) not null default current_timestamp(6) on update current_timestamp(6) after dt_created;
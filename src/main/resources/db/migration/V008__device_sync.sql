@@ -0,0 +1,22 @@
+-- Delta sync. Clients ask for the devices changed after the last (dt_updated, id) they saw, served by this index
+-- instead of a scan of the whole table.
+create index idx_device_dt_updated on device (dt_updated, id);
+
+-- Deleted devices, so clients can drop them too. Written by a trigger, like dt_updated, so deletes made in plain SQL
+-- leave a tombstone as well; purged once no client can still need them, see app.sync.tombstone-retention.
+create table device_tombstone
+(
+    id         bigint      not null,
+    dt_deleted datetime(6) not null,
+
+    primary key (id),
+    index idx_device_tombstone_dt_deleted (dt_deleted, id)
+) engine = InnoDB
+  default charset = utf8;
+
+create trigger trg_device_tombstone
+    after delete
+    on device
+    for each row
+    insert into device_tombstone (id, dt_deleted)
+    values (old.id, current_timestamp(6));
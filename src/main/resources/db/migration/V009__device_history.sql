@@ -0,0 +1,16 @@
+-- Every change made to a device, appended in batches by DeviceHistoryRecorder. There is no foreign key to device:
+-- the history of a device outlives it. Entries of a device are read newest first from idx_device_history_device.
+create table device_history
+(
+    id          bigint            not null auto_increment,
+    device_id   bigint            not null,
+    change_type tinyint unsigned  not null,
+    name        varchar(100)      not null,
+    brand_id    smallint unsigned not null,
+    state       tinyint unsigned  not null,
+    dt_changed  datetime(6)       not null,
+
+    primary key (id),
+    index idx_device_history_device (device_id, id)
+) engine = InnoDB
+  default charset = utf8;
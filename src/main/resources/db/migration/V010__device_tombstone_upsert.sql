@@ -0,0 +1,11 @@
+-- A device deleted again under an id that already has a tombstone, e.g. an id reinserted explicitly, moves the
+-- tombstone to the new deletion instead of failing the delete with a duplicate key.
+drop trigger if exists trg_device_tombstone;
+
+create trigger trg_device_tombstone
+    after delete
+    on device
+    for each row
+    insert into device_tombstone (id, dt_deleted)
+    values (old.id, current_timestamp(6))
+    on duplicate key update dt_deleted = current_timestamp(6);
@@ -0,0 +1,10 @@
+-- A state change that does not set the lease itself, e.g. a PUT or PATCH of the device, ends the lease, so the lease
+-- reaper never flips a device that was put back in use by hand. The checkout/checkin statements change the token
+-- together with the state and keep what they write. The expiry is reset first: it compares the token before the
+-- token is reset.
+create trigger trg_device_lease_reset
+    before update
+    on device
+    for each row
+    set new.lease_expires_at = if(new.state <> old.state and new.lease_token <=> old.lease_token, null, new.lease_expires_at),
+        new.lease_token      = if(new.state <> old.state and new.lease_token <=> old.lease_token, null, new.lease_token);
@@ -0,0 +1,7 @@
+-- Method, path and a key of up to 255 characters can exceed varchar(300), so the table keeps the SHA-256 of the
+-- composite key instead. Stored keys are rehashed the way the application hashes them, so retries keep matching.
+update idempotency_key
+set id_key = sha2(id_key, 256);
+
+alter table idempotency_key
+    modify id_key char(64) character set ascii not null;
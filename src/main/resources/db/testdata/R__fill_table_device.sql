@@ -0,0 +1,101 @@
+delete from device;
+
+alter table device auto_increment = 1;
+
+insert ignore into brand (name)
+values ('AdventureCam'),
+       ('ArtCanvas'),
+       ('AudioFlow'),
+       ('BakePerfect'),
+       ('BlendIt'),
+       ('BoilQuick'),
+       ('BrewMaster'),
+       ('BrightHome'),
+       ('ChopChop'),
+       ('CleanBot'),
+       ('ClimateCtrl'),
+       ('ConnectAll'),
+       ('CookRight'),
+       ('DataVault'),
+       ('DisplayVue'),
+       ('GameForce'),
+       ('GameGear'),
+       ('GrillMaster'),
+       ('HealthTrack'),
+       ('HomeLink'),
+       ('ImmerseVR'),
+       ('MixItUp'),
+       ('MobileGen'),
+       ('NetConnect'),
+       ('OralCare'),
+       ('PadTech'),
+       ('PageTurner'),
+       ('PowerComp'),
+       ('PowerUp'),
+       ('PrintEasy'),
+       ('ScanFast'),
+       ('ScreenBeam'),
+       ('SecureView'),
+       ('SimmerPro'),
+       ('SkyFly'),
+       ('SoundBlast'),
+       ('StreamLine'),
+       ('StylePro'),
+       ('TechCorp'),
+       ('WaffleTime'),
+       ('WearableCo');
+
+insert into device (name, brand_id, state)
+select seed.name, brand.id, seed.state
+from (select 1 as seq, 'Laptop Pro 1' as name, 'TechCorp' as brand, 1 as state
+      union all select 2, 'Smartphone X', 'MobileGen', 2
+      union all select 3, 'Smartwatch Z', 'WearableCo', 3
+      union all select 4, 'Tablet Air', 'PadTech', 1
+      union all select 5, 'Desktop PC Elite', 'PowerComp', 2
+      union all select 6, 'Wireless Earbuds', 'AudioFlow', 3
+      union all select 7, 'Smart Camera', 'SecureView', 1
+      union all select 8, 'Portable Speaker', 'SoundBlast', 2
+      union all select 9, 'E-Reader Pro', 'PageTurner', 3
+      union all select 10, 'Gaming Keyboard', 'GameGear', 1
+      union all select 11, 'Gaming Mouse', 'GameGear', 2
+      union all select 12, 'Monitor Ultra', 'DisplayVue', 3
+      union all select 13, 'External SSD', 'DataVault', 1
+      union all select 14, 'USB Hub', 'ConnectAll', 2
+      union all select 15, 'Webcam HD', 'StreamLine', 3
+      union all select 16, 'Router Pro', 'NetConnect', 1
+      union all select 17, 'Mesh Wi-Fi System', 'NetConnect', 2
+      union all select 18, 'Smart Plug', 'HomeLink', 3
+      union all select 19, 'Robot Vacuum', 'CleanBot', 1
+      union all select 20, 'Smart Thermostat', 'ClimateCtrl', 2
+      union all select 21, 'Drone Explorer', 'SkyFly', 3
+      union all select 22, 'Action Camera', 'AdventureCam', 1
+      union all select 23, 'VR Headset', 'ImmerseVR', 2
+      union all select 24, 'Gaming Laptop', 'GameForce', 3
+      union all select 25, 'Curved Monitor', 'DisplayVue', 1
+      union all select 26, 'Noise-Cancelling Headphones', 'AudioFlow', 2
+      union all select 27, 'Portable Projector', 'ScreenBeam', 3
+      union all select 28, 'Wireless Charger', 'PowerUp', 1
+      union all select 29, 'Smart Doorbell', 'SecureView', 2
+      union all select 30, 'Smart Lock', 'HomeLink', 3
+      union all select 31, 'Bluetooth Speaker', 'SoundBlast', 1
+      union all select 32, 'Graphic Tablet', 'ArtCanvas', 2
+      union all select 33, 'Network Attached Storage', 'DataVault', 3
+      union all select 34, 'Printer All-in-One', 'PrintEasy', 1
+      union all select 35, 'Scanner Pro', 'ScanFast', 2
+      union all select 36, 'Smart Light Bulb', 'BrightHome', 3
+      union all select 37, 'Smart Scale', 'HealthTrack', 1
+      union all select 38, 'Electric Toothbrush', 'OralCare', 2
+      union all select 39, 'Hair Dryer Pro', 'StylePro', 3
+      union all select 40, 'Coffee Maker Smart', 'BrewMaster', 1
+      union all select 41, 'Air Fryer Digital', 'CookRight', 2
+      union all select 42, 'Blender High-Speed', 'BlendIt', 3
+      union all select 43, 'Handheld Vacuum', 'CleanBot', 1
+      union all select 44, 'Electric Kettle', 'BoilQuick', 2
+      union all select 45, 'Toaster Oven', 'BakePerfect', 3
+      union all select 46, 'Food Processor', 'ChopChop', 1
+      union all select 47, 'Slow Cooker', 'SimmerPro', 2
+      union all select 48, 'Electric Grill', 'GrillMaster', 3
+      union all select 49, 'Stand Mixer', 'MixItUp', 1
+      union all select 50, 'Waffle Maker', 'WaffleTime', 2) seed
+         join brand on brand.name = seed.brand
+order by seed.seq;
@@ -0,0 +1,118 @@
+package com.cpsoneghett.codingtask.bulkhead;
+
+import com.cpsoneghett.codingtask.exception.BulkheadFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final CountDownLatch running = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private Bulkheads bulkheads;
+
+    @BeforeEach
+    void setUp() {
+        bulkheads = new Bulkheads(new BulkheadProperties(true, 2, Duration.ofMillis(50), 1, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO),
+                10, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private Future<String> holdPermit(Workload workload) throws InterruptedException {
+        Future<String> holder = executor.submit(() -> bulkheads.call(workload, () -> {
+            running.countDown();
+            release.await();
+            return "done";
+        }));
+        running.await();
+        return holder;
+    }
+
+    private double rejected(Workload workload) {
+        return meterRegistry.get("device.bulkhead.wait").tag("workload", workload.name().toLowerCase(Locale.ROOT))
+                .tag("result", "rejected").timer().count();
+    }
+
+    @Test
+    @DisplayName("Should reject operations of a saturated workload without blocking the others")
+    void call_WhenWorkloadSaturated_ShouldFailFast() throws Exception {
+        // Given
+        Future<String> scan = holdPermit(Workload.BULK);
+
+        // When / Then
+        assertThatThrownBy(() -> bulkheads.call(Workload.BULK, () -> "second scan")).isInstanceOf(BulkheadFullException.class);
+        assertThat(bulkheads.call(Workload.INTERACTIVE, () -> "read")).isEqualTo("read");
+        assertThat(rejected(Workload.BULK)).isEqualTo(1);
+        assertThat(rejected(Workload.INTERACTIVE)).isZero();
+
+        release.countDown();
+        assertThat(scan.get()).isEqualTo("done");
+        assertThat(bulkheads.call(Workload.BULK, () -> "next scan")).isEqualTo("next scan");
+    }
+
+    @Test
+    @DisplayName("Should wait up to the workload's max wait for a permit to be released")
+    void call_WhenPermitReleasedWithinMaxWait_ShouldRun() throws Exception {
+        // Given
+        Bulkheads oneInteractive = new Bulkheads(new BulkheadProperties(true, 1, Duration.ofSeconds(5), 1, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO),
+                10, meterRegistry);
+        CountDownLatch holding = new CountDownLatch(1);
+        executor.submit(() -> oneInteractive.call(Workload.INTERACTIVE, () -> {
+            holding.countDown();
+            Thread.sleep(100);
+            return null;
+        }));
+        holding.await();
+
+        // When
+        String result = oneInteractive.call(Workload.INTERACTIVE, () -> "read");
+
+        // Then
+        assertThat(result).isEqualTo("read");
+    }
+
+    @Test
+    @DisplayName("Should refuse permits that add up to more than the connection pool")
+    void new_WhenPermitsExceedThePool_ShouldFail() {
+        // Given
+        BulkheadProperties properties = new BulkheadProperties(true, 5, Duration.ZERO, 3, Duration.ZERO, 2, Duration.ZERO,
+                3, Duration.ZERO);
+
+        // When / Then
+        assertThatThrownBy(() -> new Bulkheads(properties, 12, meterRegistry))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("13");
+        assertThat(new Bulkheads(properties, 13, new SimpleMeterRegistry()).call(Workload.BACKGROUND, () -> "flush"))
+                .isEqualTo("flush");
+    }
+
+    @Test
+    @DisplayName("Should release the permit when the operation fails")
+    void call_WhenOperationThrows_ShouldReleasePermit() {
+        // When
+        assertThatThrownBy(() -> bulkheads.call(Workload.WRITE, () -> {
+            throw new IllegalStateException("Database unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(bulkheads.call(Workload.WRITE, () -> "retry")).isEqualTo("retry");
+    }
+}
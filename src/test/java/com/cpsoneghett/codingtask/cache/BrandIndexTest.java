@@ -0,0 +1,91 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class BrandIndexTest {
+
+    @Mock
+    private DeviceRepository deviceRepository;
+    private BrandIndex brandIndex;
+
+    @BeforeEach
+    void setUp() {
+        brandIndex = new BrandIndex(deviceRepository);
+        given(deviceRepository.countDevicesPerBrand()).willReturn(List.of(new BrandCountDto("Samsung", 5),
+                new BrandCountDto("Apple", 3), new BrandCountDto("Sony", 2), new BrandCountDto("SAP", 1)));
+        brandIndex.rebuild();
+    }
+
+    private static DeviceChangedEvent event(ChangeType type, String brand, String previousBrand) {
+        Device device = new Device("Device", brand, DeviceState.AVAILABLE);
+        device.setId(1L);
+        return new DeviceChangedEvent(type, device, previousBrand);
+    }
+
+    @Test
+    @DisplayName("Should list the brands starting with the prefix in name order, ignoring case")
+    void suggest_ShouldMatchPrefixIgnoringCase() {
+        // Then
+        assertThat(brandIndex.suggest(" sA", 10)).containsExactly(new BrandCountDto("Samsung", 5), new BrandCountDto("SAP", 1));
+        assertThat(brandIndex.suggest("s", 2)).extracting(BrandCountDto::brand).containsExactly("Samsung", "SAP");
+        assertThat(brandIndex.suggest("", 10)).extracting(BrandCountDto::brand).containsExactly("Apple", "Samsung", "SAP", "Sony");
+        assertThat(brandIndex.suggest("x", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep brands differing only in case apart")
+    void suggest_WithBrandsDifferingInCase_ShouldListEach() {
+        // When
+        brandIndex.onDeviceChanged(event(ChangeType.CREATED, "Sap", null));
+        brandIndex.onDeviceChanged(event(ChangeType.UPDATED, "Sony", "SAP"));
+
+        // Then
+        assertThat(brandIndex.suggest("sa", 10)).containsExactly(new BrandCountDto("Samsung", 5), new BrandCountDto("Sap", 1));
+        assertThat(brandIndex.suggest("SO", 10)).containsExactly(new BrandCountDto("Sony", 3));
+    }
+
+    @Test
+    @DisplayName("Should follow the writes of this node and hide brands left without devices")
+    void onDeviceChanged_ShouldMaintainTheCounts() {
+        // When
+        brandIndex.onDeviceChanged(event(ChangeType.CREATED, "Google", null));
+        brandIndex.onDeviceChanged(event(ChangeType.UPDATED, "Apple", "SAP"));
+        brandIndex.onDeviceChanged(event(ChangeType.UPDATED, "Apple", null));
+        brandIndex.onDeviceChanged(event(ChangeType.DELETED, "Sony", null));
+
+        // Then
+        assertThat(brandIndex.suggest("", 10)).containsExactly(new BrandCountDto("Apple", 4), new BrandCountDto("Google", 1),
+                new BrandCountDto("Samsung", 5), new BrandCountDto("Sony", 1));
+    }
+
+    @Test
+    @DisplayName("Should replace the counts with the ones of the database on rebuild")
+    void rebuild_ShouldReloadTheCounts() {
+        // Given
+        brandIndex.onDeviceChanged(event(ChangeType.CREATED, "Google", null));
+        given(deviceRepository.countDevicesPerBrand()).willReturn(List.of(new BrandCountDto("Apple", 7)));
+
+        // When
+        brandIndex.rebuild();
+
+        // Then
+        assertThat(brandIndex.suggest("", 10)).containsExactly(new BrandCountDto("Apple", 7));
+    }
+}
@@ -0,0 +1,34 @@
+package com.cpsoneghett.codingtask.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceIdBloomFilterTest {
+
+    @Test
+    @DisplayName("Should never report an added id as absent")
+    void mightContain_ForAddedIds_ShouldAlwaysBeTrue() {
+        DeviceIdBloomFilter filter = new DeviceIdBloomFilter(100_000, 0.01);
+        for (long id = 1; id <= 100_000; id++) filter.put(id);
+
+        for (long id = 1; id <= 100_000; id++) {
+            assertThat(filter.mightContain(id)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep false positives close to the configured rate")
+    void mightContain_ForUnknownIds_ShouldRespectFalsePositiveRate() {
+        DeviceIdBloomFilter filter = new DeviceIdBloomFilter(100_000, 0.01);
+        for (long id = 1; id <= 100_000; id++) filter.put(id);
+
+        int falsePositives = 0;
+        for (long id = 1_000_001; id <= 1_100_000; id++) {
+            if (filter.mightContain(id)) falsePositives++;
+        }
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
@@ -0,0 +1,121 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceIdFilterTest {
+
+    @Mock
+    private DeviceRepository deviceRepository;
+    private DeviceIdFilter idFilter;
+
+    @BeforeEach
+    void setUp() {
+        idFilter = new DeviceIdFilter(deviceRepository, 0.0001, Duration.ZERO);
+        given(deviceRepository.count()).willReturn(3L);
+        given(deviceRepository.idSequences()).willReturn(1);
+    }
+
+    @Test
+    @DisplayName("Should only rule out ids up to the highest one the previous scan saw")
+    void mightContain_AboveTheScannedIds_ShouldFallThrough() {
+        // Given
+        given(deviceRepository.findIdsAfter(eq(0L), any())).willReturn(List.of(1L, 2L, 5L));
+
+        // When
+        idFilter.rebuild();
+        idFilter.rebuild();
+
+        // Then
+        assertThat(idFilter.mightContain(2L)).isTrue();
+        assertThat(idFilter.mightContain(3L)).isFalse();
+        assertThat(idFilter.mightContain(6L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should find an id below the highest scanned one that commits after the scan")
+    void mightContain_IdCommittedAfterTheScan_ShouldFallThrough() {
+        // Given
+        given(deviceRepository.findIdsAfter(eq(0L), any())).willReturn(List.of(1L, 2L, 5L));
+        idFilter.rebuild();
+
+        // When
+        given(deviceRepository.findIdsAfter(eq(0L), any())).willReturn(List.of(1L, 2L, 3L, 5L));
+
+        // Then
+        assertThat(idFilter.mightContain(3L)).isTrue();
+
+        // When
+        idFilter.rebuild();
+
+        // Then
+        assertThat(idFilter.mightContain(3L)).isTrue();
+        assertThat(idFilter.mightContain(4L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should not rule out ids on the scan of a build that ended within the settle time")
+    void mightContain_AfterRecentScan_ShouldFallThrough() {
+        // Given
+        DeviceIdFilter settlingFilter = new DeviceIdFilter(deviceRepository, 0.0001, Duration.ofHours(1));
+        given(deviceRepository.findIdsAfter(eq(0L), any())).willReturn(List.of(1L, 2L, 5L));
+
+        // When
+        settlingFilter.rebuild();
+        settlingFilter.rebuild();
+
+        // Then
+        assertThat(settlingFilter.mightContain(3L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep a high-water mark per id sequence")
+    void mightContain_WithSeveralIdSequences_ShouldUseTheMarkOfTheSequence() {
+        // Given
+        given(deviceRepository.idSequences()).willReturn(2);
+        given(deviceRepository.findIdsAfter(eq(0L), any())).willReturn(List.of(1L, 2L, 3L, 6L, 8L));
+
+        // When
+        idFilter.rebuild();
+        idFilter.rebuild();
+
+        // Then
+        assertThat(idFilter.mightContain(4L)).isFalse();
+        assertThat(idFilter.mightContain(5L)).isTrue();
+        assertThat(idFilter.mightContain(7L)).isTrue();
+        assertThat(idFilter.mightContain(10L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep ids added while the rebuild scans")
+    void add_DuringRebuild_ShouldReachTheNewFilter() {
+        // Given
+        given(deviceRepository.findIdsAfter(eq(0L), any())).willReturn(List.of(1L, 2L, 5L));
+        idFilter.rebuild();
+        given(deviceRepository.findIdsAfter(eq(0L), any())).willAnswer(invocation -> {
+            idFilter.add(4L);
+            return List.of(1L, 2L, 5L);
+        });
+
+        // When
+        idFilter.rebuild();
+
+        // Then
+        assertThat(idFilter.mightContain(4L)).isTrue();
+        assertThat(idFilter.mightContain(3L)).isFalse();
+    }
+}
@@ -0,0 +1,91 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceJsonCacheTest {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DeviceJsonCache jsonCache;
+    private Device device;
+
+    @BeforeEach
+    void setUp() {
+        jsonCache = new DeviceJsonCache(objectMapper, meterRegistry, DataSize.ofMegabytes(1));
+
+        device = new Device("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
+        device.setId(1L);
+        device.setCreatedAt(UPDATED_AT);
+        device.setUpdatedAt(UPDATED_AT);
+    }
+
+    private double hits() {
+        return meterRegistry.get("device.json.cache.requests").tag("result", "hit").counter().count();
+    }
+
+    @Test
+    @DisplayName("Should render what Jackson renders and reuse it until the version changes")
+    void render_ShouldReuseJsonOfTheSameVersion() throws Exception {
+        // Given
+        byte[] expected = objectMapper.writeValueAsBytes(device);
+
+        // When
+        byte[] first = jsonCache.render(device);
+        byte[] second = jsonCache.render(device);
+        device.setState(DeviceState.IN_USE);
+        device.setUpdatedAt(UPDATED_AT.plusSeconds(1));
+        byte[] changed = jsonCache.render(device);
+
+        // Then
+        assertThat(first).isEqualTo(expected);
+        assertThat(second).isSameAs(first);
+        assertThat(changed).isEqualTo(objectMapper.writeValueAsBytes(device));
+        assertThat(hits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should write devices nested in other responses from the cache")
+    void render_WithNestedDevices_ShouldUseCachedJson() throws Exception {
+        // Given
+        DeviceLookupResponseDto lookup = new DeviceLookupResponseDto(List.of(device), List.of(2L));
+        jsonCache.render(device);
+
+        // When
+        byte[] json = jsonCache.render(lookup);
+
+        // Then
+        assertThat(json).isEqualTo(objectMapper.writeValueAsBytes(lookup));
+        assertThat(hits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should render again after a write through the service")
+    void onDeviceChanged_ShouldDropTheEntry() {
+        // Given
+        jsonCache.render(device);
+
+        // When
+        jsonCache.onDeviceChanged(new DeviceChangedEvent(ChangeType.UPDATED, device));
+        jsonCache.render(device);
+
+        // Then
+        assertThat(hits()).isZero();
+    }
+}
@@ -0,0 +1,164 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceLookupCacheTest {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_456_000);
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger checks = new AtomicInteger();
+    private DeviceLookupCache cache;
+    private Device device;
+    private Function<Long, Device> loader;
+
+    @BeforeEach
+    void setUp() {
+        cache = new DeviceLookupCache(new SimpleMeterRegistry(),
+                new LookupCacheProperties(100, Duration.ofMinutes(1), null, Duration.ofMinutes(1), 10));
+
+        device = new Device("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
+        device.setId(1L);
+        device.setUpdatedAt(UPDATED_AT);
+        loader = id -> {
+            loads.incrementAndGet();
+            return device;
+        };
+    }
+
+    private Function<Long, Optional<LocalDateTime>> updatedAt(LocalDateTime value) {
+        return id -> {
+            checks.incrementAndGet();
+            return Optional.ofNullable(value);
+        };
+    }
+
+    @Test
+    @DisplayName("Should serve copies of a loaded device until it changes")
+    void get_ShouldLoadOnceUntilChanged() {
+        Device first = cache.get(1L, loader, updatedAt(UPDATED_AT));
+        Device second = cache.get(1L, loader, updatedAt(UPDATED_AT));
+        second.setName("Changed");
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.get(1L, loader, updatedAt(UPDATED_AT)).getName()).isEqualTo("iPhone 15 Pro");
+        assertThat(checks).hasValue(0);
+
+        cache.onDeviceChanged(new DeviceChangedEvent(ChangeType.UPDATED, first));
+        cache.get(1L, loader, updatedAt(UPDATED_AT));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should load only the ids it does not hold, and hold them afterwards")
+    void getAll_ShouldLoadOnlyTheMissingIds() {
+        cache.get(1L, loader, updatedAt(UPDATED_AT));
+        Device other = new Device("Pixel 9", "Google", DeviceState.AVAILABLE);
+        other.setId(2L);
+        List<List<Long>> loaded = new ArrayList<>();
+        Function<List<Long>, Collection<Device>> bulkLoader = ids -> {
+            loaded.add(ids);
+            return List.of(other);
+        };
+
+        assertThat(cache.getAll(List.of(1L, 2L, 3L), bulkLoader)).containsOnlyKeys(1L, 2L);
+        assertThat(cache.getAll(List.of(1L, 2L), bulkLoader)).containsOnlyKeys(1L, 2L);
+
+        assertThat(loaded).containsExactly(List.of(2L, 3L));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should not store a load that raced with a change")
+    void get_WhenChangedWhileLoading_ShouldNotStore() {
+        Function<Long, Device> racingLoader = id -> {
+            cache.onDeviceChanged(new DeviceChangedEvent(ChangeType.UPDATED, device));
+            return loader.apply(id);
+        };
+
+        cache.get(1L, racingLoader, updatedAt(UPDATED_AT));
+        cache.get(1L, loader, updatedAt(UPDATED_AT));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should not hand a load started before a change to reads made after it")
+    void get_WhenChangedWhileLoadInFlight_ShouldLoadAgain() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, Device> blockingLoader = id -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return loader.apply(id);
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Device> before = executor.submit(() -> cache.get(1L, blockingLoader, updatedAt(UPDATED_AT)));
+            loading.await();
+
+            cache.onDeviceChanged(new DeviceChangedEvent(ChangeType.UPDATED, device));
+            Device after = cache.get(1L, loader, updatedAt(UPDATED_AT));
+            release.countDown();
+
+            assertThat(after).isNotSameAs(before.get());
+            assertThat(loads).hasValue(2);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should check preloaded devices once and reload the ones that changed")
+    void get_WhenPreloaded_ShouldVerifyOnFirstRead(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("lookup-cache.snapshot");
+        LookupCacheSnapshot.write(file, List.of(CachedDevice.of(device)));
+
+        cache.preload(LookupCacheSnapshot.read(file));
+        Device first = cache.get(1L, loader, updatedAt(UPDATED_AT));
+        cache.get(1L, loader, updatedAt(UPDATED_AT));
+
+        assertThat(first.getName()).isEqualTo("iPhone 15 Pro");
+        assertThat(first.getUpdatedAt()).isEqualTo(UPDATED_AT);
+        assertThat(checks).hasValue(1);
+        assertThat(loads).hasValue(0);
+
+        DeviceLookupCache restarted = new DeviceLookupCache(new SimpleMeterRegistry(),
+                new LookupCacheProperties(100, Duration.ofMinutes(1), null, Duration.ofMinutes(1), 10));
+        restarted.preload(LookupCacheSnapshot.read(file));
+        restarted.get(1L, loader, updatedAt(UPDATED_AT.plusSeconds(1)));
+
+        assertThat(loads).hasValue(1);
+    }
+}
@@ -0,0 +1,101 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class DevicePageCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    @Mock
+    private BrandDictionary brandDictionary;
+    private DevicePageCache pageCache;
+    private Supplier<Page<Device>> loader;
+
+    @BeforeEach
+    void setUp() {
+        DeviceJsonCache jsonCache = new DeviceJsonCache(new ObjectMapper().findAndRegisterModules(), meterRegistry, DataSize.ofMegabytes(1));
+        pageCache = new DevicePageCache(jsonCache, brandDictionary, meterRegistry, DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+
+        Device device = new Device("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
+        device.setId(1L);
+        loader = () -> {
+            loads.incrementAndGet();
+            return new PageImpl<>(List.of(device), PageRequest.of(0, 20), 1);
+        };
+    }
+
+    @Test
+    @DisplayName("Should serve repeated requests from the cache until any write bumps the global generation")
+    void get_WithoutBrandFilter_ShouldBeInvalidatedByAnyWrite() {
+        DeviceFilter filter = new DeviceFilter(null, "available");
+
+        byte[] first = pageCache.get(filter, PageRequest.of(0, 20), loader);
+        byte[] second = pageCache.get(new DeviceFilter(null, " AVAILABLE "), PageRequest.of(0, 20), loader);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(loads).hasValue(1);
+
+        pageCache.onDeviceChanged(new DeviceChangedEvent(ChangeType.CREATED, new Device("Pixel 9", "Google", DeviceState.AVAILABLE)));
+        pageCache.get(filter, PageRequest.of(0, 20), loader);
+
+        assertThat(loads).hasValue(2);
+        assertThat(meterRegistry.get("device.page.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("device.page.cache.requests").tag("result", "stale").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should only invalidate brand filtered pages on writes to a matching brand")
+    void get_WithBrandFilter_ShouldOnlyBeInvalidatedByMatchingBrands() {
+        given(brandDictionary.size()).willReturn(2);
+        given(brandDictionary.namesContaining("app")).willReturn(List.of("Apple"));
+        DeviceFilter filter = new DeviceFilter("APP", null);
+
+        pageCache.get(filter, PageRequest.of(0, 20), loader);
+        pageCache.onDeviceChanged(new DeviceChangedEvent(ChangeType.CREATED, new Device("Pixel 9", "Google", DeviceState.AVAILABLE)));
+        pageCache.get(filter, PageRequest.of(0, 20), loader);
+
+        assertThat(loads).hasValue(1);
+
+        Device moved = new Device("iPhone 15 Pro", "Google", DeviceState.AVAILABLE);
+        pageCache.onDeviceChanged(new DeviceChangedEvent(ChangeType.UPDATED, moved, "Apple"));
+        pageCache.get(filter, PageRequest.of(0, 20), loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should share entries between sort aliases")
+    void get_WithSortAlias_ShouldShareEntry() {
+        pageCache.get(new DeviceFilter(null, null), PageRequest.of(0, 20, Sort.by("createdAt")), loader);
+        pageCache.get(new DeviceFilter(null, null), PageRequest.of(0, 20, Sort.by("dt_created")), loader);
+
+        assertThat(loads).hasValue(1);
+    }
+}
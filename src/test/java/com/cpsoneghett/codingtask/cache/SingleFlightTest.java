@@ -0,0 +1,108 @@
+package com.cpsoneghett.codingtask.cache;
+
+import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<Long, String> flights = new SingleFlight<>("device", meterRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("device.read.coalescing").tag("read", "device").tag("result", result).counter().count();
+    }
+
+    /**
+     * Starts the callers and returns once all but the leader are waiting for its load.
+     */
+    private List<Future<String>> loadConcurrently(Supplier<String> loader) throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> flights.load(1L, () -> {
+                loads.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return loader.get();
+            })));
+        }
+        while (count("coalesced") < CALLERS - 1) Thread.sleep(1);
+        return results;
+    }
+
+    @Test
+    @DisplayName("Should run one load for identical concurrent reads and hand its result to all of them")
+    void load_WhenIdenticalReadsInFlight_ShouldShareOneLoad() throws Exception {
+        // Given
+        List<Future<String>> results = loadConcurrently(() -> "iPhone 15 Pro");
+
+        // When
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) assertThat(result.get()).isEqualTo("iPhone 15 Pro");
+        assertThat(loads).hasValue(1);
+        assertThat(count("executed")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should hand the exception of a failed load to every caller that waited for it")
+    void load_WhenLoadFails_ShouldFailAllWaiters() throws Exception {
+        // Given
+        List<Future<String>> results = loadConcurrently(() -> {
+            throw new DeviceNotFoundException(1L);
+        });
+
+        // When
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertThatThrownBy(result::get).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(DeviceNotFoundException.class);
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should load again once the previous load completed")
+    void load_AfterLoadCompleted_ShouldRunAnotherLoad() {
+        // When
+        flights.load(1L, () -> "first");
+        String second = flights.load(1L, () -> "second");
+
+        // Then
+        assertThat(second).isEqualTo("second");
+        assertThat(count("executed")).isEqualTo(2);
+        assertThat(count("coalesced")).isZero();
+    }
+}
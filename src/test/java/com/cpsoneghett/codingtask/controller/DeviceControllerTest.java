@@ -1,27 +1,57 @@
 package com.cpsoneghett.codingtask.controller;
 
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.cache.BrandIndex;
+import com.cpsoneghett.codingtask.cache.DeviceJsonCache;
+import com.cpsoneghett.codingtask.config.BulkheadConfig;
+import com.cpsoneghett.codingtask.cache.DevicePageCache;
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
 import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceHistoryEntryDto;
+import com.cpsoneghett.codingtask.domain.DeviceHistoryResponseDto;
+import com.cpsoneghett.codingtask.domain.DeviceLeaseDto;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
 import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
 import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.DeviceSyncResponseDto;
+import com.cpsoneghett.codingtask.exception.BulkheadFullException;
 import com.cpsoneghett.codingtask.exception.DeviceInUseException;
 import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import com.cpsoneghett.codingtask.exception.DeviceUnavailableException;
+import com.cpsoneghett.codingtask.exception.InvalidSortException;
+import com.cpsoneghett.codingtask.exception.LeaseNotHeldException;
+import com.cpsoneghett.codingtask.exception.SyncTokenExpiredException;
+import com.cpsoneghett.codingtask.service.DeviceHistoryService;
+import com.cpsoneghett.codingtask.service.DeviceLeaseService;
 import com.cpsoneghett.codingtask.service.DeviceServiceImpl;
+import com.cpsoneghett.codingtask.service.DeviceStateReporter;
+import com.cpsoneghett.codingtask.service.DeviceStateReporter.Outcome;
+import com.cpsoneghett.codingtask.service.DeviceSyncService;
 import com.cpsoneghett.codingtask.utils.OperationType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
 import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.BDDMockito.willThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -29,11 +59,13 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @WebMvcTest(DeviceController.class)
+@Import({DeviceJsonCache.class, Bulkheads.class, BulkheadConfig.class, SimpleMeterRegistry.class})
 class DeviceControllerTest {
 
     private final Long deviceId = 1L;
@@ -43,6 +75,18 @@ class DeviceControllerTest {
     private ObjectMapper objectMapper;
     @MockitoBean
     private DeviceServiceImpl deviceService;
+    @MockitoBean
+    private DeviceLeaseService leaseService;
+    @MockitoBean
+    private DevicePageCache pageCache;
+    @MockitoBean
+    private DeviceStateReporter stateReporter;
+    @MockitoBean
+    private DeviceSyncService syncService;
+    @MockitoBean
+    private BrandIndex brandIndex;
+    @MockitoBean
+    private DeviceHistoryService historyService;
     private Device device;
     private DeviceRequestDto deviceRequestDto;
 
@@ -58,6 +102,74 @@ class DeviceControllerTest {
         );
     }
 
+    @Nested
+    @DisplayName("GET /v1/devices")
+    class FindAll {
+        @Test
+        @DisplayName("Should return 200 OK with the cached page body")
+        void findAll_ShouldReturnCachedPage() throws Exception {
+            // Given
+            given(pageCache.get(any(), any(), any())).willReturn("{\"content\":[],\"totalElements\":0}".getBytes());
+
+            // When / Then
+            mockMvc.perform(get("/v1/devices").param("brand", "apple"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.totalElements", is(0)));
+        }
+
+        @Test
+        @DisplayName("Should return 400 Bad Request for an unsupported sort property")
+        void findAll_WithUnsupportedSort_ShouldReturnBadRequest() throws Exception {
+            // Given
+            given(pageCache.get(any(), any(), any())).willThrow(new InvalidSortException("color", List.of("id", "name")));
+
+            // When / Then
+            mockMvc.perform(get("/v1/devices").param("sort", "color,asc"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.title", is("Invalid parameter.")))
+                    .andExpect(jsonPath("$.status", is(400)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /v1/devices/brands")
+    class SuggestBrands {
+        @Test
+        @DisplayName("Should return 200 OK with the brands of the index")
+        void suggestBrands_ShouldReturnBrandsFromTheIndex() throws Exception {
+            // Given
+            given(brandIndex.suggest("sam", 10)).willReturn(List.of(new BrandCountDto("Samsung", 42)));
+
+            // When / Then
+            mockMvc.perform(get("/v1/devices/brands").param("prefix", "sam"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].brand", is("Samsung")))
+                    .andExpect(jsonPath("$[0].devices", is(42)));
+            then(deviceService).shouldHaveNoInteractions();
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /v1/devices/{id}/history")
+    class History {
+        @Test
+        @DisplayName("Should return 200 OK with the page of changes and the cursor of the next one")
+        void history_ShouldReturnChangesAndNextCursor() throws Exception {
+            // Given
+            DeviceHistoryEntryDto entry = new DeviceHistoryEntryDto(41L, deviceId, ChangeType.UPDATED, "iPhone 15 Pro",
+                    "Apple", DeviceState.IN_USE, LocalDateTime.of(2026, 3, 1, 12, 0));
+            given(historyService.history(deviceId, 50L, 1)).willReturn(new DeviceHistoryResponseDto(List.of(entry), 41L));
+
+            // When / Then
+            mockMvc.perform(get("/v1/devices/{id}/history", deviceId).param("before", "50").param("size", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.entries[0].change", is("UPDATED")))
+                    .andExpect(jsonPath("$.entries[0].state", is("IN_USE")))
+                    .andExpect(jsonPath("$.next", is(41)));
+        }
+    }
+
     @Nested
     @DisplayName("GET /v1/devices/{id}")
     class GetById {
@@ -87,6 +199,171 @@ class DeviceControllerTest {
                     .andExpect(jsonPath("$.title", is("Business rule violation.")))
                     .andExpect(jsonPath("$.status", is(404)));
         }
+
+        @Test
+        @DisplayName("Should return 503 Service Unavailable with Retry-After when the workload is saturated")
+        void findById_WhenBulkheadFull_ShouldReturnServiceUnavailable() throws Exception {
+            // Given
+            given(deviceService.findById(deviceId)).willThrow(new BulkheadFullException("interactive"));
+
+            // When / Then
+            mockMvc.perform(get("/v1/devices/{id}", deviceId))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(jsonPath("$.status", is(503)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /v1/devices/sync")
+    class Sync {
+        @Test
+        @DisplayName("Should return 200 OK with the changes, deletions and next token")
+        void sync_WithToken_ShouldReturnChanges() throws Exception {
+            // Given
+            given(syncService.changesSince("token", 500)).willReturn(new DeviceSyncResponseDto(List.of(device), List.of(2L), "next", false));
+
+            // When / Then
+            mockMvc.perform(get("/v1/devices/sync").param("since", "token"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changed[0].id", is(deviceId.intValue())))
+                    .andExpect(jsonPath("$.deleted[0]", is(2)))
+                    .andExpect(jsonPath("$.token", is("next")))
+                    .andExpect(jsonPath("$.hasMore", is(false)));
+        }
+
+        @Test
+        @DisplayName("Should return 410 Gone when the token is older than the tombstone retention")
+        void sync_WithExpiredToken_ShouldReturnGone() throws Exception {
+            // Given
+            given(syncService.changesSince("old", 500)).willThrow(new SyncTokenExpiredException(Duration.ofDays(7)));
+
+            // When / Then
+            mockMvc.perform(get("/v1/devices/sync").param("since", "old"))
+                    .andExpect(status().isGone())
+                    .andExpect(jsonPath("$.status", is(410)));
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /v1/devices/lookup")
+    class Lookup {
+        @Test
+        @DisplayName("Should return 200 OK with found devices and missing ids")
+        void findAllById_WithIds_ShouldReturnDevicesAndMissing() throws Exception {
+            // Given
+            given(deviceService.findAllById(List.of(deviceId, 2L))).willReturn(new DeviceLookupResponseDto(List.of(device), List.of(2L)));
+
+            // When / Then
+            mockMvc.perform(post("/v1/devices/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\": [1, 2]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.devices[0].id", is(deviceId.intValue())))
+                    .andExpect(jsonPath("$.missing[0]", is(2)));
+        }
+
+        @Test
+        @DisplayName("Should return 400 Bad Request for an empty list of ids")
+        void findAllById_WithNoIds_ShouldReturnBadRequest() throws Exception {
+            mockMvc.perform(post("/v1/devices/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\": []}"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /v1/devices/{id}/checkout")
+    class Checkout {
+        @Test
+        @DisplayName("Should return 200 OK with the lease when the device is available")
+        void checkout_WhenDeviceAvailable_ShouldReturnLease() throws Exception {
+            // Given
+            LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(5);
+            given(leaseService.checkout(deviceId, Duration.ofMinutes(5))).willReturn(new DeviceLeaseDto(device, "token", expiresAt));
+
+            // When / Then
+            mockMvc.perform(post("/v1/devices/{id}/checkout", deviceId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"leaseDuration\": \"PT5M\"}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.device.id", is(deviceId.intValue())))
+                    .andExpect(jsonPath("$.leaseToken", is("token")));
+        }
+
+        @Test
+        @DisplayName("Should return 409 Conflict when the device is not available")
+        void checkout_WhenDeviceUnavailable_ShouldReturnConflict() throws Exception {
+            // Given
+            given(leaseService.checkout(deviceId, null)).willThrow(new DeviceUnavailableException(deviceId));
+
+            // When / Then
+            mockMvc.perform(post("/v1/devices/{id}/checkout", deviceId))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.title", is("Business rule violation.")))
+                    .andExpect(jsonPath("$.status", is(409)));
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /v1/devices/state-reports")
+    class StateReports {
+        @Test
+        @DisplayName("Should return 202 Accepted with the number of transitions and the unknown ids")
+        void reportStates_ShouldReturnAccepted() throws Exception {
+            // Given
+            given(stateReporter.report(deviceId, DeviceState.INACTIVE)).willReturn(Outcome.CHANGED);
+            given(stateReporter.report(2L, DeviceState.AVAILABLE)).willReturn(Outcome.UNCHANGED);
+            given(stateReporter.report(3L, DeviceState.AVAILABLE)).willReturn(Outcome.UNKNOWN);
+
+            // When / Then
+            mockMvc.perform(post("/v1/devices/state-reports")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"reports\": [{\"id\": 1, \"state\": \"INACTIVE\"}, {\"id\": 2, \"state\": \"AVAILABLE\"}, {\"id\": 3, \"state\": \"AVAILABLE\"}]}"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.received", is(3)))
+                    .andExpect(jsonPath("$.changed", is(1)))
+                    .andExpect(jsonPath("$.unknown[0]", is(3)));
+        }
+
+        @Test
+        @DisplayName("Should return 400 Bad Request for a report without state")
+        void reportStates_WithoutState_ShouldReturnBadRequest() throws Exception {
+            mockMvc.perform(post("/v1/devices/state-reports")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"reports\": [{\"id\": 1}]}"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Should return 404 Not Found for a single report of an unknown device")
+        void reportState_WhenDeviceUnknown_ShouldReturnNotFound() throws Exception {
+            // Given
+            given(stateReporter.report(deviceId, DeviceState.INACTIVE)).willReturn(Outcome.UNKNOWN);
+
+            // When / Then
+            mockMvc.perform(post("/v1/devices/{id}/state-report", deviceId).param("state", "INACTIVE"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /v1/devices/{id}/checkin")
+    class Checkin {
+        @Test
+        @DisplayName("Should return 409 Conflict when the lease token does not match")
+        void checkin_WithWrongToken_ShouldReturnConflict() throws Exception {
+            // Given
+            given(leaseService.checkin(deviceId, "other")).willThrow(new LeaseNotHeldException(deviceId));
+
+            // When / Then
+            mockMvc.perform(post("/v1/devices/{id}/checkin", deviceId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"leaseToken\": \"other\"}"))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.status", is(409)));
+        }
     }
 
     @Nested
@@ -0,0 +1,99 @@
+package com.cpsoneghett.codingtask.controller;
+
+import com.cpsoneghett.codingtask.config.IdempotencyConfig;
+import com.cpsoneghett.codingtask.domain.ImportJobDto;
+import com.cpsoneghett.codingtask.domain.ImportJobStatus;
+import com.cpsoneghett.codingtask.exception.ImportJobFinishedException;
+import com.cpsoneghett.codingtask.exception.ImportJobNotFoundException;
+import com.cpsoneghett.codingtask.idempotency.IdempotencyFilter;
+import com.cpsoneghett.codingtask.service.DeviceImportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DeviceImportController.class)
+@Import(IdempotencyConfig.class)
+class DeviceImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockitoBean
+    private DeviceImportService importService;
+
+    private static ImportJobDto job(ImportJobStatus status) {
+        return new ImportJobDto(7L, status, 42, 0, 0, 0, null, LocalDateTime.now(), null, null);
+    }
+
+    @Test
+    @DisplayName("POST should return 202 Accepted with the location of the job")
+    void create_ShouldReturnAccepted() throws Exception {
+        // Given
+        given(importService.create(any(InputStream.class))).willReturn(job(ImportJobStatus.QUEUED));
+
+        // When / Then
+        mockMvc.perform(post("/v1/device-imports").contentType("text/csv").content("name,brand,state\nPixel 9,Google,AVAILABLE\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", endsWith("/v1/device-imports/7")))
+                .andExpect(jsonPath("$.status", is("QUEUED")));
+    }
+
+    @Test
+    @DisplayName("POST retried with the same Idempotency-Key should replay the first response without importing again")
+    void create_RetriedWithSameKey_ShouldReplay() throws Exception {
+        // Given
+        String csv = "name,brand,state\nPixel 9,Google,AVAILABLE\n";
+        given(importService.create(any(InputStream.class))).willReturn(job(ImportJobStatus.QUEUED));
+        mockMvc.perform(post("/v1/device-imports").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "upload-1")
+                        .contentType("text/csv").content(csv))
+                .andExpect(status().isAccepted());
+
+        // When / Then
+        mockMvc.perform(post("/v1/device-imports").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "upload-1")
+                        .contentType("text/csv").content(csv))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id", is(7)));
+        then(importService).should(times(1)).create(any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("GET should return 404 Not Found when the job does not exist")
+    void findById_WhenJobDoesNotExist_ShouldReturnNotFound() throws Exception {
+        // Given
+        given(importService.findById(7L)).willThrow(new ImportJobNotFoundException(7L));
+
+        // When / Then
+        mockMvc.perform(get("/v1/device-imports/7"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Cancel should return 409 Conflict when the job already finished")
+    void cancel_WhenJobFinished_ShouldReturnConflict() throws Exception {
+        // Given
+        given(importService.cancel(7L)).willThrow(new ImportJobFinishedException(7L, ImportJobStatus.COMPLETED));
+
+        // When / Then
+        mockMvc.perform(post("/v1/device-imports/7/cancel"))
+                .andExpect(status().isConflict());
+    }
+}
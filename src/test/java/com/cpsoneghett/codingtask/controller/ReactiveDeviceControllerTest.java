@@ -0,0 +1,177 @@
+package com.cpsoneghett.codingtask.controller;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.exception.DeviceInUseException;
+import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import com.cpsoneghett.codingtask.exception.InvalidSortException;
+import com.cpsoneghett.codingtask.service.ReactiveDeviceService;
+import com.cpsoneghett.codingtask.utils.OperationType;
+import com.github.fge.jsonpatch.JsonPatchException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@WebFluxTest(ReactiveDeviceController.class)
+@ActiveProfiles("reactive")
+class ReactiveDeviceControllerTest {
+
+    private final Long deviceId = 1L;
+    @Autowired
+    private WebTestClient webTestClient;
+    @MockitoBean
+    private ReactiveDeviceService deviceService;
+    private Device device;
+
+    @BeforeEach
+    void setUp() {
+        device = new Device("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
+        device.setId(deviceId);
+    }
+
+    @Nested
+    @DisplayName("GET /v1/devices")
+    class FindAll {
+        @Test
+        @DisplayName("Should return 400 Bad Request for an unsupported sort property")
+        void findAll_WithUnsupportedSort_ShouldReturnBadRequest() {
+            // Given
+            given(deviceService.findAll(any(), any())).willReturn(Mono.error(new InvalidSortException("color", List.of("id", "name"))));
+
+            // When / Then
+            webTestClient.get().uri("/v1/devices?sort=color,asc").exchange()
+                    .expectStatus().isBadRequest()
+                    .expectBody()
+                    .jsonPath("$.title").isEqualTo("Invalid parameter.")
+                    .jsonPath("$.status").isEqualTo(400);
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /v1/devices/{id}")
+    class GetById {
+        @Test
+        @DisplayName("Should return 200 OK and Device when found")
+        void findById_WhenDeviceExists_ShouldReturnDevice() {
+            // Given
+            given(deviceService.findById(deviceId)).willReturn(Mono.just(device));
+
+            // When / Then
+            webTestClient.get().uri("/v1/devices/{id}", deviceId).exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo(deviceId.intValue())
+                    .jsonPath("$.name").isEqualTo(device.getName());
+        }
+
+        @Test
+        @DisplayName("Should return 404 Not Found when device does not exist")
+        void findById_WhenDeviceNotExists_ShouldReturnNotFound() {
+            // Given
+            given(deviceService.findById(deviceId)).willReturn(Mono.error(new DeviceNotFoundException(deviceId)));
+
+            // When / Then
+            webTestClient.get().uri("/v1/devices/{id}", deviceId).exchange()
+                    .expectStatus().isNotFound()
+                    .expectBody()
+                    .jsonPath("$.title").isEqualTo("Business rule violation.")
+                    .jsonPath("$.status").isEqualTo(404);
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /v1/devices")
+    class CreateDevice {
+        @Test
+        @DisplayName("Should return 400 Bad Request for invalid request body")
+        void create_WithInvalidBody_ShouldReturnBadRequest() {
+            // When / Then
+            webTestClient.post().uri("/v1/devices")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new DeviceRequestDto("", "", null))
+                    .exchange()
+                    .expectStatus().isBadRequest()
+                    .expectBody()
+                    .jsonPath("$.title").isEqualTo("Business rule violation.")
+                    .jsonPath("$.errors.length()").isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should return 400 Bad Request for an unknown field")
+        void create_WithUnknownField_ShouldReturnBadRequest() {
+            // When / Then
+            webTestClient.post().uri("/v1/devices")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue("{\"name\": \"Pixel\", \"brand\": \"Google\", \"state\": \"AVAILABLE\", \"createdAt\": \"2024-01-01T00:00:00\"}")
+                    .exchange()
+                    .expectStatus().isBadRequest()
+                    .expectBody()
+                    .jsonPath("$.title").isEqualTo("Incomprehensive message.")
+                    .jsonPath("$.errors[0].userMessage").isEqualTo("The field 'createdAt' is automatically managed and cannot be provided in the request body.");
+        }
+    }
+
+    @Nested
+    @DisplayName("DELETE /v1/devices/{id}")
+    class DeleteDevice {
+        @Test
+        @DisplayName("Should return 204 No Content for successful deletion")
+        void delete_WhenDeviceCanBeDeleted_ShouldReturnNoContent() {
+            // Given
+            given(deviceService.delete(deviceId)).willReturn(Mono.empty());
+
+            // When / Then
+            webTestClient.delete().uri("/v1/devices/{id}", deviceId).exchange()
+                    .expectStatus().isNoContent();
+        }
+
+        @Test
+        @DisplayName("Should return 409 Conflict when deleting a device in use")
+        void delete_WhenDeviceInUse_ShouldReturnConflict() {
+            // Given
+            given(deviceService.delete(deviceId)).willReturn(Mono.error(new DeviceInUseException(deviceId, OperationType.DELETE)));
+
+            // When / Then
+            webTestClient.delete().uri("/v1/devices/{id}", deviceId).exchange()
+                    .expectStatus().isEqualTo(409)
+                    .expectBody()
+                    .jsonPath("$.title").isEqualTo("Business rule violation.")
+                    .jsonPath("$.status").isEqualTo(409);
+        }
+    }
+
+    @Nested
+    @DisplayName("PATCH /v1/devices/{id}")
+    class PatchDevice {
+        @Test
+        @DisplayName("Should return 400 Bad Request for invalid patch operation")
+        void partialUpdate_WithInvalidPatch_ShouldReturnBadRequest() {
+            // Given
+            given(deviceService.partialUpdate(eq(deviceId), any())).willReturn(Mono.error(new JsonPatchException("Invalid patch")));
+
+            // When / Then
+            webTestClient.patch().uri("/v1/devices/{id}", deviceId)
+                    .contentType(MediaType.valueOf("application/json-patch+json"))
+                    .bodyValue("[{\"op\": \"test\", \"path\": \"/name\", \"value\": \"invalid\"}]")
+                    .exchange()
+                    .expectStatus().isBadRequest()
+                    .expectBody()
+                    .jsonPath("$.title").isEqualTo("Incomprehensive message.");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.cpsoneghett.codingtask.dataset;
+
+import com.cpsoneghett.codingtask.dataset.DeviceDataset.DeviceRow;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DeviceDatasetTest {
+
+    private static final LocalDateTime CREATED_UNTIL = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final int ROWS = 100_000;
+
+    private static DeviceDataset dataset(long seed) {
+        return new DeviceDataset(seed, ROWS, 200, 1.1, CREATED_UNTIL, Duration.ofDays(1095));
+    }
+
+    @Test
+    @DisplayName("Should generate the same rows for the same seed, in any order")
+    void row_WithSameSeed_ShouldBeDeterministic() {
+        DeviceDataset dataset = dataset(42);
+        DeviceDataset same = dataset(42);
+
+        assertThat(same.brandNames()).isEqualTo(dataset.brandNames());
+        assertThat(same.row(77_777)).isEqualTo(dataset.row(77_777));
+        assertThat(LongStream.range(0, 100).mapToObj(same::row).toList())
+                .isEqualTo(LongStream.range(0, 100).mapToObj(dataset::row).toList());
+        assertThat(dataset(43).row(0)).isNotEqualTo(dataset.row(0));
+    }
+
+    @Test
+    @DisplayName("Should skew brands, favour available devices and spread creation over the configured span")
+    void rows_ShouldFollowTheDistributions() {
+        DeviceDataset dataset = dataset(42);
+        int[] brandCounts = new int[200];
+        Map<DeviceState, Integer> stateCounts = new EnumMap<>(DeviceState.class);
+
+        for (long i = 0; i < ROWS; i++) {
+            DeviceRow row = dataset.row(i);
+            brandCounts[row.brand()]++;
+            stateCounts.merge(row.state(), 1, Integer::sum);
+            assertThat(row.createdAt()).isBetween(CREATED_UNTIL.minusDays(1095), CREATED_UNTIL);
+        }
+
+        assertThat(brandCounts[0]).isGreaterThan(brandCounts[1]).isGreaterThan(brandCounts[10] * 5);
+        assertThat(brandCounts[0] / (double) ROWS).isCloseTo(0.21, within(0.01));
+        assertThat(stateCounts.get(DeviceState.AVAILABLE) / (double) ROWS).isCloseTo(0.70, within(0.01));
+        assertThat(dataset.row(0).createdAt()).isBefore(dataset.row(ROWS / 2).createdAt());
+        assertThat(dataset.row(ROWS - 1).createdAt()).isAfter(CREATED_UNTIL.minusMinutes(2));
+    }
+}
@@ -0,0 +1,33 @@
+package com.cpsoneghett.codingtask.domain.converter;
+
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class BrandConverterTest {
+
+    @Mock
+    private BrandDictionary brandDictionary;
+
+    @Test
+    @DisplayName("Should store brands as their dictionary key and read them back as names")
+    void convert_ShouldGoThroughTheDictionary() {
+        // Given
+        BrandConverter converter = new BrandConverter(brandDictionary);
+        given(brandDictionary.idFor("Apple")).willReturn(7);
+        given(brandDictionary.nameFor(7)).willReturn("Apple");
+
+        // When / Then
+        assertThat(converter.convertToDatabaseColumn("Apple")).isEqualTo(7);
+        assertThat(converter.convertToEntityAttribute(7)).isEqualTo("Apple");
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
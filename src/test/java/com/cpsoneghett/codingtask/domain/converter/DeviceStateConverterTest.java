@@ -0,0 +1,30 @@
+package com.cpsoneghett.codingtask.domain.converter;
+
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeviceStateConverterTest {
+
+    private final DeviceStateConverter converter = new DeviceStateConverter();
+
+    @Test
+    @DisplayName("Should store every state as its code and read it back")
+    void convert_ShouldRoundTripEveryState() {
+        for (DeviceState state : DeviceState.values()) {
+            assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(state))).isEqualTo(state);
+        }
+        assertThat(converter.convertToDatabaseColumn(DeviceState.IN_USE)).isEqualTo(2);
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject codes no state has")
+    void convertToEntityAttribute_WithUnknownCode_ShouldThrow() {
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(9)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
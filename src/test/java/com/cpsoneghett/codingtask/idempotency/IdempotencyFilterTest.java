@@ -0,0 +1,156 @@
+package com.cpsoneghett.codingtask.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyProperties properties = new IdempotencyProperties(true, 100, Duration.ofMinutes(1), Duration.ofSeconds(5),
+                IdempotencyProperties.StoreType.MEMORY);
+        filter = new IdempotencyFilter(new InMemoryIdempotencyStore(properties), new ObjectMapper().registerModule(new JavaTimeModule()),
+                properties.inFlightTimeout());
+    }
+
+    private FilterChain createDeviceChain(CountDownLatch release) {
+        return (request, response) -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            int id = executions.incrementAndGet();
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(200);
+            httpResponse.setContentType("application/json");
+            httpResponse.getOutputStream().write(("{\"id\":" + id + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private MockHttpServletRequest post(String key, String body) {
+        return post("/v1/devices", key, body);
+    }
+
+    private MockHttpServletRequest post(String path, String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    @Test
+    @DisplayName("Should replay the stored response for a retried key")
+    void retry_WithSameKey_ShouldReplayWithoutExecuting() throws Exception {
+        CountDownLatch released = new CountDownLatch(0);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(post("key-1", "{\"name\":\"a\"}"), first, createDeviceChain(released));
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        filter.doFilter(post("key-1", "{\"name\":\"a\"}"), retry, createDeviceChain(released));
+
+        assertThat(executions).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(200);
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused with a different payload")
+    void retry_WithDifferentPayload_ShouldReturnUnprocessableEntity() throws Exception {
+        CountDownLatch released = new CountDownLatch(0);
+
+        filter.doFilter(post("key-1", "{\"name\":\"a\"}"), new MockHttpServletResponse(), createDeviceChain(released));
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        filter.doFilter(post("key-1", "{\"name\":\"b\"}"), retry, createDeviceChain(released));
+
+        assertThat(executions).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    @DisplayName("Should fingerprint the whole body while the controller streams it")
+    void retry_OfStreamedUpload_ShouldCompareTheWholeBody() throws Exception {
+        String csv = "name,brand,state\nPixel 9,Google,AVAILABLE\n";
+        FilterChain importChain = (request, response) -> {
+            // reads the header row only, the filter hashes the rest
+            assertThat(request.getInputStream().readNBytes(17)).asString(StandardCharsets.UTF_8).isEqualTo("name,brand,state\n");
+            ((HttpServletResponse) response).setStatus(202);
+            executions.incrementAndGet();
+        };
+
+        filter.doFilter(post("/v1/device-imports", "key-1", csv), new MockHttpServletResponse(), importChain);
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        filter.doFilter(post("/v1/device-imports", "key-1", csv), retry, importChain);
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        filter.doFilter(post("/v1/device-imports", "key-1", csv.replace("Pixel 9", "Pixel 8")), changed, importChain);
+
+        assertThat(executions).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(202);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(changed.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    @DisplayName("Should execute once when concurrent requests share a key")
+    void concurrentRequests_WithSameKey_ShouldCoalesce() throws Exception {
+        CountDownLatch released = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(executor.submit(() -> {
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    filter.doFilter(post("key-1", "{}"), response, createDeviceChain(released));
+                    return response;
+                }));
+            }
+            Thread.sleep(100);
+            released.countDown();
+
+            for (Future<MockHttpServletResponse> response : responses) {
+                assertThat(response.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("{\"id\":1}");
+            }
+            assertThat(executions).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should pass through requests without the header")
+    void request_WithoutKey_ShouldExecuteEveryTime() throws Exception {
+        CountDownLatch released = new CountDownLatch(0);
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/devices");
+            request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+            filter.doFilter(request, new MockHttpServletResponse(), createDeviceChain(released));
+        }
+
+        assertThat(executions).hasValue(2);
+    }
+}
@@ -0,0 +1,80 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContinuousRecordingTest {
+
+    private final ContinuousRecording recording = new ContinuousRecording(
+            new FlightRecordingProperties(false, "default", Duration.ofMinutes(5), DataSize.ofMegabytes(10)));
+
+    @AfterEach
+    void tearDown() {
+        recording.stop();
+    }
+
+    @Test
+    @DisplayName("Should dump the device operations recorded while running")
+    void dump_WhileRunning_ShouldContainDeviceOperationEvents(@TempDir Path directory) throws Exception {
+        // given
+        assertThat(recording.start(null, null, null)).isTrue();
+        assertThat(recording.start(null, null, null)).isFalse();
+
+        // when
+        DeviceOperationEvent event = DeviceOperationEvent.begin("findById", 42L);
+        event.succeeded(1);
+        event.finish();
+        DeviceOperationEvent.begin("delete", 7L).finish();
+
+        Path file = directory.resolve("dump.jfr");
+        boolean dumped = recording.dump(file);
+
+        // then
+        assertThat(dumped).isTrue();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals(DeviceOperationEvent.NAME))
+                .toList();
+        assertThat(events).anySatisfy(recorded -> {
+            assertThat(recorded.getString("operation")).isEqualTo("findById");
+            assertThat(recorded.getLong("deviceId")).isEqualTo(42L);
+            assertThat(recorded.getInt("rowCount")).isEqualTo(1);
+            assertThat(recorded.getBoolean("succeeded")).isTrue();
+        });
+        assertThat(events).anySatisfy(recorded -> {
+            assertThat(recorded.getString("operation")).isEqualTo("delete");
+            assertThat(recorded.getBoolean("succeeded")).isFalse();
+        });
+    }
+
+    @Test
+    @DisplayName("Should not dump when no recording is running")
+    void dump_WhenStopped_ShouldReturnFalse(@TempDir Path directory) throws Exception {
+        assertThat(recording.stop()).isFalse();
+        assertThat(recording.dump(directory.resolve("dump.jfr"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should describe listings without filter values")
+    void shapeOf_ShouldListParametersAndPaging() {
+        PageRequest pageable = PageRequest.of(2, 20, Sort.by(Sort.Order.asc("name"), Sort.Order.desc("createdAt")));
+
+        assertThat(DeviceOperationEvent.shapeOf(new DeviceFilter("Apple", null), pageable))
+                .isEqualTo("brand page=2 size=20 sort=name,createdAt:desc");
+        assertThat(DeviceOperationEvent.shapeOf(new DeviceFilter(null, null), PageRequest.of(0, 10)))
+                .isEqualTo("none page=0 size=10");
+    }
+}
@@ -0,0 +1,52 @@
+package com.cpsoneghett.codingtask.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementListenerTest {
+
+    private final SqlStatementListener listener = new SqlStatementListener(new SqlMonitoringProperties(Duration.ofSeconds(1), 0, 25));
+
+    @AfterEach
+    void tearDown() {
+        SqlStatistics.end();
+    }
+
+    @Test
+    @DisplayName("Should add executions to the statistics of the current request")
+    void afterQuery_DuringRequest_ShouldRecordStatement() {
+        SqlStatistics statistics = SqlStatistics.start();
+        ExecutionInfo execInfo = new ExecutionInfo();
+        List<QueryInfo> queries = List.of(new QueryInfo("select 1"));
+
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+
+        assertThat(statistics.statements()).isEqualTo(2);
+        assertThat(statistics.nanos()).isPositive();
+        assertThat(statistics.serverTiming()).startsWith("db;dur=").endsWith(";desc=\"2 statements\"");
+    }
+
+    @Test
+    @DisplayName("Should describe bound parameters by type only")
+    void parameterShapes_ShouldListTypesWithoutValues() throws Exception {
+        QueryInfo query = new QueryInfo("select * from device where id = ? and name = ?");
+        query.setParametersList(List.of(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setLong", int.class, long.class), new Object[]{1, 42L}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class), new Object[]{2, "secret"}))));
+
+        assertThat(SqlStatementListener.parameterShapes(List.of(query))).isEqualTo("[Long, String]");
+    }
+}
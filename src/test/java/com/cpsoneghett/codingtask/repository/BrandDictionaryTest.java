@@ -0,0 +1,113 @@
+package com.cpsoneghett.codingtask.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class BrandDictionaryTest {
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private Statement statement;
+    @Mock
+    private ResultSet firstLoad, secondLoad, selected, keys;
+    @Mock
+    private PreparedStatement select, insert;
+
+    @Test
+    @DisplayName("Should translate names and keys both ways without a data source")
+    void idFor_WithoutDataSource_ShouldAssignKeysInRegistrationOrder() {
+        // Given
+        BrandDictionary dictionary = new BrandDictionary(null, Duration.ZERO);
+
+        // When
+        Integer samsung = dictionary.idFor("Samsung");
+        Integer apple = dictionary.idFor("Apple");
+
+        // Then
+        assertThat(dictionary.idFor("Samsung")).isEqualTo(samsung);
+        assertThat(dictionary.nameFor(apple)).isEqualTo("Apple");
+        assertThat(dictionary.namesContaining("SUNG")).containsExactly("Samsung");
+        assertThat(dictionary.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reload when a filter matches no known brand, to find brands registered elsewhere")
+    void namesContaining_WhenNothingMatches_ShouldReload() throws Exception {
+        // Given
+        BrandDictionary dictionary = new BrandDictionary(dataSource, Duration.ZERO);
+        given(dataSource.getConnection()).willReturn(connection);
+        given(connection.createStatement()).willReturn(statement);
+        given(statement.executeQuery("select id, name from brand")).willReturn(firstLoad, secondLoad);
+        given(firstLoad.next()).willReturn(true, false);
+        given(firstLoad.getInt(1)).willReturn(1);
+        given(firstLoad.getString(2)).willReturn("Apple");
+        given(secondLoad.next()).willReturn(true, true, false);
+        given(secondLoad.getInt(1)).willReturn(1, 2);
+        given(secondLoad.getString(2)).willReturn("Apple", "Samsung");
+
+        // When
+        assertThat(dictionary.namesContaining("apple")).containsExactly("Apple");
+        assertThat(dictionary.namesContaining("sam")).containsExactly("Samsung");
+
+        // Then
+        then(statement).should(times(2)).executeQuery("select id, name from brand");
+        assertThat(dictionary.nameFor(2)).isEqualTo("Samsung");
+    }
+
+    @Test
+    @DisplayName("Should register a new brand on the connection of the caller's transaction and cache it after commit")
+    void idFor_InTransaction_ShouldUseItsConnectionAndCacheAfterCommit() throws Exception {
+        // Given
+        BrandDictionary dictionary = new BrandDictionary(dataSource, Duration.ZERO);
+        given(connection.prepareStatement("select id from brand where name = ?")).willReturn(select);
+        given(select.executeQuery()).willReturn(selected);
+        given(selected.next()).willReturn(false);
+        given(connection.prepareStatement("insert into brand (name) values (?) on duplicate key update id = last_insert_id(id)",
+                Statement.RETURN_GENERATED_KEYS)).willReturn(insert);
+        given(insert.getGeneratedKeys()).willReturn(keys);
+        given(keys.getInt(1)).willReturn(7);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection));
+        try {
+            // When
+            Integer id = dictionary.idFor("Nokia");
+
+            // Then
+            assertThat(id).isEqualTo(7);
+            assertThat(dictionary.size()).isZero();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(dataSource);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        then(dataSource).should(never()).getConnection();
+        then(insert).should().setString(1, "Nokia");
+        assertThat(dictionary.idFor("Nokia")).isEqualTo(7);
+        assertThat(dictionary.nameFor(7)).isEqualTo("Nokia");
+    }
+}
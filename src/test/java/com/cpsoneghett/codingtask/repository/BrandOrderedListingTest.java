@@ -0,0 +1,52 @@
+package com.cpsoneghett.codingtask.repository;
+
+import com.cpsoneghett.codingtask.repository.BrandOrderedListing.Brand;
+import com.cpsoneghett.codingtask.repository.BrandOrderedListing.Slice;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BrandOrderedListingTest {
+
+    private final List<Brand<Integer>> brands = List.of(
+            new Brand<>(1, "Samsung", 3),
+            new Brand<>(2, "apple", 2),
+            new Brand<>(3, "Apple", 2));
+
+    @Test
+    @DisplayName("Should read a page across brands in name order, ignoring case first")
+    void slices_ShouldSpanBrandsInNameOrder() {
+        // When
+        List<Slice<Integer>> slices = BrandOrderedListing.slices(brands, Sort.by("brand", "id"), 1, 4);
+
+        // Then
+        assertThat(slices).containsExactly(new Slice<>(3, 1, 1), new Slice<>(2, 0, 2), new Slice<>(1, 0, 1));
+        assertThat(BrandOrderedListing.total(brands)).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should walk the brands backwards when sorting by brand descending")
+    void slices_WhenDescending_ShouldStartWithTheLastBrand() {
+        // When
+        List<Slice<Integer>> slices = BrandOrderedListing.slices(brands, Sort.by(Sort.Direction.DESC, "brand", "id"), 2, 10);
+
+        // Then
+        assertThat(slices).containsExactly(new Slice<>(1, 2, 1), new Slice<>(2, 0, 2), new Slice<>(3, 0, 2));
+    }
+
+    @Test
+    @DisplayName("Should only apply to sorts led by brand and order each brand by the rest")
+    void applies_ShouldDependOnTheFirstProperty() {
+        // Given
+        Sort sort = Sort.by(Sort.Order.desc("brand"), Sort.Order.asc("name"), Sort.Order.asc("id"));
+
+        // Then
+        assertThat(BrandOrderedListing.applies(sort)).isTrue();
+        assertThat(BrandOrderedListing.applies(Sort.by("name", "brand"))).isFalse();
+        assertThat(BrandOrderedListing.withinBrand(sort)).isEqualTo(Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id")));
+    }
+}
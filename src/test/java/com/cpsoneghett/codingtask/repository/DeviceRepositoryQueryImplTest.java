@@ -2,29 +2,39 @@ package com.cpsoneghett.codingtask.repository;
 
 import com.cpsoneghett.codingtask.domain.Device;
 import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceState;
 import com.cpsoneghett.codingtask.repository.impl.DeviceRepositoryQueryImpl;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,6 +48,9 @@ class DeviceRepositoryQueryImplTest {
     @Mock
     private EntityManager em;
 
+    @Mock
+    private BrandDictionary brandDictionary;
+
     @Mock
     private CriteriaBuilder builder;
 
@@ -50,36 +63,60 @@ class DeviceRepositoryQueryImplTest {
     @Mock
     private Root<Device> root;
 
+    @Mock
+    private CriteriaQuery<Tuple> criteriaTuple;
+
+    @Mock
+    private Path<Object> brandPath, statePath, idPath, namePath;
+
+    @Mock
+    private Order nameDesc, idDesc, idAsc;
+
+    @Mock
+    private Predicate isApple, isSamsung;
+
+    @Mock
+    private Tuple samsungCount, appleCount;
+
     @Mock
     private TypedQuery<Device> typedQueryDevice;
 
     @Mock
     private TypedQuery<Long> typedQueryLong;
 
+    @Mock
+    private TypedQuery<Tuple> typedQueryTuple;
+
     private DeviceFilter filter;
     private Pageable pageable;
 
     @BeforeEach
     void setUp() {
-        filter = new DeviceFilter("brand", "state");
+        filter = new DeviceFilter("brand", "available");
         pageable = PageRequest.of(0, 10);
 
         when(em.getCriteriaBuilder()).thenReturn(builder);
         when(builder.createQuery(Device.class)).thenReturn(criteriaDevice);
-        when(builder.createQuery(Long.class)).thenReturn(criteriaLong);
+        lenient().when(builder.createQuery(Long.class)).thenReturn(criteriaLong);
         when(criteriaDevice.from(Device.class)).thenReturn(root);
-        when(criteriaLong.from(Device.class)).thenReturn(root);
+        lenient().when(criteriaLong.from(Device.class)).thenReturn(root);
 
         when(em.createQuery(criteriaDevice)).thenReturn(typedQueryDevice);
-        when(em.createQuery(criteriaLong)).thenReturn(typedQueryLong);
+        lenient().when(em.createQuery(criteriaLong)).thenReturn(typedQueryLong);
 
         when(typedQueryDevice.getResultList()).thenReturn(Collections.singletonList(new Device()));
-        when(typedQueryLong.getSingleResult()).thenReturn(1L);
+        // listings sorted by brand count per brand instead
+        lenient().when(typedQueryLong.getSingleResult()).thenReturn(1L);
     }
 
     @Test
     @DisplayName("Should return page of devices")
     void filter_ShouldReturnPageOfDevices() {
+        when(brandDictionary.namesContaining("brand")).thenReturn(List.of("Brand"));
+        when(root.get("brand")).thenReturn(brandPath);
+        when(root.get("state")).thenReturn(statePath);
+        when(root.get("id")).thenReturn(idPath);
+
         Page<Device> result = deviceRepositoryQuery.filter(filter, pageable);
 
         assertNotNull(result);
@@ -97,6 +134,8 @@ class DeviceRepositoryQueryImplTest {
         verify(typedQueryDevice, times(1)).setMaxResults(10);
         verify(typedQueryDevice, times(1)).getResultList();
         verify(typedQueryLong, times(1)).getSingleResult();
+        verify(brandPath, times(2)).in(List.of("Brand"));
+        verify(statePath, times(2)).in(List.of(DeviceState.AVAILABLE));
     }
 
     @Test
@@ -107,4 +146,48 @@ class DeviceRepositoryQueryImplTest {
 
         assertNotNull(result);
     }
+
+    @Test
+    @DisplayName("Should order by the requested property with id as tiebreaker in the same direction")
+    void filter_WithSort_ShouldAppendIdTiebreaker() {
+        when(root.get("name")).thenReturn(namePath);
+        when(root.get("id")).thenReturn(idPath);
+        when(builder.desc(namePath)).thenReturn(nameDesc);
+        when(builder.desc(idPath)).thenReturn(idDesc);
+
+        deviceRepositoryQuery.filter(new DeviceFilter(null, null), PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "name")));
+
+        verify(criteriaDevice, times(1)).orderBy(List.of(nameDesc, idDesc));
+    }
+
+    @Test
+    @DisplayName("Should read a brand sorted page brand by brand, in name order, from the devices counted per brand")
+    void filter_WithBrandSort_ShouldReadBrandByBrand() {
+        when(builder.createTupleQuery()).thenReturn(criteriaTuple);
+        when(criteriaTuple.from(Device.class)).thenReturn(root);
+        when(em.createQuery(criteriaTuple)).thenReturn(typedQueryTuple);
+        when(typedQueryTuple.getResultList()).thenReturn(List.of(samsungCount, appleCount));
+        when(samsungCount.get(0, String.class)).thenReturn("Samsung");
+        when(samsungCount.get(1, Long.class)).thenReturn(2L);
+        when(appleCount.get(0, String.class)).thenReturn("Apple");
+        when(appleCount.get(1, Long.class)).thenReturn(1L);
+        when(root.get("brand")).thenReturn(brandPath);
+        when(root.get("id")).thenReturn(idPath);
+        when(builder.equal(brandPath, "Apple")).thenReturn(isApple);
+        when(builder.equal(brandPath, "Samsung")).thenReturn(isSamsung);
+        when(builder.asc(idPath)).thenReturn(idAsc);
+
+        Page<Device> result = deviceRepositoryQuery.filter(new DeviceFilter(null, null), PageRequest.of(0, 2, Sort.by("brand")));
+
+        assertEquals(3, result.getTotalElements());
+        assertEquals(2, result.getContent().size());
+        InOrder inOrder = inOrder(criteriaDevice);
+        inOrder.verify(criteriaDevice).where(new Predicate[]{isApple});
+        inOrder.verify(criteriaDevice).where(new Predicate[]{isSamsung});
+        verify(criteriaDevice, times(2)).orderBy(List.of(idAsc));
+        verify(typedQueryDevice, times(2)).setFirstResult(0);
+        verify(typedQueryDevice, times(2)).setMaxResults(1);
+        verify(criteriaTuple).groupBy(brandPath);
+        verify(typedQueryLong, never()).getSingleResult();
+    }
 }
@@ -0,0 +1,325 @@
+package com.cpsoneghett.codingtask.repository.memory;
+
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryDeviceRepositoryTest {
+
+    private BrandDictionary brandDictionary;
+    private InMemoryDeviceRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        brandDictionary = new BrandDictionary(new DefaultListableBeanFactory().getBeanProvider(DataSource.class));
+        repository = new InMemoryDeviceRepository(brandDictionary, Validation.buildDefaultValidatorFactory().getValidator());
+
+        repository.save(new Device("Pixel 9", "Google", DeviceState.AVAILABLE));
+        repository.save(new Device("iPhone 15", "Apple", DeviceState.IN_USE));
+        repository.save(new Device("galaxy S24", "Samsung", DeviceState.AVAILABLE));
+        repository.save(new Device("Pixel 8", "Google", DeviceState.INACTIVE));
+        repository.save(new Device("iPad Air", "Apple", DeviceState.AVAILABLE));
+    }
+
+    private static List<Long> ids(Page<Device> page) {
+        return page.getContent().stream().map(Device::getId).toList();
+    }
+
+    @Nested
+    @DisplayName("Filter Tests")
+    class FilterTests {
+
+        @Test
+        @DisplayName("Should match brand and state fragments ignoring case")
+        void filter_ShouldMatchFragments() {
+            // When
+            Page<Device> page = repository.filter(new DeviceFilter("APP", "avail"), PageRequest.of(0, 10));
+
+            // Then
+            assertThat(ids(page)).containsExactly(5L);
+            assertThat(page.getTotalElements()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should sort by name ignoring case, then page")
+        void filter_ShouldSortAndPage() {
+            // When
+            Page<Device> page = repository.filter(new DeviceFilter(null, null), PageRequest.of(1, 2, Sort.by("name")));
+
+            // Then
+            assertThat(page.getContent()).extracting(Device::getName).containsExactly("iPhone 15", "Pixel 8");
+            assertThat(page.getTotalElements()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("Should page in id order when no sort is given")
+        void filter_WithoutSort_ShouldPageInIdOrder() {
+            // When
+            Page<Device> page = repository.filter(new DeviceFilter(null, "available"), PageRequest.of(0, 2));
+
+            // Then
+            assertThat(ids(page)).containsExactly(1L, 3L);
+            assertThat(page.getTotalElements()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should follow brand and state changes made by saves and deletes")
+        void filter_AfterWrites_ShouldReflectIndexes() {
+            // Given
+            Device pixel = repository.findById(1L).orElseThrow();
+            pixel.setBrand("Alphabet");
+            pixel.setState(DeviceState.INACTIVE);
+            repository.save(pixel);
+            repository.deleteById(4L);
+
+            // When
+            Page<Device> google = repository.filter(new DeviceFilter("google", null), PageRequest.of(0, 10));
+            Page<Device> inactive = repository.filter(new DeviceFilter(null, "inactive"), PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "brand")));
+
+            // Then
+            assertThat(google.getContent()).isEmpty();
+            assertThat(ids(inactive)).containsExactly(1L);
+        }
+
+        @Test
+        @DisplayName("Should not store changes to a returned device until it is saved")
+        void findById_ShouldReturnCopies() {
+            // Given
+            repository.findById(1L).orElseThrow().setName("Changed");
+
+            // When / Then
+            assertThat(repository.findById(1L)).map(Device::getName).contains("Pixel 9");
+        }
+
+        @Test
+        @DisplayName("Should reject devices the entity constraints reject")
+        void save_WhenInvalid_ShouldThrow() {
+            // When / Then
+            assertThatThrownBy(() -> repository.save(new Device("X", "Google", DeviceState.AVAILABLE)))
+                    .isInstanceOf(ConstraintViolationException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Lease Tests")
+    class LeaseTests {
+
+        @Test
+        @DisplayName("Should check a device out once and keep the lease when the device is saved")
+        void acquire_ShouldOnlySucceedOnce() {
+            // Given
+            LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(5);
+
+            // When
+            boolean first = repository.acquire(1L, "token", expiresAt);
+            boolean second = repository.acquire(1L, "other", expiresAt);
+            repository.save(repository.findById(1L).orElseThrow());
+
+            // Then
+            assertThat(first).isTrue();
+            assertThat(second).isFalse();
+            assertThat(repository.release(1L, "other")).isFalse();
+            assertThat(repository.release(1L, "token")).isTrue();
+            assertThat(repository.findById(1L)).map(Device::getState).contains(DeviceState.AVAILABLE);
+        }
+
+        @Test
+        @DisplayName("Should end the lease when the device is saved with another state")
+        void save_WithAnotherState_ShouldEndTheLease() {
+            // Given
+            LocalDateTime expiresAt = LocalDateTime.now().minusMinutes(1);
+            repository.acquire(1L, "token", expiresAt);
+            Device device = repository.findById(1L).orElseThrow();
+
+            // When
+            device.setState(DeviceState.AVAILABLE);
+            repository.save(device);
+            device.setState(DeviceState.IN_USE);
+            repository.save(device);
+
+            // Then
+            assertThat(repository.lockExpired(LocalDateTime.now(), 10)).isEmpty();
+            assertThat(repository.release(1L, "token")).isFalse();
+            assertThat(repository.findById(1L)).map(Device::getState).contains(DeviceState.IN_USE);
+        }
+
+        @Test
+        @DisplayName("Should skip devices locked by another thread")
+        void lockAvailable_ShouldSkipLockedDevices() throws InterruptedException {
+            // Given
+            ResolvedDeviceFilter google = ResolvedDeviceFilter.resolve(new DeviceFilter("google", null), brandDictionary);
+            assertThat(repository.lockAvailable(google)).contains(1L);
+
+            // When
+            AtomicReference<Optional<Long>> lockedByOther = new AtomicReference<>();
+            AtomicReference<Boolean> acquiredByOther = new AtomicReference<>();
+            Thread other = new Thread(() -> {
+                lockedByOther.set(repository.lockAvailable(google));
+                acquiredByOther.set(repository.acquire(1L, "other", LocalDateTime.now().plusMinutes(5)));
+            });
+            other.start();
+            other.join();
+
+            // Then
+            assertThat(lockedByOther.get()).isEmpty();
+            assertThat(acquiredByOther.get()).isFalse();
+            assertThat(repository.acquire(1L, "token", LocalDateTime.now().plusMinutes(5))).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should hold a device read for update until the transaction completes")
+        void findForUpdateById_ShouldHoldTheDeviceUntilTheTransactionCompletes() throws InterruptedException {
+            // Given
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                assertThat(repository.findForUpdateById(1L)).map(Device::getName).contains("Pixel 9");
+
+                // When
+                AtomicReference<Boolean> acquiredByOther = new AtomicReference<>();
+                AtomicReference<Optional<Device>> readByOther = new AtomicReference<>();
+                Thread other = new Thread(() -> {
+                    acquiredByOther.set(repository.acquire(1L, "other", LocalDateTime.now().plusMinutes(5)));
+                    readByOther.set(repository.findForUpdateById(1L));
+                });
+                other.start();
+                other.join(200);
+
+                // Then
+                assertThat(other.isAlive()).isTrue();
+                assertThat(acquiredByOther.get()).isFalse();
+
+                // When
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+                other.join();
+
+                // Then
+                assertThat(readByOther.get()).map(Device::getId).contains(1L);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        @Test
+        @DisplayName("Should apply reported states to devices that are not checked out")
+        void applyReportedState_ShouldSkipLeasedAndUnchangedDevices() {
+            // Given
+            repository.acquire(1L, "token", LocalDateTime.now().plusMinutes(5));
+
+            // When
+            List<Long> changed = repository.applyReportedState(List.of(1L, 3L, 4L, 99L), DeviceState.INACTIVE);
+
+            // Then
+            assertThat(changed).containsExactly(3L);
+            assertThat(repository.findById(1L)).map(Device::getState).contains(DeviceState.IN_USE);
+            assertThat(repository.filter(new DeviceFilter(null, "inactive"), PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should release expired leases only")
+        void lockExpired_ShouldReturnExpiredLeases() {
+            // Given
+            LocalDateTime now = LocalDateTime.now();
+            repository.acquire(1L, "expired", now.minusMinutes(1));
+            repository.acquire(3L, "current", now.plusMinutes(1));
+
+            // When
+            List<Long> expired = repository.lockExpired(now, 10);
+            int released = repository.releaseAll(expired);
+
+            // Then
+            assertThat(expired).containsExactly(1L);
+            assertThat(released).isEqualTo(1);
+            assertThat(repository.findById(3L)).map(Device::getState).contains(DeviceState.IN_USE);
+        }
+    }
+
+    @Test
+    @DisplayName("Should count the devices of each brand that has any")
+    void countDevicesPerBrand_ShouldFollowWritesAndDeletes() {
+        // Given
+        Device pixel = repository.findById(1L).orElseThrow();
+        pixel.setBrand("Alphabet");
+        repository.save(pixel);
+        repository.deleteById(4L);
+
+        // When
+        List<BrandCountDto> counts = repository.countDevicesPerBrand();
+
+        // Then
+        assertThat(counts).containsExactlyInAnyOrder(new BrandCountDto("Alphabet", 1), new BrandCountDto("Apple", 2),
+                new BrandCountDto("Samsung", 1));
+    }
+
+    @Test
+    @DisplayName("Should list changes once, at their last position, and deletions as tombstones")
+    void findChangedAfter_ShouldFollowWritesAndDeletes() {
+        // Given
+        SyncPosition start = new SyncPosition(repository.now().minusSeconds(1), 0);
+        Device pixel = repository.findById(1L).orElseThrow();
+        pixel.setState(DeviceState.INACTIVE);
+        repository.save(pixel);
+        repository.deleteById(2L);
+        LocalDateTime before = repository.now().plusSeconds(1);
+
+        // When
+        List<Device> changed = repository.findChangedAfter(start, before, 10);
+        List<SyncPosition> deleted = repository.findDeletedAfter(start, before, 10);
+
+        // Then
+        assertThat(changed).extracting(Device::getId).containsExactly(3L, 4L, 5L, 1L);
+        assertThat(deleted).extracting(SyncPosition::id).containsExactly(2L);
+        assertThat(repository.purgeTombstones(before, 10)).isEqualTo(1);
+        assertThat(repository.findDeletedAfter(start, before, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should restore devices, leases and the id sequence from a snapshot")
+    void snapshot_ShouldRoundTrip(@TempDir Path directory) throws IOException {
+        // Given
+        repository.acquire(1L, "token", LocalDateTime.now().plusMinutes(5));
+        repository.deleteById(5L);
+        Path file = directory.resolve("devices.snapshot");
+        repository.snapshot().write(file);
+
+        // When
+        InMemoryDeviceRepository restored = new InMemoryDeviceRepository(brandDictionary, Validation.buildDefaultValidatorFactory().getValidator());
+        restored.restore(DeviceSnapshot.read(file));
+
+        // Then
+        assertThat(restored.count()).isEqualTo(4);
+        assertThat(restored.findDeletedAfter(SyncPosition.START, repository.now(), 10)).extracting(SyncPosition::id).containsExactly(5L);
+        assertThat(restored.release(1L, "token")).isTrue();
+        assertThat(restored.filter(new DeviceFilter("apple", null), PageRequest.of(0, 10)).getContent())
+                .extracting(Device::getName).containsExactly("iPhone 15");
+        assertThat(restored.save(new Device("Pixel 10", "Google", DeviceState.AVAILABLE)).getId()).isEqualTo(6L);
+    }
+}
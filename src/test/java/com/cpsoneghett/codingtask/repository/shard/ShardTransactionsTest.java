@@ -0,0 +1,99 @@
+package com.cpsoneghett.codingtask.repository.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class ShardTransactionsTest {
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.unbindResourceIfPossible(dataSource);
+    }
+
+    private void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @Test
+    @DisplayName("Should run the statements of a transaction on one shard connection committed with the transaction")
+    void join_InTransaction_ShouldCommitBeforeThePrimary() throws Exception {
+        // Given
+        given(dataSource.getConnection()).willReturn(connection);
+        beginTransaction();
+
+        // When
+        ShardTransactions.join(dataSource);
+        ShardTransactions.join(dataSource);
+
+        // Then
+        then(dataSource).should().getConnection();
+        then(connection).should().setAutoCommit(false);
+        assertThat(DataSourceUtils.getConnection(dataSource)).isSameAs(connection);
+        then(connection).should(never()).commit();
+
+        // When
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.beforeCommit(false));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Then
+        then(connection).should().commit();
+        then(connection).should(never()).rollback();
+        then(connection).should().setAutoCommit(true);
+        then(connection).should().close();
+        assertThat(TransactionSynchronizationManager.hasResource(dataSource)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should roll the shard back when the transaction does not commit")
+    void join_RolledBack_ShouldRollBackTheShard() throws Exception {
+        // Given
+        given(dataSource.getConnection()).willReturn(connection);
+        beginTransaction();
+        ShardTransactions.join(dataSource);
+
+        // When
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then
+        then(connection).should(never()).commit();
+        then(connection).should().rollback();
+        then(connection).should().close();
+    }
+
+    @Test
+    @DisplayName("Should leave statements outside a transaction to auto-commit")
+    void join_WithoutTransaction_ShouldDoNothing() throws Exception {
+        // When
+        ShardTransactions.join(dataSource);
+
+        // Then
+        then(dataSource).should(never()).getConnection();
+        assertThat(TransactionSynchronizationManager.hasResource(dataSource)).isFalse();
+    }
+}
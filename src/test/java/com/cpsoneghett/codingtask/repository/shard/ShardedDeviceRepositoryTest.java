@@ -0,0 +1,343 @@
+package com.cpsoneghett.codingtask.repository.shard;
+
+import com.cpsoneghett.codingtask.domain.BrandCountDto;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ShardedDeviceRepositoryTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 1, 1, 12, 0);
+    private static final List<String> BRANDS = List.of("Apple", "Samsung", "Google");
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    @SuppressWarnings("unchecked")
+    private final BrandDictionary brandDictionary = new BrandDictionary(mock(ObjectProvider.class));
+    private List<FakeShard> shards;
+    private ShardedDeviceRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        shards = List.of(new FakeShard(0, 3), new FakeShard(1, 3), new FakeShard(2, 3));
+        repository = new ShardedDeviceRepository(List.copyOf(shards), brandDictionary, validator);
+
+        for (int i = 0; i < 20; i++) {
+            Device device = new Device("Device " + (char) ('a' + (i * 7) % 20), BRANDS.get(i % 3),
+                    DeviceState.values()[i % DeviceState.values().length]);
+            device.setCreatedAt(CREATED_AT.plusMinutes(i % 5));
+            repository.save(device);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        repository.close();
+    }
+
+    private List<Device> allDevices() {
+        return shards.stream().flatMap(shard -> shard.devices.values().stream()).toList();
+    }
+
+    @Test
+    @DisplayName("Should spread new devices over the shards and read each one from its own shard only")
+    void save_ShouldAssignIdsThatRouteBackToTheShard() {
+        // Then
+        assertThat(shards).allSatisfy(shard -> assertThat(shard.devices).hasSizeBetween(6, 7));
+        for (Device device : allDevices()) {
+            FakeShard owner = shards.get(ShardedDeviceRepository.shardOf(device.getId(), shards.size()));
+            assertThat(owner.devices).containsKey(device.getId());
+        }
+
+        // When
+        Device device = repository.findById(5L).orElseThrow();
+        device.setName("Renamed");
+        repository.save(device);
+
+        // Then
+        assertThat(repository.findById(5L)).map(Device::getName).contains("Renamed");
+        assertThat(shards.get(1).reads.get()).isEqualTo(2);
+        assertThat(shards.get(0).reads.get() + shards.get(2).reads.get()).isZero();
+        assertThat(repository.findAllById(List.of(1L, 2L, 3L, 4L, 99L))).extracting(Device::getId)
+                .containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Should return the pages and totals a single database would return")
+    void filter_ShouldMergeTheShardsInOrder() {
+        // Given
+        Comparator<Device> byNameDesc = Comparator.comparing(Device::getName, String.CASE_INSENSITIVE_ORDER).reversed()
+                .thenComparing(Device::getId, Comparator.reverseOrder());
+        Comparator<Device> byCreatedAtThenId = Comparator.comparing(Device::getCreatedAt).thenComparing(Device::getId);
+        List<Device> all = allDevices();
+
+        for (int page = 0; page < 4; page++) {
+            // When
+            Page<Device> byName = repository.filter(new DeviceFilter(null, null), PageRequest.of(page, 6, Sort.by(Sort.Direction.DESC, "name")));
+            Page<Device> apple = repository.filter(new DeviceFilter("appl", null), PageRequest.of(page, 3, Sort.by("createdAt")));
+
+            // Then
+            assertThat(byName.getContent()).extracting(Device::getId)
+                    .containsExactlyElementsOf(all.stream().sorted(byNameDesc).skip(page * 6L).limit(6).map(Device::getId).toList());
+            assertThat(byName.getTotalElements()).isEqualTo(20);
+
+            List<Device> apples = all.stream().filter(device -> device.getBrand().equals("Apple")).sorted(byCreatedAtThenId).toList();
+            assertThat(apple.getContent()).extracting(Device::getId)
+                    .containsExactlyElementsOf(apples.stream().skip(page * 3L).limit(3).map(Device::getId).toList());
+            assertThat(apple.getTotalElements()).isEqualTo(apples.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should list ids and count devices across the shards")
+    void findIdsAfter_ShouldMergeTheShardsInIdOrder() {
+        // When
+        List<Long> ids = repository.findIdsAfter(4L, PageRequest.ofSize(5));
+
+        // Then
+        assertThat(ids).containsExactly(5L, 6L, 7L, 8L, 9L);
+        assertThat(repository.count()).isEqualTo(20);
+        assertThat(repository.countDevicesPerBrand()).containsExactlyInAnyOrder(new BrandCountDto("Apple", 7),
+                new BrandCountDto("Samsung", 7), new BrandCountDto("Google", 6));
+    }
+
+    @Test
+    @DisplayName("Should spread checkouts over the shards and route leases and reported states to the devices' shards")
+    void leases_ShouldGoToTheShardsOfTheDevices() {
+        // Given
+        ResolvedDeviceFilter all = new ResolvedDeviceFilter(null, null);
+        LocalDateTime expiresAt = CREATED_AT.plusHours(1);
+        List<Long> ids = allDevices().stream().map(Device::getId).toList();
+        List<Long> unavailable = allDevices().stream().filter(device -> device.getState() != DeviceState.AVAILABLE)
+                .map(Device::getId).toList();
+
+        // When
+        List<Long> madeAvailable = repository.applyReportedState(ids, DeviceState.AVAILABLE);
+
+        // Then
+        assertThat(madeAvailable).containsExactlyInAnyOrderElementsOf(unavailable);
+
+        // When
+        List<Long> checkedOut = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Long id = repository.lockAvailable(all).orElseThrow();
+            assertThat(repository.acquire(id, "token", expiresAt)).isTrue();
+            checkedOut.add(id);
+        }
+
+        // Then
+        assertThat(checkedOut).extracting(id -> ShardedDeviceRepository.shardOf(id, shards.size()))
+                .containsExactlyInAnyOrder(0, 1, 2);
+
+        // When
+        List<Long> reported = List.of(checkedOut.get(0), 20L, 3L, 2L);
+        List<Long> changed = repository.applyReportedState(reported, DeviceState.INACTIVE);
+
+        // Then
+        assertThat(changed).doesNotContain(checkedOut.get(0));
+        assertThat(repository.findById(checkedOut.get(0))).map(Device::getState).contains(DeviceState.IN_USE);
+        assertThat(repository.findAllById(reported)).filteredOn(device -> !checkedOut.contains(device.getId()))
+                .extracting(Device::getState).containsOnly(DeviceState.INACTIVE);
+
+        // When
+        List<Long> expired = repository.lockExpired(expiresAt.plusSeconds(1), 2);
+
+        // Then
+        assertThat(expired).hasSize(2).isSubsetOf(checkedOut);
+        assertThat(repository.releaseAll(checkedOut)).isEqualTo(3);
+        assertThat(repository.findAllById(checkedOut)).extracting(Device::getState).containsOnly(DeviceState.AVAILABLE);
+    }
+
+    /**
+     * Assigns ids the way an interleaved {@code AUTO_INCREMENT} does and filters and sorts like the JDBC shard.
+     */
+    private class FakeShard implements DeviceShard {
+
+        private final TreeMap<Long, Device> devices = new TreeMap<>();
+        private final AtomicInteger reads = new AtomicInteger();
+        private final Map<Long, LocalDateTime> leases = new TreeMap<>();
+        private long nextId;
+        private final int shardCount;
+
+        FakeShard(int index, int shardCount) {
+            this.nextId = index + 1;
+            this.shardCount = shardCount;
+        }
+
+        @Override
+        public Optional<Device> findById(long id) {
+            reads.incrementAndGet();
+            return Optional.ofNullable(devices.get(id)).map(FakeShard::copy);
+        }
+
+        @Override
+        public Optional<Device> findForUpdateById(long id) {
+            return findById(id);
+        }
+
+        @Override
+        public List<Device> findAllById(Collection<Long> ids) {
+            return ids.stream().map(devices::get).filter(device -> device != null).map(FakeShard::copy).toList();
+        }
+
+        @Override
+        public Optional<LocalDateTime> findUpdatedAtById(long id) {
+            return Optional.ofNullable(devices.get(id)).map(Device::getUpdatedAt);
+        }
+
+        @Override
+        public void insert(Device device) {
+            brandDictionary.idFor(device.getBrand());
+            device.setId(nextId);
+            nextId += shardCount;
+            devices.put(device.getId(), copy(device));
+        }
+
+        @Override
+        public void update(Device device) {
+            devices.put(device.getId(), copy(device));
+        }
+
+        @Override
+        public void deleteById(long id) {
+            devices.remove(id);
+        }
+
+        @Override
+        public List<Device> findFirst(ResolvedDeviceFilter filter, Sort sort, int limit) {
+            Comparator<Device> comparator = null;
+            for (Sort.Order order : sort) {
+                Comparator<Device> next = switch (order.getProperty()) {
+                    case "id" -> Comparator.comparing(Device::getId);
+                    case "name" -> Comparator.comparing(Device::getName, String.CASE_INSENSITIVE_ORDER);
+                    case "createdAt" -> Comparator.comparing(Device::getCreatedAt);
+                    default -> throw new IllegalArgumentException(order.getProperty());
+                };
+                if (order.isDescending()) next = next.reversed();
+                comparator = comparator == null ? next : comparator.thenComparing(next);
+            }
+            return matching(filter).sorted(comparator).limit(limit).map(FakeShard::copy).toList();
+        }
+
+        @Override
+        public long count(ResolvedDeviceFilter filter) {
+            return matching(filter).count();
+        }
+
+        @Override
+        public List<Long> findIdsAfter(long lastId, int limit) {
+            return new ArrayList<>(devices.tailMap(lastId, false).keySet()).stream().limit(limit).toList();
+        }
+
+        @Override
+        public List<BrandCountDto> countDevicesPerBrand() {
+            return devices.values().stream().collect(Collectors.groupingBy(Device::getBrand, Collectors.counting()))
+                    .entrySet().stream().map(count -> new BrandCountDto(count.getKey(), count.getValue())).toList();
+        }
+
+        @Override
+        public boolean acquire(Long id, String token, LocalDateTime expiresAt) {
+            Device device = devices.get(id);
+            if (device == null || device.getState() != DeviceState.AVAILABLE) return false;
+            device.setState(DeviceState.IN_USE);
+            leases.put(id, expiresAt);
+            return true;
+        }
+
+        @Override
+        public Optional<Long> lockAvailable(ResolvedDeviceFilter filter) {
+            return matching(filter).filter(device -> device.getState() == DeviceState.AVAILABLE).map(Device::getId).findFirst();
+        }
+
+        @Override
+        public boolean release(Long id, String token) {
+            return releaseAll(List.of(id)) == 1;
+        }
+
+        @Override
+        public List<Long> lockExpired(LocalDateTime now, int limit) {
+            return leases.entrySet().stream().filter(lease -> lease.getValue().isBefore(now)).map(Map.Entry::getKey)
+                    .limit(limit).toList();
+        }
+
+        @Override
+        public int releaseAll(List<Long> ids) {
+            int released = 0;
+            for (Long id : ids) {
+                if (leases.remove(id) == null) continue;
+                devices.get(id).setState(DeviceState.AVAILABLE);
+                released++;
+            }
+            return released;
+        }
+
+        @Override
+        public List<Long> applyReportedState(List<Long> ids, DeviceState state) {
+            List<Long> changed = ids.stream().filter(devices::containsKey).filter(id -> !leases.containsKey(id))
+                    .filter(id -> devices.get(id).getState() != state).toList();
+            changed.forEach(id -> devices.get(id).setState(state));
+            return changed;
+        }
+
+        @Override
+        public LocalDateTime now() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Device> findChangedAfter(SyncPosition after, LocalDateTime before, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<SyncPosition> findDeletedAfter(SyncPosition after, LocalDateTime before, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int purgeTombstones(LocalDateTime before, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        private Stream<Device> matching(ResolvedDeviceFilter filter) {
+            return devices.values().stream()
+                    .filter(device -> filter.brands() == null || filter.brands().contains(device.getBrand()))
+                    .filter(device -> filter.states() == null || filter.states().contains(device.getState()));
+        }
+
+        private static Device copy(Device device) {
+            Device copy = new Device(device.getName(), device.getBrand(), device.getState());
+            copy.setId(device.getId());
+            copy.setCreatedAt(device.getCreatedAt());
+            copy.setUpdatedAt(device.getUpdatedAt());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.bulkhead.BulkheadProperties;
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.ImportJob;
+import com.cpsoneghett.codingtask.domain.ImportJobStatus;
+import com.cpsoneghett.codingtask.domain.ImportRejectionDto;
+import com.cpsoneghett.codingtask.repository.DeviceBatchRepository;
+import com.cpsoneghett.codingtask.repository.ImportJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceCsvImporterTests {
+
+    private static final String CSV = """
+            name,brand,state
+            Pixel 9,Google,AVAILABLE
+            X,Apple,AVAILABLE
+            Galaxy S24,Samsung,BROKEN
+            "iPhone 15, Pro",Apple,IN_USE
+            """;
+    private static final String WORKER = "worker";
+
+    @TempDir
+    private Path directory;
+    @Mock
+    private ImportJobRepository jobRepository;
+    @Mock
+    private DeviceBatchRepository deviceBatchRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private DeviceCsvImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        importer = importer(1);
+    }
+
+    private DeviceCsvImporter importer(int backgroundPermits) {
+        Bulkheads bulkheads = new Bulkheads(new BulkheadProperties(true, 1, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO,
+                backgroundPermits, Duration.ZERO), 10, new SimpleMeterRegistry());
+        return new DeviceCsvImporter(jobRepository, deviceBatchRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, eventPublisher,
+                new DeviceImportProperties(directory, 2, 1, 10, Duration.ofMinutes(2)), bulkheads);
+    }
+
+    private ImportJob job(String csv, long position, long recordNumber) throws IOException {
+        Path file = directory.resolve("devices.csv");
+        Files.writeString(file, csv);
+        return new ImportJob(1L, file.toString(), Files.size(file), ImportJobStatus.RUNNING, position, recordNumber,
+                0, 0, null, LocalDateTime.now(), LocalDateTime.now(), null);
+    }
+
+    @Nested
+    @DisplayName("Import Tests")
+    class ImportTests {
+
+        @Test
+        @DisplayName("Should insert valid rows in checkpointed batches and reject invalid ones")
+        void run_ShouldImportInBatches() throws IOException {
+            // Given
+            ImportJob job = job(CSV, 0, 0);
+            given(transactionManager.getTransaction(any())).willReturn(new SimpleTransactionStatus());
+            given(deviceBatchRepository.insertAll(any(), any())).willReturn(List.of(10L)).willReturn(List.of(11L));
+            given(jobRepository.checkpoint(eq(1L), eq(WORKER), anyLong(), anyLong(), anyInt(), anyInt(), anyBoolean(), any()))
+                    .willReturn(true);
+
+            // When
+            importer.run(job, WORKER);
+
+            // Then
+            then(deviceBatchRepository).should().insertAll(eq(List.of(new DeviceRequestDto("Pixel 9", "Google", DeviceState.AVAILABLE))), any());
+            then(deviceBatchRepository).should().insertAll(eq(List.of(new DeviceRequestDto("iPhone 15, Pro", "Apple", DeviceState.IN_USE))), any());
+            then(jobRepository).should().checkpoint(eq(1L), eq(WORKER), eq((long) CSV.indexOf("Galaxy")), eq(2L), eq(1), eq(1), eq(false), any());
+            then(jobRepository).should().checkpoint(eq(1L), eq(WORKER), anyLong(), eq(4L), eq(1), eq(1), eq(true), any());
+
+            ArgumentCaptor<List<ImportRejectionDto>> rejections = ArgumentCaptor.captor();
+            then(jobRepository).should(times(2)).addRejections(eq(1L), rejections.capture());
+            assertThat(rejections.getAllValues()).flatMap(list -> list).extracting(ImportRejectionDto::recordNumber).containsExactly(2L, 3L);
+            assertThat(rejections.getAllValues().get(1).getFirst().reason()).contains("Invalid device state 'BROKEN'");
+
+            then(eventPublisher).should(times(2)).publishEvent(any(DeviceChangedEvent.class));
+            assertThat(Path.of(job.filePath())).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("Should resume from the checkpoint without repeating records")
+        void run_FromCheckpoint_ShouldSkipImportedRecords() throws IOException {
+            // Given
+            ImportJob job = job(CSV, CSV.indexOf("Galaxy"), 2);
+            given(transactionManager.getTransaction(any())).willReturn(new SimpleTransactionStatus());
+            given(deviceBatchRepository.insertAll(any(), any())).willReturn(List.of(11L));
+            given(jobRepository.checkpoint(eq(1L), eq(WORKER), anyLong(), eq(4L), eq(1), eq(1), eq(true), any())).willReturn(true);
+
+            // When
+            importer.run(job, WORKER);
+
+            // Then
+            then(deviceBatchRepository).should().insertAll(eq(List.of(new DeviceRequestDto("iPhone 15, Pro", "Apple", DeviceState.IN_USE))), any());
+            then(jobRepository).should().addRejections(eq(1L), eq(List.of(new ImportRejectionDto(3L,
+                    "Invalid device state 'BROKEN'. Accepted values are [AVAILABLE, IN_USE, INACTIVE]."))));
+        }
+
+        @Test
+        @DisplayName("Should stop without publishing events when the job was cancelled")
+        void run_WhenCancelled_ShouldStop() throws IOException {
+            // Given
+            ImportJob job = job(CSV, 0, 0);
+            given(transactionManager.getTransaction(any())).willReturn(new SimpleTransactionStatus());
+            given(deviceBatchRepository.insertAll(any(), any())).willReturn(List.of(10L));
+            given(jobRepository.checkpoint(eq(1L), eq(WORKER), anyLong(), anyLong(), anyInt(), anyInt(), anyBoolean(), any()))
+                    .willReturn(false);
+            given(jobRepository.findById(1L)).willReturn(Optional.of(new ImportJob(1L, job.filePath(), job.sizeBytes(),
+                    ImportJobStatus.CANCELLED, 0, 0, 0, 0, null, job.createdAt(), job.startedAt(), LocalDateTime.now())));
+
+            // When
+            importer.run(job, WORKER);
+
+            // Then
+            then(deviceBatchRepository).should(times(1)).insertAll(any(), any());
+            then(eventPublisher).should(never()).publishEvent(any());
+            then(jobRepository).should(never()).finish(anyLong(), anyString(), any(), any(), any());
+            assertThat(Path.of(job.filePath())).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("Should hand the job back to the queue when no connection frees up")
+        void run_WhenBackgroundPermitsAreTaken_ShouldReleaseJob() throws IOException {
+            // Given
+            ImportJob job = job(CSV, 0, 0);
+
+            // When
+            importer(0).run(job, WORKER);
+
+            // Then
+            then(deviceBatchRepository).should(never()).insertAll(any(), any());
+            then(jobRepository).should().release(1L, WORKER);
+            then(jobRepository).should(never()).finish(anyLong(), anyString(), any(), any(), any());
+            assertThat(Path.of(job.filePath())).exists();
+        }
+
+        @Test
+        @DisplayName("Should fail the job when the header misses a column")
+        void run_WhenHeaderIsInvalid_ShouldFailJob() throws IOException {
+            // Given
+            ImportJob job = job("name,state\nPixel 9,AVAILABLE\n", 0, 0);
+            given(jobRepository.finish(eq(1L), eq(WORKER), eq(ImportJobStatus.FAILED), contains("header"), any())).willReturn(true);
+
+            // When
+            importer.run(job, WORKER);
+
+            // Then
+            then(deviceBatchRepository).should(never()).insertAll(any(), any());
+            assertThat(Path.of(job.filePath())).doesNotExist();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.bulkhead.BulkheadProperties;
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceHistoryEntryDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.repository.DeviceHistoryRepository;
+import com.cpsoneghett.codingtask.service.HistoryProperties.Durability;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceHistoryRecorderTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private DeviceHistoryRepository historyRepository;
+
+    private DeviceHistoryRecorder recorder(Durability durability, int bufferSize) {
+        return recorder(durability, bufferSize, Duration.ofMillis(50));
+    }
+
+    private DeviceHistoryRecorder recorder(Durability durability, int bufferSize, Duration maxWait) {
+        return new DeviceHistoryRecorder(historyRepository, new HistoryProperties(durability, bufferSize, 2, 1,
+                maxWait, Duration.ofMillis(10), 100), new Bulkheads(new BulkheadProperties(true, 1, Duration.ZERO,
+                1, Duration.ZERO, 1, Duration.ZERO, 2, Duration.ofSeconds(5)), 10, meterRegistry), meterRegistry);
+    }
+
+    private static DeviceChangedEvent changed(ChangeType type, long id, DeviceState state) {
+        Device device = new Device("Device " + id, "Apple", state);
+        device.setId(id);
+        return new DeviceChangedEvent(type, device);
+    }
+
+    private double entries(String result) {
+        return meterRegistry.get("device.history.entries").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should write the recorded changes in order, in batches of the configured size")
+    void flush_ShouldWriteEntriesInBatches() {
+        // Given
+        DeviceHistoryRecorder recorder = recorder(Durability.BLOCKING, 10);
+        recorder.onDeviceChanged(changed(ChangeType.CREATED, 1, DeviceState.AVAILABLE));
+        recorder.onDeviceChanged(changed(ChangeType.UPDATED, 1, DeviceState.IN_USE));
+        recorder.onDeviceChanged(changed(ChangeType.DELETED, 1, DeviceState.IN_USE));
+
+        // When
+        recorder.flush();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DeviceHistoryEntryDto>> batches = ArgumentCaptor.forClass(List.class);
+        then(historyRepository).should(times(2)).insertAll(batches.capture());
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        assertThat(batches.getAllValues().stream().flatMap(List::stream))
+                .extracting(DeviceHistoryEntryDto::change, DeviceHistoryEntryDto::state)
+                .containsExactly(
+                        tuple(ChangeType.CREATED, DeviceState.AVAILABLE),
+                        tuple(ChangeType.UPDATED, DeviceState.IN_USE),
+                        tuple(ChangeType.DELETED, DeviceState.IN_USE));
+        assertThat(recorder.pendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop and count the changes that find the buffer full when lossy")
+    void onDeviceChanged_WhenLossyAndFull_ShouldDropTheEntry() {
+        // Given
+        DeviceHistoryRecorder recorder = recorder(Durability.LOSSY, 2);
+
+        // When
+        for (long id = 1; id <= 3; id++) recorder.onDeviceChanged(changed(ChangeType.CREATED, id, DeviceState.AVAILABLE));
+
+        // Then
+        assertThat(recorder.pendingCount()).isEqualTo(2);
+        assertThat(entries("recorded")).isEqualTo(2);
+        assertThat(entries("dropped")).isEqualTo(1);
+        then(historyRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("Should never wait inside a transaction or on an event loop, whatever the durability")
+    void onDeviceChanged_InTransactionOrOnEventLoop_ShouldNotWait() {
+        // Given: no writer runs, so a sync write would wait for its whole maxWait, for room or for its entry
+        DeviceHistoryRecorder recorder = recorder(Durability.SYNC, 2, Duration.ofDays(1));
+        Runnable inTransaction = () -> {
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                recorder.onDeviceChanged(changed(ChangeType.UPDATED, 1, DeviceState.IN_USE));
+            } finally {
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+            }
+        };
+        Runnable onEventLoop = () -> recorder.onDeviceChanged(changed(ChangeType.UPDATED, 1, DeviceState.INACTIVE));
+
+        // When
+        Mono.fromRunnable(inTransaction).subscribeOn(Schedulers.boundedElastic()).block(Duration.ofSeconds(5));
+        Mono.fromRunnable(onEventLoop).subscribeOn(Schedulers.parallel()).block(Duration.ofSeconds(5));
+        Mono.fromRunnable(inTransaction).subscribeOn(Schedulers.boundedElastic()).block(Duration.ofSeconds(5));
+        Mono.fromRunnable(onEventLoop).subscribeOn(Schedulers.parallel()).block(Duration.ofSeconds(5));
+
+        // Then
+        assertThat(entries("recorded")).isEqualTo(2);
+        assertThat(entries("dropped")).isEqualTo(2);
+        assertThat(recorder.pendingCount()).isEqualTo(2);
+        then(historyRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("Should answer once maxWait is over when the entry is not written in time, keeping it queued")
+    void onDeviceChanged_WhenSyncAndNotWrittenInTime_ShouldKeepTheEntry() {
+        // Given
+        DeviceHistoryRecorder recorder = recorder(Durability.SYNC, 10);
+
+        // When
+        recorder.onDeviceChanged(changed(ChangeType.UPDATED, 1, DeviceState.IN_USE));
+
+        // Then
+        assertThat(entries("recorded")).isEqualTo(1);
+        assertThat(recorder.pendingCount()).isEqualTo(1);
+        then(historyRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("Should return only once the entry is written when sync, retrying failed batches")
+    void onDeviceChanged_WhenSync_ShouldWaitForTheWrite() throws Exception {
+        // Given
+        // the wait ends with the write, well before maxWait
+        DeviceHistoryRecorder recorder = recorder(Durability.SYNC, 10, Duration.ofSeconds(5));
+        willThrow(new IllegalStateException("connection reset")).willDoNothing().given(historyRepository).insertAll(anyList());
+        recorder.start();
+
+        try {
+            // When
+            recorder.onDeviceChanged(changed(ChangeType.UPDATED, 7, DeviceState.INACTIVE));
+
+            // Then
+            then(historyRepository).should(times(2)).insertAll(anyList());
+            assertThat(recorder.pendingCount()).isZero();
+        } finally {
+            recorder.stop();
+        }
+    }
+}
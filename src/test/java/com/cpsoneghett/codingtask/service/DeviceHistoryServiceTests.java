@@ -0,0 +1,71 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceHistoryEntryDto;
+import com.cpsoneghett.codingtask.domain.DeviceHistoryResponseDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.repository.DeviceHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceHistoryServiceTests {
+
+    @Mock
+    private DeviceHistoryRepository historyRepository;
+    private DeviceHistoryServiceImpl historyService;
+
+    @BeforeEach
+    void setUp() {
+        historyService = new DeviceHistoryServiceImpl(historyRepository,
+                new HistoryProperties(HistoryProperties.Durability.BLOCKING, 100, 10, 1, Duration.ofSeconds(1), Duration.ofSeconds(1), 3));
+    }
+
+    private static DeviceHistoryEntryDto entry(long id) {
+        return new DeviceHistoryEntryDto(id, 1L, ChangeType.UPDATED, "iPhone 15 Pro", "Apple", DeviceState.AVAILABLE,
+                LocalDateTime.of(2026, 3, 1, 12, 0).plusSeconds(id));
+    }
+
+    @Test
+    @DisplayName("Should return a full page and continue before its last entry")
+    void history_WhenMoreThanAPage_ShouldReturnNextCursor() {
+        // Given
+        given(historyRepository.findByDeviceId(1L, 20L, 3)).willReturn(List.of(entry(19), entry(12)));
+        given(historyRepository.findByDeviceId(1L, null, 3)).willReturn(List.of(entry(30), entry(25), entry(19)));
+
+        // When
+        DeviceHistoryResponseDto first = historyService.history(1L, null, 2);
+        DeviceHistoryResponseDto last = historyService.history(1L, 20L, 2);
+
+        // Then
+        assertThat(first.entries()).extracting(DeviceHistoryEntryDto::id).containsExactly(30L, 25L);
+        assertThat(first.next()).isEqualTo(25L);
+        assertThat(last.entries()).extracting(DeviceHistoryEntryDto::id).containsExactly(19L, 12L);
+        assertThat(last.next()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should cap the page size at the configured maximum")
+    void history_WithLargeSize_ShouldCapThePage() {
+        // Given
+        given(historyRepository.findByDeviceId(1L, null, 4)).willReturn(List.of(entry(4), entry(3), entry(2), entry(1)));
+
+        // When
+        DeviceHistoryResponseDto page = historyService.history(1L, null, 1000);
+
+        // Then
+        assertThat(page.entries()).hasSize(3);
+        assertThat(page.next()).isEqualTo(2L);
+    }
+}
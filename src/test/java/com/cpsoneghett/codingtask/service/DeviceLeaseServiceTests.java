@@ -0,0 +1,210 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceLeaseDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import com.cpsoneghett.codingtask.exception.DeviceUnavailableException;
+import com.cpsoneghett.codingtask.exception.InvalidLeaseDurationException;
+import com.cpsoneghett.codingtask.exception.LeaseNotHeldException;
+import com.cpsoneghett.codingtask.repository.BrandDictionary;
+import com.cpsoneghett.codingtask.repository.DeviceLeaseRepository;
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import com.cpsoneghett.codingtask.repository.ResolvedDeviceFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceLeaseServiceTests {
+
+    private final Long deviceId = 1L;
+    @Mock
+    private DeviceLeaseRepository leaseRepository;
+    @Mock
+    private DeviceRepository deviceRepository;
+    @Mock
+    private BrandDictionary brandDictionary;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private DeviceLeaseServiceImpl leaseService;
+    private Device device;
+
+    @BeforeEach
+    void setUp() {
+        leaseService = new DeviceLeaseServiceImpl(leaseRepository, deviceRepository, brandDictionary,
+                new LeaseProperties(Duration.ofMinutes(15), Duration.ofHours(8), 2), eventPublisher);
+
+        device = new Device("iPhone 15 Pro", "Apple", DeviceState.IN_USE);
+        device.setId(deviceId);
+    }
+
+    @Nested
+    @DisplayName("Checkout Tests")
+    class CheckoutTests {
+
+        @Test
+        @DisplayName("Should return the lease and publish an updated event when the device is available")
+        void checkout_WhenDeviceAvailable_ShouldReturnLease() {
+            // Given
+            given(leaseRepository.acquire(eq(deviceId), anyString(), any(LocalDateTime.class))).willReturn(true);
+            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+
+            // When
+            DeviceLeaseDto lease = leaseService.checkout(deviceId, null);
+
+            // Then
+            assertThat(lease.device()).isEqualTo(device);
+            assertThat(lease.leaseToken()).isNotBlank();
+            assertThat(lease.leaseExpiresAt()).isAfter(LocalDateTime.now().plusMinutes(14));
+            then(eventPublisher).should().publishEvent(new DeviceChangedEvent(DeviceChangedEvent.ChangeType.UPDATED, device));
+        }
+
+        @Test
+        @DisplayName("Should publish the updated event only once the transaction commits")
+        void checkout_InTransaction_ShouldPublishAfterCommit() {
+            // Given
+            given(leaseRepository.acquire(eq(deviceId), anyString(), any(LocalDateTime.class))).willReturn(true);
+            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            TransactionSynchronizationManager.initSynchronization();
+
+            try {
+                // When
+                leaseService.checkout(deviceId, null);
+
+                // Then
+                then(eventPublisher).should(never()).publishEvent(any());
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                then(eventPublisher).should().publishEvent(new DeviceChangedEvent(DeviceChangedEvent.ChangeType.UPDATED, device));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        @Test
+        @DisplayName("Should throw DeviceUnavailableException when the conditional update loses")
+        void checkout_WhenDeviceNotAvailable_ShouldThrowDeviceUnavailableException() {
+            // Given
+            given(leaseRepository.acquire(eq(deviceId), anyString(), any(LocalDateTime.class))).willReturn(false);
+            given(deviceRepository.existsById(deviceId)).willReturn(true);
+
+            // When / Then
+            assertThatThrownBy(() -> leaseService.checkout(deviceId, Duration.ofMinutes(5)))
+                    .isInstanceOf(DeviceUnavailableException.class);
+
+            then(eventPublisher).should(never()).publishEvent(any());
+        }
+
+        @Test
+        @DisplayName("Should throw DeviceNotFoundException when the device does not exist")
+        void checkout_WhenDeviceDoesNotExist_ShouldThrowDeviceNotFoundException() {
+            // Given
+            given(leaseRepository.acquire(eq(deviceId), anyString(), any(LocalDateTime.class))).willReturn(false);
+            given(deviceRepository.existsById(deviceId)).willReturn(false);
+
+            // When / Then
+            assertThatThrownBy(() -> leaseService.checkout(deviceId, null))
+                    .isInstanceOf(DeviceNotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject lease durations above the maximum without touching the device")
+        void checkout_WithTooLongLease_ShouldThrowInvalidLeaseDurationException() {
+            // When / Then
+            assertThatThrownBy(() -> leaseService.checkout(deviceId, Duration.ofHours(9)))
+                    .isInstanceOf(InvalidLeaseDurationException.class);
+
+            then(leaseRepository).should(never()).acquire(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should check out the device locked for the filter")
+        void checkoutAny_WhenDeviceAvailable_ShouldCheckOutLockedDevice() {
+            // Given
+            given(brandDictionary.namesContaining("app")).willReturn(List.of("Apple"));
+            given(leaseRepository.lockAvailable(new ResolvedDeviceFilter(List.of("Apple"), null))).willReturn(Optional.of(deviceId));
+            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+
+            // When
+            DeviceLeaseDto lease = leaseService.checkoutAny(new DeviceFilter("app", null), null);
+
+            // Then
+            assertThat(lease.device()).isEqualTo(device);
+            then(leaseRepository).should().acquire(eq(deviceId), eq(lease.leaseToken()), eq(lease.leaseExpiresAt()));
+        }
+
+        @Test
+        @DisplayName("Should throw DeviceUnavailableException when no device is available")
+        void checkoutAny_WhenNoDeviceAvailable_ShouldThrowDeviceUnavailableException() {
+            // Given
+            given(leaseRepository.lockAvailable(new ResolvedDeviceFilter(null, null))).willReturn(Optional.empty());
+
+            // When / Then
+            assertThatThrownBy(() -> leaseService.checkoutAny(new DeviceFilter(null, null), null))
+                    .isInstanceOf(DeviceUnavailableException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Checkin Tests")
+    class CheckinTests {
+
+        @Test
+        @DisplayName("Should throw LeaseNotHeldException when the token does not hold the device")
+        void checkin_WithWrongToken_ShouldThrowLeaseNotHeldException() {
+            // Given
+            given(leaseRepository.release(deviceId, "other")).willReturn(false);
+            given(deviceRepository.existsById(deviceId)).willReturn(true);
+
+            // When / Then
+            assertThatThrownBy(() -> leaseService.checkin(deviceId, "other"))
+                    .isInstanceOf(LeaseNotHeldException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Lease Expiry Tests")
+    class LeaseExpiryTests {
+
+        @Test
+        @DisplayName("Should release the locked expired leases and publish an event per device")
+        void releaseExpiredLeases_WithExpiredLeases_ShouldReleaseThem() {
+            // Given
+            Device other = new Device("Pixel 9", "Google", DeviceState.AVAILABLE);
+            other.setId(2L);
+            given(leaseRepository.lockExpired(any(LocalDateTime.class), eq(2))).willReturn(List.of(deviceId, 2L));
+            given(deviceRepository.findAllById(List.of(deviceId, 2L))).willReturn(List.of(device, other));
+
+            // When
+            int released = leaseService.releaseExpiredLeases();
+
+            // Then
+            assertThat(released).isEqualTo(2);
+            then(leaseRepository).should().releaseAll(List.of(deviceId, 2L));
+            then(eventPublisher).should().publishEvent(new DeviceChangedEvent(DeviceChangedEvent.ChangeType.UPDATED, other));
+        }
+    }
+}
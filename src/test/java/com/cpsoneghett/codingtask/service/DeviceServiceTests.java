@@ -1,6 +1,14 @@
 package com.cpsoneghett.codingtask.service;
 
+import com.cpsoneghett.codingtask.bulkhead.BulkheadProperties;
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.cache.DeviceIdFilter;
+import com.cpsoneghett.codingtask.cache.DeviceLookupCache;
+import com.cpsoneghett.codingtask.cache.LookupCacheProperties;
 import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceFilter;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
 import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
 import com.cpsoneghett.codingtask.domain.DeviceState;
 import com.cpsoneghett.codingtask.exception.DeviceInUseException;
@@ -11,6 +19,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonpatch.JsonPatch;
 import com.github.fge.jsonpatch.JsonPatchException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -18,10 +27,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -29,7 +49,10 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 
 @ExtendWith(MockitoExtension.class)
 class DeviceServiceTests {
@@ -39,6 +62,18 @@ class DeviceServiceTests {
     private DeviceRepository deviceRepository;
     @Mock
     private ObjectMapper objectMapper;
+    @Mock
+    private DeviceIdFilter deviceIdFilter;
+    @Spy
+    private DeviceLookupCache deviceLookupCache = new DeviceLookupCache(new SimpleMeterRegistry(),
+            new LookupCacheProperties(100, Duration.ofMinutes(1), null, Duration.ofMinutes(1), 100));
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private Bulkheads bulkheads = new Bulkheads(new BulkheadProperties(true, 1, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO),
+            10, new SimpleMeterRegistry());
+    @Spy
+    private RecordingTransactionManager transactionManager = new RecordingTransactionManager();
     @InjectMocks
     private DeviceServiceImpl deviceService;
     private Device device;
@@ -46,6 +81,8 @@ class DeviceServiceTests {
 
     @BeforeEach
     void setUp() {
+        lenient().when(deviceIdFilter.mightContain(any())).thenReturn(true);
+
         device = new Device("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
         device.setId(deviceId);
 
@@ -89,6 +126,66 @@ class DeviceServiceTests {
 
             then(deviceRepository).should().findById(deviceId);
         }
+
+        @Test
+        @DisplayName("Should throw DeviceNotFoundException without querying when the id filter rules the id out")
+        void findById_WhenIdFilterRulesOut_ShouldNotQueryRepository() {
+            // Given
+            given(deviceIdFilter.mightContain(deviceId)).willReturn(false);
+
+            // When / Then
+            assertThatThrownBy(() -> deviceService.findById(deviceId))
+                    .isInstanceOf(DeviceNotFoundException.class)
+                    .hasMessage(String.format("Device with id %s not found", deviceId));
+
+            then(deviceRepository).should(never()).findById(any());
+            then(bulkheads).should(never()).call(any(), any());
+            assertThat(transactionManager.begun).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("FindAllById Tests")
+    class FindAllByIdTests {
+
+        @Test
+        @DisplayName("Should return found devices in request order and list missing ids")
+        void findAllById_WithSomeMissingIds_ShouldReturnFoundAndMissing() {
+            // Given
+            Device other = new Device("Pixel 9", "Google", DeviceState.AVAILABLE);
+            other.setId(2L);
+            given(deviceIdFilter.mightContain(99L)).willReturn(false);
+            given(deviceRepository.findAllById(List.of(2L, deviceId, 3L))).willReturn(List.of(device, other));
+
+            // When
+            DeviceLookupResponseDto result = deviceService.findAllById(List.of(2L, deviceId, 99L, 3L, deviceId));
+
+            // Then
+            assertThat(result.devices()).containsExactly(other, device);
+            assertThat(result.missing()).containsExactly(99L, 3L);
+            then(deviceRepository).should().findAllById(List.of(2L, deviceId, 3L));
+        }
+
+        @Test
+        @DisplayName("Should serve cached devices and only query the others")
+        void findAllById_WithCachedIds_ShouldQueryOnlyTheOthers() {
+            // Given
+            Device other = new Device("Pixel 9", "Google", DeviceState.AVAILABLE);
+            other.setId(2L);
+            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findAllById(List.of(2L))).willReturn(List.of(other));
+            deviceService.findById(deviceId);
+
+            // When
+            DeviceLookupResponseDto result = deviceService.findAllById(List.of(2L, deviceId));
+            DeviceLookupResponseDto cached = deviceService.findAllById(List.of(deviceId, 2L));
+
+            // Then
+            assertThat(result.devices()).extracting(Device::getId).containsExactly(2L, deviceId);
+            assertThat(cached.devices()).extracting(Device::getId).containsExactly(deviceId, 2L);
+            then(deviceRepository).should().findAllById(List.of(2L));
+            then(bulkheads).should(times(2)).call(any(), any());
+        }
     }
 
     @Nested
@@ -111,6 +208,7 @@ class DeviceServiceTests {
             assertThat(result.getId()).isEqualTo(deviceId);
             assertThat(result.getName()).isEqualTo(deviceRequestDto.name());
             then(deviceRepository).should().save(any(Device.class));
+            then(eventPublisher).should().publishEvent(new DeviceChangedEvent(DeviceChangedEvent.ChangeType.CREATED, savedDevice));
         }
     }
 
@@ -118,18 +216,32 @@ class DeviceServiceTests {
     @DisplayName("Delete Tests")
     class DeleteTests {
 
+        @Test
+        @DisplayName("Should throw DeviceNotFoundException without a permit or a transaction when the id filter rules the id out")
+        void delete_WhenIdFilterRulesOut_ShouldNotOpenTransaction() {
+            // Given
+            given(deviceIdFilter.mightContain(deviceId)).willReturn(false);
+
+            // When / Then
+            assertThatThrownBy(() -> deviceService.delete(deviceId)).isInstanceOf(DeviceNotFoundException.class);
+
+            then(bulkheads).should(never()).call(any(), any());
+            assertThat(transactionManager.begun).isEmpty();
+            then(deviceRepository).shouldHaveNoInteractions();
+        }
+
         @Test
         @DisplayName("Should delete device when it is not in use")
         void delete_WhenDeviceIsNotInUse_ShouldDeleteSuccessfully() {
             // Given
             device.setState(DeviceState.AVAILABLE);
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
 
             // When
             deviceService.delete(deviceId);
 
             // Then
-            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).should().findForUpdateById(deviceId);
             then(deviceRepository).should().deleteById(deviceId);
         }
 
@@ -138,14 +250,14 @@ class DeviceServiceTests {
         void delete_WhenDeviceIsInUse_ShouldThrowDeviceInUseException() {
             // Given
             device.setState(DeviceState.IN_USE);
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
 
             // When / Then
             assertThatThrownBy(() -> deviceService.delete(deviceId))
                     .isInstanceOf(DeviceInUseException.class)
                     .hasMessageContaining(String.format("Device with id %s is being used. The device cannot be deleted. Change the current state of the device.", deviceId));
 
-            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).should().findForUpdateById(deviceId);
             then(deviceRepository).should(never()).deleteById(any(Long.class));
         }
     }
@@ -160,7 +272,7 @@ class DeviceServiceTests {
             // Given
             device.setState(DeviceState.AVAILABLE);
             DeviceRequestDto updateDto = new DeviceRequestDto("Galaxy S25", "Samsung", DeviceState.INACTIVE);
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
             given(deviceRepository.save(any(Device.class))).willAnswer(invocation -> invocation.getArgument(0));
 
             // When
@@ -170,7 +282,7 @@ class DeviceServiceTests {
             assertThat(updatedDevice.getName()).isEqualTo(updateDto.name());
             assertThat(updatedDevice.getBrand()).isEqualTo(updateDto.brand());
             assertThat(updatedDevice.getState()).isEqualTo(updateDto.state());
-            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).should().findForUpdateById(deviceId);
             then(deviceRepository).should().save(device);
         }
 
@@ -180,14 +292,14 @@ class DeviceServiceTests {
             // Given
             device.setState(DeviceState.IN_USE);
             DeviceRequestDto updateDto = new DeviceRequestDto("Different Name", device.getBrand(), device.getState());
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
 
             // When / Then
             assertThatThrownBy(() -> deviceService.update(deviceId, updateDto))
                     .isInstanceOf(DeviceInUseException.class)
                     .hasMessageContaining(String.format("Device with id %s is being used. These field(s) cannot be updated. Change the current state of the device.", deviceId));
 
-            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).should().findForUpdateById(deviceId);
             then(deviceRepository).should(never()).save(any(Device.class));
         }
 
@@ -197,14 +309,14 @@ class DeviceServiceTests {
             // Given
             device.setState(DeviceState.IN_USE);
             DeviceRequestDto updateDto = new DeviceRequestDto(device.getName(), "Different Brand", device.getState());
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
 
             // When / Then
             assertThatThrownBy(() -> deviceService.update(deviceId, updateDto))
                     .isInstanceOf(DeviceInUseException.class)
                     .hasMessageContaining(String.format("Device with id %s is being used. These field(s) cannot be updated. Change the current state of the device.", deviceId));
 
-            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).should().findForUpdateById(deviceId);
             then(deviceRepository).should(never()).save(any(Device.class));
         }
 
@@ -214,7 +326,7 @@ class DeviceServiceTests {
             // Given
             device.setState(DeviceState.IN_USE);
             DeviceRequestDto updateDto = new DeviceRequestDto(device.getName(), device.getBrand(), DeviceState.AVAILABLE);
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
             given(deviceRepository.save(any(Device.class))).willAnswer(invocation -> invocation.getArgument(0));
 
             // When
@@ -224,7 +336,7 @@ class DeviceServiceTests {
             assertThat(updatedDevice.getState()).isEqualTo(updateDto.state());
             assertThat(updatedDevice.getName()).isEqualTo(device.getName());
             assertThat(updatedDevice.getBrand()).isEqualTo(device.getBrand());
-            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).should().findForUpdateById(deviceId);
             then(deviceRepository).should().save(device);
         }
 
@@ -232,14 +344,14 @@ class DeviceServiceTests {
         @DisplayName("Should not call save when there are no changes")
         void update_WhenNoChanges_ShouldNotSave() {
             // Given
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
 
             // When
             Device result = deviceService.update(deviceId, deviceRequestDto);
 
             // Then
             assertThat(result).isEqualTo(device);
-            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).should().findForUpdateById(deviceId);
             then(deviceRepository).should(never()).save(any(Device.class));
         }
     }
@@ -260,7 +372,7 @@ class DeviceServiceTests {
             // Given
             Device patchedDevice = new Device("Patched Name", "Patched Brand", DeviceState.IN_USE);
 
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
             given(objectMapper.convertValue(device, JsonNode.class)).willReturn(deviceNode);
             given(jsonPatch.apply(deviceNode)).willReturn(patchedNode);
             given(objectMapper.treeToValue(patchedNode, Device.class)).willReturn(patchedDevice);
@@ -272,7 +384,7 @@ class DeviceServiceTests {
             // Then
             assertThat(result).isNotNull();
             assertThat(result.getName()).isEqualTo("Patched Name");
-            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).should().findForUpdateById(deviceId);
             then(deviceRepository).should().save(patchedDevice);
         }
 
@@ -280,13 +392,13 @@ class DeviceServiceTests {
         @DisplayName("Should throw DeviceNotFoundException when device not found")
         void partialUpdate_WhenDeviceNotFound_ShouldThrowDeviceNotFoundException() {
             // Given
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.empty());
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.empty());
 
             // When / Then
             assertThatThrownBy(() -> deviceService.partialUpdate(deviceId, jsonPatch))
                     .isInstanceOf(DeviceNotFoundException.class);
 
-            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).should().findForUpdateById(deviceId);
             then(deviceRepository).should(never()).save(any());
         }
 
@@ -294,7 +406,7 @@ class DeviceServiceTests {
         @DisplayName("Should propagate JsonPatchException on patch failure")
         void partialUpdate_WhenPatchFails_ShouldPropagateException() throws JsonPatchException {
             // Given
-            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
             given(objectMapper.convertValue(device, JsonNode.class)).willReturn(deviceNode);
             given(jsonPatch.apply(deviceNode)).willThrow(JsonPatchException.class);
 
@@ -303,4 +415,132 @@ class DeviceServiceTests {
                     .isInstanceOf(JsonPatchException.class);
         }
     }
+
+    @Nested
+    @DisplayName("Transaction Tests")
+    class TransactionTests {
+
+        @Test
+        @DisplayName("Should list a page with its count in one read-only transaction")
+        void findAll_ShouldRunInOneReadOnlyTransaction() {
+            // Given
+            DeviceFilter filter = new DeviceFilter("Apple", null);
+            PageRequest pageable = PageRequest.of(0, 20);
+            given(deviceRepository.filter(filter, pageable)).willReturn(new PageImpl<>(List.of(device), pageable, 1));
+
+            // When
+            Page<Device> page = deviceService.findAll(filter, pageable);
+
+            // Then
+            assertThat(page.getContent()).containsExactly(device);
+            assertThat(transactionManager.begun).containsExactly(true);
+            assertThat(transactionManager.commits).isEqualTo(1);
+            then(deviceRepository).should().filter(filter, pageable);
+            then(deviceRepository).shouldHaveNoMoreInteractions();
+        }
+
+        @Test
+        @DisplayName("Should load a device missing from the cache in one read-only transaction")
+        void findById_ShouldRunInOneReadOnlyTransaction() {
+            // Given
+            given(deviceRepository.findById(deviceId)).willReturn(Optional.of(device));
+
+            // When
+            deviceService.findById(deviceId);
+
+            // Then
+            assertThat(transactionManager.begun).containsExactly(true);
+            assertThat(transactionManager.commits).isEqualTo(1);
+            then(deviceRepository).should().findById(deviceId);
+            then(deviceRepository).shouldHaveNoMoreInteractions();
+        }
+
+        @Test
+        @DisplayName("Should read and write an update in one transaction and announce it once committed")
+        void update_ShouldReadAndWriteInOneTransaction() {
+            // Given
+            DeviceRequestDto updateDto = new DeviceRequestDto("Galaxy S25", "Samsung", DeviceState.INACTIVE);
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
+            given(deviceRepository.save(device)).willAnswer(invocation -> {
+                then(eventPublisher).shouldHaveNoInteractions();
+                return device;
+            });
+
+            // When
+            deviceService.update(deviceId, updateDto);
+
+            // Then
+            assertThat(transactionManager.begun).containsExactly(false);
+            assertThat(transactionManager.commits).isEqualTo(1);
+            var inOrder = inOrder(deviceRepository, eventPublisher);
+            inOrder.verify(deviceRepository).findForUpdateById(deviceId);
+            inOrder.verify(deviceRepository).save(device);
+            inOrder.verify(eventPublisher).publishEvent(new DeviceChangedEvent(DeviceChangedEvent.ChangeType.UPDATED, device, "Apple"));
+            then(deviceRepository).shouldHaveNoMoreInteractions();
+        }
+
+        @Test
+        @DisplayName("Should read and delete in one transaction and roll it back when the device is in use")
+        void delete_ShouldRunInOneTransaction() {
+            // Given
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
+
+            // When
+            deviceService.delete(deviceId);
+            device.setState(DeviceState.IN_USE);
+            assertThatThrownBy(() -> deviceService.delete(deviceId)).isInstanceOf(DeviceInUseException.class);
+
+            // Then
+            assertThat(transactionManager.begun).containsExactly(false, false);
+            assertThat(transactionManager.commits).isEqualTo(1);
+            assertThat(transactionManager.rollbacks).isEqualTo(1);
+            then(deviceRepository).should().deleteById(deviceId);
+        }
+
+        @Test
+        @DisplayName("Should roll back a partial update whose patch fails and announce nothing")
+        void partialUpdate_WhenPatchFails_ShouldRollBack(@Mock JsonPatch jsonPatch, @Mock JsonNode deviceNode) throws JsonPatchException {
+            // Given
+            given(deviceRepository.findForUpdateById(deviceId)).willReturn(Optional.of(device));
+            given(objectMapper.convertValue(device, JsonNode.class)).willReturn(deviceNode);
+            given(jsonPatch.apply(deviceNode)).willThrow(JsonPatchException.class);
+
+            // When / Then
+            assertThatThrownBy(() -> deviceService.partialUpdate(deviceId, jsonPatch)).isInstanceOf(JsonPatchException.class);
+            assertThat(transactionManager.begun).containsExactly(false);
+            assertThat(transactionManager.rollbacks).isEqualTo(1);
+            then(deviceRepository).should(never()).save(any());
+            then(eventPublisher).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Records the transactions begun, by whether they are read-only, and how they ended.
+     */
+    static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        final List<Boolean> begun = new ArrayList<>();
+        int commits;
+        int rollbacks;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            begun.add(definition.isReadOnly());
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+    }
 }
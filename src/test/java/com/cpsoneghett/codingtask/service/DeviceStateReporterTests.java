@@ -0,0 +1,132 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.bulkhead.BulkheadProperties;
+import com.cpsoneghett.codingtask.bulkhead.Bulkheads;
+import com.cpsoneghett.codingtask.cache.DeviceIdFilter;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.service.DeviceStateReporter.Outcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceStateReporterTests {
+
+    @Mock
+    private DeviceStateService stateService;
+    @Mock
+    private DeviceIdFilter idFilter;
+    private DeviceStateReporter reporter;
+
+    @BeforeEach
+    void setUp() {
+        reporter = new DeviceStateReporter(stateService, idFilter,
+                new StateReportProperties(Duration.ofSeconds(1), 2, 100, Duration.ofMinutes(1)),
+                new Bulkheads(new BulkheadProperties(false, 1, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO), 10,
+                        new SimpleMeterRegistry()), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should drop repeated reports and flush only the latest transition of each device")
+    void report_ShouldCoalesceTransitions() {
+        // Given
+        given(idFilter.mightContain(anyLong())).willReturn(true);
+        given(stateService.applyReportedStates(any())).willReturn(List.of());
+
+        // When
+        Outcome first = reporter.report(1L, DeviceState.INACTIVE);
+        Outcome repeated = reporter.report(1L, DeviceState.INACTIVE);
+        reporter.report(1L, DeviceState.AVAILABLE);
+        reporter.flush();
+        Outcome afterFlush = reporter.report(1L, DeviceState.AVAILABLE);
+        reporter.flush();
+
+        // Then
+        assertThat(first).isEqualTo(Outcome.CHANGED);
+        assertThat(repeated).isEqualTo(Outcome.UNCHANGED);
+        assertThat(afterFlush).isEqualTo(Outcome.UNCHANGED);
+        then(stateService).should(times(1)).applyReportedStates(Map.of(1L, DeviceState.AVAILABLE));
+    }
+
+    @Test
+    @DisplayName("Should flush in batches until the queue is empty")
+    void flush_ShouldApplyInBatches() {
+        // Given
+        given(idFilter.mightContain(anyLong())).willReturn(true);
+        given(stateService.applyReportedStates(any())).willReturn(List.of());
+        for (long id = 1; id <= 5; id++) reporter.report(id, DeviceState.INACTIVE);
+
+        // When
+        reporter.flush();
+
+        // Then
+        then(stateService).should(times(3)).applyReportedStates(any());
+        assertThat(reporter.pendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep transitions queued when applying them fails")
+    void flush_WhenApplyFails_ShouldRequeue() {
+        // Given
+        given(idFilter.mightContain(anyLong())).willReturn(true);
+        given(stateService.applyReportedStates(any())).willThrow(new IllegalStateException("Database unavailable"));
+        reporter.report(1L, DeviceState.INACTIVE);
+
+        // When
+        reporter.flush();
+
+        // Then
+        assertThat(reporter.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop reports of unknown devices")
+    void report_WhenDeviceUnknown_ShouldNotQueue() {
+        // Given
+        given(idFilter.mightContain(99L)).willReturn(false);
+
+        // When
+        Outcome outcome = reporter.report(99L, DeviceState.INACTIVE);
+        reporter.flush();
+
+        // Then
+        assertThat(outcome).isEqualTo(Outcome.UNKNOWN);
+        then(stateService).should(never()).applyReportedStates(any());
+    }
+
+    @Test
+    @DisplayName("Should take the state written through the service as the last known one")
+    void onDeviceChanged_ShouldReplaceLastKnownState() {
+        // Given
+        given(idFilter.mightContain(anyLong())).willReturn(true);
+        reporter.report(1L, DeviceState.INACTIVE);
+        Device device = new Device("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
+        device.setId(1L);
+
+        // When
+        reporter.onDeviceChanged(new DeviceChangedEvent(ChangeType.UPDATED, device));
+
+        // Then
+        assertThat(reporter.report(1L, DeviceState.AVAILABLE)).isEqualTo(Outcome.UNCHANGED);
+        assertThat(reporter.report(1L, DeviceState.INACTIVE)).isEqualTo(Outcome.CHANGED);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent.ChangeType;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.repository.DeviceRepository;
+import com.cpsoneghett.codingtask.repository.DeviceStateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceStateServiceTests {
+
+    @Mock
+    private DeviceStateRepository stateRepository;
+    @Mock
+    private DeviceRepository deviceRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private DeviceStateServiceImpl stateService;
+
+    @BeforeEach
+    void setUp() {
+        stateService = new DeviceStateServiceImpl(stateRepository, deviceRepository, eventPublisher);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("Should publish the changed devices only once the transaction commits")
+    void applyReportedStates_ShouldPublishAfterCommit() {
+        // Given
+        Device device = new Device("iPhone 15 Pro", "Apple", DeviceState.INACTIVE);
+        device.setId(1L);
+        given(stateRepository.applyReportedState(List.of(1L), DeviceState.INACTIVE)).willReturn(List.of(1L));
+        given(deviceRepository.findAllById(List.of(1L))).willReturn(List.of(device));
+
+        // When
+        List<Device> changed = stateService.applyReportedStates(Map.of(1L, DeviceState.INACTIVE));
+
+        // Then
+        assertThat(changed).containsExactly(device);
+        then(eventPublisher).should(never()).publishEvent(any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        then(eventPublisher).should().publishEvent(new DeviceChangedEvent(ChangeType.UPDATED, device));
+    }
+}
@@ -0,0 +1,115 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.domain.DeviceSyncResponseDto;
+import com.cpsoneghett.codingtask.domain.SyncPosition;
+import com.cpsoneghett.codingtask.exception.InvalidSyncTokenException;
+import com.cpsoneghett.codingtask.exception.SyncTokenExpiredException;
+import com.cpsoneghett.codingtask.repository.DeviceSyncRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceSyncServiceTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+    private static final LocalDateTime HORIZON = NOW.minusSeconds(5);
+
+    @Mock
+    private DeviceSyncRepository syncRepository;
+    private DeviceSyncServiceImpl syncService;
+
+    @BeforeEach
+    void setUp() {
+        syncService = new DeviceSyncServiceImpl(syncRepository, new SyncProperties(Duration.ofSeconds(5), Duration.ofDays(7), 3, 100));
+    }
+
+    private static Device device(long id, LocalDateTime updatedAt) {
+        Device device = new Device("Device " + id, "Apple", DeviceState.AVAILABLE);
+        device.setId(id);
+        device.setUpdatedAt(updatedAt);
+        return device;
+    }
+
+    @Test
+    @DisplayName("Should merge changes and deletions in position order and continue after the last one returned")
+    void changesSince_WhenMoreThanAPage_ShouldReturnTokenOfLastEntry() {
+        // Given
+        SyncPosition since = new SyncPosition(NOW.minusHours(1), 0);
+        given(syncRepository.now()).willReturn(NOW);
+        given(syncRepository.findChangedAfter(since, HORIZON, 4)).willReturn(List.of(
+                device(7, NOW.minusMinutes(30)), device(2, NOW.minusMinutes(10)), device(9, NOW.minusMinutes(5))));
+        given(syncRepository.findDeletedAfter(since, HORIZON, 4)).willReturn(List.of(new SyncPosition(NOW.minusMinutes(20), 4)));
+
+        // When
+        DeviceSyncResponseDto response = syncService.changesSince(since.encode(), 10);
+
+        // Then
+        assertThat(response.changed()).extracting(Device::getId).containsExactly(7L, 2L);
+        assertThat(response.deleted()).containsExactly(4L);
+        assertThat(response.hasMore()).isTrue();
+        assertThat(SyncPosition.decode(response.token())).isEqualTo(new SyncPosition(NOW.minusMinutes(10), 2));
+    }
+
+    @Test
+    @DisplayName("Should move the token to the horizon when nothing more is ready")
+    void changesSince_WhenCaughtUp_ShouldReturnTokenAtHorizon() {
+        // Given
+        SyncPosition since = new SyncPosition(NOW.minusDays(6), 0);
+        given(syncRepository.now()).willReturn(NOW);
+        given(syncRepository.findChangedAfter(since, HORIZON, 4)).willReturn(List.of());
+        given(syncRepository.findDeletedAfter(since, HORIZON, 4)).willReturn(List.of());
+
+        // When
+        DeviceSyncResponseDto response = syncService.changesSince(since.encode(), 3);
+
+        // Then
+        assertThat(response.changed()).isEmpty();
+        assertThat(response.hasMore()).isFalse();
+        assertThat(SyncPosition.decode(response.token())).isEqualTo(new SyncPosition(HORIZON, 0));
+    }
+
+    @Test
+    @DisplayName("Should list every device and no deletions on a first sync")
+    void changesSince_WithoutToken_ShouldStartFromTheBeginning() {
+        // Given
+        given(syncRepository.now()).willReturn(NOW);
+        given(syncRepository.findChangedAfter(SyncPosition.START, HORIZON, 4)).willReturn(List.of(device(1, NOW.minusDays(30))));
+
+        // When
+        DeviceSyncResponseDto response = syncService.changesSince(null, 3);
+
+        // Then
+        assertThat(response.changed()).extracting(Device::getId).containsExactly(1L);
+        then(syncRepository).should(never()).findDeletedAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should reject tokens older than the tombstone retention and tokens it did not issue")
+    void changesSince_WithOldOrInvalidToken_ShouldThrow() {
+        // Given
+        given(syncRepository.now()).willReturn(NOW);
+        String expired = new SyncPosition(NOW.minusDays(8), 0).encode();
+
+        // When / Then
+        assertThatThrownBy(() -> syncService.changesSince(expired, 10)).isInstanceOf(SyncTokenExpiredException.class);
+        assertThatThrownBy(() -> syncService.changesSince("not-a-token", 10)).isInstanceOf(InvalidSyncTokenException.class);
+    }
+}
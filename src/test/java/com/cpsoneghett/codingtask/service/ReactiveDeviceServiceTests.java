@@ -0,0 +1,201 @@
+package com.cpsoneghett.codingtask.service;
+
+import com.cpsoneghett.codingtask.cache.DeviceIdFilter;
+import com.cpsoneghett.codingtask.domain.Device;
+import com.cpsoneghett.codingtask.domain.DeviceChangedEvent;
+import com.cpsoneghett.codingtask.domain.DeviceLookupResponseDto;
+import com.cpsoneghett.codingtask.domain.DeviceRequestDto;
+import com.cpsoneghett.codingtask.domain.DeviceState;
+import com.cpsoneghett.codingtask.exception.DeviceInUseException;
+import com.cpsoneghett.codingtask.exception.DeviceNotFoundException;
+import com.cpsoneghett.codingtask.repository.ReactiveDeviceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveDeviceServiceTests {
+
+    private final Long deviceId = 1L;
+    @Mock
+    private ReactiveDeviceRepository deviceRepository;
+    @Mock
+    private ObjectMapper objectMapper;
+    @Mock
+    private DeviceIdFilter deviceIdFilter;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @InjectMocks
+    private ReactiveDeviceServiceImpl deviceService;
+    private Device device;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(deviceIdFilter.mightContain(any())).thenReturn(true);
+
+        device = new Device("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE);
+        device.setId(deviceId);
+    }
+
+    @Nested
+    @DisplayName("FindById Tests")
+    class FindByIdTests {
+
+        @Test
+        @DisplayName("Should signal DeviceNotFoundException when device not found")
+        void findById_WhenDeviceDoesNotExist_ShouldSignalDeviceNotFoundException() {
+            // Given
+            given(deviceRepository.findById(deviceId)).willReturn(Mono.empty());
+
+            // When / Then
+            assertThatThrownBy(() -> deviceService.findById(deviceId).block())
+                    .isInstanceOf(DeviceNotFoundException.class)
+                    .hasMessage(String.format("Device with id %s not found", deviceId));
+        }
+    }
+
+    @Nested
+    @DisplayName("FindAllById Tests")
+    class FindAllByIdTests {
+
+        @Test
+        @DisplayName("Should return found devices in request order and list missing ids")
+        void findAllById_WithSomeMissingIds_ShouldReturnFoundAndMissing() {
+            // Given
+            Device other = new Device("Pixel 9", "Google", DeviceState.AVAILABLE);
+            other.setId(2L);
+            given(deviceIdFilter.mightContain(99L)).willReturn(false);
+            given(deviceRepository.findAllById(List.of(2L, deviceId, 3L))).willReturn(Flux.just(device, other));
+
+            // When
+            DeviceLookupResponseDto result = deviceService.findAllById(List.of(2L, deviceId, 99L, 3L, deviceId)).block();
+
+            // Then
+            assertThat(result.devices()).containsExactly(other, device);
+            assertThat(result.missing()).containsExactly(99L, 3L);
+        }
+    }
+
+    @Nested
+    @DisplayName("Save Tests")
+    class SaveTests {
+
+        @Test
+        @DisplayName("Should insert the device and publish a created event")
+        void save_WithValidDto_ShouldInsertAndPublishEvent() {
+            // Given
+            given(deviceRepository.insert(any(Device.class))).willReturn(Mono.just(device));
+
+            // When
+            Device savedDevice = deviceService.save(new DeviceRequestDto("iPhone 15 Pro", "Apple", DeviceState.AVAILABLE)).block();
+
+            // Then
+            assertThat(savedDevice).isEqualTo(device);
+            then(eventPublisher).should().publishEvent(new DeviceChangedEvent(DeviceChangedEvent.ChangeType.CREATED, device));
+        }
+    }
+
+    @Nested
+    @DisplayName("Delete Tests")
+    class DeleteTests {
+
+        @Test
+        @DisplayName("Should signal DeviceInUseException and keep the device when it is in use")
+        void delete_WhenDeviceInUse_ShouldSignalDeviceInUseException() {
+            // Given
+            device.setState(DeviceState.IN_USE);
+            given(deviceRepository.findById(deviceId)).willReturn(Mono.just(device));
+
+            // When / Then
+            assertThatThrownBy(() -> deviceService.delete(deviceId).block())
+                    .isInstanceOf(DeviceInUseException.class);
+
+            then(deviceRepository).should(never()).delete(any());
+        }
+
+        @Test
+        @DisplayName("Should read the device again when it changed before the delete, and refuse it once it is in use")
+        void delete_WhenDeviceTakenIntoUseMeanwhile_ShouldSignalDeviceInUseException() {
+            // Given
+            Device inUse = new Device("iPhone 15 Pro", "Apple", DeviceState.IN_USE);
+            inUse.setId(deviceId);
+            given(deviceRepository.findById(deviceId)).willReturn(Mono.just(device)).willReturn(Mono.just(inUse));
+            given(deviceRepository.delete(device)).willReturn(Mono.just(false));
+
+            // When / Then
+            assertThatThrownBy(() -> deviceService.delete(deviceId).block())
+                    .isInstanceOf(DeviceInUseException.class);
+
+            then(deviceRepository).should(never()).delete(inUse);
+            then(eventPublisher).should(never()).publishEvent(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Update Tests")
+    class UpdateTests {
+
+        @Test
+        @DisplayName("Should signal DeviceInUseException when renaming a device in use")
+        void update_WhenRenamingDeviceInUse_ShouldSignalDeviceInUseException() {
+            // Given
+            device.setState(DeviceState.IN_USE);
+            given(deviceRepository.findById(deviceId)).willReturn(Mono.just(device));
+
+            // When / Then
+            assertThatThrownBy(() -> deviceService.update(deviceId, new DeviceRequestDto("iPhone 16", "Apple", DeviceState.IN_USE)).block())
+                    .isInstanceOf(DeviceInUseException.class);
+
+            then(deviceRepository).should(never()).update(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should signal DeviceNotFoundException when the device is deleted before the update lands")
+        void update_WhenDeviceDeletedMeanwhile_ShouldSignalDeviceNotFoundException() {
+            // Given
+            given(deviceRepository.findById(deviceId)).willReturn(Mono.just(device)).willReturn(Mono.empty());
+            given(deviceRepository.update(any(Device.class), any(Device.class))).willReturn(Mono.just(false));
+
+            // When / Then
+            assertThatThrownBy(() -> deviceService.update(deviceId, new DeviceRequestDto("iPhone 16", "Apple", DeviceState.AVAILABLE)).block())
+                    .isInstanceOf(DeviceNotFoundException.class);
+
+            then(eventPublisher).should(never()).publishEvent(any());
+        }
+
+        @Test
+        @DisplayName("Should write over the row as read and publish the previous brand")
+        void update_WhenRowUnchanged_ShouldUpdateAndPublishEvent() {
+            // Given
+            given(deviceRepository.findById(deviceId)).willReturn(Mono.just(device));
+            given(deviceRepository.update(any(Device.class), any(Device.class))).willReturn(Mono.just(true));
+
+            // When
+            Device updated = deviceService.update(deviceId, new DeviceRequestDto("Pixel 9", "Google", DeviceState.AVAILABLE)).block();
+
+            // Then
+            assertThat(updated.getBrand()).isEqualTo("Google");
+            then(deviceRepository).should().update(updated, device);
+            then(eventPublisher).should().publishEvent(new DeviceChangedEvent(DeviceChangedEvent.ChangeType.UPDATED, updated, "Apple"));
+        }
+    }
+}
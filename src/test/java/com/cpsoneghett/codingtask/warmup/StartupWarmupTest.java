@@ -0,0 +1,53 @@
+package com.cpsoneghett.codingtask.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class StartupWarmupTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @SuppressWarnings("unchecked")
+    private StartupWarmup warmup(Duration timeout, int iterations) {
+        return new StartupWarmup(new WarmupProperties(true, timeout, iterations), mock(ObjectProvider.class),
+                new ObjectMapper().findAndRegisterModules(), new MockEnvironment(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should run the steps that apply and time each of them")
+    void warmUp_ShouldRecordTheStepsAndTheTotal() {
+        // When
+        boolean completed = warmup(Duration.ofSeconds(30), 100).warmUp();
+
+        // Then
+        assertThat(completed).isTrue();
+        assertThat(meterRegistry.get("device.warmup").tag("result", "completed").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("device.warmup.step").timers()).extracting(timer -> timer.getId().getTag("step"))
+                .containsExactlyInAnyOrder("connections", "reads", "json-patch");
+    }
+
+    @Test
+    @DisplayName("Should give up at the timeout and stop the step still running")
+    void warmUp_WhenSlowerThanTheTimeout_ShouldReturnAtTheTimeout() {
+        // Given
+        StartupWarmup warmup = warmup(Duration.ofMillis(100), Integer.MAX_VALUE);
+
+        // When
+        long startedAt = System.nanoTime();
+        boolean completed = warmup.warmUp();
+
+        // Then
+        assertThat(completed).isFalse();
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofSeconds(5));
+        assertThat(meterRegistry.get("device.warmup").tag("result", "timed-out").timer().count()).isEqualTo(1);
+    }
+}